@@ -10,6 +10,7 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 
 import ch.epfl.isochrone.timetable.Date;
+import ch.epfl.isochrone.timetable.FastestPathAlgorithm;
 import ch.epfl.isochrone.timetable.FastestPathTree;
 import ch.epfl.isochrone.timetable.Graph;
 import ch.epfl.isochrone.timetable.SecondsPastMidnight;
@@ -33,6 +34,7 @@ public class TimeTableSearch {
      *              1. Le nom de l'arrêt de départ <br/>
      *              2. La date de départ, composée de trois nombres séparés par un tiret (-) et qui représentent respectivement l'année, le mois et le jour (p.ex. 2013-10-1 pour le 1er octobre 2013) <br/>
      *              3. L'heure de départ, composée de trois nombres séparés par un double point (:) et représentant respectivement l'heure, les minutes et les secondes de l'heure de départ (p.ex. 6:8:0 pour 6h08 précises) <br/>
+     *              4. (Facultatif) L'algorithme de recherche: dijkstra (par défaut), raptor, csa ou profile_csa <br/>
      */
     public static void main(String[] args) throws IOException{
         //Le nom est le premier argument
@@ -46,6 +48,9 @@ public class TimeTableSearch {
         String[] timeString = args[2].split(":");
         int time = fromHMS(Integer.parseInt(timeString[0]), Integer.parseInt(timeString[1]), Integer.parseInt(timeString[2]));
 
+        //L'algorithme de recherche est le 4eme, facultatif
+        FastestPathAlgorithm algorithm = (args.length > 3) ? FastestPathAlgorithm.valueOf(args[3].toUpperCase()) : FastestPathAlgorithm.DIJKSTRA;
+
         //Créer un TimeTableReader
         TimeTableReader reader = new TimeTableReader("/time-table/");
 
@@ -69,8 +74,8 @@ public class TimeTableSearch {
         //Création d'un Graph avec les données récoltées
         Graph graph = reader.readGraphForServices(stops, services, 300, 1.25);  //300 correspond à 5min
 
-        //Utilisation du Graph pour obtenir le fastestPathTree
-        FastestPathTree tree = graph.fastestPaths(startingStop, time);
+        //Utilisation de l'algorithme choisi sur le Graph pour obtenir le fastestPathTree
+        FastestPathTree tree = algorithm.finderFor(graph).fastestPaths(startingStop, time);
         
         //Convertit la collection des stops de tree vers un tableau de Stop
         Stop[] treeStopsSorted = tree.stops().toArray(new Stop[0]);
@@ -18,7 +18,7 @@ import static java.lang.Math.toDegrees;
  * @author Lois Talagrand (234231)
  */
 public final class PointWGS84 {
-    private static final int EARTH_RADIUS = 6378137;
+    static final int EARTH_RADIUS = 6378137;
     private final double latitude;
     private final double longitude;
     
@@ -0,0 +1,218 @@
+package ch.epfl.isochrone.geo;
+
+import static java.lang.Math.PI;
+import static java.lang.Math.cos;
+import static java.lang.Math.floor;
+import static java.lang.Math.min;
+import static java.lang.Math.sin;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Modélise un index spatial d'une liste de points WGS 84, permettant de trouver rapidement les points situés à moins d'une distance donnée d'un point.
+ * <br/>
+ * Les points sont projetés sur la sphère unité (coordonnées cartésiennes x, y, z) et rangés dans une grille uniforme de cubes dont le côté
+ * est la corde correspondant à la distance maximale de recherche: les points à moins de cette distance d'un point se trouvent donc forcément
+ * dans l'un des 27 cubes qui entourent le sien. Contrairement à une grille en longitude et latitude, celle-ci n'a de problème ni aux pôles
+ * ni de part et d'autre de l'antiméridien. Seuls les candidats des cubes voisins sont comparés à l'aide de PointWGS84.distanceTo,
+ * si bien que les points trouvés sont exactement ceux qu'une comparaison de toutes les paires aurait donnés.
+ * <br/>
+ * L'index est immuable et peut être interrogé par plusieurs fils d'exécution à la fois.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class SpatialGrid {
+    // Nombre maximum de cubes par axe, pour que l'identifiant d'un cube tienne dans un long
+    private static final int MAX_CELLS_PER_AXIS = 1 << 20;
+    // Marges relative et absolue ajoutées à la corde, pour qu'aucun point ne soit écarté à cause des erreurs d'arrondi: les candidats sont ensuite vérifiés exactement
+    private static final double CHORD_MARGIN = 1e-6;
+    private static final double CHORD_EPSILON = 1e-12;
+
+    private final PointWGS84[] points;
+    private final double maxDistance;
+
+    /* Représentation de la grille:
+
+         coordonnées du point i      : xs[i], ys[i], zs[i] sur la sphère unité
+         cubes non vides             : cellKeys, triés par identifiant croissant
+         points du cube cellKeys[c]  : cellPoints[cellOffsets[c]] ... cellPoints[cellOffsets[c+1] - 1], par index croissant
+    */
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    private final double cellSize;
+    private final int cellsPerAxis;
+    private final long[] cellKeys;
+    private final int[] cellOffsets;
+    private final int[] cellPoints;
+
+    /**
+     * Construit l'index des points donnés, permettant de rechercher les points situés à moins de la distance maximale donnée d'un point.
+     * Les points sont identifiés par leur index dans la liste.
+     *
+     * @param points Les points.
+     * @param maxDistance La distance maximale des recherches (en mètres).
+     * @throws IllegalArgumentException Si la distance maximale est négative.
+     */
+    public SpatialGrid(List<PointWGS84> points, double maxDistance){
+        if(!(maxDistance >= 0)){
+            throw new IllegalArgumentException("La distance maximale (=" + maxDistance + ") est négative.");
+        }
+        this.points = points.toArray(new PointWGS84[points.size()]);
+        this.maxDistance = maxDistance;
+
+        int numberOfPoints = this.points.length;
+        xs = new double[numberOfPoints];
+        ys = new double[numberOfPoints];
+        zs = new double[numberOfPoints];
+        for(int i = 0; i < numberOfPoints; ++i){
+            PointWGS84 point = this.points[i];
+            xs[i] = cos(point.latitude()) * cos(point.longitude());
+            ys[i] = cos(point.latitude()) * sin(point.longitude());
+            zs[i] = sin(point.latitude());
+        }
+
+        // Les coordonnées sont dans [-1; 1]: la grille compte au plus MAX_CELLS_PER_AXIS cubes par axe
+        cellSize = Math.max(maxChord(maxDistance), 2d / MAX_CELLS_PER_AXIS);
+        cellsPerAxis = (int) Math.min(MAX_CELLS_PER_AXIS, Math.ceil(2d / cellSize));
+
+        // Identifiant du cube de chaque point, puis identifiants distincts triés
+        long[] pointKeys = new long[numberOfPoints];
+        for(int i = 0; i < numberOfPoints; ++i){
+            pointKeys[i] = cellKey(cell(xs[i]), cell(ys[i]), cell(zs[i]));
+        }
+        long[] sortedKeys = pointKeys.clone();
+        Arrays.sort(sortedKeys);
+        int numberOfCells = 0;
+        for(int i = 0; i < numberOfPoints; ++i){
+            if(i == 0 || sortedKeys[i] != sortedKeys[i - 1]){
+                sortedKeys[numberOfCells++] = sortedKeys[i];
+            }
+        }
+        cellKeys = Arrays.copyOf(sortedKeys, numberOfCells);
+
+        // Rangement des points par cube (tri par dénombrement: les points de chaque cube restent par index croissant)
+        int[] cellOfPoint = new int[numberOfPoints];
+        cellOffsets = new int[numberOfCells + 1];
+        for(int i = 0; i < numberOfPoints; ++i){
+            cellOfPoint[i] = Arrays.binarySearch(cellKeys, pointKeys[i]);
+            ++cellOffsets[cellOfPoint[i] + 1];
+        }
+        for(int c = 0; c < numberOfCells; ++c){
+            cellOffsets[c + 1] += cellOffsets[c];
+        }
+        cellPoints = new int[numberOfPoints];
+        int[] nextPosition = Arrays.copyOf(cellOffsets, numberOfCells);
+        for(int i = 0; i < numberOfPoints; ++i){
+            cellPoints[nextPosition[cellOfPoint[i]]++] = i;
+        }
+    }
+
+    /**
+     * Retourne le nombre de points de l'index.
+     *
+     * @return Le nombre de points.
+     */
+    public int size(){
+        return points.length;
+    }
+
+    /**
+     * Retourne la distance maximale des recherches (en mètres).
+     *
+     * @return La distance maximale des recherches.
+     */
+    public double maxDistance(){
+        return maxDistance;
+    }
+
+    /**
+     * Retourne les index, par ordre croissant, des points dont la distance (PointWGS84.distanceTo) au point donné est strictement inférieure
+     * à la distance donnée.
+     *
+     * @param point Le point.
+     * @param distance La distance (en mètres).
+     * @throws IllegalArgumentException Si la distance est négative ou plus grande que la distance maximale de l'index.
+     * @return Les index des points situés à moins de la distance donnée du point.
+     */
+    public int[] indicesWithin(PointWGS84 point, double distance){
+        if(!(distance >= 0) || distance > maxDistance){
+            throw new IllegalArgumentException("La distance (=" + distance + ") ne fait pas partie de l'intervalle [0; " + maxDistance + "].");
+        }
+
+        double x = cos(point.latitude()) * cos(point.longitude());
+        double y = cos(point.latitude()) * sin(point.longitude());
+        double z = sin(point.latitude());
+        double chord = maxChord(distance);
+        double squaredChord = chord * chord;
+        int cellX = cell(x);
+        int cellY = cell(y);
+        int cellZ = cell(z);
+
+        int[] indices = new int[16];
+        int numberOfIndices = 0;
+        for(int cx = Math.max(0, cellX - 1); cx <= Math.min(cellsPerAxis - 1, cellX + 1); ++cx){
+            for(int cy = Math.max(0, cellY - 1); cy <= Math.min(cellsPerAxis - 1, cellY + 1); ++cy){
+                for(int cz = Math.max(0, cellZ - 1); cz <= Math.min(cellsPerAxis - 1, cellZ + 1); ++cz){
+                    int c = Arrays.binarySearch(cellKeys, cellKey(cx, cy, cz));
+                    if(c < 0){
+                        continue;
+                    }
+                    for(int p = cellOffsets[c]; p < cellOffsets[c + 1]; ++p){
+                        int i = cellPoints[p];
+                        double dx = xs[i] - x;
+                        double dy = ys[i] - y;
+                        double dz = zs[i] - z;
+
+                        // La corde écarte les points trop lointains sans trigonométrie, la distance exacte décide pour les autres
+                        if(dx*dx + dy*dy + dz*dz <= squaredChord && point.distanceTo(points[i]) < distance){
+                            if(numberOfIndices == indices.length){
+                                indices = Arrays.copyOf(indices, 2 * numberOfIndices);
+                            }
+                            indices[numberOfIndices++] = i;
+                        }
+                    }
+                }
+            }
+        }
+
+        int[] result = Arrays.copyOf(indices, numberOfIndices);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Retourne la longueur de la corde de la sphère unité correspondant à la distance donnée sur la Terre, augmentée d'une marge de sécurité.
+     *
+     * @param distance La distance (en mètres).
+     * @return La longueur de la corde (sans unité).
+     */
+    private static double maxChord(double distance){
+        double halfAngle = min(distance / (2d * PointWGS84.EARTH_RADIUS), PI / 2);
+        return 2 * sin(halfAngle) * (1 + CHORD_MARGIN) + CHORD_EPSILON;
+    }
+
+    /**
+     * Retourne l'index, selon un axe, du cube contenant la coordonnée donnée.
+     *
+     * @param coordinate La coordonnée, dans [-1; 1].
+     * @return L'index du cube, dans [0; cellsPerAxis[.
+     */
+    private int cell(double coordinate){
+        return (int) Math.max(0, Math.min(cellsPerAxis - 1, floor((coordinate + 1) / cellSize)));
+    }
+
+    /**
+     * Retourne l'identifiant du cube d'index donnés selon les trois axes.
+     *
+     * @param cx L'index selon l'axe x.
+     * @param cy L'index selon l'axe y.
+     * @param cz L'index selon l'axe z.
+     * @return L'identifiant du cube.
+     */
+    private long cellKey(int cx, int cy, int cz){
+        return ((long) cx * cellsPerAxis + cy) * cellsPerAxis + cz;
+    }
+}
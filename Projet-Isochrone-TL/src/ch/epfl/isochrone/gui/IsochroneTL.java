@@ -21,6 +21,7 @@ import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.Vector;
@@ -52,13 +53,17 @@ import ch.epfl.isochrone.tiledmap.TileProvider;
 import ch.epfl.isochrone.tiledmap.TransparentTileProvider;
 import ch.epfl.isochrone.timetable.Date;
 import ch.epfl.isochrone.timetable.Date.Month;
+import ch.epfl.isochrone.timetable.FastestPathAlgorithm;
+import ch.epfl.isochrone.timetable.FastestPathFinder;
 import ch.epfl.isochrone.timetable.FastestPathTree;
+import ch.epfl.isochrone.timetable.FinderCache;
 import ch.epfl.isochrone.timetable.Graph;
 import ch.epfl.isochrone.timetable.SecondsPastMidnight;
 import ch.epfl.isochrone.timetable.Service;
 import ch.epfl.isochrone.timetable.Stop;
 import ch.epfl.isochrone.timetable.TimeTable;
 import ch.epfl.isochrone.timetable.TimeTableReader;
+import ch.epfl.isochrone.timetable.WalkingParameters;
 
 /**
  * Modélise la classe principale du programme. 
@@ -76,7 +81,11 @@ public final class IsochroneTL {
     private static final Date INITIAL_DATE = new Date(1, Month.OCTOBER, 2013);
     private static final int WALKING_TIME = 5 * 60;
     private static final double WALKING_SPEED = 1.25;
+    private static final WalkingParameters ACCESS_WALKING = new WalkingParameters(WALKING_TIME, WALKING_SPEED); // Marche d'un lieu cliqué jusqu'aux arrêts proches
     private static final double ALPHA_TRANSPARENCY = 0.5;
+    private static final int FINDER_CACHE_SIZE = 16;
+    private static final int PREWARMED_DAYS = 7;
+    private static final FastestPathAlgorithm INITIAL_ALGORITHM = FastestPathAlgorithm.PROFILE_CSA; // Changer l'heure de départ dans la fenêtre du profil ne relance aucune recherche
     
     private final TiledMapComponent tiledMapComponent;
     private final TileProvider tileProviderOSM;
@@ -85,12 +94,20 @@ public final class IsochroneTL {
     private final TimeTable timeTable;
     private final TimeTableReader timeTableReader;
     private final Set<Stop> stops;
+    private final Graph allServicesGraph;
+    private final FinderCache finderCache;
     
     private Date  currentDate = INITIAL_DATE;
     private int   currentDepartureTime = INITIAL_DEPARTURE_TIME;
     private Stop  currentStartingStop;
+    private PointWGS84 currentStartingPoint; // Lieu de départ cliqué sur la carte, null si le départ est l'arrêt courant
+    private Map<Stop, Integer> currentStartingTimes; // Heures d'arrivée à pied aux arrêts proches du lieu de départ, null si le départ est l'arrêt courant
     private Set<Service> currentServices;
     private Graph currentGraph;
+    private FastestPathAlgorithm currentAlgorithm = INITIAL_ALGORITHM;
+    private FastestPathFinder currentFinder;
+    
+    private JComboBox<FastestPathAlgorithm> algorithmBox;
     
     private Point mouseLocationOnScreenSaved;
     
@@ -104,6 +121,9 @@ public final class IsochroneTL {
         timeTableReader = new TimeTableReader("/time-table/");
         timeTable = timeTableReader.readTimeTable();
         stops = java.util.Collections.unmodifiableSet(timeTable.stops());
+        // Le graphe de tous les services est lu une seule fois: le graphe d'une date n'en est qu'une vue (voir updateServicesAndGraph)
+        allServicesGraph = timeTableReader.readGraphForAllServices(stops, WALKING_TIME, WALKING_SPEED);
+        finderCache = new FinderCache(allServicesGraph, FINDER_CACHE_SIZE);
 
         //On associe le nom du Stop donné au programme avec le bon stop
         for(Stop stop : stops){
@@ -141,17 +161,39 @@ public final class IsochroneTL {
     
     /**
      * Met à jour la carte isochrone avec le nouvel arrêt de départ spécifié en paramètre. La mise à jour est effectuée si le nouvel 
-     * arrêt de départ est différent de l'arrêt de départ courant.
+     * arrêt de départ est différent de l'arrêt de départ courant, ou si le départ était un lieu cliqué sur la carte.
      * 
      * @param newStop Le nouvel arrêt de départ.
      */
     private void setStop(Stop newStop){
         
-        if(newStop.equals(currentStartingStop)){
+        if(newStop.equals(currentStartingStop) && currentStartingPoint == null){
             return;
         }
         
         currentStartingStop = newStop;
+        currentStartingPoint = null;
+        currentStartingTimes = null;
+        updateAlgorithmBox();
+        updateTreeAndDrawMap();
+    }
+
+    /**
+     * Met à jour la carte isochrone avec le nouveau lieu de départ spécifié en paramètre, p.ex. une position cliquée sur la carte:
+     * les trajets partent à pied du lieu vers les arrêts proches. Le lieu est ignoré s'il n'y a aucun arrêt à distance de marche.
+     * 
+     * @param newPoint Le nouveau lieu de départ.
+     */
+    private void setStartingPoint(PointWGS84 newPoint){
+        
+        Map<Stop, Integer> newStartingTimes = currentGraph.startingTimes(newPoint, currentDepartureTime, ACCESS_WALKING);
+        if(newStartingTimes.isEmpty()){
+            return;
+        }
+        
+        currentStartingPoint = newPoint;
+        currentStartingTimes = newStartingTimes;
+        updateAlgorithmBox();
         updateTreeAndDrawMap();
     }
 
@@ -197,28 +239,64 @@ public final class IsochroneTL {
             currentDepartureTime = newDepartureTime;
         }
         
+        // Les heures d'arrivée à pied aux arrêts proches du lieu de départ dépendent de l'heure de départ
+        if(currentStartingPoint != null){
+            currentStartingTimes = currentGraph.startingTimes(currentStartingPoint, currentDepartureTime, ACCESS_WALKING);
+        }
+        
+        updateTreeAndDrawMap();
+    }
+    
+    /**
+     * Met à jour la carte isochrone en utilisant le nouvel algorithme de recherche spécifié en paramètre. La mise à jour est effectuée si le nouvel
+     * algorithme est différent de l'algorithme courant. Tous les algorithmes donnent la même carte, seule la durée du calcul change.
+     * 
+     * @param newAlgorithm Le nouvel algorithme de recherche.
+     */
+    private void setAlgorithm(FastestPathAlgorithm newAlgorithm){
+        
+        if(newAlgorithm == currentAlgorithm){
+            return;
+        }
+        
+        currentAlgorithm = newAlgorithm;
+        currentFinder = finderCache.finderFor(currentAlgorithm, currentServices);
+        finderCache.prewarm(currentAlgorithm, timeTable, currentDate.relative(1), PREWARMED_DAYS);
         updateTreeAndDrawMap();
     }
     
     /**
-     * Met à jour l'ensemble des services et le graphe.
+     * Met à jour l'ensemble des services, le graphe et l'algorithme de recherche.
      */
     private void updateServicesAndGraph(){
         
         //On met à jour les services
         Set<Service> newServices = timeTable.servicesForDate(currentDate);
         
-        /* Si services == null, c'est qu'on est à la première initialisation
-           Si la liste des nouveaux services est de taille 0, c'est qu'il est différent du précédent (containsAll retourne quand même true)
-           L'idée de la condition ci-dessous est de vérifier si les nouveaux services différent des précédents */
-        if( !(currentServices == null) && newServices.size() != 0 && currentServices.containsAll(newServices)){
+        // Si services == null, c'est qu'on est à la première initialisation. Seuls des services égaux (et non un sous-ensemble) donnent le même graphe
+        if(newServices.equals(currentServices)){
             return;
         }
         
         currentServices = newServices;
+        currentGraph = allServicesGraph.forServices(currentServices);
+        
+        //L'algorithme de recherche, préparé pour la vue du graphe limitée aux nouveaux services, est tiré du cache s'il l'a déjà été pour une autre date
+        currentFinder = finderCache.finderFor(currentAlgorithm, currentServices);
         
-        //On met à jour le graphe
-        currentGraph = timeTableReader.readGraphForServices(stops, currentServices, WALKING_TIME, WALKING_SPEED);
+        //Les algorithmes des jours suivants sont préparés en arrière-plan, pour que les prochains changements de date soient immédiats
+        finderCache.prewarm(currentAlgorithm, timeTable, currentDate.relative(1), PREWARMED_DAYS);
+    }
+    
+    /**
+     * Désactive le choix de l'algorithme de recherche tant que le départ est un lieu cliqué sur la carte: la recherche à plusieurs arrêts
+     * de départ est toujours celle de Dijkstra, quel que soit l'algorithme choisi. Sans effet si le choix n'est pas encore affiché.
+     */
+    private void updateAlgorithmBox(){
+        if(algorithmBox != null){
+            algorithmBox.setEnabled(currentStartingPoint == null);
+            algorithmBox.setToolTipText((currentStartingPoint == null) ? null : "Départ d'un lieu: recherche de Dijkstra depuis tous les arrêts proches");
+        }
     }
     
     /**
@@ -227,8 +305,17 @@ public final class IsochroneTL {
      * 3. Met à jour l'affichage Swing. <br/>
      */
     private void updateTreeAndDrawMap(){
-        // Mise à jour de l'arbre des trajets les plus court
-        FastestPathTree tree = currentGraph.fastestPaths(currentStartingStop, currentDepartureTime); 
+        // Mise à jour de l'arbre des trajets les plus court, limité aux arrêts que la carte peut colorer (atteints avant la fin de la dernière tranche)
+        int maxDuration = colorTable.getTrancheLengthOf(colorTable.getNumberOfTranches());
+        FastestPathTree tree;
+        if(currentStartingPoint == null){
+            tree = currentFinder.fastestPaths(currentStartingStop, currentDepartureTime, maxDuration);
+        }
+        else{
+            // Depuis un lieu quelconque: une seule recherche de Dijkstra dans la vue du graphe, depuis tous les arrêts atteints à pied
+            // (les autres algorithmes ne partent que d'un arrêt: le choix de l'algorithme est désactivé, voir updateAlgorithmBox)
+            tree = currentGraph.fastestPaths(currentStartingTimes, currentDepartureTime, maxDuration);
+        }
         
         // Mise à jour de la carte isochrone
         TileProvider isochroneTileProvider = new IsochroneTileProvider(tree, colorTable, WALKING_SPEED); 
@@ -313,8 +400,28 @@ public final class IsochroneTL {
         dateHourLabel.setOpaque(true);
         dateHourLabel.setForeground(new Color(0f, 0f, 0f, 1f));
     
-        // Création du séparateur invisible
+        // Création/Initialisation d'une JComboBox pour l'algorithme de recherche
+        algorithmBox = new JComboBox<FastestPathAlgorithm>(FastestPathAlgorithm.values());
+        algorithmBox.setSelectedItem(currentAlgorithm);
+        
+        // Auditeur pour la JComboBox de l'algorithme
+        algorithmBox.addActionListener(new ActionListener() {
+            
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setAlgorithm((FastestPathAlgorithm) algorithmBox.getSelectedItem());
+            }
+        });
+        
+        // Création du label "Algorithme"
+        final String algorithmText = "Algorithme";
+        final JLabel algorithmLabel = new JLabel(algorithmText);
+        algorithmLabel.setOpaque(true);
+        algorithmLabel.setForeground(new Color(0f, 0f, 0f, 1f));
+        
+        // Création des séparateurs invisibles
         final JSeparator separator = new JSeparator();
+        final JSeparator algorithmSeparator = new JSeparator();
         
         // Finalement: création de l'agencement des différents "composants"
         final JPanel topPanel = new JPanel(new FlowLayout());
@@ -323,6 +430,9 @@ public final class IsochroneTL {
         topPanel.add(separator);
         topPanel.add(dateHourLabel);
         topPanel.add(spinnerDateHour);
+        topPanel.add(algorithmSeparator);
+        topPanel.add(algorithmLabel);
+        topPanel.add(algorithmBox);
         
         return topPanel;
     }
@@ -353,12 +463,19 @@ public final class IsochroneTL {
             }
         });
 
-        // Déplacement de la carte à la souris
+        // Déplacement de la carte à la souris, et choix d'un lieu de départ par un clic (sans déplacement)
         layeredPane.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
                 mouseLocationOnScreenSaved = e.getLocationOnScreen();
             }
+
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                Point viewPosition = viewPort.getViewPosition();
+                PointOSM clickedPoint = new PointOSM(tiledMapComponent.zoom(), viewPosition.x + e.getX(), viewPosition.y + e.getY());
+                setStartingPoint(clickedPoint.toWGS84());
+            }
         });
         
         layeredPane.addMouseMotionListener(new MouseAdapter() {
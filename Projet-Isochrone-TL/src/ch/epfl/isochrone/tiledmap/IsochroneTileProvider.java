@@ -7,17 +7,22 @@ import java.awt.image.BufferedImage;
 
 import ch.epfl.isochrone.geo.PointOSM;
 import ch.epfl.isochrone.timetable.FastestPathTree;
+import ch.epfl.isochrone.timetable.LatestDepartureTree;
 import ch.epfl.isochrone.timetable.Stop;
 
 /**
  * Modélise un fournisseur de tuiles pour carte isochrone.
+ * La carte peut représenter un arbre des trajets les plus rapides (temps nécessaire pour se rendre en chaque lieu depuis l'arrêt de départ)
+ * ou un arbre des trajets partant le plus tard (temps nécessaire pour atteindre l'arrêt d'arrivée à l'heure depuis chaque lieu):
+ * dans les deux cas, seule compte la durée du trajet de chaque arrêt, calculée une fois pour toutes à la construction.
  *
  * @author Alexandre Simoes Tavares (234563)
  * @author Lois Talagrand (234231)
  */
 public final class IsochroneTileProvider implements TileProvider{
     private final ColorTable colorTable;
-    private final FastestPathTree pathTree;
+    private final Stop[] stops;
+    private final int[] travelTimes; // travelTimes[i] = durée du trajet de stops[i] (en secondes)
     private final double walkingSpeed;
     
     /**
@@ -29,7 +34,32 @@ public final class IsochroneTileProvider implements TileProvider{
      * @param walkingSpeed La vitesse de marche à pied.
      */
     public IsochroneTileProvider(FastestPathTree pathTree, ColorTable colorTable, double walkingSpeed){
-        this.pathTree = pathTree;
+        this.stops = pathTree.stops().toArray(new Stop[0]);
+        this.travelTimes = new int[stops.length];
+        int startingTime = pathTree.startingTime();
+        for(int i=0; i < stops.length; ++i){
+            travelTimes[i] = pathTree.arrivalTime(stops[i]) - startingTime;
+        }
+        this.colorTable = colorTable;
+        this.walkingSpeed = walkingSpeed;
+    }
+
+    /**
+     * Construit un fournisseur de tuiles pour carte isochrone « à rebours » étant donné un arbre des trajets partant le plus tard,
+     * une table de couleur et une vitesse de marche à pied: chaque lieu est coloré selon le temps nécessaire pour atteindre l'arrêt d'arrivée
+     * à l'heure d'arrivée (marche jusqu'à l'arrêt le plus favorable comprise).
+     *
+     * @param latestDepartureTree L'arbre des trajets partant le plus tard.
+     * @param colorTable La table de couleur.
+     * @param walkingSpeed La vitesse de marche à pied.
+     */
+    public IsochroneTileProvider(LatestDepartureTree latestDepartureTree, ColorTable colorTable, double walkingSpeed){
+        this.stops = latestDepartureTree.stops().toArray(new Stop[0]);
+        this.travelTimes = new int[stops.length];
+        int arrivalTime = latestDepartureTree.arrivalTime();
+        for(int i=0; i < stops.length; ++i){
+            travelTimes[i] = arrivalTime - latestDepartureTree.departureTime(stops[i]);
+        }
         this.colorTable = colorTable;
         this.walkingSpeed = walkingSpeed;
     }
@@ -46,9 +76,6 @@ public final class IsochroneTileProvider implements TileProvider{
         tileGraphics.setColor(Color.BLACK);
         tileGraphics.fillRect(0, 0, tileIMG.getWidth(), tileIMG.getHeight());
         
-        // On récupère l'heure de départ maintenant au lieu de le faire à chaque parcours de boucle (tranche de couleurs).
-        int startingTime = pathTree.startingTime();
-
         // Parcours de la ColorTable à l'envers, on dessine de la plus grande tranche à la plus petite
         for(int i=colorTable.getNumberOfTranches(); i >= 1; --i){
             
@@ -59,14 +86,15 @@ public final class IsochroneTileProvider implements TileProvider{
 
             /* Algorithme parcours
             1: pour chaque arrêt atteignable A :
-            2:   T = M - (H(A) - Hd)
+            2:   T = M - D(A)        (durée du trajet D(A) = H(A) - Hd, ou Ha - H(A) pour une carte à rebours)
             3:   si T > 0 :
             4:     R = distance, sur la carte, faisable à pied en un temps T
             5:     dessiner un disque centré en P(A), de couleur C et rayon R
              */
-            for(Stop stop: pathTree.stops()){
+            for(int s=0; s < stops.length; ++s){
 
-                int walkingTimeLeft = trancheLength - (pathTree.arrivalTime(stop) - startingTime);
+                Stop stop = stops[s];
+                int walkingTimeLeft = trancheLength - travelTimes[s];
                 
                 if(walkingTimeLeft > 0){
 
@@ -0,0 +1,322 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.Arrays;
+
+/**
+ * Modélise l'algorithme « Connection Scan » (CSA) de recherche des trajets les plus rapides.
+ * Toutes les connexions (trajets élémentaires d'un arrêt au suivant) du graphe sont rangées dans un seul tableau trié par heure de départ:
+ * une requête les parcourt une seule fois, dans l'ordre, depuis la première connexion partant à l'heure de départ (trouvée par recherche dichotomique).
+ * Une connexion est empruntable si son arrêt de départ est atteint au plus tard à son heure de départ; les trajets à pied sont ceux du graphe.
+ * Aucune queue de priorité n'est nécessaire: l'ordre des connexions est celui du temps.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class ConnectionScan implements FastestPathFinder {
+    private final Graph graph;
+    private final Connections connections;
+    private final Footpaths footpaths;
+
+    /**
+     * Construit l'algorithme CSA pour le graphe donné: ses connexions sont les trajets du graphe et ses trajets à pied ceux du graphe.
+     *
+     * @param graph Le graphe.
+     */
+    public ConnectionScan(Graph graph){
+        this.graph = graph;
+        this.connections = new Connections(graph);
+        this.footpaths = new Footpaths(graph);
+    }
+
+    @Override
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime){
+        return fastestPaths(startingStop, departureTime, SecondsPastMidnight.INFINITE);
+    }
+
+    @Override
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime, int maxDuration){
+/*      Pseudo-code de l'algorithme :
+
+        H(Ad) = Hd, H(x) = ∞ pour tout arrêt x ≠ Ad, puis amélioration à pied depuis Ad
+
+        pour chaque connexion (A, Hdép) -> (A', Harr), par heure de départ croissante de Hd à Hd + durée maximale :
+          si H(A) ≤ Hdép et Harr < H(A') et Harr ≤ Hd + durée maximale :
+            H(A') = Harr, puis amélioration à pied depuis A'
+*/
+
+        if(departureTime < 0){
+            throw new IllegalArgumentException("L'heure de départ (=" + departureTime + ") est inférieure à zéro.");
+        }
+        else if(maxDuration < 0){
+            throw new IllegalArgumentException("La durée maximale (=" + maxDuration + ") est inférieure à zéro.");
+        }
+        else if(startingStop == null){
+            throw new IllegalArgumentException("L'arrêt de départ est \"null\"");
+        }
+        else if(graph.stopId(startingStop) == -1){
+            throw new IllegalArgumentException("L'arrêt de départ (=" + startingStop + ") ne fait pas partie du graphe.");
+        }
+
+        int numberOfStops = graph.stopCount();
+        int start = graph.stopId(startingStop);
+        int[] arrivalTimes = new int[numberOfStops];
+        int[] predecessors = new int[numberOfStops];
+        Arrays.fill(arrivalTimes, SecondsPastMidnight.INFINITE);
+        arrivalTimes[start] = departureTime;
+
+        // Les arrêts atteints après cette heure ne font pas partie de l'arbre: les connexions partant plus tard ne sont pas parcourues
+        int arrivalTimeLimit = (int) Math.min((long) departureTime + maxDuration, SecondsPastMidnight.INFINITE - 1);
+
+        int[] walkQueue = new int[numberOfStops];
+        boolean[] inWalkQueue = new boolean[numberOfStops];
+        walkQueue[0] = start;
+        footpaths.relax(arrivalTimes, predecessors, walkQueue, inWalkQueue, 1, arrivalTimeLimit, null, null, 0);
+
+        /* Une connexion de durée nulle peut atteindre un arrêt à l'heure exacte de départ d'une connexion de même heure de départ déjà parcourue:
+           les connexions de même heure de départ sont alors parcourues à nouveau (cas rare, le parcours reste linéaire en pratique). */
+        int numberOfConnections = connections.size();
+        int firstConnection = connections.firstDepartingAt(departureTime);
+        boolean rescanGroup = false;
+        for(int c = firstConnection; c < numberOfConnections; ++c){
+            int connectionDepartureTime = connections.departureTime(c);
+            if(connectionDepartureTime > arrivalTimeLimit){
+                break;
+            }
+
+            int A = connections.fromStop(c);
+            if(arrivalTimes[A] <= connectionDepartureTime){
+                int B = connections.toStop(c);
+                int arrivalTime = connections.arrivalTime(c);
+                if(arrivalTime < arrivalTimes[B] && arrivalTime <= arrivalTimeLimit){
+                    arrivalTimes[B] = arrivalTime;
+                    predecessors[B] = A;
+                    walkQueue[0] = B;
+                    footpaths.relax(arrivalTimes, predecessors, walkQueue, inWalkQueue, 1, arrivalTimeLimit, null, null, 0);
+                    rescanGroup |= (arrivalTime == connectionDepartureTime);
+                }
+            }
+
+            // Dernière connexion de cette heure de départ: retour à la première si nécessaire
+            if(rescanGroup && (c + 1 == numberOfConnections || connections.departureTime(c + 1) != connectionDepartureTime)){
+                rescanGroup = false;
+                while(c >= firstConnection && connections.departureTime(c) == connectionDepartureTime){
+                    --c;
+                }
+            }
+        }
+
+        return graph.fastestPathTree(start, departureTime, arrivalTimes, predecessors);
+    }
+
+    /**
+     * Retourne le profil des trajets les plus rapides depuis l'arrêt donné, pour toutes les heures de départ de la fenêtre donnée.
+     * <br/>
+     * Une recherche est effectuée pour chaque heure de départ utile (la fin de la fenêtre, puis chaque heure à laquelle partir permet
+     * d'attraper de justesse une connexion, à pied depuis l'arrêt de départ, si elle améliore son arrêt d'arrivée), par heure décroissante.
+     * Les heures d'arrivée d'une recherche ne sont pas réinitialisées pour la suivante: partir plus tôt ne fait jamais arriver plus tard,
+     * elles restent donc valables et seules les améliorations sont propagées. Une amélioration ne pouvant provenir que d'une connexion partant d'un arrêt amélioré avant son ancienne
+     * heure d'arrivée, chaque recherche s'arrête dès que les connexions partent après toutes ces anciennes heures d'arrivée.
+     *
+     * @param startingStop L'arrêt de départ.
+     * @param windowStart La première heure de départ de la fenêtre (en secondes après minuit).
+     * @param windowEnd La dernière heure de départ de la fenêtre (en secondes après minuit).
+     * @throws IllegalArgumentException Si l'arrêt de départ ne fait pas partie du graphe, si la première heure de départ est inférieure à zéro
+     * ou si la dernière lui est inférieure.
+     * @return Le profil des trajets les plus rapides depuis l'arrêt donné sur la fenêtre donnée.
+     */
+    public Profile profile(Stop startingStop, int windowStart, int windowEnd){
+        return profile(startingStop, windowStart, windowEnd, SecondsPastMidnight.INFINITE);
+    }
+
+    /**
+     * Retourne le profil des trajets les plus rapides depuis l'arrêt donné, pour toutes les heures de départ de la fenêtre donnée,
+     * limité aux trajets de durée maximale donnée (voir profile(Stop, int, int)). Seules les connexions partant au plus tard
+     * à la fin de la fenêtre plus la durée maximale sont parcourues.
+     *
+     * @param startingStop L'arrêt de départ.
+     * @param windowStart La première heure de départ de la fenêtre (en secondes après minuit).
+     * @param windowEnd La dernière heure de départ de la fenêtre (en secondes après minuit).
+     * @param maxDuration La durée maximale des trajets (en secondes), SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @throws IllegalArgumentException Si l'arrêt de départ ne fait pas partie du graphe, si la première heure de départ ou la durée maximale
+     * est inférieure à zéro ou si la dernière heure de départ est inférieure à la première.
+     * @return Le profil des trajets les plus rapides depuis l'arrêt donné sur la fenêtre donnée, limité à la durée maximale donnée.
+     */
+    public Profile profile(Stop startingStop, int windowStart, int windowEnd, int maxDuration){
+/*      Pseudo-code de l'algorithme :
+
+        H(x) = ∞ pour tout arrêt x
+        pour chaque heure de départ utile Hd, par ordre décroissant (en commençant par la fin de la fenêtre) :
+          H(Ad) = Hd, puis amélioration à pied depuis Ad
+          parcours des connexions comme dans fastestPaths, à partir de Hd et jusqu'à la plus grande ancienne heure d'arrivée des arrêts améliorés
+          pour chaque arrêt amélioré autrement qu'à pied depuis Ad : ajout du trajet (Hd, H(x)) au profil de x
+*/
+
+        if(windowStart < 0){
+            throw new IllegalArgumentException("L'heure de départ (=" + windowStart + ") est inférieure à zéro.");
+        }
+        else if(maxDuration < 0){
+            throw new IllegalArgumentException("La durée maximale (=" + maxDuration + ") est inférieure à zéro.");
+        }
+        else if(windowEnd < windowStart){
+            throw new IllegalArgumentException("La fin de la fenêtre (=" + windowEnd + ") est antérieure à son début (=" + windowStart + ").");
+        }
+        else if(startingStop == null){
+            throw new IllegalArgumentException("L'arrêt de départ est \"null\"");
+        }
+        else if(graph.stopId(startingStop) == -1){
+            throw new IllegalArgumentException("L'arrêt de départ (=" + startingStop + ") ne fait pas partie du graphe.");
+        }
+
+        int numberOfStops = graph.stopCount();
+        int start = graph.stopId(startingStop);
+        int[] walkQueue = new int[numberOfStops];
+        boolean[] inWalkQueue = new boolean[numberOfStops];
+
+        // Heure d'arrivée au-delà de laquelle aucun départ de la fenêtre n'a besoin des arrêts
+        int arrivalTimeLimit = (int) Math.min((long) windowEnd + maxDuration, SecondsPastMidnight.INFINITE - 1);
+
+        // Temps de marche depuis l'arrêt de départ (trajets à pied seulement)
+        int[] walkingTimes = new int[numberOfStops];
+        int[] walkingPredecessors = new int[numberOfStops];
+        Arrays.fill(walkingTimes, SecondsPastMidnight.INFINITE);
+        walkingTimes[start] = 0;
+        walkQueue[0] = start;
+        footpaths.relax(walkingTimes, walkingPredecessors, walkQueue, inWalkQueue, 1, maxDuration, null, null, 0);
+
+        /* Connexions de départ: celles qu'on attrape de justesse à pied depuis l'arrêt de départ en partant dans la fenêtre,
+           triées par heure de départ de l'arrêt de départ (poids forts) puis par index (poids faibles) */
+        int numberOfConnections = connections.size();
+        int numberOfFirstConnections = 0;
+        long[] firstConnections = new long[16];
+        for(int c = 0; c < numberOfConnections; ++c){
+            int A = connections.fromStop(c);
+            if(walkingTimes[A] != SecondsPastMidnight.INFINITE){
+                int departureTime = connections.departureTime(c) - walkingTimes[A];
+                if(departureTime >= windowStart && departureTime < windowEnd){
+                    if(numberOfFirstConnections == firstConnections.length){
+                        firstConnections = Arrays.copyOf(firstConnections, 2 * numberOfFirstConnections);
+                    }
+                    firstConnections[numberOfFirstConnections++] = ((long) departureTime << 32) | c;
+                }
+            }
+        }
+        Arrays.sort(firstConnections, 0, numberOfFirstConnections);
+
+        int[] arrivalTimes = new int[numberOfStops];
+        int[] previousArrivalTimes = new int[numberOfStops];
+        int[] predecessors = new int[numberOfStops];
+        Arrays.fill(arrivalTimes, SecondsPastMidnight.INFINITE);
+        Arrays.fill(previousArrivalTimes, SecondsPastMidnight.INFINITE);
+        boolean[] marked = new boolean[numberOfStops];
+        int[] markedStops = new int[numberOfStops];
+
+        // Trajets optimaux, dans l'ordre où ils sont trouvés (heure de départ décroissante)
+        int numberOfJourneys = 0;
+        int[] journeyStops = new int[numberOfStops];
+        int[] journeyDepartureTimes = new int[numberOfStops];
+        int[] journeyArrivalTimes = new int[numberOfStops];
+        int[] journeyPredecessors = new int[numberOfStops];
+
+        int nextFirstConnection = numberOfFirstConnections - 1;
+        for(int departureTime = windowEnd; departureTime >= windowStart; departureTime = (nextFirstConnection >= 0) ? (int) (firstConnections[nextFirstConnection] >>> 32) : -1){
+            /* Une recherche n'est utile que si l'une des connexions attrapées de justesse améliore son arrêt d'arrivée: sinon les heures d'arrivée
+               actuelles restent celles de cette heure de départ (à la marche depuis l'arrêt de départ près, que le profil prend en compte) */
+            boolean useful = (departureTime == windowEnd);
+            for(; nextFirstConnection >= 0 && (int) (firstConnections[nextFirstConnection] >>> 32) == departureTime; --nextFirstConnection){
+                int c = (int) firstConnections[nextFirstConnection];
+                useful |= (connections.arrivalTime(c) < arrivalTimes[connections.toStop(c)] && connections.arrivalTime(c) <= arrivalTimeLimit);
+            }
+            if(!useful){
+                continue;
+            }
+
+            arrivalTimes[start] = departureTime;
+            marked[start] = true;
+            markedStops[0] = start;
+            walkQueue[0] = start;
+            int numberOfMarked = footpaths.relax(arrivalTimes, predecessors, walkQueue, inWalkQueue, 1, arrivalTimeLimit, marked, markedStops, 1);
+
+            // Les connexions partant après les anciennes heures d'arrivée de tous les arrêts améliorés n'améliorent plus rien
+            int scanLimit = 0;
+            int numberOfLimited = 0;
+
+            int firstConnection = connections.firstDepartingAt(departureTime);
+            boolean rescanGroup = false;
+            for(int c = firstConnection; c < numberOfConnections; ++c){
+                for(; numberOfLimited < numberOfMarked; ++numberOfLimited){
+                    scanLimit = Math.max(scanLimit, previousArrivalTimes[markedStops[numberOfLimited]]);
+                }
+                int connectionDepartureTime = connections.departureTime(c);
+                if(connectionDepartureTime >= scanLimit || connectionDepartureTime > arrivalTimeLimit){
+                    break;
+                }
+
+                int A = connections.fromStop(c);
+                if(arrivalTimes[A] <= connectionDepartureTime){
+                    int B = connections.toStop(c);
+                    int arrivalTime = connections.arrivalTime(c);
+                    if(arrivalTime < arrivalTimes[B] && arrivalTime <= arrivalTimeLimit){
+                        arrivalTimes[B] = arrivalTime;
+                        predecessors[B] = A;
+                        if(!marked[B]){
+                            marked[B] = true;
+                            markedStops[numberOfMarked++] = B;
+                        }
+                        walkQueue[0] = B;
+                        numberOfMarked = footpaths.relax(arrivalTimes, predecessors, walkQueue, inWalkQueue, 1, arrivalTimeLimit, marked, markedStops, numberOfMarked);
+                        rescanGroup |= (arrivalTime == connectionDepartureTime);
+                    }
+                }
+
+                // Dernière connexion de cette heure de départ: retour à la première si nécessaire
+                if(rescanGroup && (c + 1 == numberOfConnections || connections.departureTime(c + 1) != connectionDepartureTime)){
+                    rescanGroup = false;
+                    while(c >= firstConnection && connections.departureTime(c) == connectionDepartureTime){
+                        --c;
+                    }
+                }
+            }
+
+            // Les arrêts améliorés forment les nouveaux trajets optimaux, sauf ceux qu'il suffit de rejoindre à pied
+            for(int m = 0; m < numberOfMarked; ++m){
+                int stop = markedStops[m];
+                marked[stop] = false;
+                previousArrivalTimes[stop] = arrivalTimes[stop];
+                if(stop != start && arrivalTimes[stop] != departureTime + walkingTimes[stop]){
+                    if(numberOfJourneys == journeyStops.length){
+                        journeyStops = Arrays.copyOf(journeyStops, 2 * numberOfJourneys);
+                        journeyDepartureTimes = Arrays.copyOf(journeyDepartureTimes, 2 * numberOfJourneys);
+                        journeyArrivalTimes = Arrays.copyOf(journeyArrivalTimes, 2 * numberOfJourneys);
+                        journeyPredecessors = Arrays.copyOf(journeyPredecessors, 2 * numberOfJourneys);
+                    }
+                    journeyStops[numberOfJourneys] = stop;
+                    journeyDepartureTimes[numberOfJourneys] = departureTime;
+                    journeyArrivalTimes[numberOfJourneys] = arrivalTimes[stop];
+                    journeyPredecessors[numberOfJourneys] = predecessors[stop];
+                    ++numberOfJourneys;
+                }
+            }
+        }
+
+        // Regroupement des trajets par arrêt, par heure de départ croissante (l'inverse de l'ordre où ils ont été trouvés)
+        int[] journeyOffsets = new int[numberOfStops + 1];
+        for(int j = 0; j < numberOfJourneys; ++j){
+            ++journeyOffsets[journeyStops[j] + 1];
+        }
+        for(int i = 0; i < numberOfStops; ++i){
+            journeyOffsets[i + 1] += journeyOffsets[i];
+        }
+        int[] sortedDepartureTimes = new int[numberOfJourneys];
+        int[] sortedArrivalTimes = new int[numberOfJourneys];
+        int[] sortedPredecessors = new int[numberOfJourneys];
+        int[] nextJourney = Arrays.copyOfRange(journeyOffsets, 1, numberOfStops + 1);
+        for(int j = 0; j < numberOfJourneys; ++j){
+            int index = --nextJourney[journeyStops[j]];
+            sortedDepartureTimes[index] = journeyDepartureTimes[j];
+            sortedArrivalTimes[index] = journeyArrivalTimes[j];
+            sortedPredecessors[index] = journeyPredecessors[j];
+        }
+
+        return new Profile(graph, start, windowStart, windowEnd, maxDuration, walkingTimes, walkingPredecessors, journeyOffsets, sortedDepartureTimes, sortedArrivalTimes, sortedPredecessors);
+    }
+}
@@ -0,0 +1,126 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.Arrays;
+
+/**
+ * Modélise l'ensemble des trajets élémentaires (« connexions ») d'un graphe: d'un arrêt au suivant, à une heure de départ et d'arrivée données.
+ * Les connexions sont triées par heure de départ puis par heure d'arrivée croissantes, et rangées les unes à la suite des autres dans un seul tableau
+ * d'entiers: un parcours dans l'ordre lit la mémoire séquentiellement.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+final class Connections {
+    /* Connexion c : arrêt de départ connections[4c], arrêt d'arrivée connections[4c+1], heure de départ connections[4c+2], heure d'arrivée connections[4c+3] */
+    private final int[] connections;
+
+    /**
+     * Construit l'ensemble des connexions formé des trajets du graphe donné, identifiés par les identifiants denses des arrêts du graphe.
+     * Seuls les trajets empruntés par le graphe (voir Graph.forServices) en font partie.
+     *
+     * @param graph Le graphe.
+     */
+    Connections(Graph graph){
+        int numberOfStops = graph.stopCount();
+        int numberOfTrips = graph.tripOffset(graph.edgeOffset(numberOfStops));
+
+        // Tri par heure de départ puis d'arrivée: heure de départ (17 bits), heure d'arrivée (18 bits) et index du trajet (28 bits) dans un long
+        long[] order = new long[numberOfTrips];
+        int[] tripFromStops = new int[numberOfTrips];
+        int[] tripToStops = new int[numberOfTrips];
+        int numberOfConnections = 0;
+        for(int A = 0; A < numberOfStops; ++A){
+            for(int e = graph.edgeOffset(A); e < graph.edgeOffset(A + 1); ++e){
+                for(int t = graph.tripOffset(e); t < graph.tripOffset(e + 1); ++t){
+                    if(!graph.isTripActive(t)){
+                        continue;
+                    }
+                    int packedTrip = graph.packedTrip(t);
+                    tripFromStops[t] = A;
+                    tripToStops[t] = graph.edgeDestination(e);
+                    order[numberOfConnections++] = ((long) GraphEdge.unpackTripDepartureTime(packedTrip) << 46) | ((long) GraphEdge.unpackTripArrivalTime(packedTrip) << 28) | t;
+                }
+            }
+        }
+        Arrays.sort(order, 0, numberOfConnections);
+
+        connections = new int[4*numberOfConnections];
+        for(int c = 0; c < numberOfConnections; ++c){
+            int t = (int) (order[c] & ((1 << 28) - 1));
+            connections[4*c] = tripFromStops[t];
+            connections[4*c + 1] = tripToStops[t];
+            connections[4*c + 2] = (int) (order[c] >>> 46);
+            connections[4*c + 3] = (int) ((order[c] >>> 28) & ((1 << 18) - 1));
+        }
+    }
+
+    /**
+     * Retourne le nombre de connexions.
+     *
+     * @return Le nombre de connexions.
+     */
+    int size(){
+        return connections.length / 4;
+    }
+
+    /**
+     * Retourne l'identifiant de l'arrêt de départ de la connexion donnée.
+     *
+     * @param connection L'index de la connexion.
+     * @return L'identifiant de l'arrêt de départ.
+     */
+    int fromStop(int connection){
+        return connections[4*connection];
+    }
+
+    /**
+     * Retourne l'identifiant de l'arrêt d'arrivée de la connexion donnée.
+     *
+     * @param connection L'index de la connexion.
+     * @return L'identifiant de l'arrêt d'arrivée.
+     */
+    int toStop(int connection){
+        return connections[4*connection + 1];
+    }
+
+    /**
+     * Retourne l'heure de départ de la connexion donnée.
+     *
+     * @param connection L'index de la connexion.
+     * @return L'heure de départ (en secondes après minuit).
+     */
+    int departureTime(int connection){
+        return connections[4*connection + 2];
+    }
+
+    /**
+     * Retourne l'heure d'arrivée de la connexion donnée.
+     *
+     * @param connection L'index de la connexion.
+     * @return L'heure d'arrivée (en secondes après minuit).
+     */
+    int arrivalTime(int connection){
+        return connections[4*connection + 3];
+    }
+
+    /**
+     * Retourne l'index de la première connexion partant à l'heure donnée ou après, ou size() s'il n'y en a pas (recherche dichotomique).
+     *
+     * @param time L'heure (en secondes après minuit).
+     * @return L'index de la première connexion partant à l'heure donnée ou après.
+     */
+    int firstDepartingAt(int time){
+        int low = 0;
+        int high = size();
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(departureTime(middle) < time){
+                low = middle + 1;
+            }
+            else{
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,111 @@
+package ch.epfl.isochrone.timetable;
+
+/**
+ * Enumère les algorithmes de recherche des trajets les plus rapides disponibles. Tous donnent les mêmes heures d'arrivée,
+ * seules leurs performances diffèrent: l'algorithme peut donc être choisi à l'exécution.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public enum FastestPathAlgorithm {
+    /**
+     * Algorithme de Dijkstra dépendant du temps, directement sur le graphe (aucune préparation).
+     */
+    DIJKSTRA("Dijkstra") {
+        @Override
+        FastestPathFinder prepare(Graph graph){
+            return graph;
+        }
+    },
+
+    /**
+     * Algorithme de Dijkstra repartant de l'arbre précédent lorsque seule l'heure de départ change (voir WarmStartFinder).
+     */
+    DIJKSTRA_WARM_START("Dijkstra (reprise)") {
+        @Override
+        FastestPathFinder prepare(Graph graph){
+            return graph;
+        }
+
+        @Override
+        FastestPathFinder finderForPrepared(FastestPathFinder prepared){
+            return new WarmStartFinder((Graph) prepared);
+        }
+    },
+
+    /**
+     * Algorithme RAPTOR, par tours successifs sur les lignes extraites du graphe (voir Raptor).
+     */
+    RAPTOR("RAPTOR") {
+        @Override
+        FastestPathFinder prepare(Graph graph){
+            return new Raptor(graph);
+        }
+    },
+
+    /**
+     * Algorithme « Connection Scan », par un seul parcours des connexions triées par heure de départ (voir ConnectionScan).
+     */
+    CSA("CSA") {
+        @Override
+        FastestPathFinder prepare(Graph graph){
+            return new ConnectionScan(graph);
+        }
+    },
+
+    /**
+     * Profils CSA sur une fenêtre d'une heure: les heures de départ de la fenêtre du dernier profil sont servies sans nouvelle recherche (voir ProfileFinder).
+     */
+    PROFILE_CSA("CSA (profil)") {
+        @Override
+        FastestPathFinder prepare(Graph graph){
+            return new ConnectionScan(graph);
+        }
+
+        @Override
+        FastestPathFinder finderForPrepared(FastestPathFinder prepared){
+            return new ProfileFinder((ConnectionScan) prepared, SecondsPastMidnight.fromHMS(1, 0, 0));
+        }
+    };
+
+    private final String displayName;
+
+    private FastestPathAlgorithm(String displayName){
+        this.displayName = displayName;
+    }
+
+    /**
+     * Retourne l'algorithme de recherche pour le graphe donné, en effectuant si nécessaire la préparation des données qu'il requiert.
+     * 
+     * @param graph Le graphe.
+     * @return L'algorithme de recherche pour le graphe donné.
+     */
+    public FastestPathFinder finderFor(Graph graph){
+        return finderForPrepared(prepare(graph));
+    }
+
+    /**
+     * Effectue la préparation des données que requiert l'algorithme pour le graphe donné. Le résultat est immuable:
+     * il peut être partagé entre plusieurs fils d'exécution (voir FinderCache).
+     *
+     * @param graph Le graphe.
+     * @return Les données préparées, elles-mêmes un algorithme de recherche sans état.
+     */
+    abstract FastestPathFinder prepare(Graph graph);
+
+    /**
+     * Retourne l'algorithme de recherche à partir des données préparées par prepare. Les algorithmes qui conservent un état
+     * d'une recherche à l'autre (WarmStartFinder, ProfileFinder) sont construits à chaque appel; les autres sont les données préparées elles-mêmes.
+     *
+     * @param prepared Les données préparées par prepare.
+     * @return L'algorithme de recherche.
+     */
+    FastestPathFinder finderForPrepared(FastestPathFinder prepared){
+        return prepared;
+    }
+
+    @Override
+    public String toString(){
+        return displayName;
+    }
+}
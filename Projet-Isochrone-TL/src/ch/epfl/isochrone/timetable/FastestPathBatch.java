@@ -0,0 +1,151 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Modélise un calcul par lots d'arbres des trajets les plus rapides: une recherche par arrêt de départ et par heure de départ
+ * (p.ex. les cartes isochrones de tous les arrêts à plusieurs heures de la journée), menées en parallèle dans un même graphe.
+ * <br/>
+ * Le graphe est immuable et partagé par tous les fils d'exécution; chacun d'eux possède son propre espace de travail (voir RoutingWorkspace)
+ * et prend la prochaine recherche à effectuer dès qu'il a terminé la précédente, si bien que les fils restent occupés même lorsque
+ * les recherches sont de durées très différentes. Chaque arbre est remis au destinataire dès qu'il est calculé: aucun n'est conservé.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class FastestPathBatch {
+    private final Graph graph;
+    private final int maxDuration;
+
+    /**
+     * Modélise le destinataire des arbres calculés par un lot de recherches.
+     */
+    public interface Consumer {
+        /**
+         * Reçoit l'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés. Cette méthode est appelée par les fils d'exécution
+         * du lot, éventuellement plusieurs à la fois: elle doit donc pouvoir l'être en parallèle, et rester brève pour ne pas les retenir.
+         *
+         * @param startingStop L'arrêt de départ.
+         * @param departureTime L'heure de départ.
+         * @param tree L'arbre des trajets les plus rapides.
+         */
+        void accept(Stop startingStop, int departureTime, FastestPathTree tree);
+    }
+
+    /**
+     * Construit un calcul par lots dans le graphe donné, dont les arbres sont limités à la durée maximale donnée (voir Graph.fastestPaths).
+     *
+     * @param graph Le graphe (ou une vue, voir Graph.forServices).
+     * @param maxDuration La durée maximale des trajets (en secondes), SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @throws IllegalArgumentException Si la durée maximale est inférieure à zéro.
+     */
+    public FastestPathBatch(Graph graph, int maxDuration){
+        if(maxDuration < 0){
+            throw new IllegalArgumentException("La durée maximale (=" + maxDuration + ") est inférieure à zéro.");
+        }
+        this.graph = graph;
+        this.maxDuration = maxDuration;
+    }
+
+    /**
+     * Calcule l'arbre des trajets les plus rapides de chaque arrêt de départ à chaque heure de départ donnés, à l'aide du nombre donné
+     * de fils d'exécution créés pour l'occasion, et le remet au destinataire donné. La méthode retourne une fois toutes les recherches terminées.
+     *
+     * @param startingStops Les arrêts de départ.
+     * @param departureTimes Les heures de départ.
+     * @param numberOfThreads Le nombre de fils d'exécution.
+     * @param consumer Le destinataire des arbres.
+     * @throws IllegalArgumentException Si le nombre de fils d'exécution est négatif ou nul, ou si un arrêt ou une heure de départ est invalide
+     *             (voir Graph.fastestPaths).
+     */
+    public void run(List<Stop> startingStops, int[] departureTimes, int numberOfThreads, Consumer consumer){
+        if(numberOfThreads <= 0){
+            throw new IllegalArgumentException("Le nombre de fils d'exécution (=" + numberOfThreads + ") est négatif ou nul.");
+        }
+
+        // Fils en arrière-plan: un lot interrompu par une exception ne retient pas la machine virtuelle
+        ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable){
+                Thread thread = new Thread(runnable, "FastestPathBatch");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try{
+            run(startingStops, departureTimes, executor, numberOfThreads, consumer);
+        }
+        finally{
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Calcule l'arbre des trajets les plus rapides de chaque arrêt de départ à chaque heure de départ donnés (voir ci-dessus),
+     * en confiant le nombre donné de tâches à l'exécuteur donné, p.ex. un ForkJoinPool partagé avec d'autres calculs.
+     * Chaque tâche effectue des recherches jusqu'à ce qu'il n'en reste plus: le nombre de tâches est donc le nombre de recherches
+     * menées en parallèle, et ne devrait pas dépasser le nombre de fils de l'exécuteur.
+     * Si une recherche ou le destinataire lance une exception, les tâches s'arrêtent au plus tôt et l'exception est relancée.
+     *
+     * @param startingStops Les arrêts de départ.
+     * @param departureTimes Les heures de départ.
+     * @param executor L'exécuteur des tâches, qui n'est pas arrêté à la fin.
+     * @param parallelism Le nombre de tâches.
+     * @param consumer Le destinataire des arbres.
+     * @throws IllegalArgumentException Si le nombre de tâches est négatif ou nul, ou si un arrêt ou une heure de départ est invalide
+     *             (voir Graph.fastestPaths).
+     */
+    public void run(final List<Stop> startingStops, final int[] departureTimes, ExecutorService executor, int parallelism, final Consumer consumer){
+        if(parallelism <= 0){
+            throw new IllegalArgumentException("Le nombre de tâches (=" + parallelism + ") est négatif ou nul.");
+        }
+
+        /* Les recherches sont numérotées: la recherche q est celle de l'arrêt q / departureTimes.length à l'heure q % departureTimes.length.
+           Chaque tâche prend le prochain numéro libre, jusqu'au dernier (ou jusqu'à l'échec d'une autre tâche). */
+        final int numberOfSearches = startingStops.size() * departureTimes.length;
+        final AtomicInteger nextSearch = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<Future<?>>(parallelism);
+        try{
+            for(int t = 0; t < parallelism; ++t){
+                results.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run(){
+                        RoutingWorkspace workspace = new RoutingWorkspace(graph);
+                        for(int q = nextSearch.getAndIncrement(); q < numberOfSearches; q = nextSearch.getAndIncrement()){
+                            Stop startingStop = startingStops.get(q / departureTimes.length);
+                            int departureTime = departureTimes[q % departureTimes.length];
+                            try{
+                                consumer.accept(startingStop, departureTime, graph.fastestPaths(startingStop, departureTime, maxDuration, workspace));
+                            }
+                            catch(RuntimeException e){
+                                nextSearch.set(numberOfSearches);
+                                throw e;
+                            }
+                        }
+                    }
+                }));
+            }
+            for(Future<?> result : results){
+                result.get();
+            }
+        }
+        catch(InterruptedException e){
+            nextSearch.set(numberOfSearches);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Le calcul par lots a été interrompu.", e);
+        }
+        catch(ExecutionException e){
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ch.epfl.isochrone.timetable;
+
+/**
+ * Représente un algorithme de recherche des trajets les plus rapides sur un réseau de transports.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public interface FastestPathFinder {
+
+    /**
+     * Retourne l'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés.
+     * 
+     * @param startingStop L'arrêt de départ.
+     * @param departureTime L'heure de départ (en secondes après minuit).
+     * @throws IllegalArgumentException Si l'arrêt donné ne fait pas partie du réseau ou si l'heure de départ est inférieure à zéro.
+     * @return L'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés.
+     */
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime);
+
+    /**
+     * Retourne l'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés, limité aux arrêts atteints au plus tard
+     * à l'heure de départ plus la durée maximale donnée. La recherche s'arrête une fois cette limite dépassée, ce qui la rend bien plus rapide
+     * lorsque seuls les trajets courts sont utiles (par exemple ceux que dessine une carte isochrone).
+     * 
+     * @param startingStop L'arrêt de départ.
+     * @param departureTime L'heure de départ (en secondes après minuit).
+     * @param maxDuration La durée maximale des trajets (en secondes), SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @throws IllegalArgumentException Si l'arrêt donné ne fait pas partie du réseau, si l'heure de départ ou la durée maximale est inférieure à zéro.
+     * @return L'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés, limité à la durée maximale donnée.
+     */
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime, int maxDuration);
+}
@@ -0,0 +1,314 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.Arrays;
+
+/**
+ * Modélise une recherche incrémentale des trajets les plus rapides (voir Graph.search): la recherche de Graph.fastestPaths, menée à la demande
+ * de l'appelant. Chaque appel à settleUntil visite les arrêts par heure d'arrivée croissante jusqu'à l'heure donnée et les signale un à un,
+ * dès que leur heure d'arrivée est définitive, au destinataire donné: une carte isochrone peut ainsi dessiner ses premières tranches,
+ * les plus proches, pendant que les suivantes sont encore calculées.
+ * <br/>
+ * La recherche est suspendue entre deux appels (ou lorsque le destinataire le demande) et reprend là où elle s'était arrêtée,
+ * sans rien recalculer. Elle peut être annulée à tout moment, y compris depuis un autre fil d'exécution (p.ex. lorsque l'utilisateur
+ * choisit un autre arrêt de départ): l'appel en cours s'arrête alors après l'arrêt qu'il visite. Mis à part cancel, ses méthodes
+ * ne doivent être appelées que par un fil d'exécution à la fois.
+ * <br/>
+ * L'état de la recherche (arrêts visités et arrêts atteints en attente de visite) peut être copié dans un instantané (voir snapshot),
+ * qui ne dépend plus de l'espace de travail: celui-ci peut alors servir à d'autres recherches, et la recherche être reprise plus tard
+ * depuis l'instantané (voir Graph.resume), p.ex. pour étendre un arbre limité à 30 minutes jusqu'à 60 minutes sans refaire les 30 premières.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class FastestPathSearch {
+    // Les voisins ne sont jamais écartés par une limite: c'est l'appelant qui décide jusqu'où visiter
+    private static final int NO_LIMIT = SecondsPastMidnight.INFINITE;
+
+    private final Graph graph;
+    private final int firstStartingStopId;
+    private final int departureTime;
+    private final WalkingParameters walking;
+    private final RoutingWorkspace workspace;
+    private volatile boolean cancelled;
+    // Premier arrêt de départ visité, celui que l'arbre retourne comme arrêt de départ, -1 tant qu'aucun arrêt n'a été visité
+    private int firstSettledStopId;
+
+    /**
+     * Modélise le destinataire des arrêts visités par une recherche incrémentale.
+     */
+    public interface Listener {
+        /**
+         * Reçoit un arrêt dont l'heure d'arrivée est devenue définitive. Les arrêts sont reçus par heure d'arrivée croissante.
+         *
+         * @param stop L'arrêt visité.
+         * @param arrivalTime L'heure d'arrivée à l'arrêt.
+         * @param predecessor Le prédécesseur de l'arrêt sur le trajet le plus rapide, ou null pour un arrêt de départ.
+         * @return Vrai pour continuer la recherche, faux pour la suspendre après cet arrêt.
+         */
+        boolean settled(Stop stop, int arrivalTime, Stop predecessor);
+    }
+
+    /**
+     * Construit une recherche incrémentale depuis les arrêts de départ d'identifiants donnés, atteints aux heures données,
+     * et place ceux-ci dans la queue de priorité de l'espace de travail donné. Les paramètres ont été vérifiés par le graphe.
+     *
+     * @param graph Le graphe.
+     * @param startingStopIds Les identifiants des arrêts de départ, distincts.
+     * @param startingTimes Les heures d'arrivée aux arrêts de départ.
+     * @param departureTime L'heure de départ.
+     * @param walking Les paramètres de marche.
+     * @param workspace L'espace de travail, qui appartient à la recherche jusqu'à ce qu'elle soit terminée ou annulée.
+     */
+    FastestPathSearch(Graph graph, int[] startingStopIds, int[] startingTimes, int departureTime, WalkingParameters walking, RoutingWorkspace workspace){
+        this.graph = graph;
+        this.firstStartingStopId = startingStopIds[0];
+        this.departureTime = departureTime;
+        this.walking = walking;
+        this.workspace = workspace;
+        this.firstSettledStopId = -1;
+        graph.startSearch(startingStopIds, startingTimes, NO_LIMIT, workspace);
+    }
+
+    /**
+     * Construit une recherche incrémentale reprise depuis l'instantané donné, dont l'état est recopié dans l'espace de travail donné:
+     * les arrêts visités y sont ajoutés à la queue de priorité puis retirés par heure d'arrivée croissante, avant que les arrêts en attente
+     * n'y soient placés, si bien que la queue se retrouve dans l'état où l'instantané l'a trouvée. Les paramètres ont été vérifiés par le graphe.
+     *
+     * @param snapshot L'instantané.
+     * @param workspace L'espace de travail, qui appartient à la recherche jusqu'à ce qu'elle soit terminée ou annulée.
+     */
+    FastestPathSearch(Snapshot snapshot, RoutingWorkspace workspace){
+        this.graph = snapshot.graph;
+        this.firstStartingStopId = snapshot.firstStartingStopId;
+        this.departureTime = snapshot.departureTime;
+        this.walking = snapshot.walking;
+        this.workspace = workspace;
+        this.firstSettledStopId = snapshot.firstSettledStopId;
+
+        IndexedPriorityQueue stopsPriorityQueue = workspace.stopsPriorityQueue;
+        stopsPriorityQueue.clear();
+        for(int k = 0; k < snapshot.settledStopIds.length; ++k){
+            int stopId = snapshot.settledStopIds[k];
+            stopsPriorityQueue.add(stopId, snapshot.settledArrivalTimes[k]);
+            stopsPriorityQueue.removeMin();
+            workspace.predecessors[stopId] = snapshot.settledPredecessors[k];
+        }
+        for(int k = 0; k < snapshot.pendingStopIds.length; ++k){
+            int stopId = snapshot.pendingStopIds[k];
+            stopsPriorityQueue.add(stopId, snapshot.pendingArrivalTimes[k]);
+            workspace.predecessors[stopId] = snapshot.pendingPredecessors[k];
+        }
+        workspace.settledStops = snapshot.settledStopIds.length;
+    }
+
+    /**
+     * Retourne l'heure de départ de la recherche.
+     *
+     * @return L'heure de départ.
+     */
+    public int departureTime(){
+        return departureTime;
+    }
+
+    /**
+     * Retourne vrai si la recherche est terminée: tous les arrêts atteignables ont été visités, ou la recherche a été annulée.
+     *
+     * @return Vrai si la recherche est terminée, faux sinon.
+     */
+    public boolean isFinished(){
+        return cancelled || workspace.stopsPriorityQueue.isEmpty();
+    }
+
+    /**
+     * Retourne l'heure d'arrivée du prochain arrêt à visiter, qui est postérieure ou égale à celles de tous les arrêts déjà visités.
+     *
+     * @return L'heure d'arrivée du prochain arrêt à visiter, ou SecondsPastMidnight.INFINITE si la recherche est terminée.
+     */
+    public int nextArrivalTime(){
+        return isFinished() ? SecondsPastMidnight.INFINITE : workspace.stopsPriorityQueue.minKey();
+    }
+
+    /**
+     * Retourne le nombre d'arrêts visités jusqu'ici.
+     *
+     * @return Le nombre d'arrêts visités.
+     */
+    public int settledStops(){
+        return workspace.settledStops;
+    }
+
+    /**
+     * Visite, par heure d'arrivée croissante, les arrêts atteints au plus tard à l'heure donnée et les signale au destinataire donné,
+     * puis suspend la recherche. Celle-ci s'arrête plus tôt si le destinataire le demande ou si elle est annulée.
+     *
+     * @param arrivalTime L'heure d'arrivée jusqu'à laquelle visiter les arrêts (comprise), SecondsPastMidnight.INFINITE pour les visiter tous.
+     * @param listener Le destinataire des arrêts visités, ou null.
+     * @return Le nombre d'arrêts visités par cet appel.
+     */
+    public int settleUntil(int arrivalTime, Listener listener){
+        IndexedPriorityQueue stopsPriorityQueue = workspace.stopsPriorityQueue;
+        int settled = 0;
+        while(!isFinished() && stopsPriorityQueue.minKey() <= arrivalTime){
+            int A = graph.settleNext(walking, NO_LIMIT, workspace);
+            ++settled;
+            if(firstSettledStopId == -1){
+                firstSettledStopId = A;
+            }
+            if(listener != null){
+                int predecessor = workspace.predecessors[A];
+                if(!listener.settled(graph.stop(A), stopsPriorityQueue.key(A), (predecessor == -1) ? null : graph.stop(predecessor))){
+                    break;
+                }
+            }
+        }
+        return settled;
+    }
+
+    /**
+     * Annule la recherche: aucun arrêt ne sera plus visité, et l'espace de travail peut servir à une autre recherche
+     * dès la fin de l'appel à settleUntil éventuellement en cours. Cette méthode peut être appelée depuis n'importe quel fil d'exécution.
+     */
+    public void cancel(){
+        cancelled = true;
+    }
+
+    /**
+     * Retourne vrai si la recherche a été annulée.
+     *
+     * @return Vrai si la recherche a été annulée, faux sinon.
+     */
+    public boolean isCancelled(){
+        return cancelled;
+    }
+
+    /**
+     * Retourne un instantané de l'état actuel de la recherche, qui peut être reprise depuis celui-ci par Graph.resume, autant de fois que voulu.
+     * L'instantané est une copie: la recherche peut se poursuivre sans le modifier, et l'espace de travail servir à d'autres recherches.
+     *
+     * @throws IllegalStateException Si la recherche a été annulée (l'espace de travail a pu être réutilisé depuis).
+     * @return L'instantané de la recherche.
+     */
+    public Snapshot snapshot(){
+        if(cancelled){
+            throw new IllegalStateException("La recherche a été annulée.");
+        }
+        IndexedPriorityQueue stopsPriorityQueue = workspace.stopsPriorityQueue;
+        int numberOfStops = graph.stopCount();
+
+        // Arrêts visités, triés par heure d'arrivée croissante (heure et identifiant réunis dans un long) pour être retirés dans cet ordre à la reprise
+        long[] settled = new long[workspace.settledStops];
+        int[] pendingStopIds = new int[stopsPriorityQueue.size()];
+        int numberOfSettled = 0, numberOfPending = 0;
+        for(int i = 0; i < numberOfStops; ++i){
+            if(stopsPriorityQueue.wasRemoved(i)){
+                settled[numberOfSettled++] = ((long) stopsPriorityQueue.key(i) << 32) | i;
+            }
+            else if(stopsPriorityQueue.contains(i)){
+                pendingStopIds[numberOfPending++] = i;
+            }
+        }
+        Arrays.sort(settled);
+
+        int[] settledStopIds = new int[settled.length];
+        int[] settledArrivalTimes = new int[settled.length];
+        int[] settledPredecessors = new int[settled.length];
+        for(int k = 0; k < settled.length; ++k){
+            settledStopIds[k] = (int) settled[k];
+            settledArrivalTimes[k] = (int) (settled[k] >>> 32);
+            settledPredecessors[k] = workspace.predecessors[settledStopIds[k]];
+        }
+        int[] pendingArrivalTimes = new int[pendingStopIds.length];
+        int[] pendingPredecessors = new int[pendingStopIds.length];
+        for(int k = 0; k < pendingStopIds.length; ++k){
+            pendingArrivalTimes[k] = stopsPriorityQueue.key(pendingStopIds[k]);
+            pendingPredecessors[k] = workspace.predecessors[pendingStopIds[k]];
+        }
+        return new Snapshot(this, settledStopIds, settledArrivalTimes, settledPredecessors, pendingStopIds, pendingArrivalTimes, pendingPredecessors);
+    }
+
+    /**
+     * Retourne l'arbre des arrêts visités jusqu'ici: c'est l'arbre de Graph.fastestPaths limité à l'heure d'arrivée du dernier arrêt visité.
+     * L'arbre est une copie: la recherche peut se poursuivre sans le modifier. Après l'annulation, l'espace de travail a pu être réutilisé:
+     * l'arbre n'a alors plus de sens.
+     *
+     * @return L'arbre des arrêts visités.
+     */
+    public FastestPathTree tree(){
+        return graph.settledTree((firstSettledStopId == -1) ? firstStartingStopId : firstSettledStopId, departureTime, walking, workspace);
+    }
+
+    /**
+     * Modélise un instantané immuable de l'état d'une recherche incrémentale (voir snapshot): les arrêts visités avec leur heure d'arrivée
+     * et leur prédécesseur, et les arrêts atteints mais pas encore visités avec leur meilleure heure d'arrivée connue et leur prédécesseur.
+     * Seuls les arrêts atteints sont copiés, pas les tableaux de l'espace de travail.
+     */
+    public static final class Snapshot {
+        private final Graph graph;
+        private final int firstStartingStopId;
+        private final int firstSettledStopId;
+        private final int departureTime;
+        private final WalkingParameters walking;
+        private final int[] settledStopIds;
+        private final int[] settledArrivalTimes;
+        private final int[] settledPredecessors;
+        private final int[] pendingStopIds;
+        private final int[] pendingArrivalTimes;
+        private final int[] pendingPredecessors;
+
+        private Snapshot(FastestPathSearch search, int[] settledStopIds, int[] settledArrivalTimes, int[] settledPredecessors,
+                int[] pendingStopIds, int[] pendingArrivalTimes, int[] pendingPredecessors){
+            this.graph = search.graph;
+            this.firstStartingStopId = search.firstStartingStopId;
+            this.firstSettledStopId = search.firstSettledStopId;
+            this.departureTime = search.departureTime;
+            this.walking = search.walking;
+            this.settledStopIds = settledStopIds;
+            this.settledArrivalTimes = settledArrivalTimes;
+            this.settledPredecessors = settledPredecessors;
+            this.pendingStopIds = pendingStopIds;
+            this.pendingArrivalTimes = pendingArrivalTimes;
+            this.pendingPredecessors = pendingPredecessors;
+        }
+
+        /**
+         * Retourne vrai si l'instantané a été pris d'une recherche dans le graphe donné (et non dans une autre vue du même graphe).
+         *
+         * @param graph Le graphe.
+         * @return Vrai si l'instantané provient d'une recherche dans ce graphe.
+         */
+        boolean isFor(Graph graph){
+            return this.graph == graph;
+        }
+
+        /**
+         * Retourne l'heure de départ de la recherche.
+         *
+         * @return L'heure de départ.
+         */
+        public int departureTime(){
+            return departureTime;
+        }
+
+        /**
+         * Retourne le nombre d'arrêts visités au moment de l'instantané.
+         *
+         * @return Le nombre d'arrêts visités.
+         */
+        public int settledStops(){
+            return settledStopIds.length;
+        }
+
+        /**
+         * Retourne l'heure d'arrivée du prochain arrêt à visiter au moment de l'instantané.
+         *
+         * @return L'heure d'arrivée du prochain arrêt à visiter, ou SecondsPastMidnight.INFINITE si la recherche était terminée.
+         */
+        public int nextArrivalTime(){
+            int next = SecondsPastMidnight.INFINITE;
+            for(int arrivalTime : pendingArrivalTimes){
+                next = Math.min(next, arrivalTime);
+            }
+            return next;
+        }
+    }
+}
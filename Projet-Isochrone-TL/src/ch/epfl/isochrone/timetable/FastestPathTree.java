@@ -1,127 +1,336 @@
 package ch.epfl.isochrone.timetable;
 
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 
 /**
  * Modélise un arbre de trajets les plus rapides.
+ * L'arbre peut avoir plusieurs arrêts de départ, atteints à des heures différentes (voir Graph.fastestPaths(Map, int, int, WalkingParameters, RoutingWorkspace)):
+ * chaque arrêt est alors relié à celui des arrêts de départ par lequel il est atteint au plus tôt.
  *
  * @author Alexandre Simoes Tavares (234563)
  * @author Lois Talagrand (234231)
  */
 public final class FastestPathTree {
+    /* Les arrêts sont identifiés par un index dense dans [0; stops.length[ (le même que celui du graphe pour les arbres calculés par une recherche):
+       arrivalTimes[i] est l'heure d'arrivée à stops[i] (SecondsPastMidnight.INFINITE s'il ne fait pas partie de l'arbre)
+       et predecessors[i] l'index de son prédécesseur (-1 pour les arrêts de départ et les arrêts ne faisant pas partie de l'arbre).
+       Les méthodes prenant ou retournant des arrêts ne sont qu'une vue sur ces tableaux. */
+    private final Stop[] stops;
+    private final Map<Stop, Integer> stopIds;
+    private final int startingStopId;
+    private final int startingTime;
+    private final int[] arrivalTimes;
+    private final int[] predecessors;
+    private final boolean walking;
+    private final Set<Stop> reachedStops;
 
-    private final Stop startingStop;
-    private final Map<Stop, Integer> arrivalTime;
-    private final Map<Stop, Stop> predecessor;
-    
     /**
-     * Construit un arbre des trajets les plus rapides avec l'arrêt de départ, la table des heures d'arrivée et la table des prédécesseurs donnés. 
-     * La table des heures d'arrivée associe à un certain nombre d'arrêts l'heure de première arrivée à cet arrêt (en secondes après minuit). 
+     * Construit un arbre des trajets les plus rapides avec l'arrêt de départ, la table des heures d'arrivée et la table des prédécesseurs donnés.
+     * La table des heures d'arrivée associe à un certain nombre d'arrêts l'heure de première arrivée à cet arrêt (en secondes après minuit).
      * La table des prédécesseurs associe à chaque arrêt son prédécesseur dans l'arbre.
-     * 
+     *
      * @param startingStop L'arrêt de départ.
      * @param arrivalTime La table des heures d'arrivée.
      * @param predecessor La table des prédécesseurs.
-     * @throws IllegalArgumentException Si l'ensemble des clefs de la table des heures n'est pas égal à celui des clefs de la tables des prédécesseurs plus l'arrêt de départ.
+     * @throws IllegalArgumentException Si l'ensemble des clefs de la table des heures n'est pas égal à celui des clefs de la tables des prédécesseurs plus l'arrêt de départ,
+     * ou si un prédécesseur ne fait pas partie de la table des heures d'arrivée.
      */
     public FastestPathTree(Stop startingStop, Map<Stop, Integer> arrivalTime, Map<Stop, Stop> predecessor){
-        
+
         // ATTENTION: Dans la Map predecessor, les values représentent les arrêts précédents les clefs
-        // Illustration de la Map:  
+        // Illustration de la Map:
         // Stop | Predecessor
-        predecessor.put(startingStop, null);
-        
-        if(arrivalTime.keySet().size() != predecessor.keySet().size()){
-            throw new IllegalArgumentException("Il n'y a pas le même nombre de clefs entre la table des heures d'arrivée et la table des prédécesseurs");     
-        }
-        
-        
-        Stop[] arrayPredecessorKeys = predecessor.keySet().toArray(new Stop[0]);
-        for(int j = 0; j < predecessor.keySet().size(); j++){
-            
-            if( !(arrivalTime.keySet().contains(arrayPredecessorKeys[j])) ){
-                throw new IllegalArgumentException("La clef de la table des prédécesseurs (=" + arrayPredecessorKeys[j].name() + ") n'est pas contenu dans la table des heures d'arrivée");
+        int numberOfPredecessorKeys = predecessor.containsKey(startingStop) ? predecessor.size() : predecessor.size() + 1;
+        if(arrivalTime.size() != numberOfPredecessorKeys){
+            throw new IllegalArgumentException("Il n'y a pas le même nombre de clefs entre la table des heures d'arrivée et la table des prédécesseurs");
+        }
+        if(!arrivalTime.containsKey(startingStop)){
+            throw new IllegalArgumentException("La clef de la table des prédécesseurs (=" + startingStop.name() + ") n'est pas contenu dans la table des heures d'arrivée");
+        }
+        for(Stop stop : predecessor.keySet()){
+            if(!arrivalTime.containsKey(stop)){
+                throw new IllegalArgumentException("La clef de la table des prédécesseurs (=" + stop.name() + ") n'est pas contenu dans la table des heures d'arrivée");
             }
+        }
+
+        // Attribution d'un index dense à chaque arrêt de la table des heures d'arrivée
+        this.stops = arrivalTime.keySet().toArray(new Stop[0]);
+        this.stopIds = new HashMap<Stop, Integer>();
+        for(int i = 0; i < stops.length; ++i){
+            stopIds.put(stops[i], i);
+        }
 
+        this.startingStopId = stopIds.get(startingStop);
+        this.arrivalTimes = new int[stops.length];
+        this.predecessors = new int[stops.length];
+        for(int i = 0; i < stops.length; ++i){
+            arrivalTimes[i] = arrivalTime.get(stops[i]);
+            Stop stopPredecessor = (i == startingStopId) ? null : predecessor.get(stops[i]);
+            if(stopPredecessor != null && !stopIds.containsKey(stopPredecessor)){
+                throw new IllegalArgumentException("Le prédécesseur (=" + stopPredecessor.name() + ") n'est pas contenu dans la table des heures d'arrivée");
+            }
+            predecessors[i] = (stopPredecessor == null) ? -1 : stopIds.get(stopPredecessor);
         }
-        
-        this.startingStop = startingStop;
-        this.arrivalTime = java.util.Collections.unmodifiableMap(arrivalTime);
-        this.predecessor = java.util.Collections.unmodifiableMap(predecessor);
+        this.startingTime = arrivalTimes[startingStopId];
+        this.walking = false;
+        this.reachedStops = new ReachedStops();
     }
-    
+
     /**
-     * Retourne l'arrêt de départ.
-     * 
+     * Construit un arbre des trajets les plus rapides à partir des tableaux donnés, indexés par identifiant dense d'arrêt, sans les copier:
+     * l'appelant ne doit plus les modifier. Les arrêts dont l'heure d'arrivée est SecondsPastMidnight.INFINITE ne font pas partie de l'arbre.
+     *
+     * @param stops Les arrêts, par identifiant.
+     * @param stopIds L'identifiant de chaque arrêt (table qui n'est plus modifiée).
+     * @param startingStopId L'identifiant de l'arrêt de départ.
+     * @param arrivalTimes Les heures d'arrivée, par identifiant.
+     * @param predecessors Les identifiants des prédécesseurs, par identifiant (-1 pour l'arrêt de départ).
+     */
+    FastestPathTree(Stop[] stops, Map<Stop, Integer> stopIds, int startingStopId, int[] arrivalTimes, int[] predecessors){
+        this(stops, stopIds, startingStopId, arrivalTimes[startingStopId], arrivalTimes, predecessors, false);
+    }
+
+    /**
+     * Construit un arbre des trajets les plus rapides à plusieurs arrêts de départ à partir des tableaux donnés (voir ci-dessus):
+     * les arrêts de départ sont ceux qui n'ont pas de prédécesseur, et l'heure de départ est celle du lieu d'où ils ont été atteints.
+     *
+     * @param stops Les arrêts, par identifiant.
+     * @param stopIds L'identifiant de chaque arrêt (table qui n'est plus modifiée).
+     * @param startingStopId L'identifiant de l'arrêt de départ retourné par startingStop (le premier atteint).
+     * @param startingTime L'heure de départ, antérieure ou égale aux heures d'arrivée aux arrêts de départ.
+     * @param arrivalTimes Les heures d'arrivée, par identifiant.
+     * @param predecessors Les identifiants des prédécesseurs, par identifiant (-1 pour les arrêts de départ).
+     * @param walking Vrai si la recherche a emprunté des trajets à pied sous forme de distances (voir WalkingParameters).
+     */
+    FastestPathTree(Stop[] stops, Map<Stop, Integer> stopIds, int startingStopId, int startingTime, int[] arrivalTimes, int[] predecessors, boolean walking){
+        this.stops = stops;
+        this.stopIds = stopIds;
+        this.startingStopId = startingStopId;
+        this.startingTime = startingTime;
+        this.arrivalTimes = arrivalTimes;
+        this.predecessors = predecessors;
+        this.walking = walking;
+        this.reachedStops = new ReachedStops();
+    }
+
+    /**
+     * Retourne l'arrêt de départ. Pour un arbre à plusieurs arrêts de départ, c'est le premier d'entre eux à être atteint.
+     *
      * @return L'arrêt de départ.
      */
     public Stop startingStop(){
-        return startingStop; //Stop est une classe immuable donc on a pas besoin de faire de copie
+        return stops[startingStopId]; //Stop est une classe immuable donc on a pas besoin de faire de copie
     }
-    
-   
+
+
     /**
      * Retourne l'heure de départ, qui n'est autre que l'heure de première arrivée à l'arrêt de départ.
-     * 
-     * @return L'heure de départ, qui n'est autre que l'heure de première arrivée à l'arrêt de départ.
+     * Pour un arbre à plusieurs arrêts de départ, c'est l'heure de départ du lieu d'où ils ont été atteints (p.ex. à pied).
+     *
+     * @return L'heure de départ.
      */
     public int startingTime(){
-        return arrivalTime.get(startingStop);
+        return startingTime;
     }
-    
+
     /**
      * Retourne l'ensemble des arrêts pour lesquels une heure de première arrivée existe.
-     * 
+     *
      * @return L'ensemble des arrêts pour lesquels une heure de première arrivée existe.
      */
     public Set<Stop> stops(){
-        return java.util.Collections.unmodifiableSet(arrivalTime.keySet()); // On fait attention à faire une copie pour l'immuabilité
+        return reachedStops; // Vue non modifiable sur les tableaux de l'arbre, qui lui-même est immuable
     }
-    
-    
+
+
     /**
      * Retourne l'heure d'arrivée à l'arrêt donné ou SecondsPastMidnight.INFINITE si l'arrêt donné n'est pas dans la table des heures d'arrivée passée au constructeur.
-     * 
+     *
      * @param stop L'arrêt.
      * @return L'heure d'arrivée à l'arrêt donné ou SecondsPastMidnight.INFINITE si l'arrêt donné n'est pas dans la table des heures d'arrivée passée au constructeur.
      */
     public int arrivalTime(Stop stop){
-        return arrivalTime.containsKey(stop) ? arrivalTime.get(stop) : SecondsPastMidnight.INFINITE;
+        Integer stopId = stopIds.get(stop);
+        return (stopId == null) ? SecondsPastMidnight.INFINITE : arrivalTimes[stopId];
     }
-    
+
     /**
-     * Retourne le chemin pour aller de l'arrêt de départ à celui passé en argument.
-     * 
+     * Retourne le chemin pour aller de l'arrêt de départ à celui passé en argument, en temps proportionnel à sa longueur.
+     * Pour un arbre à plusieurs arrêts de départ, le chemin commence à l'arrêt de départ par lequel l'arrêt donné est atteint au plus tôt.
+     *
      * @param stop L'arrêt de destination.
      * @throws IllegalArgumentException Si l'arrêt passé n'est pas présent dans la table des heures d'arrivée.
      * @return Le chemin pour aller de l'arrêt de départ à celui passé en argument.
      */
     public List<Stop> pathTo(Stop stop){
-                   
-        if(!(arrivalTime.containsKey(stop))){
+
+        Integer stopId = stopIds.get(stop);
+        if(stopId == null || arrivalTimes[stopId] == SecondsPastMidnight.INFINITE){
             throw new IllegalArgumentException("L'arrêt \"" + stop.name() + "\" n'est pas dans la table des heures d'arrivée.");
         }
-            
-        List<Stop> path = new ArrayList<Stop>();  
-        
-        path.add(stop);
-        while( !(path.contains(startingStop)) ){
-            Stop stopPredecessor = predecessor.get(stop);
-            path.add(stopPredecessor);
-            stop = stopPredecessor;
+
+        // Longueur du chemin, puis remplissage de la fin vers le début (pas besoin d'inverser le chemin): il commence à un arrêt de départ, sans prédécesseur
+        int length = 1;
+        for(int i = stopId; !isRoot(i); i = predecessors[i]){
+            ++length;
+        }
+        Stop[] path = new Stop[length];
+        int root = stopId;
+        for(; !isRoot(root); root = predecessors[root]){
+            path[--length] = stops[root];
+        }
+        path[0] = stops[root];
+
+        return new ArrayList<Stop>(Arrays.asList(path));
+    }
+
+    /**
+     * Retourne vrai si les identifiants d'arrêts de l'arbre sont les index du tableau d'arrêts donné (celui du graphe qui l'a calculé).
+     *
+     * @param graphStops Le tableau des arrêts d'un graphe.
+     * @return Vrai si l'arbre a été construit sur ce tableau d'arrêts.
+     */
+    boolean isIndexedBy(Stop[] graphStops){
+        return stops == graphStops;
+    }
+
+    /**
+     * Retourne vrai si l'arbre a été calculé en empruntant des trajets à pied sous forme de distances (voir WalkingParameters).
+     *
+     * @return Vrai si la recherche qui a calculé l'arbre a marché entre les arrêts.
+     */
+    boolean usesWalking(){
+        return walking;
+    }
+
+    /**
+     * Retourne vrai si l'arbre n'a qu'un arrêt de départ, atteint à l'heure de départ: c'est le seul arrêt atteint sans prédécesseur.
+     *
+     * @return Vrai si l'arbre n'a qu'un arrêt de départ.
+     */
+    boolean hasSingleRoot(){
+        if(arrivalTimes[startingStopId] != startingTime){
+            return false;
+        }
+        for(int i = 0; i < stops.length; ++i){
+            if(i != startingStopId && predecessors[i] == -1 && arrivalTimes[i] < SecondsPastMidnight.INFINITE){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Retourne l'identifiant de l'arrêt de départ.
+     *
+     * @return L'identifiant de l'arrêt de départ.
+     */
+    int startingStopId(){
+        return startingStopId;
+    }
+
+    /**
+     * Retourne l'heure d'arrivée à l'arrêt d'identifiant donné, SecondsPastMidnight.INFINITE s'il ne fait pas partie de l'arbre.
+     *
+     * @param stopId L'identifiant de l'arrêt.
+     * @return L'heure d'arrivée à l'arrêt.
+     */
+    int arrivalTime(int stopId){
+        return arrivalTimes[stopId];
+    }
+
+    /**
+     * Retourne l'identifiant du prédécesseur de l'arrêt d'identifiant donné, -1 pour un arrêt de départ ou ne faisant pas partie de l'arbre.
+     *
+     * @param stopId L'identifiant de l'arrêt.
+     * @return L'identifiant du prédécesseur.
+     */
+    int predecessor(int stopId){
+        return predecessors[stopId];
+    }
+
+    /**
+     * Retourne vrai si l'arrêt d'identifiant donné est un arrêt de départ: l'arrêt de départ lui-même ou, pour un arbre à plusieurs arrêts de départ,
+     * un arrêt sans prédécesseur.
+     */
+    private boolean isRoot(int stopId){
+        return stopId == startingStopId || predecessors[stopId] == -1;
+    }
+
+    /**
+     * Modélise l'ensemble des arrêts de l'arbre: une vue non modifiable sur les tableaux de l'arbre, sans copie.
+     */
+    private final class ReachedStops extends AbstractSet<Stop> {
+        private final int size;
+
+        private ReachedStops(){
+            int count = 0;
+            for(int arrivalTime : arrivalTimes){
+                if(arrivalTime != SecondsPastMidnight.INFINITE){
+                    ++count;
+                }
+            }
+            this.size = count;
+        }
+
+        @Override
+        public int size(){
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o){
+            Integer stopId = stopIds.get(o);
+            return stopId != null && arrivalTimes[stopId] != SecondsPastMidnight.INFINITE;
+        }
+
+        @Override
+        public Iterator<Stop> iterator(){
+            return new Iterator<Stop>() {
+                private int next = nextReached(0);
+
+                @Override
+                public boolean hasNext(){
+                    return next < stops.length;
+                }
+
+                @Override
+                public Stop next(){
+                    if(!hasNext()){
+                        throw new NoSuchElementException();
+                    }
+                    Stop stop = stops[next];
+                    next = nextReached(next + 1);
+                    return stop;
+                }
+
+                @Override
+                public void remove(){
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        /**
+         * Retourne le premier identifiant d'arrêt atteint à partir de celui donné, ou le nombre d'arrêts s'il n'y en a plus.
+         */
+        private int nextReached(int stopId){
+            while(stopId < stops.length && arrivalTimes[stopId] == SecondsPastMidnight.INFINITE){
+                ++stopId;
+            }
+            return stopId;
         }
-        
-        Collections.reverse(path); // Inversion pour avoir le chemin dans un ordre logique
-        
-        return path;
     }
-    
+
     /**
      * Modélise un batisseur pour un arbre de trajets les plus rapides
      *
@@ -129,37 +338,42 @@ public final class FastestPathTree {
      * @author Lois Talagrand (234231)
      */
     public static final class Builder{
-        
-        private final Stop startingStop;
+        /* Mêmes tableaux que l'arbre, agrandis au besoin: les arrêts reçoivent leur identifiant au fur et à mesure */
+        private final int startingStopId;
         private final int startingTime;
-        private final Map<Stop, Integer> arrivalTimeMap;
-        private final Map<Stop, Stop> predecessorMap;
-        
+        private Stop[] stops;
+        private Map<Stop, Integer> stopIds;
+        private int numberOfStops;
+        private int[] arrivalTimes;
+        private int[] predecessors;
+
         /**
-         * Construit un bâtisseur pour un arbre des trajets les plus rapides avec l'arrêt et l'heure de départ donnés. 
+         * Construit un bâtisseur pour un arbre des trajets les plus rapides avec l'arrêt et l'heure de départ donnés.
          * Dans cet arbre en construction, l'heure de première arrivée de l'arrêt de départ doit être l'heure de départ.
-         * 
+         *
          * @param startingStop L'arrêt de départ.
          * @param startingTime L'heure de départ.
          * @throws IllegalArgumentException Si l'heure de départ est négative.
          */
         public Builder(Stop startingStop, int startingTime){
-            
+
             if(startingTime < 0){
                 throw new IllegalArgumentException(" L'heure de départ (=" + startingTime + ") doit être positive.");
             }
-            
-            this.startingStop = startingStop;
+
             this.startingTime = startingTime;
-            arrivalTimeMap = new HashMap<Stop, Integer>();
-            predecessorMap = new HashMap<Stop, Stop>();
-            
-            arrivalTimeMap.put(startingStop, startingTime);
+            this.stops = new Stop[16];
+            this.stopIds = new HashMap<Stop, Integer>();
+            this.arrivalTimes = new int[16];
+            this.predecessors = new int[16];
+
+            this.startingStopId = stopId(startingStop);
+            arrivalTimes[startingStopId] = startingTime;
         }
-        
+
         /**
          * (Re)Définit l'heure de première arrivée et le prédécesseur de l'arrêt donné dans l'arbre en construction.
-         * 
+         *
          * @param stop L'arrêt.
          * @param time L'heure.
          * @param predecessor Le prédécesseur
@@ -167,37 +381,66 @@ public final class FastestPathTree {
          * @return this (permet les appels chaînés).
          */
         public Builder setArrivalTime(Stop stop, int time, Stop predecessor){
-            
+            return setArrivalTime(stopId(stop), time, (predecessor == null) ? -1 : stopId(predecessor));
+        }
+
+        /**
+         * (Re)Définit l'heure de première arrivée et le prédécesseur de l'arrêt d'identifiant donné.
+         */
+        private Builder setArrivalTime(int stopId, int time, int predecessorId){
+
             if(time < startingTime){
                 throw new IllegalArgumentException("L'heure en argument: " + time + " est antérieure à l'heure de départ.");
             }
-                   
-            // On (re)defitnit l'heure de première arrivée
-            arrivalTimeMap.put(stop, time); 
-                    
-            // On (re)definit le predecesseur
-            predecessorMap.put(stop, predecessor); 
-               
+
+            // On (re)definit l'heure de première arrivée et le predecesseur
+            arrivalTimes[stopId] = time;
+            predecessors[stopId] = predecessorId;
+
             return this;
         }
-        
+
         /**
          * Retourne l'heure de première arrivée à l'arrêt donné, ou SecondsPastMidnight.INFINITE si aucune heure d'arrivée n'a été attribuée à cet arrêt jusqu'ici.
-         * 
+         *
          * @param stop L'arrêt.
          * @return L'heure de première arrivée à l'arrêt donné, ou SecondsPastMidnight.INFINITE si aucune heure d'arrivée n'a été attribuée à cet arrêt jusqu'ici.
          */
         public int arrivalTime(Stop stop){
-            return arrivalTimeMap.containsKey(stop) ? arrivalTimeMap.get(stop) : SecondsPastMidnight.INFINITE;
+            Integer stopId = stopIds.get(stop);
+            return (stopId == null) ? SecondsPastMidnight.INFINITE : arrivalTimes[stopId];
         }
-        
+
         /**
          * Construit l'arbre des trajets les plus rapides avec les nœuds ajoutés jusqu'ici.
-         * 
+         *
          * @return L'arbre des trajets les plus rapides avec les nœuds ajoutés jusqu'ici.
          */
         public FastestPathTree build(){
-            return new FastestPathTree(startingStop, arrivalTimeMap, predecessorMap);
+            // Le bâtisseur peut encore être utilisé: l'arbre reçoit des copies
+            return new FastestPathTree(Arrays.copyOf(stops, numberOfStops), new HashMap<Stop, Integer>(stopIds), startingStopId,
+                    Arrays.copyOf(arrivalTimes, numberOfStops), Arrays.copyOf(predecessors, numberOfStops));
+        }
+
+        /**
+         * Retourne l'identifiant de l'arrêt donné, en lui en attribuant un nouveau s'il n'en a pas encore.
+         */
+        private int stopId(Stop stop){
+            Integer stopId = stopIds.get(stop);
+            if(stopId != null){
+                return stopId;
+            }
+
+            if(numberOfStops == stops.length){
+                stops = Arrays.copyOf(stops, 2 * numberOfStops);
+                arrivalTimes = Arrays.copyOf(arrivalTimes, 2 * numberOfStops);
+                predecessors = Arrays.copyOf(predecessors, 2 * numberOfStops);
+            }
+            stops[numberOfStops] = stop;
+            arrivalTimes[numberOfStops] = SecondsPastMidnight.INFINITE;
+            predecessors[numberOfStops] = -1;
+            stopIds.put(stop, numberOfStops);
+            return numberOfStops++;
         }
     }
 }
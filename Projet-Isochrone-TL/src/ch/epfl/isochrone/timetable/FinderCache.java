@@ -0,0 +1,208 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Modélise un « cache » des algorithmes de recherche préparés pour les vues d'un graphe contenant les trajets de tous les services
+ * (voir Graph.forServices et FastestPathAlgorithm.finderFor).
+ * <br/>
+ * De nombreuses dates partagent le même ensemble de services (p.ex. tous les jours de semaine d'une période): la clef du cache est donc
+ * l'empreinte canonique de l'ensemble de services (voir Graph.serviceBits) et non la date, si bien que deux dates circulant les mêmes
+ * services partagent la même entrée. Le cache contient au plus un nombre donné d'entrées, la moins récemment utilisée étant retirée
+ * en premier (comme TileCache pour les tuiles).
+ * <br/>
+ * Les algorithmes des prochains jours peuvent être préparés à l'avance par un fil d'exécution en arrière-plan (voir prewarm):
+ * une recherche demandant un algorithme en cours de préparation attend la fin de celle-ci au lieu de le préparer une seconde fois.
+ * Le cache peut être utilisé par plusieurs fils d'exécution à la fois: seules les données préparées, immuables, sont partagées
+ * (voir FastestPathAlgorithm.prepare). Les algorithmes qui conservent un état d'une recherche à l'autre (WarmStartFinder, ProfileFinder)
+ * sont construits à chaque appel de finderFor et ne doivent être utilisés que par le fil d'exécution appelant.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class FinderCache {
+    private final Graph graph;
+    private final Map<Key, FutureTask<FastestPathFinder>> finders;
+    private final ExecutorService prewarmExecutor;
+
+    /**
+     * Construit un cache vide des algorithmes de recherche préparés pour les vues du graphe donné.
+     *
+     * @param graph Le graphe contenant les trajets de tous les services (voir TimeTableReader.readGraphForAllServices).
+     * @param maxSize Le nombre maximum d'entrées du cache.
+     * @throws IllegalArgumentException Si le nombre maximum d'entrées est négatif ou nul.
+     */
+    public FinderCache(Graph graph, final int maxSize){
+        if(maxSize <= 0){
+            throw new IllegalArgumentException("Le nombre maximum d'entrées (=" + maxSize + ") est négatif ou nul.");
+        }
+        this.graph = graph;
+        // Ordre d'accès: la première entrée est la moins récemment utilisée
+        this.finders = new LinkedHashMap<Key, FutureTask<FastestPathFinder>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, FutureTask<FastestPathFinder>> e){
+                return size() > maxSize;
+            }
+        };
+        // Un seul fil d'exécution, en arrière-plan: il ne retient pas la machine virtuelle à la fin du programme
+        this.prewarmExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable){
+                Thread thread = new Thread(runnable, "FinderCache-prewarm");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Retourne l'algorithme de recherche donné, préparé pour la vue du graphe limitée aux services donnés. Les données préparées sont tirées du cache
+     * si un ensemble de services de même empreinte y a déjà été préparé (ou est en cours de préparation), et préparées puis ajoutées au cache sinon.
+     *
+     * @param algorithm L'algorithme de recherche.
+     * @param activeServices Les services actifs (p.ex. TimeTable.servicesForDate).
+     * @return L'algorithme de recherche préparé pour la vue du graphe limitée aux services donnés.
+     */
+    public FastestPathFinder finderFor(FastestPathAlgorithm algorithm, Set<Service> activeServices){
+        FutureTask<FastestPathFinder> task = taskFor(algorithm, activeServices);
+        // Sans effet si la préparation est déjà terminée ou en cours dans un autre fil d'exécution: get attend alors sa fin
+        task.run();
+        try{
+            return algorithm.finderForPrepared(task.get());
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("La préparation de l'algorithme de recherche a été interrompue.", e);
+        }
+        catch(ExecutionException e){
+            remove(task);
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Prépare en arrière-plan l'algorithme de recherche donné pour les services des jours donnés, à partir de la date donnée (comprise),
+     * afin que finderFor les retourne ensuite immédiatement. Les ensembles de services déjà présents dans le cache ne sont pas préparés à nouveau.
+     * Les jours au-delà du nombre maximum d'entrées du cache peuvent en retirer d'autres: le nombre de jours doit donc rester raisonnable.
+     *
+     * @param algorithm L'algorithme de recherche.
+     * @param timeTable L'horaire, donnant les services de chaque date.
+     * @param firstDate La première date.
+     * @param numberOfDays Le nombre de jours.
+     */
+    public void prewarm(FastestPathAlgorithm algorithm, TimeTable timeTable, Date firstDate, int numberOfDays){
+        for(int d = 0; d < numberOfDays; ++d){
+            // Une tâche déjà présente est terminée, en cours ou déjà soumise: seules les nouvelles tâches sont soumises
+            FutureTask<FastestPathFinder> task = newTaskFor(algorithm, timeTable.servicesForDate(firstDate.relative(d)));
+            if(task != null){
+                prewarmExecutor.execute(task);
+            }
+        }
+    }
+
+    /**
+     * Retourne le nombre d'entrées du cache, préparées ou en cours de préparation.
+     *
+     * @return Le nombre d'entrées du cache.
+     */
+    public synchronized int size(){
+        return finders.size();
+    }
+
+    /**
+     * Retourne la tâche de préparation de l'algorithme donné pour les services donnés, en la créant (sans l'exécuter) et en l'ajoutant au cache
+     * si aucune entrée n'a la même empreinte.
+     *
+     * @param algorithm L'algorithme de recherche.
+     * @param activeServices Les services actifs.
+     * @return La tâche de préparation de l'algorithme, exécutée ou non.
+     */
+    private synchronized FutureTask<FastestPathFinder> taskFor(FastestPathAlgorithm algorithm, Set<Service> activeServices){
+        Key key = new Key(algorithm, graph.serviceBits(activeServices));
+        FutureTask<FastestPathFinder> task = finders.get(key);
+        return (task == null) ? addTask(key, algorithm, activeServices) : task;
+    }
+
+    /**
+     * Crée (sans l'exécuter) et ajoute au cache la tâche de préparation de l'algorithme donné pour les services donnés,
+     * si aucune entrée n'a la même empreinte.
+     *
+     * @param algorithm L'algorithme de recherche.
+     * @param activeServices Les services actifs.
+     * @return La nouvelle tâche de préparation, ou null si une entrée du cache a déjà la même empreinte.
+     */
+    private synchronized FutureTask<FastestPathFinder> newTaskFor(FastestPathAlgorithm algorithm, Set<Service> activeServices){
+        Key key = new Key(algorithm, graph.serviceBits(activeServices));
+        return finders.containsKey(key) ? null : addTask(key, algorithm, activeServices);
+    }
+
+    /**
+     * Crée (sans l'exécuter) la tâche de préparation de l'algorithme donné pour les services donnés et l'ajoute au cache sous la clef donnée.
+     *
+     * @param key La clef de l'entrée.
+     * @param algorithm L'algorithme de recherche.
+     * @param activeServices Les services actifs.
+     * @return La nouvelle tâche de préparation.
+     */
+    private synchronized FutureTask<FastestPathFinder> addTask(Key key, final FastestPathAlgorithm algorithm, final Set<Service> activeServices){
+        FutureTask<FastestPathFinder> task = new FutureTask<FastestPathFinder>(new Callable<FastestPathFinder>() {
+            @Override
+            public FastestPathFinder call(){
+                return algorithm.prepare(graph.forServices(activeServices));
+            }
+        });
+        finders.put(key, task);
+        return task;
+    }
+
+    /**
+     * Retire du cache la tâche donnée, dont la préparation a échoué, pour qu'une prochaine demande la relance.
+     *
+     * @param task La tâche.
+     */
+    private synchronized void remove(FutureTask<FastestPathFinder> task){
+        finders.values().remove(task);
+    }
+
+    /**
+     * Modélise la clef d'une entrée du cache: un algorithme et l'empreinte d'un ensemble de services.
+     */
+    private static final class Key {
+        private final FastestPathAlgorithm algorithm;
+        private final BitSet serviceBits;
+
+        Key(FastestPathAlgorithm algorithm, BitSet serviceBits){
+            this.algorithm = algorithm;
+            this.serviceBits = serviceBits;
+        }
+
+        @Override
+        public boolean equals(Object that){
+            if(!(that instanceof Key)){
+                return false;
+            }
+            Key key = (Key) that;
+            return algorithm == key.algorithm && serviceBits.equals(key.serviceBits);
+        }
+
+        @Override
+        public int hashCode(){
+            return 31 * algorithm.hashCode() + serviceBits.hashCode();
+        }
+    }
+}
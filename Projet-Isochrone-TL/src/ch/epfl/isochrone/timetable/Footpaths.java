@@ -0,0 +1,127 @@
+package ch.epfl.isochrone.timetable;
+
+/**
+ * Modélise les trajets à pied d'un graphe (les arcs ayant un temps de marche, ajoutés par Graph.Builder.addAllWalkEdges),
+ * rangés dans des tableaux de types primitifs et groupés par arrêt de départ.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+final class Footpaths {
+    /* Trajets à pied depuis l'arrêt A : vers destinations[f] en times[f] secondes, f dans [offsets[A]; offsets[A+1][ */
+    private final int[] offsets;
+    private final int[] destinations;
+    private final int[] times;
+
+    /**
+     * Construit les trajets à pied du graphe donné, identifiés par les identifiants denses des arrêts du graphe.
+     *
+     * @param graph Le graphe.
+     */
+    Footpaths(Graph graph){
+        int numberOfStops = graph.stopCount();
+        int numberOfFootpaths = 0;
+        for(int e = 0; e < graph.edgeOffset(numberOfStops); ++e){
+            if(graph.edgeWalkingTime(e) != -1){
+                ++numberOfFootpaths;
+            }
+        }
+
+        offsets = new int[numberOfStops + 1];
+        destinations = new int[numberOfFootpaths];
+        times = new int[numberOfFootpaths];
+        int f = 0;
+        for(int A = 0; A < numberOfStops; ++A){
+            offsets[A] = f;
+            for(int e = graph.edgeOffset(A); e < graph.edgeOffset(A + 1); ++e){
+                if(graph.edgeWalkingTime(e) != -1){
+                    destinations[f] = graph.edgeDestination(e);
+                    times[f] = graph.edgeWalkingTime(e);
+                    ++f;
+                }
+            }
+        }
+        offsets[numberOfStops] = f;
+    }
+
+    /**
+     * Retourne l'index du premier trajet à pied depuis l'arrêt donné. Les trajets à pied depuis l'arrêt A sont ceux de l'intervalle [offset(A); offset(A+1)[.
+     *
+     * @param stopId L'identifiant de l'arrêt, dans [0; nombre d'arrêts].
+     * @return L'index du premier trajet à pied depuis l'arrêt.
+     */
+    int offset(int stopId){
+        return offsets[stopId];
+    }
+
+    /**
+     * Retourne l'identifiant de l'arrêt de destination du trajet à pied donné.
+     *
+     * @param footpath L'index du trajet à pied.
+     * @return L'identifiant de l'arrêt de destination.
+     */
+    int destination(int footpath){
+        return destinations[footpath];
+    }
+
+    /**
+     * Retourne le temps de marche du trajet à pied donné (en secondes).
+     *
+     * @param footpath L'index du trajet à pied.
+     * @return Le temps de marche.
+     */
+    int time(int footpath){
+        return times[footpath];
+    }
+
+    /**
+     * Améliore à pied les heures d'arrivée depuis les arrêts placés dans la file donnée. Les trajets à pied pouvant s'enchaîner,
+     * un arrêt amélioré est à son tour placé dans la file (un arrêt n'y figure qu'une fois à la fois). Les trajets à pied étant courts,
+     * cette simple file est plus rapide qu'une queue de priorité.
+     *
+     * @param arrivalTimes Les heures d'arrivée, par identifiant d'arrêt (mises à jour).
+     * @param predecessors Les prédécesseurs, par identifiant d'arrêt (mis à jour).
+     * @param queue La file, dont les queueSize premiers éléments sont les arrêts de départ; de taille égale au nombre d'arrêts.
+     * @param inQueue Vrai pour les arrêts se trouvant dans la file (faux pour tous les arrêts au retour).
+     * @param queueSize Le nombre d'arrêts de départ.
+     * @param arrivalTimeLimit L'heure d'arrivée au-delà de laquelle les arrêts ne sont pas améliorés (SecondsPastMidnight.INFINITE pour ne pas limiter).
+     * @param marked Vrai pour les arrêts marqués (mis à jour), ou null si les arrêts améliorés n'ont pas à être marqués.
+     * @param markedStops Les arrêts marqués, auxquels sont ajoutés les arrêts améliorés (ignoré si marked est null).
+     * @param numberOfMarked Le nombre d'arrêts marqués.
+     * @return Le nouveau nombre d'arrêts marqués.
+     */
+    int relax(int[] arrivalTimes, int[] predecessors, int[] queue, boolean[] inQueue, int queueSize, int arrivalTimeLimit, boolean[] marked, int[] markedStops, int numberOfMarked){
+        int head = 0;
+        int size = queueSize;
+        for(int q = 0; q < queueSize; ++q){
+            inQueue[queue[q]] = true;
+        }
+
+        while(size > 0){
+            int A = queue[head];
+            head = (head + 1 == queue.length) ? 0 : head + 1;
+            --size;
+            inQueue[A] = false;
+
+            for(int f = offsets[A]; f < offsets[A + 1]; ++f){
+                int B = destinations[f];
+                int arrivalTime = arrivalTimes[A] + times[f];
+                if(arrivalTime < arrivalTimes[B] && arrivalTime <= arrivalTimeLimit){
+                    arrivalTimes[B] = arrivalTime;
+                    predecessors[B] = A;
+                    if(marked != null && !marked[B]){
+                        marked[B] = true;
+                        markedStops[numberOfMarked++] = B;
+                    }
+                    if(!inQueue[B]){
+                        int tail = head + size;
+                        queue[(tail >= queue.length) ? tail - queue.length : tail] = B;
+                        ++size;
+                        inQueue[B] = true;
+                    }
+                }
+            }
+        }
+        return numberOfMarked;
+    }
+}
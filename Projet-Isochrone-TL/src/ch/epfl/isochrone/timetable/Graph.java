@@ -1,13 +1,23 @@
 package ch.epfl.isochrone.timetable;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ch.epfl.isochrone.geo.PointWGS84;
+import ch.epfl.isochrone.geo.SpatialGrid;
 
 /**
  * Modélise un graphe d'horaire.
@@ -15,138 +25,1204 @@ import java.util.Set;
  * @author Alexandre Simoes Tavares (234563)
  * @author Lois Talagrand (234231)
  */
-public final class Graph {
-    private final Set<Stop> stops;
-    private final Map<Stop, List<GraphEdge>> outgoingEdges;
-    
+public final class Graph implements FastestPathFinder {
+    /* Le graphe est stocké sous forme compacte (« compressed sparse row »): chaque arrêt reçoit un identifiant dense dans [0; nombre d'arrêts[
+       et les arcs sont rangés dans des tableaux de types primitifs, groupés par arrêt de départ.
+
+         arcs sortants de l'arrêt A : indices e de l'intervalle [edgeOffsets[A]; edgeOffsets[A+1][
+         arc e                      : destination edgeDestinations[e], temps de marche edgeWalkingTimes[e]
+         trajets de l'arc e         : packedTrips[tripOffsets[e]] ... packedTrips[tripOffsets[e+1] - 1], triés
+         service du trajet t        : services[tripServices[t]], ou aucun (trajet quotidien) si tripServices[t] == -1 ou si tripServices est null
+
+       Les arcs sont aussi rangés par arrêt de destination, pour les recherches à rebours (voir latestDepartures):
+
+         arcs entrants de l'arrêt A : arcs incomingEdges[r] (depuis incomingSources[r]), r dans [incomingOffsets[A]; incomingOffsets[A+1][
+
+       Un graphe peut contenir les trajets de plusieurs services (voir Builder.addTripEdge): seuls les trajets des services actifs
+       (bit s du mot activeServices[s/64]) sont empruntés. Les vues retournées par forServices partagent tous les tableaux du graphe
+       et n'en diffèrent que par les services actifs.
+
+       Les trajets à pied enregistrés sous forme de distances (indépendantes de la vitesse de marche, voir Builder.addAllWalkingDistances)
+       sont rangés à part, par distance croissante:
+
+         trajets à pied depuis A    : vers walkDestinations[f] distant de walkDistances[f] mètres, f dans [walkOffsets[A]; walkOffsets[A+1][
+
+       L'index spatial des arrêts (par identifiant), qui sert à trouver les arrêts proches d'un lieu quelconque (voir startingTimes),
+       n'est construit qu'à la première demande et partagé par les vues.
+    */
+    private final Stop[] stops;
+    private final Map<Stop, Integer> stopIds;
+
+    private final int[] edgeOffsets;
+    private final int[] edgeDestinations;
+    private final int[] edgeWalkingTimes;
+    private final int[] tripOffsets;
+    private final int[] packedTrips;
+    private final int[] tripServices;
+
+    private final int[] incomingOffsets;
+    private final int[] incomingEdges;
+    private final int[] incomingSources;
+
+    private final Service[] services;
+    private final Map<Service, Integer> serviceIds;
+    private final long[] activeServices;
+
+    private final int[] walkOffsets;
+    private final int[] walkDestinations;
+    private final double[] walkDistances;
+    private final double maxWalkingDistance;
+
+    private final AtomicReference<SpatialGrid> stopGrid;
+
+    // Paramètres de marche des recherches qui n'en donnent pas: aucun trajet à pied enregistré sous forme de distance n'est emprunté
+    private static final WalkingParameters NO_WALKING = new WalkingParameters(0, 1);
+
     /**
-     * Construit un graphe avec les arrêts donnés comme noeuds et les arcs spécifiés dans la table associative. 
+     * Construit un graphe avec les arrêts donnés comme noeuds et les arcs spécifiés dans la table associative.
      * Cette table associe à un arrêt—donc un nœud du graphe—la liste des arcs qui partent de ce noeud.
-     * 
+     * Les arcs sont recopiés dans la représentation compacte du graphe, de même que les distances de marche.
+     *
+     * Tous les services des trajets sont actifs.
+     *
      * @param stops Les arrêts.
      * @param outgoingEdges Les arcs.
+     * @param services Les services des trajets, par index (voir GraphEdge.tripServices).
+     * @param walkingDistances Les distances (en mètres) entre arrêts reliés à pied, par arrêt de départ puis d'arrivée.
+     * @param maxWalkingDistance La distance en deçà de laquelle tous les arrêts reliés à pied figurent dans walkingDistances.
+     */
+    private Graph(Set<Stop> stops, Map<Stop, List<GraphEdge>> outgoingEdges, List<Service> services, Map<Stop, Map<Stop, Double>> walkingDistances, double maxWalkingDistance){
+        this.stops = stops.toArray(new Stop[0]);
+        this.stopIds = new HashMap<Stop, Integer>();
+        for(int i=0; i < this.stops.length; ++i){
+            stopIds.put(this.stops[i], i);
+        }
+
+        this.services = services.toArray(new Service[services.size()]);
+        this.serviceIds = new HashMap<Service, Integer>();
+        for(int i=0; i < this.services.length; ++i){
+            serviceIds.put(this.services[i], i);
+        }
+        this.activeServices = new long[(this.services.length + 63) / 64];
+        Arrays.fill(activeServices, -1L);
+
+        // Premier passage: nombre d'arcs et de trajets, pour dimensionner les tableaux
+        int numberOfEdges = 0;
+        int numberOfTrips = 0;
+        for(List<GraphEdge> edges : outgoingEdges.values()){
+            numberOfEdges += edges.size();
+            for(GraphEdge edge : edges){
+                numberOfTrips += edge.packedTrips().length;
+            }
+        }
+
+        edgeOffsets = new int[this.stops.length + 1];
+        edgeDestinations = new int[numberOfEdges];
+        edgeWalkingTimes = new int[numberOfEdges];
+        tripOffsets = new int[numberOfEdges + 1];
+        packedTrips = new int[numberOfTrips];
+        // Les services des trajets ne sont conservés que si certains trajets ne sont pas quotidiens
+        tripServices = (this.services.length == 0) ? null : new int[numberOfTrips];
+
+        // Second passage: recopie des arcs, arrêt par arrêt
+        int e = 0;
+        int t = 0;
+        for(int i=0; i < this.stops.length; ++i){
+            edgeOffsets[i] = e;
+            List<GraphEdge> edges = outgoingEdges.get(this.stops[i]);
+            if(edges == null){
+                continue;
+            }
+            for(GraphEdge edge : edges){
+                edgeDestinations[e] = stopIds.get(edge.destination());
+                edgeWalkingTimes[e] = edge.walkingTime();
+                tripOffsets[e] = t;
+
+                int[] trips = edge.packedTrips();
+                System.arraycopy(trips, 0, packedTrips, t, trips.length);
+                if(tripServices != null){
+                    System.arraycopy(edge.tripServices(), 0, tripServices, t, trips.length);
+                }
+                t += trips.length;
+                ++e;
+            }
+        }
+        edgeOffsets[this.stops.length] = e;
+        tripOffsets[numberOfEdges] = t;
+
+        // Arcs par arrêt de destination (tri par dénombrement: les arcs entrants de chaque arrêt restent par source croissante)
+        incomingOffsets = new int[this.stops.length + 1];
+        incomingEdges = new int[numberOfEdges];
+        incomingSources = new int[numberOfEdges];
+        for(int edge = 0; edge < numberOfEdges; ++edge){
+            ++incomingOffsets[edgeDestinations[edge] + 1];
+        }
+        for(int i=0; i < this.stops.length; ++i){
+            incomingOffsets[i + 1] += incomingOffsets[i];
+        }
+        int[] nextIncoming = Arrays.copyOf(incomingOffsets, this.stops.length);
+        for(int i=0; i < this.stops.length; ++i){
+            for(int edge = edgeOffsets[i]; edge < edgeOffsets[i + 1]; ++edge){
+                int r = nextIncoming[edgeDestinations[edge]]++;
+                incomingEdges[r] = edge;
+                incomingSources[r] = i;
+            }
+        }
+
+        // Trajets à pied, triés par distance croissante (puis par identifiant) pour qu'une recherche s'arrête à la distance maximale de ses paramètres
+        int numberOfWalks = 0;
+        for(Map<Stop, Double> distances : walkingDistances.values()){
+            numberOfWalks += distances.size();
+        }
+        this.maxWalkingDistance = maxWalkingDistance;
+        walkOffsets = new int[this.stops.length + 1];
+        walkDestinations = new int[numberOfWalks];
+        walkDistances = new double[numberOfWalks];
+        int f = 0;
+        for(int i=0; i < this.stops.length; ++i){
+            walkOffsets[i] = f;
+            Map<Stop, Double> distances = walkingDistances.get(this.stops[i]);
+            if(distances == null){
+                continue;
+            }
+            final double[] distanceValues = new double[distances.size()];
+            final int[] destinationIds = new int[distances.size()];
+            Integer[] order = new Integer[distances.size()];
+            int k = 0;
+            for(Map.Entry<Stop, Double> distance : distances.entrySet()){
+                distanceValues[k] = distance.getValue();
+                destinationIds[k] = stopIds.get(distance.getKey());
+                order[k] = k;
+                ++k;
+            }
+            Arrays.sort(order, new Comparator<Integer>(){
+                @Override
+                public int compare(Integer a, Integer b){
+                    int byDistance = Double.compare(distanceValues[a], distanceValues[b]);
+                    return (byDistance != 0) ? byDistance : Integer.compare(destinationIds[a], destinationIds[b]);
+                }
+            });
+            for(int index : order){
+                walkDestinations[f] = destinationIds[index];
+                walkDistances[f] = distanceValues[index];
+                ++f;
+            }
+        }
+        walkOffsets[this.stops.length] = f;
+        this.stopGrid = new AtomicReference<SpatialGrid>();
+    }
+
+    /**
+     * Construit une vue du graphe donné dans laquelle seuls les trajets quotidiens et ceux des services actifs donnés sont empruntés.
+     * Tous les tableaux du graphe sont partagés.
+     *
+     * @param graph Le graphe.
+     * @param activeServices Les services actifs (bit s du mot s/64 pour le service d'index s).
+     */
+    private Graph(Graph graph, long[] activeServices){
+        this.stops = graph.stops;
+        this.stopIds = graph.stopIds;
+        this.edgeOffsets = graph.edgeOffsets;
+        this.edgeDestinations = graph.edgeDestinations;
+        this.edgeWalkingTimes = graph.edgeWalkingTimes;
+        this.tripOffsets = graph.tripOffsets;
+        this.packedTrips = graph.packedTrips;
+        this.tripServices = graph.tripServices;
+        this.incomingOffsets = graph.incomingOffsets;
+        this.incomingEdges = graph.incomingEdges;
+        this.incomingSources = graph.incomingSources;
+        this.services = graph.services;
+        this.serviceIds = graph.serviceIds;
+        this.activeServices = activeServices;
+        this.walkOffsets = graph.walkOffsets;
+        this.walkDestinations = graph.walkDestinations;
+        this.walkDistances = graph.walkDistances;
+        this.maxWalkingDistance = graph.maxWalkingDistance;
+        this.stopGrid = graph.stopGrid;
+    }
+
+    /**
+     * Retourne une vue de ce graphe dans laquelle seuls les trajets des services donnés (et les trajets quotidiens, ajoutés sans service) sont empruntés,
+     * p.ex. ceux des services d'une date donnée par TimeTable.servicesForDate. Les services qui ne sont ceux d'aucun trajet du graphe sont ignorés.
+     * La vue partage toutes les données du graphe: l'obtenir ne coûte presque rien, si bien qu'un seul graphe contenant tous les trajets
+     * de la période des horaires sert toutes les dates.
+     *
+     * @param activeServices Les services actifs.
+     * @return La vue du graphe limitée aux services donnés.
+     */
+    public Graph forServices(Set<Service> activeServices){
+        long[] words = Arrays.copyOf(serviceBits(activeServices).toLongArray(), (services.length + 63) / 64);
+        return new Graph(this, words);
+    }
+
+    /**
+     * Retourne l'empreinte canonique de l'ensemble de services donné dans ce graphe: l'ensemble des identifiants des services du graphe qui en font partie.
+     * Deux ensembles de services ont la même empreinte si et seulement si forServices en donne des vues empruntant les mêmes trajets,
+     * si bien que l'empreinte peut servir de clef à un cache (voir FinderCache).
+     *
+     * @param activeServices Les services actifs.
+     * @return L'empreinte de l'ensemble de services.
+     */
+    BitSet serviceBits(Set<Service> activeServices){
+        BitSet bits = new BitSet(services.length);
+        for(Service service : activeServices){
+            Integer serviceId = serviceIds.get(service);
+            if(serviceId != null){
+                bits.set(serviceId);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Retourne l'ensemble des services des trajets du graphe (vide si tous les trajets ont été ajoutés sans service), actifs ou non.
+     *
+     * @return L'ensemble des services des trajets du graphe.
+     */
+    public Set<Service> services(){
+        return java.util.Collections.unmodifiableSet(new HashSet<Service>(Arrays.asList(services)));
+    }
+
+    /**
+     * Retourne la distance (en mètres) en deçà de laquelle tous les trajets à pied entre arrêts sont enregistrés sous forme de distances
+     * (voir Builder.addAllWalkingDistances): les recherches dont les paramètres de marche ne la dépassent pas peuvent être effectuées dans ce graphe.
+     *
+     * @return La distance maximale des trajets à pied enregistrés, 0 si aucun ne l'est.
+     */
+    public double maxWalkingDistance(){
+        return maxWalkingDistance;
+    }
+
+    /**
+     * Retourne le nombre d'arrêts du graphe.
+     *
+     * @return Le nombre d'arrêts du graphe.
+     */
+    int stopCount(){
+        return stops.length;
+    }
+
+    /**
+     * Retourne l'arrêt ayant l'identifiant dense donné.
+     *
+     * @param stopId L'identifiant de l'arrêt, dans [0; stopCount()[.
+     * @return L'arrêt ayant l'identifiant donné.
+     */
+    Stop stop(int stopId){
+        return stops[stopId];
+    }
+
+    /**
+     * Retourne vrai si le graphe donné a les mêmes arrêts, identifiés de la même manière, que celui-ci: c'est le cas d'un graphe et de ses vues.
+     *
+     * @param that Le graphe.
+     * @return Vrai si les deux graphes partagent leurs arrêts.
+     */
+    boolean hasSameStops(Graph that){
+        return stops == that.stops;
+    }
+
+    /**
+     * Retourne l'identifiant dense de l'arrêt donné, ou -1 si l'arrêt ne fait pas partie du graphe.
+     *
+     * @param stop L'arrêt.
+     * @return L'identifiant dense de l'arrêt, ou -1 s'il ne fait pas partie du graphe.
+     */
+    int stopId(Stop stop){
+        Integer stopId = stopIds.get(stop);
+        return (stopId == null) ? -1 : stopId;
+    }
+
+    /**
+     * Retourne l'index du premier arc sortant de l'arrêt donné. Les arcs sortants de l'arrêt A sont ceux de l'intervalle [edgeOffset(A); edgeOffset(A+1)[.
+     *
+     * @param stopId L'identifiant de l'arrêt, dans [0; stopCount()].
+     * @return L'index du premier arc sortant de l'arrêt.
+     */
+    int edgeOffset(int stopId){
+        return edgeOffsets[stopId];
+    }
+
+    /**
+     * Retourne l'identifiant de l'arrêt de destination de l'arc donné.
+     *
+     * @param edge L'index de l'arc.
+     * @return L'identifiant de l'arrêt de destination de l'arc.
+     */
+    int edgeDestination(int edge){
+        return edgeDestinations[edge];
+    }
+
+    /**
+     * Retourne le temps de marche de l'arc donné (en secondes), ou -1 s'il ne peut être parcouru à pied.
+     *
+     * @param edge L'index de l'arc.
+     * @return Le temps de marche de l'arc, ou -1.
+     */
+    int edgeWalkingTime(int edge){
+        return edgeWalkingTimes[edge];
+    }
+
+    /**
+     * Retourne l'index du premier trajet de l'arc donné. Les trajets de l'arc e sont ceux de l'intervalle [tripOffset(e); tripOffset(e+1)[.
+     *
+     * @param edge L'index de l'arc, dans [0; nombre d'arcs].
+     * @return L'index du premier trajet de l'arc.
+     */
+    int tripOffset(int edge){
+        return tripOffsets[edge];
+    }
+
+    /**
+     * Retourne vrai si le trajet d'index donné est emprunté dans ce graphe, c-à-d s'il est quotidien ou si son service est actif.
+     *
+     * @param trip L'index du trajet.
+     * @return Vrai si le trajet est emprunté, faux sinon.
+     */
+    boolean isTripActive(int trip){
+        if(tripServices == null || tripServices[trip] == -1){
+            return true;
+        }
+        int service = tripServices[trip];
+        return (activeServices[service >>> 6] & (1L << service)) != 0;
+    }
+
+    /**
+     * Retourne le trajet encodé d'index donné (voir GraphEdge.packTrip).
+     *
+     * @param trip L'index du trajet.
+     * @return Le trajet encodé.
+     */
+    int packedTrip(int trip){
+        return packedTrips[trip];
+    }
+
+    /**
+     * Retourne la première heure d'arrivée à la destination de l'arc donné en partant de sa source à l'heure donnée, en empruntant
+     * ses trajets actifs dans ce graphe ou à pied (voir GraphEdge.earliestArrivalTime).
+     *
+     * @param edge L'index de l'arc.
+     * @param departureTime L'heure de départ.
+     * @return La première heure d'arrivée à la destination de l'arc, ou SecondsPastMidnight.INFINITE s'il ne peut être parcouru.
+     */
+    int edgeArrivalTime(int edge, int departureTime){
+        return (tripServices == null)
+                ? GraphEdge.earliestArrivalTime(packedTrips, tripOffsets[edge], tripOffsets[edge + 1], edgeWalkingTimes[edge], departureTime)
+                : GraphEdge.earliestArrivalTime(packedTrips, tripServices, activeServices, tripOffsets[edge], tripOffsets[edge + 1], edgeWalkingTimes[edge], departureTime);
+    }
+
+    /**
+     * Construit l'arbre des trajets les plus rapides à partir des heures d'arrivée et des prédécesseurs calculés par un algorithme de recherche,
+     * indexés par identifiant dense d'arrêt. Seuls les arrêts atteints (heure d'arrivée inférieure à SecondsPastMidnight.INFINITE) en font partie.
+     * Les tableaux ne sont pas copiés mais repris par l'arbre: l'appelant ne doit plus les modifier.
+     *
+     * @param startingStopId L'identifiant de l'arrêt de départ.
+     * @param departureTime L'heure de départ.
+     * @param arrivalTimes Les heures d'arrivée.
+     * @param predecessors Les identifiants des prédécesseurs (ignorés pour les arrêts non atteints et l'arrêt de départ).
+     * @return L'arbre des trajets les plus rapides.
      */
-    private Graph(Set<Stop> stops, Map<Stop, List<GraphEdge>> outgoingEdges){
-        this.stops = stops;
-        this.outgoingEdges = outgoingEdges;
+    FastestPathTree fastestPathTree(int startingStopId, int departureTime, int[] arrivalTimes, int[] predecessors){
+        arrivalTimes[startingStopId] = departureTime;
+        predecessors[startingStopId] = -1;
+        return new FastestPathTree(stops, stopIds, startingStopId, arrivalTimes, predecessors);
     }
-    
+
     /**
      * Retourne l'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés.
-     * 
+     *
      * @param startingStop L'arrêt.
      * @param departureTime L'heure de départ.
      * @throws IllegalArgumentException Si l'arrêt donné ne fait pas partie du graphe ou si l'heure de départ est inférieure à zéro.
      * @return L'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés.
      */
+    @Override
     public FastestPathTree fastestPaths(Stop startingStop, int departureTime){
-/*      Pseudo-code de l'algorithme :
-        
-        V = { tous les arrêts du graphe }
-        H(Ad) = Hd
-        H(x)  = ∞ pour tout arrêt x ≠ Ad
-         
-        tant que V n'est pas vide :
-          A = élément x de V tel que H(x) est minimum
-          V = V \ { A }
-        
-          si H(A) = ∞ :
-            stop
-        
-          pour chaque voisin A' de A :
-            H' = heure de première arrivée en A' en partant de A à H(A)
-            si H' < H(A') :
-              H(A') = H'
-*/
+        return fastestPaths(startingStop, departureTime, SecondsPastMidnight.INFINITE);
+    }
 
+    /**
+     * Retourne l'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés, limité aux arrêts atteints au plus tard
+     * à l'heure de départ plus la durée maximale donnée: la recherche s'arrête dès que le prochain arrêt à visiter est atteint après cette limite.
+     *
+     * @param startingStop L'arrêt.
+     * @param departureTime L'heure de départ.
+     * @param maxDuration La durée maximale des trajets (en secondes), SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @throws IllegalArgumentException Si l'arrêt donné ne fait pas partie du graphe, si l'heure de départ ou la durée maximale est inférieure à zéro.
+     * @return L'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés, limité à la durée maximale donnée.
+     */
+    @Override
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime, int maxDuration){
+        return fastestPaths(startingStop, departureTime, maxDuration, NO_WALKING, new RoutingWorkspace(stops.length));
+    }
+
+    /**
+     * Retourne l'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés, limité à la durée maximale donnée (voir ci-dessus),
+     * en empruntant en plus des arcs du graphe les trajets à pied enregistrés sous forme de distances (voir Builder.addAllWalkingDistances),
+     * dont le temps de marche est calculé selon les paramètres de marche donnés.
+     *
+     * @param startingStop L'arrêt.
+     * @param departureTime L'heure de départ.
+     * @param maxDuration La durée maximale des trajets (en secondes), SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @param walking Les paramètres de marche.
+     * @throws IllegalArgumentException Si l'arrêt donné ne fait pas partie du graphe, si l'heure de départ ou la durée maximale est inférieure à zéro,
+     *             ou si la distance maximale de marche des paramètres dépasse celle des trajets à pied enregistrés.
+     * @return L'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés, limité à la durée maximale donnée.
+     */
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime, int maxDuration, WalkingParameters walking){
+        return fastestPaths(startingStop, departureTime, maxDuration, walking, new RoutingWorkspace(stops.length));
+    }
+
+    /**
+     * Retourne l'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés, limité à la durée maximale donnée (voir ci-dessus),
+     * en effectuant la recherche dans l'espace de travail donné plutôt que dans des tableaux alloués pour l'occasion.
+     * Réutiliser le même espace de travail d'une recherche à l'autre évite toute allocation autre que celle de l'arbre retourné.
+     *
+     * @param startingStop L'arrêt.
+     * @param departureTime L'heure de départ.
+     * @param maxDuration La durée maximale des trajets (en secondes), SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @param workspace L'espace de travail, qui ne doit pas être utilisé en même temps par une autre recherche.
+     * @throws IllegalArgumentException Si l'arrêt donné ne fait pas partie du graphe, si l'heure de départ ou la durée maximale est inférieure à zéro,
+     *             ou si l'espace de travail est trop petit pour le graphe.
+     * @return L'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés, limité à la durée maximale donnée.
+     */
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime, int maxDuration, RoutingWorkspace workspace){
+        return fastestPaths(startingStop, departureTime, maxDuration, NO_WALKING, workspace);
+    }
+
+    /**
+     * Retourne l'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés, limité à la durée maximale donnée,
+     * avec les paramètres de marche donnés (voir ci-dessus), en effectuant la recherche dans l'espace de travail donné.
+     *
+     * @param startingStop L'arrêt.
+     * @param departureTime L'heure de départ.
+     * @param maxDuration La durée maximale des trajets (en secondes), SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @param walking Les paramètres de marche.
+     * @param workspace L'espace de travail, qui ne doit pas être utilisé en même temps par une autre recherche.
+     * @throws IllegalArgumentException Si l'arrêt donné ne fait pas partie du graphe, si l'heure de départ ou la durée maximale est inférieure à zéro,
+     *             si la distance maximale de marche des paramètres dépasse celle des trajets à pied enregistrés,
+     *             ou si l'espace de travail est trop petit pour le graphe.
+     * @return L'arbre des trajets les plus rapides pour l'arrêt et l'heure de départ donnés, limité à la durée maximale donnée.
+     */
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime, int maxDuration, WalkingParameters walking, RoutingWorkspace workspace){
         if(departureTime < 0){
             throw new IllegalArgumentException("L'heure de départ (=" + departureTime + ") est inférieure à zéro.");
         }
         else if(startingStop == null){
             throw new IllegalArgumentException("L'arrêt de départ est \"null\"");
         }
-        else if(!stops.contains(startingStop)){
+        else if(!stopIds.containsKey(startingStop)){
             throw new IllegalArgumentException("L'arrêt de départ (=" + startingStop + ") ne fait pas partie du graphe.");
         }
-        else{
+        return fastestPaths(new int[]{ stopIds.get(startingStop) }, new int[]{ departureTime }, departureTime, maxDuration, walking, workspace);
+    }
 
-            // Contiendra les meilleurs heures d'arrivées pour chaque stop avec son prédécesseur qui a provoqué la mise à jour de la meilleur heure d'arrivée
-            final FastestPathTree.Builder fastestPathTreeBD = new FastestPathTree.Builder(startingStop, departureTime);
+    /**
+     * Retourne les heures d'arrivée à pied aux arrêts situés à moins de la distance maximale de marche des paramètres donnés du lieu donné,
+     * en partant de celui-ci à l'heure donnée: ce sont les arrêts de départ d'une recherche depuis un lieu quelconque, p.ex. une adresse
+     * (voir fastestPaths(Map, int, int, WalkingParameters, RoutingWorkspace)). Les arrêts sont trouvés à l'aide d'un index spatial,
+     * sans parcourir tous les arrêts du graphe.
+     *
+     * @param origin Le lieu de départ.
+     * @param departureTime L'heure de départ.
+     * @param walking Les paramètres de marche jusqu'aux arrêts.
+     * @throws IllegalArgumentException Si l'heure de départ est inférieure à zéro.
+     * @return Les heures d'arrivée aux arrêts proches du lieu de départ (table vide si aucun ne l'est assez).
+     */
+    public Map<Stop, Integer> startingTimes(PointWGS84 origin, int departureTime, WalkingParameters walking){
+        if(departureTime < 0){
+            throw new IllegalArgumentException("L'heure de départ (=" + departureTime + ") est inférieure à zéro.");
+        }
 
-            // Si le stop existe dans la collection, mais n'a aucun arc sortant, alors l'arbre des trajets est trivial: il est le seul dedans
-            if(outgoingEdges.get(startingStop) == null){
-                return fastestPathTreeBD.build();
+        // L'index est construit à la première demande, ou reconstruit si sa distance maximale ne suffit plus
+        double maxWalkingDistance = walking.maxWalkingDistance();
+        SpatialGrid grid = stopGrid.get();
+        if(grid == null || grid.maxDistance() < maxWalkingDistance){
+            List<PointWGS84> positions = new ArrayList<PointWGS84>(stops.length);
+            for(Stop stop : stops){
+                positions.add(stop.position());
             }
+            grid = new SpatialGrid(positions, maxWalkingDistance);
+            stopGrid.set(grid);
+        }
 
-            Comparator<Stop> comparator = new Comparator<Stop>() {
+        Map<Stop, Integer> startingTimes = new HashMap<Stop, Integer>();
+        for(int i : grid.indicesWithin(origin, maxWalkingDistance)){
+            startingTimes.put(stops[i], departureTime + walking.walkingTime(origin.distanceTo(stops[i].position())));
+        }
+        return startingTimes;
+    }
 
-                @Override
-                public int compare(Stop stop1, Stop stop2) {
-                    int bestArrivalTimeStop1 = fastestPathTreeBD.arrivalTime(stop1);
-                    int bestArrivalTimeStop2 = fastestPathTreeBD.arrivalTime(stop2);
+    /**
+     * Retourne l'arbre des trajets les plus rapides depuis plusieurs arrêts de départ, atteints aux heures données (p.ex. à pied depuis un lieu,
+     * voir startingTimes), en partant à l'heure de départ donnée: chaque arrêt est atteint au plus tôt depuis l'un ou l'autre des arrêts de départ.
+     * Une seule recherche remplace ainsi une recherche par arrêt de départ suivie de la fusion de leurs arbres.
+     *
+     * @param startingTimes Les heures d'arrivée aux arrêts de départ.
+     * @param departureTime L'heure de départ, antérieure ou égale aux heures d'arrivée aux arrêts de départ.
+     * @param maxDuration La durée maximale des trajets (en secondes) depuis l'heure de départ, SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @throws IllegalArgumentException Si aucun arrêt de départ n'est donné, si l'un d'eux ne fait pas partie du graphe ou est atteint avant l'heure de départ,
+     *             ou si l'heure de départ ou la durée maximale est inférieure à zéro.
+     * @return L'arbre des trajets les plus rapides depuis les arrêts de départ, limité à la durée maximale donnée.
+     */
+    public FastestPathTree fastestPaths(Map<Stop, Integer> startingTimes, int departureTime, int maxDuration){
+        return fastestPaths(startingTimes, departureTime, maxDuration, NO_WALKING, new RoutingWorkspace(stops.length));
+    }
 
-                    if(bestArrivalTimeStop1 < bestArrivalTimeStop2){
-                        return -1;
-                    }
-                    else if(bestArrivalTimeStop1 == bestArrivalTimeStop2){
-                        return 0;
+    /**
+     * Retourne l'arbre des trajets les plus rapides depuis plusieurs arrêts de départ (voir ci-dessus), avec les paramètres de marche donnés
+     * (voir fastestPaths(Stop, int, int, WalkingParameters)), en effectuant la recherche dans l'espace de travail donné.
+     *
+     * @param startingTimes Les heures d'arrivée aux arrêts de départ.
+     * @param departureTime L'heure de départ, antérieure ou égale aux heures d'arrivée aux arrêts de départ.
+     * @param maxDuration La durée maximale des trajets (en secondes) depuis l'heure de départ, SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @param walking Les paramètres de marche.
+     * @param workspace L'espace de travail, qui ne doit pas être utilisé en même temps par une autre recherche.
+     * @throws IllegalArgumentException Si aucun arrêt de départ n'est donné, si l'un d'eux ne fait pas partie du graphe ou est atteint avant l'heure de départ,
+     *             si l'heure de départ ou la durée maximale est inférieure à zéro, si la distance maximale de marche des paramètres dépasse celle
+     *             des trajets à pied enregistrés, ou si l'espace de travail est trop petit pour le graphe.
+     * @return L'arbre des trajets les plus rapides depuis les arrêts de départ, limité à la durée maximale donnée.
+     */
+    public FastestPathTree fastestPaths(Map<Stop, Integer> startingTimes, int departureTime, int maxDuration, WalkingParameters walking, RoutingWorkspace workspace){
+        if(departureTime < 0){
+            throw new IllegalArgumentException("L'heure de départ (=" + departureTime + ") est inférieure à zéro.");
+        }
+
+        int[] times = new int[startingTimes.size()];
+        int[] startingStopIds = startingStopIds(startingTimes, departureTime, times);
+        return fastestPaths(startingStopIds, times, departureTime, maxDuration, walking, workspace);
+    }
+
+    /**
+     * Retourne une recherche incrémentale des trajets les plus rapides pour l'arrêt et l'heure de départ donnés, qui visite les arrêts
+     * un à un par heure d'arrivée croissante à la demande de l'appelant (voir FastestPathSearch). Comme fastestPaths(Stop, int),
+     * seuls les arcs du graphe sont empruntés.
+     *
+     * @param startingStop L'arrêt de départ.
+     * @param departureTime L'heure de départ.
+     * @throws IllegalArgumentException Si l'arrêt donné ne fait pas partie du graphe ou si l'heure de départ est inférieure à zéro.
+     * @return La recherche incrémentale, dont aucun arrêt n'a encore été visité.
+     */
+    public FastestPathSearch search(Stop startingStop, int departureTime){
+        if(startingStop == null || !stopIds.containsKey(startingStop)){
+            throw new IllegalArgumentException("L'arrêt de départ (=" + startingStop + ") ne fait pas partie du graphe.");
+        }
+        return search(Collections.singletonMap(startingStop, departureTime), departureTime, NO_WALKING, new RoutingWorkspace(stops.length));
+    }
+
+    /**
+     * Retourne une recherche incrémentale des trajets les plus rapides depuis plusieurs arrêts de départ, atteints aux heures données
+     * (voir fastestPaths(Map, int, int, WalkingParameters, RoutingWorkspace)), menée dans l'espace de travail donné: celui-ci lui appartient
+     * jusqu'à ce qu'elle soit terminée ou annulée.
+     *
+     * @param startingTimes Les heures d'arrivée aux arrêts de départ.
+     * @param departureTime L'heure de départ, antérieure ou égale aux heures d'arrivée aux arrêts de départ.
+     * @param walking Les paramètres de marche.
+     * @param workspace L'espace de travail, qui ne doit pas être utilisé par une autre recherche avant la fin de celle-ci.
+     * @throws IllegalArgumentException Si aucun arrêt de départ n'est donné, si l'un d'eux ne fait pas partie du graphe ou est atteint avant l'heure de départ,
+     *             si l'heure de départ est inférieure à zéro, si la distance maximale de marche des paramètres dépasse celle des trajets à pied enregistrés,
+     *             ou si l'espace de travail est trop petit pour le graphe.
+     * @return La recherche incrémentale, dont aucun arrêt n'a encore été visité.
+     */
+    public FastestPathSearch search(Map<Stop, Integer> startingTimes, int departureTime, WalkingParameters walking, RoutingWorkspace workspace){
+        if(departureTime < 0){
+            throw new IllegalArgumentException("L'heure de départ (=" + departureTime + ") est inférieure à zéro.");
+        }
+        else if(walking.maxWalkingDistance() > maxWalkingDistance){
+            throw new IllegalArgumentException("La distance maximale de marche (=" + walking.maxWalkingDistance() + " m) dépasse celle des trajets à pied du graphe (=" + maxWalkingDistance + " m).");
+        }
+        else if(workspace.capacity() < stops.length){
+            throw new IllegalArgumentException("L'espace de travail (=" + workspace.capacity() + " arrêts) est trop petit pour le graphe (=" + stops.length + " arrêts).");
+        }
+
+        int[] times = new int[startingTimes.size()];
+        int[] startingStopIds = startingStopIds(startingTimes, departureTime, times);
+        return new FastestPathSearch(this, startingStopIds, times, departureTime, walking, workspace);
+    }
+
+    /**
+     * Reprend, dans l'espace de travail donné, la recherche incrémentale dont l'instantané est donné (voir FastestPathSearch.snapshot):
+     * p.ex. un arbre limité à 30 minutes est étendu à 60 minutes en ne visitant que les arrêts atteints entre 30 et 60 minutes.
+     * Un même instantané peut être repris plusieurs fois.
+     *
+     * @param snapshot L'instantané d'une recherche dans ce graphe.
+     * @param workspace L'espace de travail, qui ne doit pas être utilisé par une autre recherche avant la fin de celle-ci.
+     * @throws IllegalArgumentException Si l'instantané provient d'une recherche dans un autre graphe (ou une autre vue),
+     *             ou si l'espace de travail est trop petit pour le graphe.
+     * @return La recherche incrémentale, dans l'état de l'instantané.
+     */
+    public FastestPathSearch resume(FastestPathSearch.Snapshot snapshot, RoutingWorkspace workspace){
+        if(!snapshot.isFor(this)){
+            throw new IllegalArgumentException("L'instantané provient d'une recherche dans un autre graphe.");
+        }
+        else if(workspace.capacity() < stops.length){
+            throw new IllegalArgumentException("L'espace de travail (=" + workspace.capacity() + " arrêts) est trop petit pour le graphe (=" + stops.length + " arrêts).");
+        }
+        return new FastestPathSearch(snapshot, workspace);
+    }
+
+    /**
+     * Retourne l'arbre des trajets les plus rapides depuis l'arrêt de départ de l'arbre donné pour une nouvelle heure de départ, en réutilisant
+     * les heures d'arrivée de cet arbre plutôt qu'en recommençant la recherche: p.ex. lorsque l'heure de départ est avancée ou reculée d'une minute
+     * dans l'interface graphique. Les trajets d'un arc ne se dépassant pas, partir plus tard ne fait jamais arriver plus tôt, si bien que:
+     * <ul>
+     * <li>en partant plus tôt, les heures d'arrivée de l'arbre donné restent possibles (il suffit d'attendre): seuls les arrêts atteints
+     * strictement plus tôt sont visités, les autres gardant leur heure d'arrivée et leur prédécesseur;</li>
+     * <li>en partant plus tard, elles ne peuvent qu'augmenter: un arrêt atteint à son ancienne heure d'arrivée depuis un arrêt dont l'heure
+     * est définitive la garde, et est repris sans passer par la queue de priorité, de même de proche en proche que tout son sous-arbre.
+     * Seuls les arrêts dont l'heure d'arrivée change (ou qui sont atteints par un autre chemin) sont visités.</li>
+     * </ul>
+     * Comme fastestPaths(Stop, int, int), seuls les arcs du graphe sont empruntés. L'arbre retourné est celui que donnerait fastestPaths(Stop, int, int,
+     * RoutingWorkspace) pour la nouvelle heure de départ, aux prédécesseurs des arrêts atteints à la même heure par plusieurs chemins près.
+     *
+     * @param previous L'arbre précédent, calculé par ce graphe depuis un seul arrêt de départ avec la même durée maximale et sans trajets à pied
+     *             sous forme de distances (p.ex. par fastestPaths(Stop, int, int) ou par cette méthode).
+     * @param departureTime La nouvelle heure de départ.
+     * @param maxDuration La durée maximale des trajets (en secondes), SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @param workspace L'espace de travail, qui ne doit pas être utilisé en même temps par une autre recherche.
+     * @throws IllegalArgumentException Si l'arbre précédent n'a pas été calculé par ce graphe (ou une vue partageant ses arrêts), s'il a été
+     *             calculé avec des trajets à pied sous forme de distances ou s'il n'a pas un seul arrêt de départ, si l'heure de départ ou la durée maximale est inférieure à zéro, ou si l'espace de travail est trop petit pour le graphe.
+     * @return L'arbre des trajets les plus rapides pour la nouvelle heure de départ, limité à la durée maximale donnée.
+     */
+    public FastestPathTree shiftDepartureTime(FastestPathTree previous, int departureTime, int maxDuration, RoutingWorkspace workspace){
+        if(!previous.isIndexedBy(stops)){
+            throw new IllegalArgumentException("L'arbre précédent n'a pas été calculé par ce graphe.");
+        }
+        else if(previous.usesWalking()){
+            throw new IllegalArgumentException("L'arbre précédent a été calculé avec des trajets à pied sous forme de distances.");
+        }
+        else if(!previous.hasSingleRoot()){
+            throw new IllegalArgumentException("L'arbre précédent n'a pas un seul arrêt de départ atteint à l'heure de départ.");
+        }
+        else if(departureTime < 0){
+            throw new IllegalArgumentException("L'heure de départ (=" + departureTime + ") est inférieure à zéro.");
+        }
+        else if(maxDuration < 0){
+            throw new IllegalArgumentException("La durée maximale (=" + maxDuration + ") est inférieure à zéro.");
+        }
+        else if(workspace.capacity() < stops.length){
+            throw new IllegalArgumentException("L'espace de travail (=" + workspace.capacity() + " arrêts) est trop petit pour le graphe (=" + stops.length + " arrêts).");
+        }
+        else if(departureTime == previous.startingTime()){
+            // L'arbre est immuable: il peut être retourné tel quel
+            return previous;
+        }
+
+        int startingStopId = previous.startingStopId();
+        int arrivalTimeLimit = (int) Math.min((long) departureTime + maxDuration, SecondsPastMidnight.INFINITE - 1);
+        int[] arrivalTimes = new int[stops.length];
+        int[] treePredecessors = new int[stops.length];
+
+        IndexedPriorityQueue stopsPriorityQueue = workspace.stopsPriorityQueue;
+        int[] predecessors = workspace.predecessors;
+        stopsPriorityQueue.clear();
+        improve(stopsPriorityQueue, predecessors, -1, startingStopId, departureTime, arrivalTimeLimit);
+        workspace.settledStops = 0;
+
+        if(departureTime < previous.startingTime()){
+            // Les heures d'arrivée de l'arbre précédent sont des bornes supérieures: celles qui tiennent dans la nouvelle limite sont reprises telles quelles
+            for(int i = 0; i < stops.length; ++i){
+                boolean kept = previous.arrivalTime(i) <= arrivalTimeLimit;
+                arrivalTimes[i] = kept ? previous.arrivalTime(i) : SecondsPastMidnight.INFINITE;
+                treePredecessors[i] = kept ? previous.predecessor(i) : -1;
+            }
+
+            /* Un arrêt qui n'est pas atteint plus tôt qu'avant ne peut faire arriver plus tôt à ses voisins (l'arbre précédent le dit déjà):
+               seuls les arrêts strictement améliorés sont placés dans la queue de priorité, et leurs prédécesseurs remplacent les anciens. */
+            while(!stopsPriorityQueue.isEmpty()){
+                int A = stopsPriorityQueue.removeMin();
+                ++workspace.settledStops;
+                int bestArrivalTimeOfA = stopsPriorityQueue.key(A);
+                arrivalTimes[A] = bestArrivalTimeOfA;
+                treePredecessors[A] = predecessors[A];
+
+                for(int e = edgeOffsets[A]; e < edgeOffsets[A + 1]; ++e){
+                    int neighborStop = edgeDestinations[e];
+                    if(!stopsPriorityQueue.wasRemoved(neighborStop)){
+                        int upperBound = Math.min(arrivalTimeLimit, previous.arrivalTime(neighborStop) - 1);
+                        improve(stopsPriorityQueue, predecessors, A, neighborStop, edgeArrivalTime(e, bestArrivalTimeOfA), upperBound);
                     }
-                    else{
-                        return 1;
+                }
+            }
+        }
+        else{
+            /* Les heures d'arrivée de l'arbre précédent sont des bornes inférieures: un arrêt atteint à cette heure depuis un arrêt dont l'heure
+               est définitive a lui aussi son heure définitive. Il est alors ajouté à la liste des arrêts dont les voisins restent à améliorer
+               (qui reprend ainsi de proche en proche son sous-arbre dans l'arbre précédent) au lieu d'être placé dans la queue de priorité.
+               Une heure d'arrivée inférieure à SecondsPastMidnight.INFINITE est définitive. */
+            Arrays.fill(arrivalTimes, SecondsPastMidnight.INFINITE);
+            Arrays.fill(treePredecessors, -1);
+            // Chaque arrêt y entre au plus une fois: le tableau des heures d'arrivée de l'espace de travail (inutilisé ici) suffit
+            int[] finalStops = workspace.arrivalTimes;
+
+            while(!stopsPriorityQueue.isEmpty()){
+                int A = stopsPriorityQueue.removeMin();
+                // Un arrêt repris depuis l'arbre précédent alors qu'il était déjà dans la queue de priorité a déjà été traité
+                if(arrivalTimes[A] != SecondsPastMidnight.INFINITE){
+                    continue;
+                }
+                ++workspace.settledStops;
+                arrivalTimes[A] = stopsPriorityQueue.key(A);
+                treePredecessors[A] = predecessors[A];
+
+                finalStops[0] = A;
+                for(int first = 0, last = 1; first < last; ++first){
+                    int B = finalStops[first];
+                    int bestArrivalTimeOfB = arrivalTimes[B];
+                    for(int e = edgeOffsets[B]; e < edgeOffsets[B + 1]; ++e){
+                        int neighborStop = edgeDestinations[e];
+                        if(arrivalTimes[neighborStop] != SecondsPastMidnight.INFINITE){
+                            continue;
+                        }
+                        int H2 = edgeArrivalTime(e, bestArrivalTimeOfB);
+                        if(H2 == previous.arrivalTime(neighborStop) && H2 < SecondsPastMidnight.INFINITE && H2 <= arrivalTimeLimit){
+                            arrivalTimes[neighborStop] = H2;
+                            treePredecessors[neighborStop] = B;
+                            finalStops[last++] = neighborStop;
+                        }
+                        else{
+                            improve(stopsPriorityQueue, predecessors, B, neighborStop, H2, arrivalTimeLimit);
+                        }
                     }
                 }
-            };
+            }
+        }
 
-            // Queue de priorité qui contiendra l'ensemble des arrêts à visiter
-            PriorityQueue<Stop> stopsPriorityQueue = new PriorityQueue<>(stops.size(), comparator);
-            stopsPriorityQueue.addAll(stops);
+        treePredecessors[startingStopId] = -1;
+        return new FastestPathTree(stops, stopIds, startingStopId, arrivalTimes, treePredecessors);
+    }
 
+    /**
+     * Retourne les identifiants des arrêts de départ donnés et place leurs heures d'arrivée dans le tableau donné, dans le même ordre.
+     *
+     * @param startingTimes Les heures d'arrivée aux arrêts de départ.
+     * @param departureTime L'heure de départ.
+     * @param times Le tableau des heures d'arrivée, de la taille de la table.
+     * @throws IllegalArgumentException Si aucun arrêt de départ n'est donné, ou si l'un d'eux ne fait pas partie du graphe ou est atteint avant l'heure de départ.
+     * @return Les identifiants des arrêts de départ.
+     */
+    private int[] startingStopIds(Map<Stop, Integer> startingTimes, int departureTime, int[] times){
+        if(startingTimes.isEmpty()){
+            throw new IllegalArgumentException("Aucun arrêt de départ n'est donné.");
+        }
+
+        int[] startingStopIds = new int[startingTimes.size()];
+        int k = 0;
+        for(Map.Entry<Stop, Integer> startingTime : startingTimes.entrySet()){
+            Integer stopId = stopIds.get(startingTime.getKey());
+            if(stopId == null){
+                throw new IllegalArgumentException("L'arrêt de départ (=" + startingTime.getKey() + ") ne fait pas partie du graphe.");
+            }
+            else if(startingTime.getValue() < departureTime){
+                throw new IllegalArgumentException("L'heure d'arrivée à l'arrêt de départ " + startingTime.getKey() + " (=" + startingTime.getValue() + ") est antérieure à l'heure de départ.");
+            }
+            startingStopIds[k] = stopId;
+            times[k] = startingTime.getValue();
+            ++k;
+        }
+        return startingStopIds;
+    }
+
+    /**
+     * Retourne l'arbre des trajets les plus rapides depuis les arrêts de départ d'identifiants donnés, atteints aux heures données,
+     * en partant à l'heure de départ donnée: c'est la recherche de toutes les méthodes fastestPaths, un seul arrêt de départ n'en étant qu'un cas particulier.
+     *
+     * @param startingStopIds Les identifiants des arrêts de départ, distincts.
+     * @param startingTimes Les heures d'arrivée aux arrêts de départ, postérieures ou égales à l'heure de départ.
+     * @param departureTime L'heure de départ, supérieure ou égale à zéro.
+     * @param maxDuration La durée maximale des trajets (en secondes), SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @param walking Les paramètres de marche.
+     * @param workspace L'espace de travail.
+     * @throws IllegalArgumentException Si la durée maximale est inférieure à zéro, si la distance maximale de marche des paramètres dépasse
+     *             celle des trajets à pied enregistrés, ou si l'espace de travail est trop petit pour le graphe.
+     * @return L'arbre des trajets les plus rapides depuis les arrêts de départ, limité à la durée maximale donnée.
+     */
+    private FastestPathTree fastestPaths(int[] startingStopIds, int[] startingTimes, int departureTime, int maxDuration, WalkingParameters walking, RoutingWorkspace workspace){
+/*      Pseudo-code de l'algorithme :
+
+        V = { arrêts de départ Ad }
+        H(Ad) = heure d'arrivée à Ad (Hd pour une recherche depuis un seul arrêt)
+        H(x)  = ∞ pour tout autre arrêt x
+
+        tant que V n'est pas vide :
+          A = élément x de V tel que H(x) est minimum
+          V = V \ { A }
+
+          pour chaque voisin A' de A (par un arc ou à pied) :
+            H' = heure de première arrivée en A' en partant de A à H(A)
+            si H' < H(A') :
+              H(A') = H'
+              V = V ∪ { A' }
+
+        Seuls les arrêts atteints sont placés dans V: la recherche se termine d'elle-même lorsque plus aucun arrêt ne peut être atteint,
+        ou lorsque H(A) dépasse Hd + durée maximale (les arrêts restants ne peuvent être atteints plus tôt).
+*/
+
+        if(maxDuration < 0){
+            throw new IllegalArgumentException("La durée maximale (=" + maxDuration + ") est inférieure à zéro.");
+        }
+        else if(walking.maxWalkingDistance() > maxWalkingDistance){
+            throw new IllegalArgumentException("La distance maximale de marche (=" + walking.maxWalkingDistance() + " m) dépasse celle des trajets à pied du graphe (=" + maxWalkingDistance + " m).");
+        }
+        else if(workspace.capacity() < stops.length){
+            throw new IllegalArgumentException("L'espace de travail (=" + workspace.capacity() + " arrêts) est trop petit pour le graphe (=" + stops.length + " arrêts).");
+        }
+        else{
+            // Heure d'arrivée au-delà de laquelle les arrêts ne font plus partie de l'arbre
+            int arrivalTimeLimit = (int) Math.min((long) departureTime + maxDuration, SecondsPastMidnight.INFINITE - 1);
+            startSearch(startingStopIds, startingTimes, arrivalTimeLimit, workspace);
+
+            // Premier arrêt de départ visité, celui que l'arbre retourne comme arrêt de départ
+            int firstStopId = -1;
 
             // ---------------------- Itération ----------------------
-            // Tant que la collection n'est pas vide, c'est qu'il reste encore des arrêts à visiter par l'algorithme
-            while(!stopsPriorityQueue.isEmpty()){
+            // Tant que la collection n'est pas vide, c'est qu'il reste encore des arrêts atteints à visiter par l'algorithme
+            // (ou jusqu'à ce que le prochain arrêt à visiter soit atteint après la limite)
+            IndexedPriorityQueue stopsPriorityQueue = workspace.stopsPriorityQueue;
+            while(!stopsPriorityQueue.isEmpty() && stopsPriorityQueue.minKey() <= arrivalTimeLimit){
+                int A = settleNext(walking, arrivalTimeLimit, workspace);
+                if(firstStopId == -1){
+                    firstStopId = A;
+                }
+            }
 
-                // Prochain stop à parcourir tel qu'il possède la meilleur heure d'arrivée minimum parmis ceux connus
-                Stop A = stopsPriorityQueue.remove();
+            // Si tous les arrêts de départ sont atteints après la limite, aucun n'est visité et l'arbre est vide: il garde le premier comme arrêt de départ
+            return settledTree((firstStopId == -1) ? startingStopIds[0] : firstStopId, departureTime, walking, workspace);
+        }
+    }
 
-                // Meilleure heure d'arrivée au stop courant
-                int bestArrivalTimeOfA = fastestPathTreeBD.arrivalTime(A);
+    /**
+     * Commence dans l'espace de travail donné la recherche des trajets les plus rapides depuis les arrêts de départ d'identifiants donnés,
+     * atteints aux heures données: seuls ceux-ci sont placés dans la queue de priorité, sans prédécesseur.
+     * La recherche est ensuite menée arrêt par arrêt par settleNext (voir fastestPaths et FastestPathSearch).
+     *
+     * @param startingStopIds Les identifiants des arrêts de départ, distincts.
+     * @param startingTimes Les heures d'arrivée aux arrêts de départ.
+     * @param arrivalTimeLimit L'heure d'arrivée au-delà de laquelle les arrêts ne sont pas placés dans la queue de priorité.
+     * @param workspace L'espace de travail, assez grand pour le graphe.
+     */
+    void startSearch(int[] startingStopIds, int[] startingTimes, int arrivalTimeLimit, RoutingWorkspace workspace){
+        /* Queue de priorité qui contiendra les arrêts atteints mais pas encore visités, identifiés par leur index dense.
+           La clef de chaque arrêt est sa meilleure heure d'arrivée connue.
+           Le tas de l'espace de travail est vidé en temps constant: les arrêts des recherches précédentes sont oubliés. */
+        IndexedPriorityQueue stopsPriorityQueue = workspace.stopsPriorityQueue;
+        stopsPriorityQueue.clear();
+        for(int k = 0; k < startingStopIds.length; ++k){
+            improve(stopsPriorityQueue, workspace.predecessors, -1, startingStopIds[k], startingTimes[k], arrivalTimeLimit);
+        }
+        workspace.settledStops = 0;
+    }
+
+    /**
+     * Visite le prochain arrêt de la recherche menée dans l'espace de travail donné (voir startSearch): l'arrêt de meilleure heure d'arrivée
+     * de la queue de priorité en est retiré, cette heure devenant définitive, puis les heures d'arrivée de ses voisins sont améliorées si possible.
+     *
+     * @param walking Les paramètres de marche.
+     * @param arrivalTimeLimit L'heure d'arrivée au-delà de laquelle les voisins ne sont pas placés dans la queue de priorité.
+     * @param workspace L'espace de travail, dont la queue de priorité n'est pas vide.
+     * @return L'identifiant de l'arrêt visité.
+     */
+    int settleNext(WalkingParameters walking, int arrivalTimeLimit, RoutingWorkspace workspace){
+        IndexedPriorityQueue stopsPriorityQueue = workspace.stopsPriorityQueue;
+        int[] predecessors = workspace.predecessors;
+
+        // Prochain stop à parcourir tel qu'il possède la meilleur heure d'arrivée minimum parmis ceux connus
+        int A = stopsPriorityQueue.removeMin();
+        ++workspace.settledStops;
+
+        // Meilleure heure d'arrivée au stop courant
+        int bestArrivalTimeOfA = stopsPriorityQueue.key(A);
+
+        /* Pour chaque voisin A' de A :
+           On regarde s'il est possible d'améliorer leur meilleure heure d'arrivée en s'y rendant depuis l'arrêt actuellement visité */
+        for(int e = edgeOffsets[A]; e < edgeOffsets[A + 1]; ++e){
+
+            int neighborStop = edgeDestinations[e];
+
+            // Un arrêt déjà visité possède déjà sa meilleure heure d'arrivée
+            if(stopsPriorityQueue.wasRemoved(neighborStop)){
+                continue;
+            }
+
+            // A chaque voisin: calculer sa meilleure heure d'arrivée depuis A
+            improve(stopsPriorityQueue, predecessors, A, neighborStop, edgeArrivalTime(e, bestArrivalTimeOfA), arrivalTimeLimit);
+        }
+
+        // Puis les voisins à pied, triés par distance: les suivants sont trop loin dès que la distance maximale de marche est atteinte
+        double maxWalkingDistance = walking.maxWalkingDistance();
+        for(int f = walkOffsets[A]; f < walkOffsets[A + 1] && walkDistances[f] < maxWalkingDistance; ++f){
+
+            int neighborStop = walkDestinations[f];
+            if(!stopsPriorityQueue.wasRemoved(neighborStop)){
+                improve(stopsPriorityQueue, predecessors, A, neighborStop, bestArrivalTimeOfA + walking.walkingTime(walkDistances[f]), arrivalTimeLimit);
+            }
+        }
+        return A;
+    }
+
+    /**
+     * Retourne l'arbre des arrêts visités jusqu'ici par la recherche menée dans l'espace de travail donné (voir startSearch).
+     * Seuls les tableaux de l'arbre sont alloués, l'espace de travail restant réutilisable.
+     *
+     * @param startingStopId L'identifiant de l'arrêt que l'arbre retourne comme arrêt de départ.
+     * @param departureTime L'heure de départ.
+     * @param walking Les paramètres de marche de la recherche.
+     * @param workspace L'espace de travail.
+     * @return L'arbre des arrêts visités.
+     */
+    FastestPathTree settledTree(int startingStopId, int departureTime, WalkingParameters walking, RoutingWorkspace workspace){
+        IndexedPriorityQueue stopsPriorityQueue = workspace.stopsPriorityQueue;
+        int[] arrivalTimes = new int[stops.length];
+        int[] treePredecessors = new int[stops.length];
+        for(int i=0; i < stops.length; ++i){
+            if(stopsPriorityQueue.wasRemoved(i)){
+                arrivalTimes[i] = stopsPriorityQueue.key(i);
+                treePredecessors[i] = workspace.predecessors[i];
+            }
+            else{
+                arrivalTimes[i] = SecondsPastMidnight.INFINITE;
+                treePredecessors[i] = -1;
+            }
+        }
+        return new FastestPathTree(stops, stopIds, startingStopId, departureTime, arrivalTimes, treePredecessors, walking.maxWalkingDistance() > 0);
+    }
+
+    /**
+     * Retourne l'arbre des trajets partant le plus tard pour atteindre l'arrêt donné au plus tard à l'heure donnée (« arriver pour 8h30 »):
+     * pour chaque arrêt d'où l'arrêt donné peut être atteint à temps, la dernière heure de départ possible.
+     * Comme fastestPaths(Stop, int), seuls les arcs du graphe sont empruntés.
+     * Une seule recherche à rebours remplace ainsi une recherche des trajets les plus rapides par arrêt de départ.
+     *
+     * @param arrivalStop L'arrêt d'arrivée.
+     * @param arrivalTime L'heure d'arrivée au plus tard.
+     * @throws IllegalArgumentException Si l'arrêt donné ne fait pas partie du graphe ou si l'heure d'arrivée est inférieure à zéro.
+     * @return L'arbre des trajets partant le plus tard pour atteindre l'arrêt donné à temps.
+     */
+    public LatestDepartureTree latestDepartures(Stop arrivalStop, int arrivalTime){
+        return latestDepartures(arrivalStop, arrivalTime, SecondsPastMidnight.INFINITE, new RoutingWorkspace(stops.length));
+    }
+
+    /**
+     * Retourne l'arbre des trajets partant le plus tard pour atteindre l'arrêt donné au plus tard à l'heure donnée (voir ci-dessus),
+     * limité aux arrêts dont le trajet dure au plus la durée maximale donnée, en effectuant la recherche dans l'espace de travail donné.
+     * C'est la recherche de fastestPaths menée à rebours sur les arcs entrants: les arrêts sont visités par heure de départ décroissante
+     * et chaque arc donne la dernière heure de départ de sa source permettant d'arriver à sa destination à temps (voir GraphEdge.latestDepartureTime).
+     *
+     * @param arrivalStop L'arrêt d'arrivée.
+     * @param arrivalTime L'heure d'arrivée au plus tard.
+     * @param maxDuration La durée maximale des trajets (en secondes), SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @param workspace L'espace de travail, qui ne doit pas être utilisé en même temps par une autre recherche.
+     * @throws IllegalArgumentException Si l'arrêt donné ne fait pas partie du graphe, si l'heure d'arrivée ou la durée maximale est inférieure à zéro,
+     *             ou si l'espace de travail est trop petit pour le graphe.
+     * @return L'arbre des trajets partant le plus tard pour atteindre l'arrêt donné à temps, limité à la durée maximale donnée.
+     */
+    public LatestDepartureTree latestDepartures(Stop arrivalStop, int arrivalTime, int maxDuration, RoutingWorkspace workspace){
+        if(arrivalTime < 0){
+            throw new IllegalArgumentException("L'heure d'arrivée (=" + arrivalTime + ") est inférieure à zéro.");
+        }
+        else if(maxDuration < 0){
+            throw new IllegalArgumentException("La durée maximale (=" + maxDuration + ") est inférieure à zéro.");
+        }
+        else if(arrivalStop == null || !stopIds.containsKey(arrivalStop)){
+            throw new IllegalArgumentException("L'arrêt d'arrivée (=" + arrivalStop + ") ne fait pas partie du graphe.");
+        }
+        else if(workspace.capacity() < stops.length){
+            throw new IllegalArgumentException("L'espace de travail (=" + workspace.capacity() + " arrêts) est trop petit pour le graphe (=" + stops.length + " arrêts).");
+        }
+
+        /* Le tas est un tas minimum: la clef d'un arrêt est l'opposé de sa dernière heure de départ connue, si bien que l'arrêt retiré
+           est celui qui part le plus tard. Les prédécesseurs de l'espace de travail sont ici les arrêts suivants sur le trajet. */
+        IndexedPriorityQueue stopsPriorityQueue = workspace.stopsPriorityQueue;
+        int[] successors = workspace.predecessors;
+        int arrivalStopId = stopIds.get(arrivalStop);
+        stopsPriorityQueue.clear();
+        stopsPriorityQueue.add(arrivalStopId, -arrivalTime);
+        workspace.settledStops = 0;
+
+        // Opposé de l'heure de départ au-delà duquel les arrêts ne font plus partie de l'arbre (départ avant l'heure d'arrivée moins la durée maximale)
+        int keyLimit = maxDuration - arrivalTime;
+
+        while(!stopsPriorityQueue.isEmpty() && stopsPriorityQueue.minKey() <= keyLimit){
+            int A = stopsPriorityQueue.removeMin();
+            ++workspace.settledStops;
+            int latestDepartureOfA = -stopsPriorityQueue.key(A);
 
-                /* Si le stop récupéré de la queue de priorité contient comme meilleur temps INFINI, 
-                   on arrête la boucle de parcours car il n'est plus possible d'améliorer les meilleurs heures d'arrivées des arrêts */
-                if(bestArrivalTimeOfA == SecondsPastMidnight.INFINITE){
-                    break;
+            // Pour chaque arc entrant de A: dernière heure de départ de sa source pour arriver en A à la dernière heure de départ de A
+            for(int r = incomingOffsets[A]; r < incomingOffsets[A + 1]; ++r){
+                int sourceStop = incomingSources[r];
+                if(stopsPriorityQueue.wasRemoved(sourceStop)){
+                    continue;
                 }
+                int e = incomingEdges[r];
+                int departure = GraphEdge.latestDepartureTime(packedTrips, tripServices, activeServices, tripOffsets[e], tripOffsets[e + 1], edgeWalkingTimes[e], latestDepartureOfA);
+                // L'opposé de -SecondsPastMidnight.INFINITE (départ impossible) est SecondsPastMidnight.INFINITE, qu'improve ignore
+                improve(stopsPriorityQueue, successors, A, sourceStop, -departure, keyLimit);
+            }
+        }
 
-                /* Pour chaque voisin A' de A :
-                   On regarde s'il est possible d'améliorer leur meilleure heure d'arrivée en s'y rendant depuis l'arrêt actuellement visité */
-                for(GraphEdge neighbor:outgoingEdges.get(A)){
-                    
-                    Stop neighborStop = neighbor.destination();
+        int[] departureTimes = new int[stops.length];
+        int[] treeSuccessors = new int[stops.length];
+        for(int i=0; i < stops.length; ++i){
+            if(stopsPriorityQueue.wasRemoved(i)){
+                departureTimes[i] = -stopsPriorityQueue.key(i);
+                treeSuccessors[i] = successors[i];
+            }
+            else{
+                departureTimes[i] = -SecondsPastMidnight.INFINITE;
+                treeSuccessors[i] = -1;
+            }
+        }
+        treeSuccessors[arrivalStopId] = -1;
+        return new LatestDepartureTree(stops, stopIds, arrivalStopId, departureTimes, treeSuccessors);
+    }
+
+    /**
+     * Retourne l'heure de première arrivée à l'arrêt d'arrivée donné en partant de l'arrêt de départ donné à l'heure donnée,
+     * ou SecondsPastMidnight.INFINITE s'il ne peut être atteint. Comme fastestPaths(Stop, int), seuls les arcs du graphe sont empruntés.
+     * La recherche s'arrête dès que l'arrêt d'arrivée est visité.
+     *
+     * @param fromStop L'arrêt de départ.
+     * @param toStop L'arrêt d'arrivée.
+     * @param departureTime L'heure de départ.
+     * @throws IllegalArgumentException Si l'un des arrêts ne fait pas partie du graphe ou si l'heure de départ est inférieure à zéro.
+     * @return L'heure de première arrivée à l'arrêt d'arrivée.
+     */
+    public int earliestArrival(Stop fromStop, Stop toStop, int departureTime){
+        return earliestArrival(fromStop, toStop, departureTime, null, new RoutingWorkspace(stops.length));
+    }
 
-                    // A chaque voisin: calculer sa meilleure heure d'arrivée depuis A
-                    int H2 = neighbor.earliestArrivalTime(bestArrivalTimeOfA);
+    /**
+     * Retourne l'heure de première arrivée à l'arrêt d'arrivée donné (voir ci-dessus), par une recherche guidée vers celui-ci par les bornes données (algorithme A*):
+     * les arrêts sont visités par ordre croissant de leur heure d'arrivée augmentée d'une borne inférieure de la durée restante jusqu'à l'arrêt d'arrivée,
+     * si bien que la recherche visite surtout les arrêts situés en direction de celui-ci. Les arrêts d'où l'arrêt d'arrivée est inatteignable ne sont pas visités.
+     * Les bornes ne surestimant jamais la durée restante, l'heure d'arrivée est la même que celle de fastestPaths.
+     *
+     * @param fromStop L'arrêt de départ.
+     * @param toStop L'arrêt d'arrivée.
+     * @param departureTime L'heure de départ.
+     * @param lowerBounds Les bornes inférieures des durées, calculées pour ce graphe ou le graphe dont il est une vue, ou null pour une recherche non guidée.
+     * @param workspace L'espace de travail, qui ne doit pas être utilisé en même temps par une autre recherche.
+     * @throws IllegalArgumentException Si l'un des arrêts ne fait pas partie du graphe, si l'heure de départ est inférieure à zéro,
+     *             si les bornes ont été calculées pour un autre graphe, ou si l'espace de travail est trop petit pour le graphe.
+     * @return L'heure de première arrivée à l'arrêt d'arrivée.
+     */
+    public int earliestArrival(Stop fromStop, Stop toStop, int departureTime, LowerBounds lowerBounds, RoutingWorkspace workspace){
+        if(departureTime < 0){
+            throw new IllegalArgumentException("L'heure de départ (=" + departureTime + ") est inférieure à zéro.");
+        }
+        else if(fromStop == null || !stopIds.containsKey(fromStop)){
+            throw new IllegalArgumentException("L'arrêt de départ (=" + fromStop + ") ne fait pas partie du graphe.");
+        }
+        else if(toStop == null || !stopIds.containsKey(toStop)){
+            throw new IllegalArgumentException("L'arrêt d'arrivée (=" + toStop + ") ne fait pas partie du graphe.");
+        }
+        else if(lowerBounds != null && !lowerBounds.isFor(this)){
+            throw new IllegalArgumentException("Les bornes inférieures ont été calculées pour un autre graphe.");
+        }
+        else if(workspace.capacity() < stops.length){
+            throw new IllegalArgumentException("L'espace de travail (=" + workspace.capacity() + " arrêts) est trop petit pour le graphe (=" + stops.length + " arrêts).");
+        }
 
-                    // Si la meilleure heure d'arrivée calculée est meilleure que celle connu, on met à jour
-                    if(H2 < fastestPathTreeBD.arrivalTime(neighborStop)){
-                        
-                        fastestPathTreeBD.setArrivalTime(neighborStop, H2, A);
+        int from = stopIds.get(fromStop);
+        int to = stopIds.get(toStop);
+        int fromBound = (lowerBounds == null) ? 0 : lowerBounds.lowerBound(from, to);
+        workspace.settledStops = 0;
+        if(fromBound == LowerBounds.UNREACHABLE){
+            return SecondsPastMidnight.INFINITE;
+        }
+
+        /* Même recherche que fastestPaths, mais la clef d'un arrêt dans le tas est son heure d'arrivée augmentée de sa borne (calculée une seule fois,
+           lorsqu'il est atteint pour la première fois): les heures d'arrivée et les bornes sont rangées à part dans l'espace de travail.
+           Les bornes ne décroissant pas plus vite que la durée des arcs (voir LowerBounds), les clefs restent monotones, comme l'exige RadixHeap. */
+        IndexedPriorityQueue stopsPriorityQueue = workspace.stopsPriorityQueue;
+        int[] arrivalTimes = workspace.arrivalTimes;
+        int[] bounds = workspace.lowerBounds;
+        stopsPriorityQueue.clear();
+        stopsPriorityQueue.add(from, departureTime + fromBound);
+        arrivalTimes[from] = departureTime;
+        bounds[from] = fromBound;
+
+        while(!stopsPriorityQueue.isEmpty()){
+            int A = stopsPriorityQueue.removeMin();
+            ++workspace.settledStops;
+            int bestArrivalTimeOfA = arrivalTimes[A];
+            if(A == to){
+                return bestArrivalTimeOfA;
+            }
+
+            for(int e = edgeOffsets[A]; e < edgeOffsets[A + 1]; ++e){
+                int neighborStop = edgeDestinations[e];
+                if(stopsPriorityQueue.wasRemoved(neighborStop)){
+                    continue;
+                }
 
-                        // Suppression/Ajout du stop afin que la queue de priorité se comporte correctement
-                        stopsPriorityQueue.remove(neighborStop);
-                        stopsPriorityQueue.add(neighborStop);
+                int H2 = edgeArrivalTime(e, bestArrivalTimeOfA);
+                if(H2 >= SecondsPastMidnight.INFINITE){
+                    continue;
+                }
+
+                if(!stopsPriorityQueue.contains(neighborStop)){
+                    int bound = (lowerBounds == null) ? 0 : lowerBounds.lowerBound(neighborStop, to);
+                    if(bound != LowerBounds.UNREACHABLE){
+                        arrivalTimes[neighborStop] = H2;
+                        bounds[neighborStop] = bound;
+                        stopsPriorityQueue.add(neighborStop, H2 + bound);
                     }
                 }
+                else if(H2 < arrivalTimes[neighborStop]){
+                    arrivalTimes[neighborStop] = H2;
+                    stopsPriorityQueue.decreaseKey(neighborStop, H2 + bounds[neighborStop]);
+                }
             }
+        }
+        return SecondsPastMidnight.INFINITE;
+    }
 
-            return fastestPathTreeBD.build();
+    /**
+     * Améliore si possible l'heure d'arrivée d'un voisin, non encore visité, de l'arrêt visité par Graph.fastestPaths.
+     * Sert aussi à la recherche à rebours de Graph.latestDepartures, dont les clefs sont les opposés des heures de départ.
+     *
+     * @param stopsPriorityQueue La queue de priorité des arrêts atteints mais pas encore visités.
+     * @param predecessors Les prédécesseurs, par identifiant d'arrêt.
+     * @param A L'arrêt visité, ou -1 pour placer un arrêt de départ dans la queue de priorité.
+     * @param neighborStop Le voisin.
+     * @param H2 L'heure d'arrivée au voisin en partant de A.
+     * @param arrivalTimeLimit L'heure d'arrivée au-delà de laquelle les arrêts ne font plus partie de l'arbre.
+     */
+    private static void improve(IndexedPriorityQueue stopsPriorityQueue, int[] predecessors, int A, int neighborStop, int H2, int arrivalTimeLimit){
+        // Un arrêt atteint après la limite ne sera jamais visité: inutile de le placer dans la queue de priorité
+        if(H2 > arrivalTimeLimit){
+            return;
+        }
+
+        // Premier passage à cet arrêt: on l'ajoute à la queue de priorité s'il est atteignable
+        if(!stopsPriorityQueue.contains(neighborStop)){
+            if(H2 < SecondsPastMidnight.INFINITE){
+                predecessors[neighborStop] = A;
+                stopsPriorityQueue.add(neighborStop, H2);
+            }
+        }
+        // Si la meilleure heure d'arrivée calculée est meilleure que celle connu, on met à jour
+        else if(H2 < stopsPriorityQueue.key(neighborStop)){
+
+            predecessors[neighborStop] = A;
+
+            // Diminution de la clef: le tas connaît la position du stop, pas besoin de le retirer puis de le réinsérer
+            stopsPriorityQueue.decreaseKey(neighborStop, H2);
         }
     }
-    
+
     public final static class Builder{
+        // Nombre minimum d'arrêts par fil d'exécution lors de la recherche des trajets à pied: en deçà, le lancement des fils coûte plus qu'il ne rapporte
+        private static final int WALK_EDGES_STOPS_PER_THREAD = 2000;
+        
         private final Set<Stop> stops;
         private final Map<Stop, List<GraphEdge>> outgoingEdges;
         private final Map<Stop, Map<Stop, GraphEdge.Builder>> tempOutgoingEdges; // Stock GraphEdge.Builder pour la construction
+        private final Map<Stop, Map<Stop, Double>> walkingDistances;
+        private double maxWalkingDistance;
+        private final List<Service> services;
+        private final Map<Service, Integer> serviceIds;
         
         /**
          * Construit un bâtisseur pour un graphe d'horaire ayant les arrêts passés en argument comme noeuds.
@@ -157,6 +1233,10 @@ public final class Graph {
             this.stops = java.util.Collections.unmodifiableSet(stops);
             this.outgoingEdges = new HashMap<Stop, List<GraphEdge>>();
             this.tempOutgoingEdges = new HashMap<Stop, Map<Stop, GraphEdge.Builder>>();
+            this.walkingDistances = new HashMap<Stop, Map<Stop, Double>>();
+            this.maxWalkingDistance = 0;
+            this.services = new ArrayList<Service>();
+            this.serviceIds = new HashMap<Service, Integer>();
         }
         
         /**
@@ -172,6 +1252,50 @@ public final class Graph {
          * @return this (permet les appels chaînés).
          */
         public Builder addTripEdge(Stop fromStop, Stop toStop, int departureTime, int arrivalTime){
+            return addTripEdge(fromStop, toStop, departureTime, arrivalTime, -1);
+        }
+        
+        /**
+         * Ajoute au graphe en construction un trajet entre les arrêts de départ et d'arrivée donnés, aux heures données (en secondes après minuit),
+         * qui ne circule que les jours où le service donné est actif. Un graphe peut ainsi contenir les trajets de tous les services de la période
+         * des horaires: seuls ceux des services actifs sont empruntés (voir Graph.forServices).
+         * 
+         * @param fromStop Arrêt de départ.
+         * @param toStop Arrêt d'arrivée.
+         * @param departureTime Heure de départ (en secondes après minuit).
+         * @param arrivalTime Heure d'arrivée (en secondes après minuit).
+         * @param service Le service du trajet.
+         * @throws IllegalArgumentException Si l'un des deux arrêts ne fait pas partie de ceux passés au constructeur, 
+         *                                  si l'une des deux heures est négative, 
+         *                                  si l'heure d'arrivée est antérieure à l'heure de départ,
+         *                                  ou si le service est null.
+         * @return this (permet les appels chaînés).
+         */
+        public Builder addTripEdge(Stop fromStop, Stop toStop, int departureTime, int arrivalTime, Service service){
+            if(service == null){
+                throw new IllegalArgumentException("Le service est \"null\"");
+            }
+            Integer serviceId = serviceIds.get(service);
+            if(serviceId == null){
+                serviceId = services.size();
+                services.add(service);
+                serviceIds.put(service, serviceId);
+            }
+            return addTripEdge(fromStop, toStop, departureTime, arrivalTime, serviceId);
+        }
+        
+        /**
+         * Ajoute au graphe en construction un trajet du service d'index donné (-1 pour un trajet quotidien).
+         * 
+         * @param fromStop Arrêt de départ.
+         * @param toStop Arrêt d'arrivée.
+         * @param departureTime Heure de départ (en secondes après minuit).
+         * @param arrivalTime Heure d'arrivée (en secondes après minuit).
+         * @param serviceId L'index du service du trajet dans services, ou -1.
+         * @throws IllegalArgumentException Voir addTripEdge.
+         * @return this (permet les appels chaînés).
+         */
+        private Builder addTripEdge(Stop fromStop, Stop toStop, int departureTime, int arrivalTime, int serviceId){
             if(!stops.contains(fromStop)){
                 throw new IllegalArgumentException("L'arrêt de départ ne fait pas partie de ceux passés au constructeur.");
             }
@@ -189,7 +1313,7 @@ public final class Graph {
             }
             else{
                 GraphEdge.Builder graphEdgeBD = getGraphEdgeBuilder(fromStop, toStop);
-                graphEdgeBD.addTrip(departureTime, arrivalTime);
+                graphEdgeBD.addTrip(departureTime, arrivalTime, serviceId);
                 return this;
             }
         }
@@ -218,10 +1342,13 @@ public final class Graph {
                 
                 List<Stop> arrayStops = new ArrayList<Stop>(stops);
                 
-                // Parcourt qu'une seule fois chaque paire d'arrêts : double boucle for
+                // Voisins de chaque arrêt à moins de la distance maximale, trouvés grâce à l'index spatial (en parallèle)
+                int[][] neighbors = walkNeighbors(arrayStops, maxWalkingDistance);
+                
+                // Parcourt qu'une seule fois chaque paire d'arrêts voisins, dans le même ordre que la comparaison de toutes les paires (j croissant, j > i)
                 for(int i=0; i<arrayStops.size(); ++i){
                     
-                    for(int j=i+1; j<arrayStops.size(); ++j){
+                    for(int j : neighbors[i]){
                  
                         Stop stop1 = arrayStops.get(i);
                         Stop stop2 = arrayStops.get(j);
@@ -248,6 +1375,116 @@ public final class Graph {
             }
         }
         
+        /**
+         * Enregistre la distance entre chaque paire d'arrêts distants de moins de la distance maximale donnée (en mètres), dans les deux sens.
+         * Contrairement à addAllWalkEdges, aucun temps de marche n'est fixé: il est calculé lors de chaque recherche selon ses paramètres de marche
+         * (voir Graph.fastestPaths et WalkingParameters), pourvu que leur distance maximale ne dépasse pas celle-ci.
+         * 
+         * @param maxWalkingDistance La distance maximale de marche (en mètres).
+         * @throws IllegalArgumentException Si la distance maximale de marche est négative.
+         * @return this (permet les appels chaînés).
+         */
+        public Builder addAllWalkingDistances(double maxWalkingDistance){
+            if(!(maxWalkingDistance >= 0)){
+                throw new IllegalArgumentException("La distance maximale de marche (=" + maxWalkingDistance + ") est négative.");
+            }
+            
+            List<Stop> arrayStops = new ArrayList<Stop>(stops);
+            int[][] neighbors = walkNeighbors(arrayStops, maxWalkingDistance);
+            for(int i=0; i<arrayStops.size(); ++i){
+                for(int j : neighbors[i]){
+                    Stop stop1 = arrayStops.get(i);
+                    Stop stop2 = arrayStops.get(j);
+                    double distanceBetweenStops = stop1.position().distanceTo(stop2.position());
+                    
+                    walkingDistancesFrom(stop1).put(stop2, distanceBetweenStops);
+                    walkingDistancesFrom(stop2).put(stop1, distanceBetweenStops);
+                }
+            }
+            this.maxWalkingDistance = Math.max(this.maxWalkingDistance, maxWalkingDistance);
+            return this;
+        }
+        
+        /**
+         * Retourne la table des distances de marche depuis l'arrêt donné, en la créant au besoin.
+         * 
+         * @param fromStop L'arrêt de départ.
+         * @return La table associant aux arrêts reliés à pied depuis l'arrêt donné leur distance.
+         */
+        private Map<Stop, Double> walkingDistancesFrom(Stop fromStop){
+            Map<Stop, Double> distances = walkingDistances.get(fromStop);
+            if(distances == null){
+                distances = new HashMap<Stop, Double>();
+                walkingDistances.put(fromStop, distances);
+            }
+            return distances;
+        }
+        
+        /**
+         * Retourne, pour chaque arrêt de la liste donnée, les index (croissants) des arrêts qui le suivent dans la liste et qui sont situés
+         * à une distance strictement inférieure à la distance donnée. Les arrêts sont répartis entre autant de fils d'exécution que de processeurs,
+         * chacun interrogeant le même index spatial (SpatialGrid).
+         * 
+         * @param stops Les arrêts.
+         * @param maxDistance La distance (en mètres).
+         * @return Les index des voisins de chaque arrêt, par index d'arrêt.
+         */
+        private static int[][] walkNeighbors(final List<Stop> stops, final double maxDistance){
+            final int[][] neighbors = new int[stops.size()][];
+            List<PointWGS84> positions = new ArrayList<PointWGS84>(stops.size());
+            for(Stop stop : stops){
+                positions.add(stop.position());
+            }
+            final SpatialGrid grid = new SpatialGrid(positions, maxDistance);
+            
+            final int numberOfThreads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), stops.size() / WALK_EDGES_STOPS_PER_THREAD));
+            List<Runnable> tasks = new ArrayList<Runnable>(numberOfThreads);
+            for(int t = 0; t < numberOfThreads; ++t){
+                final int firstStop = t;
+                tasks.add(new Runnable(){
+                    @Override
+                    public void run(){
+                        // Arrêts entrelacés plutôt que par blocs, pour que les zones denses soient partagées entre les fils d'exécution
+                        for(int i = firstStop; i < stops.size(); i += numberOfThreads){
+                            int[] within = grid.indicesWithin(stops.get(i).position(), maxDistance);
+                            int first = Arrays.binarySearch(within, i + 1);
+                            neighbors[i] = Arrays.copyOfRange(within, (first < 0) ? -first - 1 : first, within.length);
+                        }
+                    }
+                });
+            }
+            
+            if(numberOfThreads == 1){
+                tasks.get(0).run();
+                return neighbors;
+            }
+            
+            ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads);
+            try{
+                List<Future<?>> results = new ArrayList<Future<?>>(numberOfThreads);
+                for(Runnable task : tasks){
+                    results.add(executor.submit(task));
+                }
+                for(Future<?> result : results){
+                    result.get();
+                }
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("La recherche des trajets à pied a été interrompue.", e);
+            }
+            catch(ExecutionException e){
+                if(e.getCause() instanceof RuntimeException){
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+            finally{
+                executor.shutdown();
+            }
+            return neighbors;
+        }
+        
         /**
          * Retourne le bâtisseur d'arc de l'arrêt d'arrivée correspondant à l'arrêt de départ. 
          * L'arrêt de départ est également utilisé afin de mettre à jour/créer les associations dans "tempOutgoingEdges".
@@ -288,8 +1525,18 @@ public final class Graph {
          * @return Un nouveau graphe avec les noeuds passés à la construction du bâtisseur et les arcs ajoutés jusqu'à présent.
          */
         public Graph build(){
+            return new Graph(new HashSet<Stop>(stops), buildOutgoingEdges(), services, walkingDistances, maxWalkingDistance); // Assurons nous d'envoyer des paramètres immmuables
+        }
+        
+        /**
+         * Construit et retourne la table associant à chaque arrêt la liste de ses arcs sortants, avec les arcs ajoutés jusqu'à présent.
+         * Utilisé par build() et par les bancs d'essai, qui comparent l'algorithme du graphe à d'autres implantations sur les mêmes arcs.
+         * 
+         * @return La table associant à chaque arrêt la liste de ses arcs sortants.
+         */
+        Map<Stop, List<GraphEdge>> buildOutgoingEdges(){
             updateOutgoingEdges();
-            return new Graph(new HashSet<Stop>(stops), new HashMap<Stop, List<GraphEdge>>(outgoingEdges)); // Assurons nous d'envoyer des paramètres immmuables
+            return new HashMap<Stop, List<GraphEdge>>(outgoingEdges);
         }
 
         /**
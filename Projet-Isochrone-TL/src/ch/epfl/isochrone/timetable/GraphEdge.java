@@ -4,7 +4,6 @@ import static ch.epfl.isochrone.math.Math.divF;
 import static ch.epfl.isochrone.math.Math.modF;
 
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -15,7 +14,8 @@ import java.util.Set;
  */
 final class GraphEdge {
     private final Stop destination;
-    private final Integer[] arrayPackedTrips;
+    private final int[] arrayPackedTrips;
+    private final int[] tripServices; // tripServices[i] = index du service du trajet arrayPackedTrips[i], ou -1 s'il circule tous les jours
     private final int walkingTime;
     
     /**
@@ -84,6 +84,36 @@ final class GraphEdge {
      * @throws IllegalArgumentException Si le temps de marche est inférieur à -1.
      */
     public GraphEdge(Stop destination, int walkingTime, Set<Integer> packedTrips){
+        this(destination, walkingTime, toIntArray(packedTrips), packedTrips.size());
+    }
+    
+    /**
+     * Construit un arc ayant l'arrêt de destination et le temps de marche donnés, et les trajets occupant les numberOfTrips premières cases du tableau donné.
+     * Les trajets sont recopiés et triés, et les trajets dominés (voir paretoOptimalTrips) sont éliminés: le tableau passé n'est pas modifié.
+     * 
+     * @param destination L'arrêt de destination.
+     * @param walkingTime Le temps de marche (en secondes).
+     * @param packedTrips Les trajets encodés en entier, dans un ordre quelconque et éventuellement à double.
+     * @param numberOfTrips Le nombre de trajets du tableau à considérer.
+     * @throws IllegalArgumentException Si le temps de marche est inférieur à -1.
+     */
+    GraphEdge(Stop destination, int walkingTime, int[] packedTrips, int numberOfTrips){
+        this(destination, walkingTime, packedTrips, null, numberOfTrips);
+    }
+    
+    /**
+     * Construit un arc ayant l'arrêt de destination et le temps de marche donnés, et les trajets occupant les numberOfTrips premières cases du tableau donné,
+     * chacun associé à l'index de son service (ou -1 s'il circule tous les jours). Les trajets sont recopiés et triés, et seuls les trajets dominés
+     * par un trajet du même service sont éliminés (voir paretoOptimalTrips): un trajet d'un autre service ne circule peut-être pas le même jour.
+     * 
+     * @param destination L'arrêt de destination.
+     * @param walkingTime Le temps de marche (en secondes).
+     * @param packedTrips Les trajets encodés en entier, dans un ordre quelconque et éventuellement à double.
+     * @param tripServices Les index des services des trajets, ou null si tous circulent tous les jours.
+     * @param numberOfTrips Le nombre de trajets du tableau à considérer.
+     * @throws IllegalArgumentException Si le temps de marche est inférieur à -1.
+     */
+    GraphEdge(Stop destination, int walkingTime, int[] packedTrips, int[] tripServices, int numberOfTrips){
         if(walkingTime < -1){
             throw new IllegalArgumentException("Le temps de marche est inférieur à -1");
         }
@@ -91,11 +121,86 @@ final class GraphEdge {
             this.destination = destination;
             this.walkingTime = walkingTime;
             
-            // Les trajets dans un tableau trié
-            arrayPackedTrips = packedTrips.toArray(new Integer[0]);
-            Arrays.sort(arrayPackedTrips); //sort fonctionne ici car le tableau contient des Integer, qui sont comparables
-
+            // Les trajets non dominés dans un tableau trié, suivis de leurs services
+            long[] trips = paretoOptimalTrips(packedTrips, tripServices, numberOfTrips);
+            arrayPackedTrips = new int[trips.length];
+            this.tripServices = new int[trips.length];
+            for(int i = 0; i < trips.length; ++i){
+                arrayPackedTrips[i] = (int) (trips[i] >>> 32);
+                this.tripServices[i] = (int) trips[i] - 1;
+            }
+        }
+    }
+    
+    /**
+     * Convertit un ensemble d'entiers en tableau d'entiers primitifs.
+     * 
+     * @param values L'ensemble d'entiers.
+     * @return Le tableau contenant les entiers de l'ensemble, dans un ordre quelconque.
+     */
+    private static int[] toIntArray(Set<Integer> values){
+        int[] array = new int[values.size()];
+        int i = 0;
+        for(int value : values){
+            array[i++] = value;
+        }
+        return array;
+    }
+    
+    /**
+     * Retourne une copie triée des length premiers trajets du tableau donné, dont on a retiré les trajets dominés, chacun suivi de son service.
+     * Un trajet est dominé s'il existe un autre trajet du même service partant au même moment ou plus tard et arrivant au même moment ou plus tôt
+     * (p.ex. un omnibus dépassé par un express): il ne peut jamais être le meilleur choix.
+     * Pour un service donné, les heures de départ et d'arrivée des trajets retournés sont donc strictement croissantes, et le premier trajet partant
+     * après une heure donnée est aussi celui qui arrive le plus tôt: si tous les trajets sont du même service, une seule recherche dichotomique suffit.
+     * 
+     * @param values Le tableau des trajets encodés.
+     * @param services Le tableau des index des services des trajets, ou null si tous circulent tous les jours.
+     * @param length Le nombre de valeurs à considérer.
+     * @return Les trajets non dominés, triés, chacun encodé avec son service dans un long: (trajet << 32) | (index du service + 1).
+     */
+    private static long[] paretoOptimalTrips(int[] values, int[] services, int length){
+        // Tri par service puis par trajet: (index du service + 1) << 32 | trajet
+        long[] sorted = new long[length];
+        for(int i = 0; i < length; ++i){
+            sorted[i] = ((long) ((services == null) ? 0 : services[i] + 1) << 32) | values[i];
         }
+        Arrays.sort(sorted);
+        
+        /* Parcours du dernier départ au premier de chaque service en retenant la meilleure arrivée des trajets partant plus tard: 
+           un trajet n'est conservé que s'il arrive strictement plus tôt. Les trajets conservés sont placés en fin de tableau.
+           Les trajets partant au même moment sont parcourus du plus long au plus court: le plus court remplace le dernier conservé. */
+        int kept = sorted.length;
+        int bestLaterArrival = Integer.MAX_VALUE;
+        int keptDeparture = -1;
+        long laterService = -1;
+        for(int i = sorted.length - 1; i >= 0; --i){
+            if((sorted[i] >>> 32) != laterService){
+                laterService = sorted[i] >>> 32;
+                bestLaterArrival = Integer.MAX_VALUE;
+                keptDeparture = -1;
+            }
+            int arrival = unpackTripArrivalTime((int) sorted[i]);
+            if(arrival < bestLaterArrival){
+                bestLaterArrival = arrival;
+                int departure = unpackTripDepartureTime((int) sorted[i]);
+                if(departure == keptDeparture){
+                    sorted[kept] = sorted[i];
+                }
+                else{
+                    sorted[--kept] = sorted[i];
+                    keptDeparture = departure;
+                }
+            }
+        }
+        
+        // Tri par trajet, tous services confondus
+        long[] trips = new long[sorted.length - kept];
+        for(int i = kept; i < sorted.length; ++i){
+            trips[i - kept] = ((sorted[i] & 0xFFFFFFFFL) << 32) | (sorted[i] >>> 32);
+        }
+        Arrays.sort(trips);
+        return trips;
     }
     
     /**
@@ -108,68 +213,164 @@ final class GraphEdge {
     }
     
     /**
-     * Retourne la première heure d'arrivée possible à la destination de l'arc, étant donnée l'heure de départ. 
-     * Cette heure est SecondsPastMidnight.INFINITE s'il n'est pas possible d'effectuer le trajet à l'heure de départ donnée (c'est-à-dire si le temps de marche est -1 et l'heure de départ du dernier trajet est antérieure à l'heure de départ donnée).
-     * 
+     * Retourne le temps de marche de l'arc (en secondes), ou -1 s'il est trop long d'effectuer le trajet à pied.
+     *
+     * @return Le temps de marche de l'arc.
+     */
+    int walkingTime(){
+        return walkingTime;
+    }
+
+    /**
+     * Retourne une copie des trajets encodés non dominés de l'arc, triés par ordre croissant.
+     *
+     * @return Les trajets encodés non dominés de l'arc, triés.
+     */
+    int[] packedTrips(){
+        return arrayPackedTrips.clone();
+    }
+
+    /**
+     * Retourne une copie des index des services des trajets retournés par packedTrips, dans le même ordre (-1 pour les trajets circulant tous les jours).
+     *
+     * @return Les index des services des trajets de l'arc.
+     */
+    int[] tripServices(){
+        return tripServices.clone();
+    }
+
+    /**
+     * Retourne la première heure d'arrivée possible à la destination d'un arc dont les trajets encodés, triés et non dominés occupent
+     * l'intervalle [fromIndex; toIndex[ du tableau donné. Utilisé par la représentation compacte du graphe, qui ne conserve pas les arcs sous forme d'objets.
+     *
+     * @param packedTrips Le tableau contenant les trajets encodés.
+     * @param fromIndex L'index du premier trajet de l'arc (inclus).
+     * @param toIndex L'index du dernier trajet de l'arc (exclu).
+     * @param walkingTime Le temps de marche de l'arc, ou -1.
      * @param departureTime L'heure de départ (en secondes après minuit).
-     * @return S'il est possible d'effectuer le trajet : La première heure d'arrivée possible à la destination de l'arc. S'il est impossible d'effectuer le trajet : SecondsPastMidnight.INFINITE .
+     * @return La première heure d'arrivée possible à la destination de l'arc, ou SecondsPastMidnight.INFINITE s'il est impossible d'effectuer le trajet.
      */
-    public int earliestArrivalTime(int departureTime){
-        int walkEarliestArrivalTime = departureTime + walkingTime;
+    static int earliestArrivalTime(int[] packedTrips, int fromIndex, int toIndex, int walkingTime, int departureTime){
+        int walkEarliestArrivalTime = (walkingTime == -1) ? SecondsPastMidnight.INFINITE : departureTime + walkingTime;
 
-        // S'il n'y a pas de trajet sur l'arc
-        if(arrayPackedTrips.length == 0){
-            
-            // Et si en plus la marche est impossible ==> impossible d'effectuer le trajet
-            if(walkingTime < -1){
-                return SecondsPastMidnight.INFINITE;
-            }
-            // Si marche possible, alors on retourne l'heure d'arrivée en marchant
-            else{
-                return walkEarliestArrivalTime;
-            }
+        // Aucun trajet sur l'arc, ou heure de départ au-delà de 29:59:59 (limite de l'encodage): seule la marche est possible
+        if(fromIndex == toIndex || departureTime > 107999){
+            return walkEarliestArrivalTime;
         }
-        // Sinon il y a des trajets sur l'arc et il faut déterminer la meilleur heure d'arrivée parmis les trajets
-        else{
 
-            // On "pack" l'heure de départ pour se conformer au format du tableau trié lors de la recherche dichotomique ci-dessous
-            // On décide de mettre l'heure d'arrivée à 0. On tirera nos conclusion lors des comparaisons à partir de ce fait.
-            int departureTimePacked = packTrip(departureTime, departureTime);
+        // Trajet encodé partant à l'heure donnée avec une durée nulle: le plus petit trajet encodé partant à cette heure
+        int index = Arrays.binarySearch(packedTrips, fromIndex, toIndex, packTrip(departureTime, departureTime));
+        if(index < 0){
+            index = -(index) - 1;
+        }
+
+        // Aucun trajet ne part après l'heure donnée
+        if(index == toIndex){
+            return walkEarliestArrivalTime;
+        }
+
+        int tripEarliestArrivalTime = unpackTripArrivalTime(packedTrips[index]);
+
+        // A heure égale on préfère le véhicule
+        return (tripEarliestArrivalTime <= walkEarliestArrivalTime) ? tripEarliestArrivalTime : walkEarliestArrivalTime;
+    }
+
+    /**
+     * Retourne la première heure d'arrivée possible à la destination d'un arc dont les trajets encodés et triés occupent l'intervalle [fromIndex; toIndex[
+     * du tableau donné, en n'empruntant que les trajets circulant tous les jours ou dont le service fait partie de l'ensemble donné.
+     * Les trajets de services différents pouvant se dépasser, les trajets sont parcourus à partir du premier partant après l'heure donnée
+     * jusqu'à ce qu'ils partent après la meilleure heure d'arrivée trouvée.
+     *
+     * @param packedTrips Le tableau contenant les trajets encodés.
+     * @param tripServices Le tableau contenant l'index du service de chaque trajet, ou -1.
+     * @param activeServices L'ensemble des index des services actifs (bit i du mot i/64).
+     * @param fromIndex L'index du premier trajet de l'arc (inclus).
+     * @param toIndex L'index du dernier trajet de l'arc (exclu).
+     * @param walkingTime Le temps de marche de l'arc, ou -1.
+     * @param departureTime L'heure de départ (en secondes après minuit).
+     * @return La première heure d'arrivée possible à la destination de l'arc, ou SecondsPastMidnight.INFINITE s'il est impossible d'effectuer le trajet.
+     */
+    static int earliestArrivalTime(int[] packedTrips, int[] tripServices, long[] activeServices, int fromIndex, int toIndex, int walkingTime, int departureTime){
+        int earliestArrivalTime = (walkingTime == -1) ? SecondsPastMidnight.INFINITE : departureTime + walkingTime;
+
+        // Aucun trajet sur l'arc, ou heure de départ au-delà de 29:59:59 (limite de l'encodage): seule la marche est possible
+        if(fromIndex == toIndex || departureTime > 107999){
+            return earliestArrivalTime;
+        }
 
-            int binarySearchResult = Arrays.binarySearch(arrayPackedTrips, departureTimePacked);
+        int index = Arrays.binarySearch(packedTrips, fromIndex, toIndex, packTrip(departureTime, departureTime));
+        if(index < 0){
+            index = -(index) - 1;
+        }
 
-            /* Si le résultat est négatif c'est que l'élément ne se trouve pas dans la liste et que la recherche dichotomique
-           nous a retourné l'endroit où l'élément pourrait être inséré. Il nous faut faire un petit calcul pour récpérer l'index. */
-            if(binarySearchResult < 0){
-                binarySearchResult = -(binarySearchResult) - 1;
+        // Un trajet partant après la meilleure heure d'arrivée ne peut arriver plus tôt
+        for(int i = index; i < toIndex && unpackTripDepartureTime(packedTrips[i]) < earliestArrivalTime; ++i){
+            int service = tripServices[i];
+            if(service == -1 || (activeServices[service >>> 6] & (1L << service)) != 0){
+                earliestArrivalTime = Math.min(earliestArrivalTime, unpackTripArrivalTime(packedTrips[i]));
             }
+        }
+        return earliestArrivalTime;
+    }
 
-            // Trajet impossible
-            if(binarySearchResult == arrayPackedTrips.length){
-                
-                // Marche impossible ==> impossible d'effectuer le trajet
-                if(walkingTime == -1){
-                    return SecondsPastMidnight.INFINITE;
-                }
-                // Marche possible ==> retourner l'heure d'arrivée en marchant
-                else{
-                    return walkEarliestArrivalTime;
-                }
+    /**
+     * Retourne la dernière heure de départ possible de l'arc dont les trajets encodés et triés occupent l'intervalle [fromIndex; toIndex[ du tableau donné
+     * pour arriver à sa destination au plus tard à l'heure donnée, en n'empruntant que les trajets circulant tous les jours ou dont le service est actif.
+     * C'est le pendant de earliestArrivalTime pour les recherches à rebours: les trajets sont parcourus à partir du dernier partant avant l'heure d'arrivée,
+     * dans l'ordre décroissant, jusqu'au premier arrivant à temps (ceux qui partent avant partent plus tôt).
+     *
+     * @param packedTrips Le tableau contenant les trajets encodés.
+     * @param tripServices Le tableau contenant l'index du service de chaque trajet, ou -1, ou null si tous les trajets circulent tous les jours.
+     * @param activeServices L'ensemble des index des services actifs (bit i du mot i/64), ignoré si tripServices est null.
+     * @param fromIndex L'index du premier trajet de l'arc (inclus).
+     * @param toIndex L'index du dernier trajet de l'arc (exclu).
+     * @param walkingTime Le temps de marche de l'arc, ou -1.
+     * @param arrivalTime L'heure d'arrivée au plus tard (en secondes après minuit).
+     * @return La dernière heure de départ possible, ou -SecondsPastMidnight.INFINITE s'il est impossible d'arriver à temps (en partant au plus tôt à minuit).
+     */
+    static int latestDepartureTime(int[] packedTrips, int[] tripServices, long[] activeServices, int fromIndex, int toIndex, int walkingTime, int arrivalTime){
+        int latestDepartureTime = (walkingTime == -1 || arrivalTime < walkingTime) ? -SecondsPastMidnight.INFINITE : arrivalTime - walkingTime;
+
+        // Premier trajet partant après l'heure d'arrivée: ni lui ni les suivants ne peuvent arriver à temps (tous partent avant 29:59:59, limite de l'encodage)
+        int index = toIndex;
+        if(arrivalTime < 107999){
+            index = Arrays.binarySearch(packedTrips, fromIndex, toIndex, packTrip(arrivalTime + 1, arrivalTime + 1));
+            if(index < 0){
+                index = -(index) - 1;
             }
-            // Trajet possible
-            else{
-                int tripEarliestArrivalTime = unpackTripArrivalTime( (int)arrayPackedTrips[binarySearchResult] );
+        }
 
-                // Marche impossible ==> retourner l'heure d'arrivée de la meilleure heure d'arrivée des trajets
-                if(walkingTime == -1){
-                    return tripEarliestArrivalTime;
-                }
-                // Marche possible ==> déterminer qui entre l'heure du trajet et l'heure de marche est le plus rapide (en supposant qu'à heure égale on préféra le véhicule)
-                else{
-                    return (tripEarliestArrivalTime <= walkEarliestArrivalTime) ? tripEarliestArrivalTime : walkEarliestArrivalTime;
-                }
+        // Le premier trajet arrivant à temps, dans l'ordre décroissant des départs, est celui qui part le plus tard
+        for(int i = index - 1; i >= fromIndex && unpackTripDepartureTime(packedTrips[i]) > latestDepartureTime; --i){
+            int service = (tripServices == null) ? -1 : tripServices[i];
+            if(unpackTripArrivalTime(packedTrips[i]) <= arrivalTime && (service == -1 || (activeServices[service >>> 6] & (1L << service)) != 0)){
+                return unpackTripDepartureTime(packedTrips[i]);
             }
         }
+        return latestDepartureTime;
+    }
+
+    /**
+     * Retourne la dernière heure de départ possible de l'arc pour arriver à sa destination au plus tard à l'heure donnée.
+     * Cette heure est -SecondsPastMidnight.INFINITE s'il n'est pas possible d'arriver à temps.
+     *
+     * @param arrivalTime L'heure d'arrivée au plus tard (en secondes après minuit).
+     * @return La dernière heure de départ possible, ou -SecondsPastMidnight.INFINITE.
+     */
+    public int latestDepartureTime(int arrivalTime){
+        // Comme earliestArrivalTime(int), tous les trajets de l'arc sont empruntés, quel que soit leur service
+        return latestDepartureTime(arrayPackedTrips, null, null, 0, arrayPackedTrips.length, walkingTime, arrivalTime);
+    }
+
+    /**
+     * Retourne la première heure d'arrivée possible à la destination de l'arc, étant donnée l'heure de départ. 
+     * Cette heure est SecondsPastMidnight.INFINITE s'il n'est pas possible d'effectuer le trajet à l'heure de départ donnée (c'est-à-dire si le temps de marche est -1 et l'heure de départ du dernier trajet est antérieure à l'heure de départ donnée).
+     * 
+     * @param departureTime L'heure de départ (en secondes après minuit).
+     * @return S'il est possible d'effectuer le trajet : La première heure d'arrivée possible à la destination de l'arc. S'il est impossible d'effectuer le trajet : SecondsPastMidnight.INFINITE .
+     */
+    public int earliestArrivalTime(int departureTime){
+        return earliestArrivalTime(arrayPackedTrips, 0, arrayPackedTrips.length, walkingTime, departureTime);
     }
     
     /**
@@ -180,7 +381,9 @@ final class GraphEdge {
      */
     public final static class Builder{
         private final Stop destination;
-        private final Set<Integer> packedTrips;
+        private int[] packedTrips;
+        private int[] tripServices;
+        private int numberOfTrips;
         private int walkingTime;
        
         /**
@@ -190,7 +393,9 @@ final class GraphEdge {
          */
         public Builder(Stop destination){
             this.destination = destination;
-            packedTrips = new HashSet<Integer>();
+            packedTrips = new int[4];
+            tripServices = null;
+            numberOfTrips = 0;
             walkingTime = -1;
         }
         
@@ -218,9 +423,38 @@ final class GraphEdge {
          * @return this (permet les appels chaînés).
          */
         public GraphEdge.Builder addTrip(int departureTime, int arrivalTime){
+            return addTrip(departureTime, arrivalTime, -1);
+        }
+        
+        /**
+         * Ajoute un trajet avec les heures de départ et d'arrivée données, qui ne circule que les jours où le service d'index donné est actif.
+         * 
+         * @param departureTime L'heure de départ.
+         * @param arrivalTime L'heure d'arrivée.
+         * @param service L'index du service du trajet, ou -1 s'il circule tous les jours.
+         * @throws IllegalArgumentException Si l'heure de départ est invalide, c-à-d hors de l'intervalle [0;107'999], ou si la différence entre l'heure d'arrivée et celle de départ est invalide, c-à-d hors de l'intervalle [0;9'999].
+         * @return this (permet les appels chaînés).
+         */
+        GraphEdge.Builder addTrip(int departureTime, int arrivalTime, int service){
             
             int packedTrip = packTrip(departureTime, arrivalTime);
-            packedTrips.add(packedTrip);
+            
+            // Les doublons et les trajets dominés sont éliminés lors de la construction de l'arc
+            if(numberOfTrips == packedTrips.length){
+                packedTrips = Arrays.copyOf(packedTrips, 2 * packedTrips.length);
+                if(tripServices != null){
+                    tripServices = Arrays.copyOf(tripServices, packedTrips.length);
+                }
+            }
+            // Le tableau des services n'est créé qu'au premier trajet qui n'est pas quotidien
+            if(service != -1 && tripServices == null){
+                tripServices = new int[packedTrips.length];
+                Arrays.fill(tripServices, -1);
+            }
+            if(tripServices != null){
+                tripServices[numberOfTrips] = service;
+            }
+            packedTrips[numberOfTrips++] = packedTrip;
             
             return this;
         }
@@ -231,7 +465,7 @@ final class GraphEdge {
          * @return Un nouvel arc avec la destination, le temps de marche et les trajets ajoutés jusqu'ici au bâtisseur.
          */
         public GraphEdge build(){
-            return new GraphEdge(destination, walkingTime, packedTrips);
+            return new GraphEdge(destination, walkingTime, packedTrips, tripServices, numberOfTrips);
         }
     }
 }
@@ -0,0 +1,247 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Modélise un tas binaire minimum d'index entiers denses (p.ex. les identifiants des arrêts d'un graphe), chacun associé à une clef entière.
+ * Contrairement à java.util.PriorityQueue, la position de chaque index dans le tas est connue, ce qui permet de diminuer la clef d'un élément
+ * en O(log n) au lieu de devoir le retirer (O(n)) puis le réinsérer.
+ * Le tas peut être vidé en temps constant par clear() et réutilisé d'une recherche à l'autre: la position de chaque index n'est valable
+ * que si l'index a été marqué du numéro de la recherche (« epoch ») courante, ce qui évite de réinitialiser les tableaux.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+final class IndexedMinHeap implements IndexedPriorityQueue {
+    private static final int REMOVED = -2;
+    
+    private final int[] heap;      // heap[position] = index
+    private final int[] positions; // positions[index] = position dans le tas ou REMOVED (sans objet si epochs[index] != epoch)
+    private final int[] keys;      // keys[index] = clef (conservée après le retrait de l'index)
+    private final int[] epochs;    // epochs[index] = numéro de la recherche lors de laquelle l'index a été ajouté
+    private int epoch;
+    private int size;
+
+    /**
+     * Construit un tas vide pouvant contenir les index de l'intervalle [0; capacity[.
+     *
+     * @param capacity Le nombre d'index possibles.
+     * @throws IllegalArgumentException Si la capacité est négative.
+     */
+    public IndexedMinHeap(int capacity){
+        if(capacity < 0){
+            throw new IllegalArgumentException("La capacité (=" + capacity + ") ne peut être négative.");
+        }
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new int[capacity];
+        epochs = new int[capacity];
+        epoch = 1;
+        size = 0;
+    }
+
+    /**
+     * Retourne le nombre d'index possibles, qui sont ceux de l'intervalle [0; capacity()[.
+     *
+     * @return Le nombre d'index possibles.
+     */
+    @Override
+    public int capacity(){
+        return heap.length;
+    }
+
+    /**
+     * Vide le tas et oublie tous les index ajoutés ou retirés, en temps constant (sauf une fois tous les 2^31 appels environ).
+     */
+    @Override
+    public void clear(){
+        size = 0;
+        if(epoch == Integer.MAX_VALUE){
+            java.util.Arrays.fill(epochs, 0);
+            epoch = 0;
+        }
+        ++epoch;
+    }
+
+    /**
+     * Retourne vrai si le tas ne contient aucun index.
+     *
+     * @return Vrai si le tas est vide, faux sinon.
+     */
+    @Override
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Retourne le nombre d'index contenus dans le tas.
+     *
+     * @return Le nombre d'index contenus dans le tas.
+     */
+    @Override
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Retourne vrai si l'index donné se trouve actuellement dans le tas.
+     *
+     * @param index L'index.
+     * @return Vrai si l'index se trouve dans le tas, faux sinon.
+     */
+    @Override
+    public boolean contains(int index){
+        return epochs[index] == epoch && positions[index] >= 0;
+    }
+
+    /**
+     * Retourne vrai si l'index donné a été ajouté au tas puis retiré par removeMin.
+     *
+     * @param index L'index.
+     * @return Vrai si l'index a été retiré du tas, faux s'il s'y trouve encore ou s'il n'y a jamais été ajouté.
+     */
+    @Override
+    public boolean wasRemoved(int index){
+        return epochs[index] == epoch && positions[index] == REMOVED;
+    }
+
+    /**
+     * Retourne la dernière clef associée à l'index donné, qu'il soit encore dans le tas ou non.
+     * La clef d'un index qui n'a pas été ajouté depuis le dernier appel à clear() n'a pas de sens.
+     *
+     * @param index L'index.
+     * @return La dernière clef associée à l'index.
+     */
+    @Override
+    public int key(int index){
+        return keys[index];
+    }
+
+    /**
+     * Ajoute l'index donné au tas avec la clef donnée. Un index retiré peut être ajouté à nouveau.
+     *
+     * @param index L'index.
+     * @param key La clef.
+     * @throws IllegalArgumentException Si l'index se trouve déjà dans le tas.
+     */
+    @Override
+    public void add(int index, int key){
+        if(contains(index)){
+            throw new IllegalArgumentException("L'index (=" + index + ") se trouve déjà dans le tas.");
+        }
+        keys[index] = key;
+        epochs[index] = epoch;
+        heap[size] = index;
+        positions[index] = size;
+        ++size;
+        siftUp(size - 1);
+    }
+
+    /**
+     * Diminue la clef de l'index donné, qui doit se trouver dans le tas.
+     *
+     * @param index L'index.
+     * @param key La nouvelle clef.
+     * @throws IllegalArgumentException Si l'index ne se trouve pas dans le tas ou si la nouvelle clef est plus grande que l'actuelle.
+     */
+    @Override
+    public void decreaseKey(int index, int key){
+        if(!contains(index)){
+            throw new IllegalArgumentException("L'index (=" + index + ") ne se trouve pas dans le tas.");
+        }
+        else if(key > keys[index]){
+            throw new IllegalArgumentException("La nouvelle clef (=" + key + ") est plus grande que l'actuelle (=" + keys[index] + ").");
+        }
+        keys[index] = key;
+        siftUp(positions[index]);
+    }
+
+    /**
+     * Retourne la clef minimum du tas, sans retirer l'index correspondant.
+     *
+     * @throws NoSuchElementException Si le tas est vide.
+     * @return La clef minimum du tas.
+     */
+    @Override
+    public int minKey(){
+        if(size == 0){
+            throw new NoSuchElementException("Le tas est vide.");
+        }
+        return keys[heap[0]];
+    }
+
+    /**
+     * Retire et retourne l'index de clef minimum.
+     *
+     * @throws NoSuchElementException Si le tas est vide.
+     * @return L'index de clef minimum.
+     */
+    @Override
+    public int removeMin(){
+        if(size == 0){
+            throw new NoSuchElementException("Le tas est vide.");
+        }
+        int min = heap[0];
+        --size;
+        if(size > 0){
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        positions[min] = REMOVED;
+        return min;
+    }
+
+    /**
+     * Fait remonter l'élément à la position donnée jusqu'à ce que la propriété du tas soit rétablie.
+     *
+     * @param position La position de l'élément.
+     */
+    private void siftUp(int position){
+        int index = heap[position];
+        int key = keys[index];
+
+        while(position > 0){
+            int parent = (position - 1) >>> 1;
+            int parentIndex = heap[parent];
+            if(keys[parentIndex] <= key){
+                break;
+            }
+            heap[position] = parentIndex;
+            positions[parentIndex] = position;
+            position = parent;
+        }
+        heap[position] = index;
+        positions[index] = position;
+    }
+
+    /**
+     * Fait descendre l'élément à la position donnée jusqu'à ce que la propriété du tas soit rétablie.
+     *
+     * @param position La position de l'élément.
+     */
+    private void siftDown(int position){
+        int index = heap[position];
+        int key = keys[index];
+
+        while(true){
+            int child = 2*position + 1;
+            if(child >= size){
+                break;
+            }
+            // On choisit le plus petit des deux enfants
+            if(child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]){
+                ++child;
+            }
+            int childIndex = heap[child];
+            if(key <= keys[childIndex]){
+                break;
+            }
+            heap[position] = childIndex;
+            positions[childIndex] = position;
+            position = child;
+        }
+        heap[position] = index;
+        positions[index] = position;
+    }
+}
@@ -0,0 +1,102 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Modélise une queue de priorité d'index entiers denses (p.ex. les identifiants des arrêts d'un graphe), chacun associé à une clef entière,
+ * telle que l'utilisent les recherches du graphe (voir Graph.fastestPaths): la clef d'un index peut être diminuée sans le retirer,
+ * et la dernière clef d'un index retiré reste connue. La queue est vidée en temps constant par clear() et réutilisée d'une recherche à l'autre.
+ * <br/>
+ * Deux implantations sont disponibles (voir RoutingQueue): le tas binaire IndexedMinHeap, qui accepte n'importe quelle suite de clefs,
+ * et le tas « radix » RadixHeap, plus rapide mais limité aux suites monotones (aucune clef ajoutée n'est inférieure à la dernière clef minimum).
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+interface IndexedPriorityQueue {
+    /**
+     * Retourne le nombre d'index possibles, qui sont ceux de l'intervalle [0; capacity()[.
+     *
+     * @return Le nombre d'index possibles.
+     */
+    int capacity();
+
+    /**
+     * Vide la queue et oublie tous les index ajoutés ou retirés.
+     */
+    void clear();
+
+    /**
+     * Retourne vrai si la queue ne contient aucun index.
+     *
+     * @return Vrai si la queue est vide, faux sinon.
+     */
+    boolean isEmpty();
+
+    /**
+     * Retourne le nombre d'index contenus dans la queue.
+     *
+     * @return Le nombre d'index contenus dans la queue.
+     */
+    int size();
+
+    /**
+     * Retourne vrai si l'index donné se trouve actuellement dans la queue.
+     *
+     * @param index L'index.
+     * @return Vrai si l'index se trouve dans la queue, faux sinon.
+     */
+    boolean contains(int index);
+
+    /**
+     * Retourne vrai si l'index donné a été ajouté à la queue puis retiré par removeMin.
+     *
+     * @param index L'index.
+     * @return Vrai si l'index a été retiré de la queue, faux s'il s'y trouve encore ou s'il n'y a jamais été ajouté.
+     */
+    boolean wasRemoved(int index);
+
+    /**
+     * Retourne la dernière clef associée à l'index donné, qu'il soit encore dans la queue ou non.
+     * La clef d'un index qui n'a pas été ajouté depuis le dernier appel à clear() n'a pas de sens.
+     *
+     * @param index L'index.
+     * @return La dernière clef associée à l'index.
+     */
+    int key(int index);
+
+    /**
+     * Ajoute l'index donné à la queue avec la clef donnée. Un index retiré peut être ajouté à nouveau.
+     *
+     * @param index L'index.
+     * @param key La clef.
+     * @throws IllegalArgumentException Si l'index se trouve déjà dans la queue, ou si la queue n'accepte pas cette clef.
+     */
+    void add(int index, int key);
+
+    /**
+     * Diminue la clef de l'index donné, qui doit se trouver dans la queue.
+     *
+     * @param index L'index.
+     * @param key La nouvelle clef.
+     * @throws IllegalArgumentException Si l'index ne se trouve pas dans la queue, si la nouvelle clef est plus grande que l'actuelle,
+     *             ou si la queue n'accepte pas cette clef.
+     */
+    void decreaseKey(int index, int key);
+
+    /**
+     * Retourne la clef minimum de la queue, sans retirer l'index correspondant.
+     *
+     * @throws NoSuchElementException Si la queue est vide.
+     * @return La clef minimum de la queue.
+     */
+    int minKey();
+
+    /**
+     * Retire et retourne un index de clef minimum.
+     *
+     * @throws NoSuchElementException Si la queue est vide.
+     * @return Un index de clef minimum.
+     */
+    int removeMin();
+}
@@ -0,0 +1,172 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Modélise un arbre des trajets partant le plus tard: pour chaque arrêt depuis lequel l'arrêt d'arrivée peut être atteint au plus tard
+ * à l'heure d'arrivée donnée, la dernière heure de départ possible et le trajet correspondant (voir Graph.latestDepartures).
+ * C'est le pendant, pour les recherches à rebours, de l'arbre des trajets les plus rapides: les chemins mènent des arrêts à l'arrêt d'arrivée.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class LatestDepartureTree {
+    /* Les arrêts sont identifiés par l'index dense du graphe:
+       departureTimes[i] est la dernière heure de départ de stops[i] (-SecondsPastMidnight.INFINITE s'il ne fait pas partie de l'arbre)
+       et successors[i] l'index de l'arrêt suivant sur le trajet (-1 pour l'arrêt d'arrivée et les arrêts ne faisant pas partie de l'arbre). */
+    private final Stop[] stops;
+    private final Map<Stop, Integer> stopIds;
+    private final int arrivalStopId;
+    private final int[] departureTimes;
+    private final int[] successors;
+    private final Set<Stop> reachingStops;
+
+    /**
+     * Construit un arbre des trajets partant le plus tard à partir des tableaux donnés, indexés par identifiant dense d'arrêt, sans les copier:
+     * l'appelant ne doit plus les modifier.
+     *
+     * @param stops Les arrêts, par identifiant.
+     * @param stopIds L'identifiant de chaque arrêt (table qui n'est plus modifiée).
+     * @param arrivalStopId L'identifiant de l'arrêt d'arrivée, dont l'heure de « départ » est l'heure d'arrivée.
+     * @param departureTimes Les dernières heures de départ, par identifiant.
+     * @param successors Les identifiants des arrêts suivants, par identifiant (-1 pour l'arrêt d'arrivée).
+     */
+    LatestDepartureTree(Stop[] stops, Map<Stop, Integer> stopIds, int arrivalStopId, int[] departureTimes, int[] successors){
+        this.stops = stops;
+        this.stopIds = stopIds;
+        this.arrivalStopId = arrivalStopId;
+        this.departureTimes = departureTimes;
+        this.successors = successors;
+        this.reachingStops = new ReachingStops();
+    }
+
+    /**
+     * Retourne l'arrêt d'arrivée.
+     *
+     * @return L'arrêt d'arrivée.
+     */
+    public Stop arrivalStop(){
+        return stops[arrivalStopId];
+    }
+
+    /**
+     * Retourne l'heure d'arrivée au plus tard, qui n'est autre que la dernière heure de départ de l'arrêt d'arrivée.
+     *
+     * @return L'heure d'arrivée au plus tard.
+     */
+    public int arrivalTime(){
+        return departureTimes[arrivalStopId];
+    }
+
+    /**
+     * Retourne l'ensemble des arrêts depuis lesquels l'arrêt d'arrivée peut être atteint à temps.
+     *
+     * @return L'ensemble des arrêts de l'arbre.
+     */
+    public Set<Stop> stops(){
+        return reachingStops;
+    }
+
+    /**
+     * Retourne la dernière heure de départ de l'arrêt donné permettant d'atteindre l'arrêt d'arrivée à temps,
+     * ou -SecondsPastMidnight.INFINITE si l'arrêt ne fait pas partie de l'arbre.
+     *
+     * @param stop L'arrêt.
+     * @return La dernière heure de départ de l'arrêt donné, ou -SecondsPastMidnight.INFINITE.
+     */
+    public int departureTime(Stop stop){
+        Integer stopId = stopIds.get(stop);
+        return (stopId == null) ? -SecondsPastMidnight.INFINITE : departureTimes[stopId];
+    }
+
+    /**
+     * Retourne le chemin pour aller de l'arrêt donné à l'arrêt d'arrivée en partant à la dernière heure de départ, en temps proportionnel à sa longueur.
+     *
+     * @param stop L'arrêt de départ.
+     * @throws IllegalArgumentException Si l'arrêt donné ne fait pas partie de l'arbre.
+     * @return Le chemin de l'arrêt donné à l'arrêt d'arrivée.
+     */
+    public List<Stop> pathFrom(Stop stop){
+        Integer stopId = stopIds.get(stop);
+        if(stopId == null || departureTimes[stopId] == -SecondsPastMidnight.INFINITE){
+            throw new IllegalArgumentException("L'arrêt \"" + stop.name() + "\" ne fait pas partie de l'arbre.");
+        }
+
+        List<Stop> path = new ArrayList<Stop>();
+        for(int i = stopId; i != -1; i = successors[i]){
+            path.add(stops[i]);
+        }
+        return path;
+    }
+
+    /**
+     * Modélise l'ensemble des arrêts de l'arbre: une vue non modifiable sur les tableaux de l'arbre, sans copie.
+     */
+    private final class ReachingStops extends AbstractSet<Stop> {
+        private final int size;
+
+        private ReachingStops(){
+            int count = 0;
+            for(int departureTime : departureTimes){
+                if(departureTime != -SecondsPastMidnight.INFINITE){
+                    ++count;
+                }
+            }
+            this.size = count;
+        }
+
+        @Override
+        public int size(){
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o){
+            Integer stopId = stopIds.get(o);
+            return stopId != null && departureTimes[stopId] != -SecondsPastMidnight.INFINITE;
+        }
+
+        @Override
+        public Iterator<Stop> iterator(){
+            return new Iterator<Stop>() {
+                private int next = nextReaching(0);
+
+                @Override
+                public boolean hasNext(){
+                    return next < stops.length;
+                }
+
+                @Override
+                public Stop next(){
+                    if(!hasNext()){
+                        throw new NoSuchElementException();
+                    }
+                    Stop stop = stops[next];
+                    next = nextReaching(next + 1);
+                    return stop;
+                }
+
+                @Override
+                public void remove(){
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        /**
+         * Retourne le premier identifiant d'arrêt de l'arbre à partir de celui donné, ou le nombre d'arrêts s'il n'y en a plus.
+         */
+        private int nextReaching(int stopId){
+            while(stopId < stops.length && departureTimes[stopId] == -SecondsPastMidnight.INFINITE){
+                ++stopId;
+            }
+            return stopId;
+        }
+    }
+}
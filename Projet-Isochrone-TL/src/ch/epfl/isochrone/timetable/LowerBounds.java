@@ -0,0 +1,219 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.Arrays;
+
+/**
+ * Modélise des bornes inférieures de la durée des trajets entre deux arrêts d'un graphe, calculées par la méthode « ALT »
+ * (A*, points de repère et inégalité triangulaire): elles guident la recherche d'un trajet d'un arrêt à un autre vers l'arrêt d'arrivée
+ * (voir Graph.earliestArrival).
+ * <br/>
+ * Les durées sont celles du graphe des bornes, indépendant de l'heure: chaque arc y a pour durée la plus courte de ses trajets
+ * (tous services confondus) et de son temps de marche. Les durées depuis et vers quelques arrêts bien répartis, les points de repère,
+ * sont calculées une fois pour toutes; pour tout point de repère L, l'inégalité triangulaire donne alors une borne de la durée d'un arrêt v à un arrêt t:
+ * <pre>
+ *     d(v, t) &gt;= d(v, L) - d(t, L)        et        d(v, t) &gt;= d(L, t) - d(L, v)
+ * </pre>
+ * La plus grande de ces bornes ne surestime jamais la durée réelle, à quelque heure que ce soit, et ne décroît pas plus vite le long d'un arc
+ * que la durée de celui-ci: la recherche guidée donne donc les mêmes heures d'arrivée que la recherche de Dijkstra.
+ * Les distances à vol d'oiseau divisées par la plus grande vitesse des horaires donnent une borne de même nature, mais inutilisable en pratique:
+ * un seul trajet de durée nulle (arrondi des horaires à la minute) la rend nulle partout.
+ * <br/>
+ * Les bornes d'un graphe valent pour toutes ses vues (voir Graph.forServices). Elles sont immuables et peuvent être utilisées par plusieurs fils d'exécution à la fois.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class LowerBounds {
+    // Borne d'un arrêt depuis lequel l'arrêt d'arrivée est inatteignable
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final Graph graph;
+    private final int[] landmarks;
+    // fromLandmarks[l][v] = d(L, v) et toLandmarks[l][v] = d(v, L) pour le l-ième point de repère L, UNREACHABLE s'il n'y a aucun chemin
+    private final int[][] fromLandmarks;
+    private final int[][] toLandmarks;
+
+    /**
+     * Calcule les bornes inférieures des durées des trajets du graphe donné à l'aide du nombre donné de points de repère.
+     * Plus il y a de points de repère, plus les bornes sont précises, au prix de deux recherches dans le graphe des bornes par point de repère.
+     *
+     * @param graph Le graphe.
+     * @param numberOfLandmarks Le nombre de points de repère (réduit au nombre d'arrêts du graphe s'il le dépasse).
+     * @throws IllegalArgumentException Si le nombre de points de repère est négatif.
+     */
+    public LowerBounds(Graph graph, int numberOfLandmarks){
+        if(numberOfLandmarks < 0){
+            throw new IllegalArgumentException("Le nombre de points de repère (=" + numberOfLandmarks + ") est négatif.");
+        }
+        this.graph = graph;
+        int numberOfStops = graph.stopCount();
+        numberOfLandmarks = Math.min(numberOfLandmarks, numberOfStops);
+
+        // ---------------------- Graphe des bornes, et graphe inverse ----------------------
+        int numberOfEdges = graph.edgeOffset(numberOfStops);
+        int[] forwardOffsets = new int[numberOfStops + 1];
+        int[] forwardTargets = new int[numberOfEdges];
+        int[] forwardDurations = new int[numberOfEdges];
+        int[] backwardOffsets = new int[numberOfStops + 1];
+        for(int v = 0; v < numberOfStops; ++v){
+            forwardOffsets[v] = graph.edgeOffset(v);
+            for(int e = graph.edgeOffset(v); e < graph.edgeOffset(v + 1); ++e){
+                forwardTargets[e] = graph.edgeDestination(e);
+                forwardDurations[e] = minimumDuration(graph, e);
+                ++backwardOffsets[forwardTargets[e] + 1];
+            }
+        }
+        forwardOffsets[numberOfStops] = numberOfEdges;
+        for(int v = 0; v < numberOfStops; ++v){
+            backwardOffsets[v + 1] += backwardOffsets[v];
+        }
+        int[] backwardTargets = new int[numberOfEdges];
+        int[] backwardDurations = new int[numberOfEdges];
+        int[] nextPosition = Arrays.copyOf(backwardOffsets, numberOfStops);
+        for(int v = 0; v < numberOfStops; ++v){
+            for(int e = forwardOffsets[v]; e < forwardOffsets[v + 1]; ++e){
+                int position = nextPosition[forwardTargets[e]]++;
+                backwardTargets[position] = v;
+                backwardDurations[position] = forwardDurations[e];
+            }
+        }
+
+        /* ---------------------- Choix des points de repère ----------------------
+           Chaque point de repère est l'arrêt le plus éloigné des précédents (distance aller ou retour la plus courte), en partant du premier arrêt
+           relié à un autre: des points de repère en périphérie du réseau donnent les meilleures bornes. Les arrêts isolés ne sont jamais choisis. */
+        IndexedMinHeap heap = new IndexedMinHeap(numberOfStops);
+        int[] chosenLandmarks = new int[numberOfLandmarks];
+        int[][] chosenFrom = new int[numberOfLandmarks][];
+        int[][] chosenTo = new int[numberOfLandmarks][];
+        int[] remoteness = new int[numberOfStops];
+        Arrays.fill(remoteness, UNREACHABLE);
+        int seed = 0;
+        while(seed < numberOfStops && forwardOffsets[seed] == forwardOffsets[seed + 1] && backwardOffsets[seed] == backwardOffsets[seed + 1]){
+            ++seed;
+        }
+        int numberOfChosen = 0;
+        for(int l = 0; l < numberOfLandmarks && seed < numberOfStops; ++l){
+            int[] previousFrom = (l == 0) ? distances(seed, forwardOffsets, forwardTargets, forwardDurations, heap) : chosenFrom[l - 1];
+            int[] previousTo = (l == 0) ? distances(seed, backwardOffsets, backwardTargets, backwardDurations, heap) : chosenTo[l - 1];
+            // Seules les distances aux points de repère choisis comptent: l'arrêt de départ, qui n'en est pas un, doit pouvoir être choisi à son tour
+            int[] candidateRemoteness = (l == 0) ? new int[numberOfStops] : remoteness;
+            int landmark = -1;
+            for(int v = 0; v < numberOfStops; ++v){
+                int distance = Math.min(previousFrom[v], previousTo[v]);
+                if(l == 0 || distance < remoteness[v]){
+                    candidateRemoteness[v] = distance;
+                }
+                if(candidateRemoteness[v] != UNREACHABLE && candidateRemoteness[v] > 0 && (landmark == -1 || candidateRemoteness[v] > candidateRemoteness[landmark])){
+                    landmark = v;
+                }
+            }
+            if(landmark == -1){
+                break;
+            }
+            chosenLandmarks[l] = landmark;
+            chosenFrom[l] = distances(landmark, forwardOffsets, forwardTargets, forwardDurations, heap);
+            chosenTo[l] = distances(landmark, backwardOffsets, backwardTargets, backwardDurations, heap);
+            ++numberOfChosen;
+        }
+        landmarks = Arrays.copyOf(chosenLandmarks, numberOfChosen);
+        fromLandmarks = Arrays.copyOf(chosenFrom, numberOfChosen);
+        toLandmarks = Arrays.copyOf(chosenTo, numberOfChosen);
+    }
+
+    /**
+     * Retourne le nombre de points de repère effectivement choisis, qui peut être inférieur au nombre demandé si le graphe compte trop peu d'arrêts reliés.
+     *
+     * @return Le nombre de points de repère.
+     */
+    public int numberOfLandmarks(){
+        return landmarks.length;
+    }
+
+    /**
+     * Retourne vrai si ces bornes ont été calculées pour le graphe donné ou pour un graphe dont il est une vue (ou l'inverse).
+     *
+     * @param graph Le graphe.
+     * @return Vrai si les bornes valent pour le graphe donné.
+     */
+    boolean isFor(Graph graph){
+        return this.graph.hasSameStops(graph);
+    }
+
+    /**
+     * Retourne une borne inférieure de la durée (en secondes) des trajets de l'arrêt d'identifiant v à l'arrêt d'identifiant t,
+     * à quelque heure que ce soit, ou UNREACHABLE si t ne peut être atteint depuis v.
+     *
+     * @param v L'identifiant de l'arrêt de départ.
+     * @param t L'identifiant de l'arrêt d'arrivée.
+     * @return La borne inférieure de la durée des trajets, ou UNREACHABLE.
+     */
+    int lowerBound(int v, int t){
+        int bound = 0;
+        for(int l = 0; l < landmarks.length; ++l){
+            int[] toLandmark = toLandmarks[l];
+            // Si t mène au point de repère mais pas v, v ne mène pas à t
+            if(toLandmark[t] != UNREACHABLE){
+                if(toLandmark[v] == UNREACHABLE){
+                    return UNREACHABLE;
+                }
+                bound = Math.max(bound, toLandmark[v] - toLandmark[t]);
+            }
+            int[] fromLandmark = fromLandmarks[l];
+            if(fromLandmark[t] != UNREACHABLE && fromLandmark[v] != UNREACHABLE){
+                bound = Math.max(bound, fromLandmark[t] - fromLandmark[v]);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Retourne la durée la plus courte de l'arc donné du graphe: celle du plus court de ses trajets, tous services confondus, ou son temps de marche.
+     *
+     * @param graph Le graphe.
+     * @param edge L'index de l'arc.
+     * @return La durée la plus courte de l'arc, ou UNREACHABLE s'il n'a ni trajet ni temps de marche.
+     */
+    private static int minimumDuration(Graph graph, int edge){
+        int duration = (graph.edgeWalkingTime(edge) == -1) ? UNREACHABLE : graph.edgeWalkingTime(edge);
+        for(int t = graph.tripOffset(edge); t < graph.tripOffset(edge + 1); ++t){
+            duration = Math.min(duration, GraphEdge.unpackTripDuration(graph.packedTrip(t)));
+        }
+        return duration;
+    }
+
+    /**
+     * Retourne les durées des plus courts chemins depuis l'arrêt donné dans le graphe (indépendant de l'heure) donné, calculées par l'algorithme de Dijkstra.
+     *
+     * @param source L'identifiant de l'arrêt de départ.
+     * @param offsets Les arcs sortants de l'arrêt v sont ceux de l'intervalle [offsets[v]; offsets[v+1][.
+     * @param targets Les destinations des arcs.
+     * @param durations Les durées des arcs.
+     * @param heap Le tas à utiliser, vidé au préalable.
+     * @return Les durées des plus courts chemins, par identifiant d'arrêt, UNREACHABLE pour les arrêts inatteignables.
+     */
+    private static int[] distances(int source, int[] offsets, int[] targets, int[] durations, IndexedMinHeap heap){
+        int[] distances = new int[offsets.length - 1];
+        Arrays.fill(distances, UNREACHABLE);
+        heap.clear();
+        heap.add(source, 0);
+        while(!heap.isEmpty()){
+            int v = heap.removeMin();
+            int distance = heap.key(v);
+            distances[v] = distance;
+            for(int e = offsets[v]; e < offsets[v + 1]; ++e){
+                int w = targets[e];
+                if(durations[e] == UNREACHABLE || heap.wasRemoved(w)){
+                    continue;
+                }
+                int candidate = distance + durations[e];
+                if(!heap.contains(w)){
+                    heap.add(w, candidate);
+                }
+                else if(candidate < heap.key(w)){
+                    heap.decreaseKey(w, candidate);
+                }
+            }
+        }
+        return distances;
+    }
+}
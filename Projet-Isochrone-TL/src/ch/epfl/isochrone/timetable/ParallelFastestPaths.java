@@ -0,0 +1,313 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Modélise la recherche parallèle des trajets les plus rapides d'une seule requête (« delta-stepping »): plutôt que de visiter les arrêts
+ * un à un par heure d'arrivée croissante comme Graph.fastestPaths, les arrêts sont rangés dans des casiers d'heures d'arrivée de largeur delta
+ * et tous les arrêts du casier courant sont visités à la fois, en parallèle sur les fils d'un ForkJoinPool. Les arrêts dont l'heure d'arrivée
+ * s'améliore mais reste dans le casier courant sont visités à nouveau lors de la phase suivante, jusqu'à ce que le casier ne change plus;
+ * on passe alors au casier suivant. La latence d'une seule carte isochrone diminue ainsi avec le nombre de processeurs.
+ * <br/>
+ * Un arrêt pouvant être visité plusieurs fois, la recherche corrige ses heures d'arrivée plutôt que de les fixer à la première visite:
+ * les trajets ne se dépassant pas (partir plus tard ne fait jamais arriver plus tôt), elle aboutit aux mêmes heures d'arrivée que Graph.fastestPaths.
+ * Plus delta est grand, plus les phases comptent d'arrêts (davantage de parallélisme) mais plus les visites répétées sont nombreuses;
+ * avec delta = 1, chaque casier ne contient que des arrêts atteints à la même seconde. Les durées des arcs dépendant de l'heure,
+ * la distinction entre arcs « légers » et « lourds » de l'algorithme original n'est pas faite: tout arc dont l'arrivée tombe dans le casier courant est léger.
+ * <br/>
+ * L'heure d'arrivée et le prédécesseur de chaque arrêt sont réunis dans un même long, mis à jour par comparaison et échange (compareAndSet):
+ * deux fils atteignant le même arrêt ne peuvent écrire l'une et le prédécesseur de l'autre. Comme Graph.fastestPaths(Stop, int, int),
+ * seuls les arcs du graphe sont empruntés. Le graphe est immuable: une même recherche parallèle peut servir plusieurs requêtes à la fois.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class ParallelFastestPaths implements FastestPathFinder {
+    // Nombre d'arrêts par tâche lors d'une phase: en deçà, le lancement d'une tâche coûte plus que les visites qu'elle effectue
+    private static final int STOPS_PER_TASK = 64;
+    // Nombre maximum de tâches par fil d'exécution lors d'une phase, pour que les fils les plus rapides puissent en voler aux autres
+    private static final int TASKS_PER_THREAD = 4;
+
+    private final Graph graph;
+    private final ForkJoinPool pool;
+    private final int delta;
+
+    /**
+     * Construit la recherche parallèle dans le graphe donné, effectuée par les fils du ForkJoinPool donné avec des casiers de la largeur donnée.
+     *
+     * @param graph Le graphe (ou une vue, voir Graph.forServices).
+     * @param pool L'exécuteur des phases, qui peut être partagé avec d'autres calculs.
+     * @param delta La largeur des casiers (en secondes).
+     * @throws IllegalArgumentException Si la largeur des casiers est négative ou nulle.
+     */
+    public ParallelFastestPaths(Graph graph, ForkJoinPool pool, int delta){
+        if(delta <= 0){
+            throw new IllegalArgumentException("La largeur des casiers (=" + delta + ") est négative ou nulle.");
+        }
+        this.graph = graph;
+        this.pool = pool;
+        this.delta = delta;
+    }
+
+    @Override
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime){
+        return fastestPaths(startingStop, departureTime, SecondsPastMidnight.INFINITE);
+    }
+
+    @Override
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime, int maxDuration){
+        if(departureTime < 0){
+            throw new IllegalArgumentException("L'heure de départ (=" + departureTime + ") est inférieure à zéro.");
+        }
+        else if(maxDuration < 0){
+            throw new IllegalArgumentException("La durée maximale (=" + maxDuration + ") est inférieure à zéro.");
+        }
+        int startingStopId = graph.stopId(startingStop);
+        if(startingStopId == -1){
+            throw new IllegalArgumentException("L'arrêt de départ (=" + startingStop + ") ne fait pas partie du graphe.");
+        }
+        return pool.invoke(new Search(startingStopId, departureTime, maxDuration));
+    }
+
+    /**
+     * Retourne l'étiquette réunissant l'heure d'arrivée (poids fort) et le prédécesseur (poids faible) donnés.
+     */
+    private static long label(int arrivalTime, int predecessor){
+        return ((long) arrivalTime << 32) | (predecessor & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Retourne l'heure d'arrivée de l'étiquette donnée.
+     */
+    private static int arrivalTime(long label){
+        return (int) (label >>> 32);
+    }
+
+    /**
+     * Modélise une requête: la boucle des casiers et des phases est menée par un fil du ForkJoinPool, qui participe aussi aux visites.
+     */
+    private final class Search extends RecursiveTask<FastestPathTree> {
+        private static final long serialVersionUID = 1L;
+
+        private final int startingStopId;
+        private final int departureTime;
+        private final int arrivalTimeLimit;
+
+        // labels[v]: heure d'arrivée et prédécesseur de l'arrêt v (voir label)
+        private final AtomicLongArray labels;
+        // visitedArrivalTimes[v]: heure d'arrivée avec laquelle l'arrêt v a été visité pour la dernière fois, -1 s'il ne l'a pas été
+        private final int[] visitedArrivalTimes;
+        // queuedPhases[v]: dernière phase lors de laquelle l'arrêt v a été ajouté aux arrêts à visiter lors de la phase suivante
+        private final AtomicIntegerArray queuedPhases;
+        // Arrêts rangés dans chaque casier futur (un arrêt peut y figurer plusieurs fois, ou ne plus y être à sa place: il est alors ignoré)
+        private final int[][] bucketStops;
+        private final int[] bucketSizes;
+        // Arrêts à visiter lors de la phase courante
+        private int[] frontier;
+        private int frontierSize;
+        private int currentBucket;
+        private int phase;
+
+        // Résultats de chaque tâche d'une phase: arrêts à visiter lors de la phase suivante et arrêts atteints dans un casier futur
+        private final int[][] nextStops;
+        private final int[] nextSizes;
+        private final int[][] laterStops;
+        private final int[] laterSizes;
+
+        Search(int startingStopId, int departureTime, int maxDuration){
+            int numberOfStops = graph.stopCount();
+            int maxTasks = Math.max(1, pool.getParallelism() * TASKS_PER_THREAD);
+            this.startingStopId = startingStopId;
+            this.departureTime = departureTime;
+            // Les heures d'arrivée sont inférieures à SecondsPastMidnight.INFINITE: inutile de prévoir des casiers au-delà
+            this.arrivalTimeLimit = (int) Math.min((long) departureTime + maxDuration, SecondsPastMidnight.INFINITE - 1);
+            this.labels = new AtomicLongArray(numberOfStops);
+            this.visitedArrivalTimes = new int[numberOfStops];
+            this.queuedPhases = new AtomicIntegerArray(numberOfStops);
+            int numberOfBuckets = Math.max(0, arrivalTimeLimit - departureTime) / delta + 1;
+            this.bucketStops = new int[numberOfBuckets][];
+            this.bucketSizes = new int[numberOfBuckets];
+            this.nextStops = new int[maxTasks][16];
+            this.nextSizes = new int[maxTasks];
+            this.laterStops = new int[maxTasks][16];
+            this.laterSizes = new int[maxTasks];
+        }
+
+        @Override
+        protected FastestPathTree compute(){
+            int numberOfStops = graph.stopCount();
+            for(int v = 0; v < numberOfStops; ++v){
+                labels.set(v, label(SecondsPastMidnight.INFINITE, -1));
+            }
+            Arrays.fill(visitedArrivalTimes, -1);
+
+            int[] arrivalTimes = new int[numberOfStops];
+            int[] predecessors = new int[numberOfStops];
+            if(departureTime <= arrivalTimeLimit){
+                labels.set(startingStopId, label(departureTime, -1));
+                addToBucket(0, startingStopId);
+
+                for(currentBucket = 0; currentBucket < bucketSizes.length; ++currentBucket){
+                    if(bucketSizes[currentBucket] == 0){
+                        continue;
+                    }
+                    // Le casier devient la première frontière: ses arrêts ne sont plus rangés ailleurs
+                    frontier = bucketStops[currentBucket];
+                    frontierSize = bucketSizes[currentBucket];
+                    bucketStops[currentBucket] = null;
+                    bucketSizes[currentBucket] = 0;
+
+                    while(frontierSize > 0){
+                        ++phase;
+                        int numberOfTasks = runPhase();
+                        mergePhase(numberOfTasks);
+                    }
+                }
+            }
+
+            for(int v = 0; v < numberOfStops; ++v){
+                long label = labels.get(v);
+                arrivalTimes[v] = arrivalTime(label);
+                predecessors[v] = (int) label;
+            }
+            return graph.fastestPathTree(startingStopId, departureTime, arrivalTimes, predecessors);
+        }
+
+        /**
+         * Visite les arrêts de la frontière, en parallèle si elle est assez grande, et retourne le nombre de tâches dont les résultats sont à réunir.
+         */
+        private int runPhase(){
+            int numberOfTasks = Math.min(nextStops.length, (frontierSize + STOPS_PER_TASK - 1) / STOPS_PER_TASK);
+            for(int t = 0; t < numberOfTasks; ++t){
+                nextSizes[t] = 0;
+                laterSizes[t] = 0;
+            }
+            if(numberOfTasks <= 1){
+                visit(0, frontierSize, 0);
+                return Math.max(numberOfTasks, 1);
+            }
+
+            List<RecursiveAction> tasks = new ArrayList<RecursiveAction>(numberOfTasks);
+            for(int t = 0; t < numberOfTasks; ++t){
+                final int task = t;
+                final int from = (int) ((long) frontierSize * t / numberOfTasks);
+                final int to = (int) ((long) frontierSize * (t + 1) / numberOfTasks);
+                tasks.add(new RecursiveAction() {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected void compute(){
+                        visit(from, to, task);
+                    }
+                });
+            }
+            invokeAll(tasks);
+            return numberOfTasks;
+        }
+
+        /**
+         * Visite les arrêts de la frontière d'index [from; to[ pour le compte de la tâche donnée: chaque arc sortant d'un arrêt est relâché
+         * à partir de son heure d'arrivée courante, sauf si l'arrêt a déjà été visité avec cette heure.
+         * Un arrêt figurant deux fois dans un casier peut être visité deux fois en même temps: les deux visites relâchent les mêmes arcs, sans autre effet.
+         */
+        private void visit(int from, int to, int task){
+            for(int i = from; i < to; ++i){
+                int A = frontier[i];
+                int arrivalTimeOfA = arrivalTime(labels.get(A));
+                if(visitedArrivalTimes[A] == arrivalTimeOfA){
+                    continue;
+                }
+                visitedArrivalTimes[A] = arrivalTimeOfA;
+
+                for(int e = graph.edgeOffset(A); e < graph.edgeOffset(A + 1); ++e){
+                    int H2 = graph.edgeArrivalTime(e, arrivalTimeOfA);
+                    if(H2 <= arrivalTimeLimit){
+                        improve(A, graph.edgeDestination(e), H2, task);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Améliore si possible l'heure d'arrivée du voisin donné de l'arrêt A, puis le range parmi les arrêts à visiter de la tâche donnée:
+         * ceux de la phase suivante s'il reste dans le casier courant (une seule fois par phase), ceux d'un casier futur sinon.
+         */
+        private void improve(int A, int neighborStop, int H2, int task){
+            long newLabel = label(H2, A);
+            while(true){
+                long oldLabel = labels.get(neighborStop);
+                if(arrivalTime(oldLabel) <= H2){
+                    return;
+                }
+                if(labels.compareAndSet(neighborStop, oldLabel, newLabel)){
+                    break;
+                }
+            }
+
+            if((H2 - departureTime) / delta == currentBucket){
+                if(queuedPhases.getAndSet(neighborStop, phase) != phase){
+                    nextStops[task] = append(nextStops[task], nextSizes[task]++, neighborStop);
+                }
+            }
+            else{
+                laterStops[task] = append(laterStops[task], laterSizes[task]++, neighborStop);
+            }
+        }
+
+        /**
+         * Réunit les résultats des tâches de la phase: les arrêts à visiter lors de la phase suivante forment la nouvelle frontière,
+         * les autres sont rangés dans le casier de leur heure d'arrivée courante (qui a pu s'améliorer depuis).
+         */
+        private void mergePhase(int numberOfTasks){
+            int size = 0;
+            for(int t = 0; t < numberOfTasks; ++t){
+                size += nextSizes[t];
+            }
+            if(frontier.length < size){
+                frontier = new int[Math.max(size, 2 * frontier.length)];
+            }
+            frontierSize = 0;
+            for(int t = 0; t < numberOfTasks; ++t){
+                System.arraycopy(nextStops[t], 0, frontier, frontierSize, nextSizes[t]);
+                frontierSize += nextSizes[t];
+
+                for(int i = 0; i < laterSizes[t]; ++i){
+                    int stopId = laterStops[t][i];
+                    int bucket = (arrivalTime(labels.get(stopId)) - departureTime) / delta;
+                    // Un arrêt revenu dans le casier courant fait déjà partie de la nouvelle frontière
+                    if(bucket > currentBucket){
+                        addToBucket(bucket, stopId);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Range l'arrêt donné dans le casier donné.
+         */
+        private void addToBucket(int bucket, int stopId){
+            if(bucketStops[bucket] == null){
+                bucketStops[bucket] = new int[16];
+            }
+            bucketStops[bucket] = append(bucketStops[bucket], bucketSizes[bucket]++, stopId);
+        }
+    }
+
+    /**
+     * Place la valeur donnée à l'index donné du tableau, agrandi si nécessaire, et retourne le tableau.
+     */
+    private static int[] append(int[] array, int index, int value){
+        if(index == array.length){
+            array = Arrays.copyOf(array, 2 * array.length);
+        }
+        array[index] = value;
+        return array;
+    }
+}
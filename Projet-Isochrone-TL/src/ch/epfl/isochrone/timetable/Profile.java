@@ -0,0 +1,247 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.Arrays;
+
+/**
+ * Modélise le profil des trajets les plus rapides depuis un arrêt de départ, sur une fenêtre d'heures de départ: pour chaque arrêt,
+ * la fonction qui associe à une heure de départ de la fenêtre la première heure d'arrivée possible à cet arrêt.
+ * <br/>
+ * Cette fonction est définie par le temps de marche depuis l'arrêt de départ (s'il existe) et par une suite de trajets optimaux,
+ * chacun donné par sa dernière heure de départ possible et son heure d'arrivée, toutes deux strictement croissantes.
+ * L'heure d'arrivée pour un départ à l'heure H est la plus petite entre H + temps de marche et l'arrivée du premier trajet partant à H ou après.
+ * Tout départ de la fenêtre peut ainsi être évalué, ou son arbre des trajets les plus rapides construit, sans nouvelle recherche.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class Profile {
+    /* Trajets optimaux vers l'arrêt A : indices j de l'intervalle [journeyOffsets[A]; journeyOffsets[A+1][, par heure de départ croissante,
+       partant au plus tard à journeyDepartureTimes[j], arrivant à journeyArrivalTimes[j] par le prédécesseur journeyPredecessors[j]. */
+    private final Graph graph;
+    private final int startingStopId;
+    private final int windowStart;
+    private final int windowEnd;
+    private final int maxDuration;
+
+    private final int[] walkingTimes;
+    private final int[] walkingPredecessors;
+
+    private final int[] journeyOffsets;
+    private final int[] journeyDepartureTimes;
+    private final int[] journeyArrivalTimes;
+    private final int[] journeyPredecessors;
+
+    /**
+     * Construit un profil à partir des tableaux calculés par ConnectionScan.profile, indexés par identifiant dense d'arrêt du graphe.
+     *
+     * @param graph Le graphe.
+     * @param startingStopId L'identifiant de l'arrêt de départ.
+     * @param windowStart La première heure de départ de la fenêtre.
+     * @param windowEnd La dernière heure de départ de la fenêtre.
+     * @param maxDuration La durée maximale des trajets (SecondsPastMidnight.INFINITE si elle n'est pas limitée).
+     * @param walkingTimes Les temps de marche depuis l'arrêt de départ (SecondsPastMidnight.INFINITE si l'arrêt n'est pas atteignable à pied).
+     * @param walkingPredecessors Les prédécesseurs des trajets à pied depuis l'arrêt de départ.
+     * @param journeyOffsets Les index des premiers trajets optimaux de chaque arrêt (un de plus que le nombre d'arrêts).
+     * @param journeyDepartureTimes Les dernières heures de départ des trajets optimaux.
+     * @param journeyArrivalTimes Les heures d'arrivée des trajets optimaux.
+     * @param journeyPredecessors Les prédécesseurs des trajets optimaux.
+     */
+    Profile(Graph graph, int startingStopId, int windowStart, int windowEnd, int maxDuration, int[] walkingTimes, int[] walkingPredecessors,
+            int[] journeyOffsets, int[] journeyDepartureTimes, int[] journeyArrivalTimes, int[] journeyPredecessors){
+        this.graph = graph;
+        this.startingStopId = startingStopId;
+        this.windowStart = windowStart;
+        this.windowEnd = windowEnd;
+        this.maxDuration = maxDuration;
+        this.walkingTimes = walkingTimes;
+        this.walkingPredecessors = walkingPredecessors;
+        this.journeyOffsets = journeyOffsets;
+        this.journeyDepartureTimes = journeyDepartureTimes;
+        this.journeyArrivalTimes = journeyArrivalTimes;
+        this.journeyPredecessors = journeyPredecessors;
+    }
+
+    /**
+     * Retourne l'arrêt de départ.
+     *
+     * @return L'arrêt de départ.
+     */
+    public Stop startingStop(){
+        return graph.stop(startingStopId);
+    }
+
+    /**
+     * Retourne la première heure de départ de la fenêtre.
+     *
+     * @return La première heure de départ de la fenêtre (en secondes après minuit).
+     */
+    public int windowStart(){
+        return windowStart;
+    }
+
+    /**
+     * Retourne la dernière heure de départ de la fenêtre.
+     *
+     * @return La dernière heure de départ de la fenêtre (en secondes après minuit).
+     */
+    public int windowEnd(){
+        return windowEnd;
+    }
+
+    /**
+     * Retourne la durée maximale des trajets du profil: les arrêts atteints plus tard ne sont pas atteignables.
+     *
+     * @return La durée maximale des trajets (en secondes), ou SecondsPastMidnight.INFINITE si elle n'est pas limitée.
+     */
+    public int maxDuration(){
+        return maxDuration;
+    }
+
+    /**
+     * Retourne le temps de marche (en secondes) de l'arrêt de départ à l'arrêt donné, ou -1 s'il ne peut être atteint à pied.
+     *
+     * @param stop L'arrêt.
+     * @return Le temps de marche jusqu'à l'arrêt donné, ou -1.
+     */
+    public int walkingTime(Stop stop){
+        int stopId = graph.stopId(stop);
+        return (stopId == -1 || walkingTimes[stopId] == SecondsPastMidnight.INFINITE) ? -1 : walkingTimes[stopId];
+    }
+
+    /**
+     * Retourne les dernières heures de départ des trajets optimaux vers l'arrêt donné, par ordre croissant.
+     * Les trajets qui ne partent qu'après la fin de la fenêtre ont pour heure de départ la fin de la fenêtre.
+     *
+     * @param stop L'arrêt.
+     * @return Les dernières heures de départ des trajets optimaux (tableau vide si l'arrêt ne fait pas partie du graphe).
+     */
+    public int[] departureTimes(Stop stop){
+        int stopId = graph.stopId(stop);
+        return (stopId == -1) ? new int[0] : Arrays.copyOfRange(journeyDepartureTimes, journeyOffsets[stopId], journeyOffsets[stopId + 1]);
+    }
+
+    /**
+     * Retourne les heures d'arrivée des trajets optimaux vers l'arrêt donné, dans l'ordre de departureTimes.
+     *
+     * @param stop L'arrêt.
+     * @return Les heures d'arrivée des trajets optimaux (tableau vide si l'arrêt ne fait pas partie du graphe).
+     */
+    public int[] arrivalTimes(Stop stop){
+        int stopId = graph.stopId(stop);
+        return (stopId == -1) ? new int[0] : Arrays.copyOfRange(journeyArrivalTimes, journeyOffsets[stopId], journeyOffsets[stopId + 1]);
+    }
+
+    /**
+     * Retourne la première heure d'arrivée à l'arrêt donné en partant à l'heure donnée, ou SecondsPastMidnight.INFINITE si l'arrêt ne peut être atteint
+     * (dans la durée maximale du profil).
+     *
+     * @param stop L'arrêt.
+     * @param departureTime L'heure de départ.
+     * @throws IllegalArgumentException Si l'heure de départ ne fait pas partie de la fenêtre.
+     * @return La première heure d'arrivée à l'arrêt donné.
+     */
+    public int arrivalTime(Stop stop, int departureTime){
+        checkDepartureTime(departureTime);
+        int stopId = graph.stopId(stop);
+        if(stopId == -1){
+            return SecondsPastMidnight.INFINITE;
+        }
+        else if(stopId == startingStopId){
+            return departureTime;
+        }
+        int journey = firstJourney(stopId, departureTime);
+        int journeyArrivalTime = (journey == -1) ? SecondsPastMidnight.INFINITE : journeyArrivalTimes[journey];
+        int arrivalTime = Math.min(journeyArrivalTime, walkingArrivalTime(stopId, departureTime));
+        return (arrivalTime <= (long) departureTime + maxDuration) ? arrivalTime : SecondsPastMidnight.INFINITE;
+    }
+
+    /**
+     * Retourne l'arbre des trajets les plus rapides pour l'heure de départ donnée, sans nouvelle recherche.
+     *
+     * @param departureTime L'heure de départ.
+     * @throws IllegalArgumentException Si l'heure de départ ne fait pas partie de la fenêtre.
+     * @return L'arbre des trajets les plus rapides pour l'heure de départ donnée.
+     */
+    public FastestPathTree fastestPaths(int departureTime){
+        return fastestPaths(departureTime, maxDuration);
+    }
+
+    /**
+     * Retourne l'arbre des trajets les plus rapides pour l'heure de départ donnée, limité aux arrêts atteints au plus tard
+     * à l'heure de départ plus la durée maximale donnée, sans nouvelle recherche.
+     *
+     * @param departureTime L'heure de départ.
+     * @param maxDuration La durée maximale des trajets (en secondes), au plus celle du profil.
+     * @throws IllegalArgumentException Si l'heure de départ ne fait pas partie de la fenêtre, si la durée maximale est inférieure à zéro
+     * ou supérieure à celle du profil.
+     * @return L'arbre des trajets les plus rapides pour l'heure de départ donnée, limité à la durée maximale donnée.
+     */
+    public FastestPathTree fastestPaths(int departureTime, int maxDuration){
+        checkDepartureTime(departureTime);
+        if(maxDuration < 0 || maxDuration > this.maxDuration){
+            throw new IllegalArgumentException("La durée maximale (=" + maxDuration + ") n'est pas comprise entre zéro et celle du profil (=" + this.maxDuration + ").");
+        }
+        int arrivalTimeLimit = (int) Math.min((long) departureTime + maxDuration, SecondsPastMidnight.INFINITE - 1);
+
+        int numberOfStops = graph.stopCount();
+        int[] arrivalTimes = new int[numberOfStops];
+        int[] predecessors = new int[numberOfStops];
+        for(int i = 0; i < numberOfStops; ++i){
+            int journey = firstJourney(i, departureTime);
+            arrivalTimes[i] = (journey == -1) ? SecondsPastMidnight.INFINITE : journeyArrivalTimes[journey];
+            predecessors[i] = (journey == -1) ? -1 : journeyPredecessors[journey];
+
+            // A pied, seulement si c'est strictement plus rapide: à égalité on garde le trajet, ce qui garantit un arbre sans cycle
+            int walkingArrivalTime = walkingArrivalTime(i, departureTime);
+            if(walkingArrivalTime < arrivalTimes[i]){
+                arrivalTimes[i] = walkingArrivalTime;
+                predecessors[i] = walkingPredecessors[i];
+            }
+
+            // Les descendants d'un arrêt atteint trop tard sont atteints plus tard encore: l'arbre reste connexe
+            if(arrivalTimes[i] > arrivalTimeLimit){
+                arrivalTimes[i] = SecondsPastMidnight.INFINITE;
+            }
+        }
+        arrivalTimes[startingStopId] = departureTime;
+
+        return graph.fastestPathTree(startingStopId, departureTime, arrivalTimes, predecessors);
+    }
+
+    /**
+     * Retourne l'index du premier trajet optimal vers l'arrêt donné partant à l'heure donnée ou après, ou -1 s'il n'y en a pas (recherche dichotomique).
+     */
+    private int firstJourney(int stopId, int departureTime){
+        int low = journeyOffsets[stopId];
+        int high = journeyOffsets[stopId + 1];
+        int end = high;
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(journeyDepartureTimes[middle] < departureTime){
+                low = middle + 1;
+            }
+            else{
+                high = middle;
+            }
+        }
+        return (low == end) ? -1 : low;
+    }
+
+    /**
+     * Retourne l'heure d'arrivée à pied (seulement) à l'arrêt donné en partant à l'heure donnée, ou SecondsPastMidnight.INFINITE.
+     */
+    private int walkingArrivalTime(int stopId, int departureTime){
+        return (walkingTimes[stopId] == SecondsPastMidnight.INFINITE) ? SecondsPastMidnight.INFINITE : departureTime + walkingTimes[stopId];
+    }
+
+    /**
+     * Vérifie que l'heure de départ donnée fait partie de la fenêtre.
+     *
+     * @throws IllegalArgumentException Si l'heure de départ ne fait pas partie de la fenêtre.
+     */
+    private void checkDepartureTime(int departureTime){
+        if(departureTime < windowStart || departureTime > windowEnd){
+            throw new IllegalArgumentException("L'heure de départ (=" + departureTime + ") ne fait pas partie de la fenêtre [" + windowStart + "; " + windowEnd + "].");
+        }
+    }
+}
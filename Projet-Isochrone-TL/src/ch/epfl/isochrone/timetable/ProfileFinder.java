@@ -0,0 +1,54 @@
+package ch.epfl.isochrone.timetable;
+
+/**
+ * Modélise une recherche des trajets les plus rapides qui répond à partir du profil (voir Profile) de la dernière recherche:
+ * tant que l'arrêt de départ est le même et que l'heure de départ reste dans la fenêtre du profil, aucune nouvelle recherche n'est effectuée.
+ * Sinon, un nouveau profil est calculé par ConnectionScan.profile sur une fenêtre centrée sur l'heure de départ demandée.
+ * Adapté au défilement de l'heure de départ dans l'interface graphique; n'est pas fait pour être utilisé par plusieurs fils d'exécution.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class ProfileFinder implements FastestPathFinder {
+    private final ConnectionScan connectionScan;
+    private final int windowLength;
+    private Profile lastProfile;
+
+    /**
+     * Construit une recherche par profils calculés par l'algorithme CSA donné sur des fenêtres de la durée donnée.
+     *
+     * @param connectionScan L'algorithme CSA.
+     * @param windowLength La durée des fenêtres (en secondes).
+     * @throws IllegalArgumentException Si la durée des fenêtres est négative.
+     */
+    public ProfileFinder(ConnectionScan connectionScan, int windowLength){
+        if(windowLength < 0){
+            throw new IllegalArgumentException("La durée de la fenêtre (=" + windowLength + ") est inférieure à zéro.");
+        }
+        this.connectionScan = connectionScan;
+        this.windowLength = windowLength;
+    }
+
+    @Override
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime){
+        return fastestPaths(startingStop, departureTime, SecondsPastMidnight.INFINITE);
+    }
+
+    @Override
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime, int maxDuration){
+        if(departureTime < 0){
+            throw new IllegalArgumentException("L'heure de départ (=" + departureTime + ") est inférieure à zéro.");
+        }
+        else if(maxDuration < 0){
+            throw new IllegalArgumentException("La durée maximale (=" + maxDuration + ") est inférieure à zéro.");
+        }
+
+        // Un profil de durée maximale plus grande convient aussi
+        if(lastProfile == null || !lastProfile.startingStop().equals(startingStop) || lastProfile.maxDuration() < maxDuration
+                || departureTime < lastProfile.windowStart() || departureTime > lastProfile.windowEnd()){
+            int windowStart = Math.max(0, departureTime - windowLength / 2);
+            lastProfile = connectionScan.profile(startingStop, windowStart, windowStart + windowLength, maxDuration);
+        }
+        return lastProfile.fastestPaths(departureTime, maxDuration);
+    }
+}
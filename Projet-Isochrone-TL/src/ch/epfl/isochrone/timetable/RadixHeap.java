@@ -0,0 +1,268 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Modélise un tas « radix » d'index entiers denses associés à des clefs entières monotones: aucune clef ajoutée ou diminuée n'est inférieure
+ * à la dernière clef minimum (celle du dernier index retiré), ce qui est le cas des heures d'arrivée de l'algorithme de Dijkstra.
+ * <br/>
+ * Les index sont rangés dans 33 casiers selon le bit de poids le plus fort par lequel leur clef diffère de la dernière clef minimum:
+ * le casier 0 contient les index de clef égale à celle-ci, le casier b ceux dont la clef diffère d'elle au bit b - 1 et pas au-delà.
+ * Lorsque le casier 0 est vide, le premier casier non vide est redistribué dans les casiers inférieurs autour de sa plus petite clef,
+ * qui devient la dernière clef minimum. Un index ne peut que descendre de casier: ajout, diminution de clef et retrait coûtent donc un temps
+ * constant amorti (au plus 33 déplacements par index), sans aucune comparaison de clefs entre éléments comme dans un tas binaire.
+ * Chaque casier est une liste doublement chaînée par index, ce qui permet d'y retirer un index en temps constant lorsque sa clef diminue.
+ * <br/>
+ * Comme IndexedMinHeap, le tas est vidé en temps constant par clear() grâce au numéro de la recherche (« epoch ») courante.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+final class RadixHeap implements IndexedPriorityQueue {
+    private static final int REMOVED = -2;
+    private static final int NUMBER_OF_BUCKETS = 33;
+
+    private final int[] buckets;   // buckets[index] = casier de l'index ou REMOVED (sans objet si epochs[index] != epoch)
+    private final int[] next;      // next[index] = index suivant dans le même casier, -1 pour le dernier
+    private final int[] previous;  // previous[index] = index précédent dans le même casier, -1 pour le premier
+    private final int[] keys;      // keys[index] = clef (conservée après le retrait de l'index)
+    private final int[] epochs;    // epochs[index] = numéro de la recherche lors de laquelle l'index a été ajouté
+    private final int[] firsts;    // firsts[b] = premier index du casier b, -1 s'il est vide
+    private long nonEmptyBuckets;  // bit b à 1 si le casier b n'est pas vide
+    private int lastMinKey;
+    private int epoch;
+    private int size;
+
+    /**
+     * Construit un tas vide pouvant contenir les index de l'intervalle [0; capacity[.
+     *
+     * @param capacity Le nombre d'index possibles.
+     * @throws IllegalArgumentException Si la capacité est négative.
+     */
+    public RadixHeap(int capacity){
+        if(capacity < 0){
+            throw new IllegalArgumentException("La capacité (=" + capacity + ") ne peut être négative.");
+        }
+        buckets = new int[capacity];
+        next = new int[capacity];
+        previous = new int[capacity];
+        keys = new int[capacity];
+        epochs = new int[capacity];
+        firsts = new int[NUMBER_OF_BUCKETS];
+        epoch = 0;
+        clear();
+    }
+
+    @Override
+    public int capacity(){
+        return keys.length;
+    }
+
+    /**
+     * Vide le tas et oublie tous les index ajoutés ou retirés, en temps constant (sauf une fois tous les 2^31 appels environ).
+     * La dernière clef minimum est remise à Integer.MIN_VALUE: toute clef est à nouveau acceptée.
+     */
+    @Override
+    public void clear(){
+        size = 0;
+        if(epoch == Integer.MAX_VALUE){
+            java.util.Arrays.fill(epochs, 0);
+            epoch = 0;
+        }
+        ++epoch;
+        java.util.Arrays.fill(firsts, -1);
+        nonEmptyBuckets = 0;
+        lastMinKey = Integer.MIN_VALUE;
+    }
+
+    @Override
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    @Override
+    public int size(){
+        return size;
+    }
+
+    @Override
+    public boolean contains(int index){
+        return epochs[index] == epoch && buckets[index] >= 0;
+    }
+
+    @Override
+    public boolean wasRemoved(int index){
+        return epochs[index] == epoch && buckets[index] == REMOVED;
+    }
+
+    @Override
+    public int key(int index){
+        return keys[index];
+    }
+
+    /**
+     * Ajoute l'index donné au tas avec la clef donnée. Un index retiré peut être ajouté à nouveau.
+     *
+     * @param index L'index.
+     * @param key La clef.
+     * @throws IllegalArgumentException Si l'index se trouve déjà dans le tas, ou si la clef est inférieure à la dernière clef minimum.
+     */
+    @Override
+    public void add(int index, int key){
+        if(contains(index)){
+            throw new IllegalArgumentException("L'index (=" + index + ") se trouve déjà dans le tas.");
+        }
+        checkMonotone(key);
+        keys[index] = key;
+        epochs[index] = epoch;
+        insert(index);
+        ++size;
+    }
+
+    /**
+     * Diminue la clef de l'index donné, qui doit se trouver dans le tas, en le déplaçant si nécessaire dans un casier inférieur.
+     *
+     * @param index L'index.
+     * @param key La nouvelle clef.
+     * @throws IllegalArgumentException Si l'index ne se trouve pas dans le tas, si la nouvelle clef est plus grande que l'actuelle
+     *             ou si elle est inférieure à la dernière clef minimum.
+     */
+    @Override
+    public void decreaseKey(int index, int key){
+        if(!contains(index)){
+            throw new IllegalArgumentException("L'index (=" + index + ") ne se trouve pas dans le tas.");
+        }
+        else if(key > keys[index]){
+            throw new IllegalArgumentException("La nouvelle clef (=" + key + ") est plus grande que l'actuelle (=" + keys[index] + ").");
+        }
+        checkMonotone(key);
+        keys[index] = key;
+        int bucket = bucketOf(key);
+        if(bucket != buckets[index]){
+            unlink(index);
+            insert(index);
+        }
+    }
+
+    /**
+     * Retourne la clef minimum du tas, sans retirer l'index correspondant. Elle devient la dernière clef minimum.
+     *
+     * @throws NoSuchElementException Si le tas est vide.
+     * @return La clef minimum du tas.
+     */
+    @Override
+    public int minKey(){
+        if(size == 0){
+            throw new NoSuchElementException("Le tas est vide.");
+        }
+        refill();
+        return lastMinKey;
+    }
+
+    /**
+     * Retire et retourne un index de clef minimum, dont la clef devient la dernière clef minimum.
+     *
+     * @throws NoSuchElementException Si le tas est vide.
+     * @return Un index de clef minimum.
+     */
+    @Override
+    public int removeMin(){
+        if(size == 0){
+            throw new NoSuchElementException("Le tas est vide.");
+        }
+        refill();
+        int min = firsts[0];
+        unlink(min);
+        buckets[min] = REMOVED;
+        --size;
+        return min;
+    }
+
+    /**
+     * Vérifie que la clef donnée n'est pas inférieure à la dernière clef minimum.
+     *
+     * @param key La clef.
+     * @throws IllegalArgumentException Si la clef est inférieure à la dernière clef minimum.
+     */
+    private void checkMonotone(int key){
+        if(key < lastMinKey){
+            throw new IllegalArgumentException("La clef (=" + key + ") est inférieure à la dernière clef minimum (=" + lastMinKey + ").");
+        }
+    }
+
+    /**
+     * Retourne le casier d'une clef: 0 si elle est égale à la dernière clef minimum, sinon 1 plus le rang du bit de poids le plus fort
+     * par lequel elle en diffère. Les clefs n'étant jamais inférieures à la dernière clef minimum, ce rang ne dépend pas du signe.
+     *
+     * @param key La clef.
+     * @return Le casier de la clef.
+     */
+    private int bucketOf(int key){
+        return Integer.SIZE - Integer.numberOfLeadingZeros(key ^ lastMinKey);
+    }
+
+    /**
+     * Si le casier 0 est vide, redistribue le premier casier non vide autour de sa plus petite clef, qui devient la dernière clef minimum:
+     * ses index de clef minimum passent dans le casier 0, les autres dans des casiers inférieurs au sien.
+     * Le tas ne doit pas être vide.
+     */
+    private void refill(){
+        if(firsts[0] != -1){
+            return;
+        }
+        int bucket = Long.numberOfTrailingZeros(nonEmptyBuckets);
+        int minKey = Integer.MAX_VALUE;
+        for(int i = firsts[bucket]; i != -1; i = next[i]){
+            minKey = Math.min(minKey, keys[i]);
+        }
+        lastMinKey = minKey;
+
+        int i = firsts[bucket];
+        firsts[bucket] = -1;
+        nonEmptyBuckets &= ~(1L << bucket);
+        while(i != -1){
+            int following = next[i];
+            insert(i);
+            i = following;
+        }
+    }
+
+    /**
+     * Place l'index donné en tête du casier de sa clef.
+     *
+     * @param index L'index.
+     */
+    private void insert(int index){
+        int bucket = bucketOf(keys[index]);
+        int first = firsts[bucket];
+        buckets[index] = bucket;
+        previous[index] = -1;
+        next[index] = first;
+        if(first != -1){
+            previous[first] = index;
+        }
+        firsts[bucket] = index;
+        nonEmptyBuckets |= 1L << bucket;
+    }
+
+    /**
+     * Retire l'index donné de son casier (sans changer le casier noté pour lui).
+     *
+     * @param index L'index.
+     */
+    private void unlink(int index){
+        int bucket = buckets[index];
+        if(previous[index] == -1){
+            firsts[bucket] = next[index];
+            if(next[index] == -1){
+                nonEmptyBuckets &= ~(1L << bucket);
+            }
+        }
+        else{
+            next[previous[index]] = next[index];
+        }
+        if(next[index] != -1){
+            previous[next[index]] = previous[index];
+        }
+    }
+}
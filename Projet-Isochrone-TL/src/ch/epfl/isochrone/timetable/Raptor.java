@@ -0,0 +1,424 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modélise l'algorithme RAPTOR (« Round-bAsed Public Transit Optimized Router ») de recherche des trajets les plus rapides.
+ * Au lieu de visiter les arrêts un à un avec une queue de priorité, l'algorithme procède par tours: à chaque tour, il parcourt
+ * dans l'ordre les lignes passant par les arrêts améliorés au tour précédent, puis les trajets à pied depuis les arrêts améliorés.
+ * Les données sont rangées dans des tableaux de types primitifs parcourus séquentiellement.
+ * <br/>
+ * Les horaires ne décrivent que des trajets élémentaires (d'un arrêt au suivant), sans identifiant de course: les courses sont
+ * reconstituées en enchaînant les trajets élémentaires qui partent d'un arrêt à l'heure exacte où un autre y arrive, puis regroupées en lignes
+ * ayant la même suite d'arrêts et dont aucune course n'en dépasse une autre. Une course mal reconstituée n'est jamais fausse
+ * (chaque enchaînement est un trajet réalisable) et le nombre de tours n'est pas limité: les heures d'arrivée sont donc celles du graphe.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class Raptor implements FastestPathFinder {
+    /* Représentation des lignes (« routes »), course par course:
+
+         arrêts de la ligne r          : routeStops[routeStopOffsets[r]] ... routeStops[routeStopOffsets[r+1] - 1]
+         courses de la ligne r         : numérotées de 0 à routeTripCounts[r] - 1, triées (aucune ne dépasse la précédente)
+         horaires de la course k de r  : arrivals[routeTimeOffsets[r] + k*m + i] et departures[...] au i-ème arrêt, m étant le nombre d'arrêts de r
+         lignes passant par l'arrêt A  : stopRoutes[j] (position stopRoutePositions[j] dans la ligne), j dans [stopRouteOffsets[A]; stopRouteOffsets[A+1][
+    */
+    private final Graph graph;
+
+    private final int[] routeStopOffsets;
+    private final int[] routeStops;
+    private final int[] routeTripCounts;
+    private final int[] routeTimeOffsets;
+    private final int[] arrivals;
+    private final int[] departures;
+
+    private final int[] stopRouteOffsets;
+    private final int[] stopRoutes;
+    private final int[] stopRoutePositions;
+
+    private final Footpaths footpaths;
+
+    /**
+     * Construit l'algorithme RAPTOR pour le graphe donné: les courses sont reconstituées à partir des trajets du graphe
+     * et les trajets à pied sont ceux du graphe.
+     *
+     * @param graph Le graphe.
+     */
+    public Raptor(Graph graph){
+        this.graph = graph;
+        int numberOfStops = graph.stopCount();
+
+        // ---------------------- Reconstitution des courses ----------------------
+        Connections connections = new Connections(graph);
+        int numberOfConnections = connections.size();
+        int[] nextConnections = chainConnections(connections);
+        boolean[] hasPrevious = new boolean[numberOfConnections];
+        for(int c = 0; c < numberOfConnections; ++c){
+            if(nextConnections[c] != -1){
+                hasPrevious[nextConnections[c]] = true;
+            }
+        }
+
+        // Regroupement des courses par suite d'arrêts
+        Map<StopSequence, List<int[]>> tripsBySequence = new HashMap<StopSequence, List<int[]>>();
+        List<StopSequence> sequences = new ArrayList<StopSequence>();
+        for(int c = 0; c < numberOfConnections; ++c){
+            if(hasPrevious[c]){
+                continue;
+            }
+            int length = 1;
+            for(int d = c; d != -1; d = nextConnections[d]){
+                ++length;
+            }
+
+            // Une course de m arrêts: les arrêts, puis les heures d'arrivée, puis les heures de départ
+            int[] sequence = new int[length];
+            int[] trip = new int[2*length];
+            sequence[0] = connections.fromStop(c);
+            trip[0] = connections.departureTime(c);
+            int i = 1;
+            for(int d = c; d != -1; d = nextConnections[d], ++i){
+                sequence[i] = connections.toStop(d);
+                trip[i] = connections.arrivalTime(d);
+                trip[length + i - 1] = connections.departureTime(d);
+            }
+            trip[2*length - 1] = trip[length - 1];
+
+            StopSequence key = new StopSequence(sequence);
+            List<int[]> trips = tripsBySequence.get(key);
+            if(trips == null){
+                trips = new ArrayList<int[]>();
+                tripsBySequence.put(key, trips);
+                sequences.add(key);
+            }
+            trips.add(trip);
+        }
+
+        // Découpage de chaque suite d'arrêts en lignes dont aucune course n'en dépasse une autre
+        List<int[]> routeSequences = new ArrayList<int[]>();
+        List<List<int[]>> routeTrips = new ArrayList<List<int[]>>();
+        int numberOfRouteStops = 0;
+        int numberOfTimes = 0;
+        for(StopSequence sequence : sequences){
+            for(List<int[]> trips : splitIntoRoutes(tripsBySequence.get(sequence))){
+                routeSequences.add(sequence.stops);
+                routeTrips.add(trips);
+                numberOfRouteStops += sequence.stops.length;
+                numberOfTimes += sequence.stops.length * trips.size();
+            }
+        }
+
+        // ---------------------- Tableaux des lignes ----------------------
+        int numberOfRoutes = routeSequences.size();
+        routeStopOffsets = new int[numberOfRoutes + 1];
+        routeStops = new int[numberOfRouteStops];
+        routeTripCounts = new int[numberOfRoutes];
+        routeTimeOffsets = new int[numberOfRoutes];
+        arrivals = new int[numberOfTimes];
+        departures = new int[numberOfTimes];
+
+        int[] routesPerStop = new int[numberOfStops];
+        int s = 0;
+        int t = 0;
+        for(int r = 0; r < numberOfRoutes; ++r){
+            int[] sequence = routeSequences.get(r);
+            int m = sequence.length;
+            routeStopOffsets[r] = s;
+            System.arraycopy(sequence, 0, routeStops, s, m);
+            s += m;
+            for(int stop : sequence){
+                ++routesPerStop[stop];
+            }
+
+            routeTripCounts[r] = routeTrips.get(r).size();
+            routeTimeOffsets[r] = t;
+            for(int[] trip : routeTrips.get(r)){
+                System.arraycopy(trip, 0, arrivals, t, m);
+                System.arraycopy(trip, m, departures, t, m);
+                t += m;
+            }
+        }
+        routeStopOffsets[numberOfRoutes] = s;
+
+        // Lignes passant par chaque arrêt (une ligne passant deux fois par un arrêt y figure deux fois)
+        stopRouteOffsets = new int[numberOfStops + 1];
+        for(int A = 0; A < numberOfStops; ++A){
+            stopRouteOffsets[A + 1] = stopRouteOffsets[A] + routesPerStop[A];
+        }
+        stopRoutes = new int[numberOfRouteStops];
+        stopRoutePositions = new int[numberOfRouteStops];
+        int[] nextFree = Arrays.copyOf(stopRouteOffsets, numberOfStops);
+        for(int r = 0; r < numberOfRoutes; ++r){
+            for(int i = routeStopOffsets[r]; i < routeStopOffsets[r + 1]; ++i){
+                int j = nextFree[routeStops[i]]++;
+                stopRoutes[j] = r;
+                stopRoutePositions[j] = i - routeStopOffsets[r];
+            }
+        }
+
+        footpaths = new Footpaths(graph);
+    }
+
+    /**
+     * Retourne le nombre de lignes reconstituées.
+     *
+     * @return Le nombre de lignes.
+     */
+    int routeCount(){
+        return routeTripCounts.length;
+    }
+
+    @Override
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime){
+        return fastestPaths(startingStop, departureTime, SecondsPastMidnight.INFINITE);
+    }
+
+    @Override
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime, int maxDuration){
+/*      Pseudo-code de l'algorithme :
+
+        H(Ad) = Hd, H(x) = ∞ pour tout arrêt x ≠ Ad
+        M = { Ad } ∪ { arrêts améliorés à pied depuis Ad }
+
+        tant que M n'est pas vide :
+          pour chaque ligne L passant par un arrêt de M, depuis le premier de ces arrêts :
+            course = aucune
+            pour chaque arrêt A' de L :
+              si course ≠ aucune et arrivée de course en A' < H(A') et ≤ Hd + durée maximale : H(A') = arrivée, M' = M' ∪ { A' }
+              si une course plus tôt part de A' après H(A') : course = la première d'entre elles
+          M = M' ∪ { arrêts améliorés à pied depuis M' }
+*/
+
+        if(departureTime < 0){
+            throw new IllegalArgumentException("L'heure de départ (=" + departureTime + ") est inférieure à zéro.");
+        }
+        else if(maxDuration < 0){
+            throw new IllegalArgumentException("La durée maximale (=" + maxDuration + ") est inférieure à zéro.");
+        }
+        else if(startingStop == null){
+            throw new IllegalArgumentException("L'arrêt de départ est \"null\"");
+        }
+        else if(graph.stopId(startingStop) == -1){
+            throw new IllegalArgumentException("L'arrêt de départ (=" + startingStop + ") ne fait pas partie du graphe.");
+        }
+
+        int numberOfStops = graph.stopCount();
+        int start = graph.stopId(startingStop);
+        int[] arrivalTimes = new int[numberOfStops];
+        int[] predecessors = new int[numberOfStops];
+        Arrays.fill(arrivalTimes, SecondsPastMidnight.INFINITE);
+        arrivalTimes[start] = departureTime;
+
+        // Les arrêts atteints après cette heure ne font pas partie de l'arbre: ils ne sont pas améliorés, et les tours s'arrêtent d'autant plus tôt
+        int arrivalTimeLimit = (int) Math.min((long) departureTime + maxDuration, SecondsPastMidnight.INFINITE - 1);
+
+        // Arrêts améliorés au dernier tour
+        boolean[] marked = new boolean[numberOfStops];
+        int[] markedStops = new int[numberOfStops];
+        int numberOfMarked = 0;
+        marked[start] = true;
+        markedStops[numberOfMarked++] = start;
+
+        // Première position, dans chaque ligne à parcourir, d'un arrêt amélioré (-1 si la ligne n'est pas à parcourir)
+        int[] routeFirstPositions = new int[routeTripCounts.length];
+        Arrays.fill(routeFirstPositions, -1);
+        int[] routesToScan = new int[routeTripCounts.length];
+
+        // File des arrêts dont les trajets à pied sont à relâcher
+        int[] walkQueue = new int[numberOfStops];
+        boolean[] inWalkQueue = new boolean[numberOfStops];
+        walkQueue[0] = start;
+        numberOfMarked = footpaths.relax(arrivalTimes, predecessors, walkQueue, inWalkQueue, 1, arrivalTimeLimit, marked, markedStops, numberOfMarked);
+
+        // ---------------------- Tours ----------------------
+        while(numberOfMarked > 0){
+
+            // Lignes passant par les arrêts améliorés
+            int numberOfRoutesToScan = 0;
+            for(int m = 0; m < numberOfMarked; ++m){
+                int A = markedStops[m];
+                marked[A] = false;
+                for(int j = stopRouteOffsets[A]; j < stopRouteOffsets[A + 1]; ++j){
+                    int r = stopRoutes[j];
+                    if(routeFirstPositions[r] == -1){
+                        routesToScan[numberOfRoutesToScan++] = r;
+                        routeFirstPositions[r] = stopRoutePositions[j];
+                    }
+                    else if(stopRoutePositions[j] < routeFirstPositions[r]){
+                        routeFirstPositions[r] = stopRoutePositions[j];
+                    }
+                }
+            }
+            numberOfMarked = 0;
+
+            // Parcours de chaque ligne depuis son premier arrêt amélioré
+            for(int q = 0; q < numberOfRoutesToScan; ++q){
+                int r = routesToScan[q];
+                int firstPosition = routeFirstPositions[r];
+                routeFirstPositions[r] = -1;
+
+                int stopOffset = routeStopOffsets[r];
+                int m = routeStopOffsets[r + 1] - stopOffset;
+                int timeOffset = routeTimeOffsets[r];
+                int trip = -1;
+
+                for(int i = firstPosition; i < m; ++i){
+                    int A = routeStops[stopOffset + i];
+
+                    // Descente de la course courante
+                    if(trip != -1){
+                        int arrivalTime = arrivals[timeOffset + trip*m + i];
+                        if(arrivalTime < arrivalTimes[A] && arrivalTime <= arrivalTimeLimit){
+                            arrivalTimes[A] = arrivalTime;
+                            predecessors[A] = routeStops[stopOffset + i - 1];
+                            if(!marked[A]){
+                                marked[A] = true;
+                                markedStops[numberOfMarked++] = A;
+                            }
+                        }
+                    }
+
+                    // Montée dans une course plus tôt, si l'arrêt est atteint avant le départ de la course précédant la course courante
+                    if(i < m - 1 && (trip == -1 || (trip > 0 && arrivalTimes[A] <= departures[timeOffset + (trip - 1)*m + i]))){
+                        int earliestTrip = earliestTrip(timeOffset, m, i, (trip == -1) ? routeTripCounts[r] : trip, arrivalTimes[A]);
+                        if(earliestTrip != -1){
+                            trip = earliestTrip;
+                        }
+                    }
+                }
+            }
+
+            System.arraycopy(markedStops, 0, walkQueue, 0, numberOfMarked);
+            numberOfMarked = footpaths.relax(arrivalTimes, predecessors, walkQueue, inWalkQueue, numberOfMarked, arrivalTimeLimit, marked, markedStops, numberOfMarked);
+        }
+
+        return graph.fastestPathTree(start, departureTime, arrivalTimes, predecessors);
+    }
+
+    /**
+     * Retourne, parmi les courses [0; tripCount[ d'une ligne, la première qui part du i-ème arrêt à l'heure donnée ou après, ou -1 s'il n'y en a pas.
+     * Les courses d'une ligne ne se dépassant pas, leurs heures de départ à un arrêt donné sont croissantes: une recherche dichotomique suffit.
+     */
+    private int earliestTrip(int timeOffset, int m, int i, int tripCount, int time){
+        int low = 0;
+        int high = tripCount;
+        while(low < high){
+            int middle = (low + high) >>> 1;
+            if(departures[timeOffset + middle*m + i] < time){
+                low = middle + 1;
+            }
+            else{
+                high = middle;
+            }
+        }
+        return (low == tripCount) ? -1 : low;
+    }
+
+    /**
+     * Enchaîne les trajets élémentaires en courses: un trajet arrivant à un arrêt est suivi d'un trajet partant de cet arrêt à la même heure.
+     * Les trajets sont traités par heure de départ croissante (ordre des connexions), de sorte qu'un trajet n'est enchaîné qu'à des trajets déjà traités.
+     *
+     * @return Pour chaque trajet, l'index du trajet suivant dans sa course, ou -1.
+     */
+    private static int[] chainConnections(Connections connections){
+        int numberOfConnections = connections.size();
+        int[] nextConnections = new int[numberOfConnections];
+        Arrays.fill(nextConnections, -1);
+
+        // Fins de courses en attente d'un trajet suivant, par (arrêt, heure): listes chaînées par openEnds
+        Map<Long, Integer> lastOpenEnd = new HashMap<Long, Integer>();
+        int[] openEnds = new int[numberOfConnections];
+
+        for(int c = 0; c < numberOfConnections; ++c){
+            Long from = (long) connections.fromStop(c) * SecondsPastMidnight.INFINITE + connections.departureTime(c);
+            Integer previous = lastOpenEnd.get(from);
+            if(previous != null){
+                nextConnections[previous] = c;
+                if(openEnds[previous] == -1){
+                    lastOpenEnd.remove(from);
+                }
+                else{
+                    lastOpenEnd.put(from, openEnds[previous]);
+                }
+            }
+
+            Long to = (long) connections.toStop(c) * SecondsPastMidnight.INFINITE + connections.arrivalTime(c);
+            Integer last = lastOpenEnd.get(to);
+            openEnds[c] = (last == null) ? -1 : last;
+            lastOpenEnd.put(to, c);
+        }
+        return nextConnections;
+    }
+
+    /**
+     * Découpe les courses ayant une même suite d'arrêts en lignes dont les courses, triées, ne se dépassent pas:
+     * chaque course part et arrive à chaque arrêt au plus tôt aux heures de la précédente.
+     */
+    private static List<List<int[]>> splitIntoRoutes(List<int[]> trips){
+        final int m = trips.get(0).length / 2;
+        List<int[]> sortedTrips = new ArrayList<int[]>(trips);
+        java.util.Collections.sort(sortedTrips, new java.util.Comparator<int[]>() {
+            @Override
+            public int compare(int[] trip1, int[] trip2) {
+                return Integer.compare(trip1[m], trip2[m]); // Heure de départ au premier arrêt
+            }
+        });
+
+        List<List<int[]>> routes = new ArrayList<List<int[]>>();
+        for(int[] trip : sortedTrips){
+            List<int[]> route = null;
+            for(List<int[]> candidate : routes){
+                if(notBefore(trip, candidate.get(candidate.size() - 1))){
+                    route = candidate;
+                    break;
+                }
+            }
+            if(route == null){
+                route = new ArrayList<int[]>();
+                routes.add(route);
+            }
+            route.add(trip);
+        }
+        return routes;
+    }
+
+    /**
+     * Retourne vrai si la première course arrive et part de chaque arrêt au plus tôt aux heures de la seconde.
+     */
+    private static boolean notBefore(int[] trip, int[] previousTrip){
+        for(int i = 0; i < trip.length; ++i){
+            if(trip[i] < previousTrip[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Suite d'identifiants d'arrêts, utilisable comme clef d'une table associative.
+     */
+    private static final class StopSequence {
+        private final int[] stops;
+        private final int hashCode;
+
+        StopSequence(int[] stops){
+            this.stops = stops;
+            this.hashCode = Arrays.hashCode(stops);
+        }
+
+        @Override
+        public boolean equals(Object that){
+            return (that instanceof StopSequence) && Arrays.equals(stops, ((StopSequence) that).stops);
+        }
+
+        @Override
+        public int hashCode(){
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Modélise une matrice d'accessibilité: pour chaque arrêt de départ d'une liste et chaque arrêt d'un graphe, s'il est possible d'atteindre
+ * le second depuis le premier en partant à une heure donnée, en une durée maximale donnée (voir ReachabilityScan).
+ * Contrairement à un arbre des trajets les plus rapides, ni les heures d'arrivée ni les chemins ne sont connus: un seul bit par paire d'arrêts.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class ReachabilityMatrix {
+    /* Les arrêts de départ sont groupés par 64: le bit o % 64 du mot reachable[(o / 64) * nombre d'arrêts + v] indique si l'arrêt d'identifiant v
+       (du graphe) est atteignable depuis le o-ième arrêt de départ. */
+    private final Graph graph;
+    private final List<Stop> startingStops;
+    private final int departureTime;
+    private final int maxDuration;
+    private final long[] reachable;
+
+    /**
+     * Construit une matrice d'accessibilité à partir du tableau de bits donné (voir ci-dessus), sans le copier: l'appelant ne doit plus le modifier.
+     *
+     * @param graph Le graphe, dont les identifiants d'arrêts indexent le tableau.
+     * @param startingStops Les arrêts de départ.
+     * @param departureTime L'heure de départ.
+     * @param maxDuration La durée maximale des trajets.
+     * @param reachable Les bits d'accessibilité.
+     */
+    ReachabilityMatrix(Graph graph, List<Stop> startingStops, int departureTime, int maxDuration, long[] reachable){
+        this.graph = graph;
+        this.startingStops = Collections.unmodifiableList(new ArrayList<Stop>(startingStops));
+        this.departureTime = departureTime;
+        this.maxDuration = maxDuration;
+        this.reachable = reachable;
+    }
+
+    /**
+     * Retourne la liste des arrêts de départ, dans l'ordre donné à la recherche: les index de départ sont ceux de cette liste.
+     *
+     * @return La liste non modifiable des arrêts de départ.
+     */
+    public List<Stop> startingStops(){
+        return startingStops;
+    }
+
+    /**
+     * Retourne l'heure de départ.
+     *
+     * @return L'heure de départ.
+     */
+    public int departureTime(){
+        return departureTime;
+    }
+
+    /**
+     * Retourne la durée maximale des trajets (en secondes).
+     *
+     * @return La durée maximale des trajets.
+     */
+    public int maxDuration(){
+        return maxDuration;
+    }
+
+    /**
+     * Retourne vrai si l'arrêt donné peut être atteint depuis l'arrêt de départ d'index donné, au plus tard à l'heure de départ plus la durée maximale.
+     *
+     * @param startingIndex L'index de l'arrêt de départ dans startingStops().
+     * @param stop L'arrêt.
+     * @throws IndexOutOfBoundsException Si l'index ne désigne aucun arrêt de départ.
+     * @return Vrai si l'arrêt donné est atteignable depuis l'arrêt de départ, faux sinon (ou s'il ne fait pas partie du graphe).
+     */
+    public boolean isReachable(int startingIndex, Stop stop){
+        if(startingIndex < 0 || startingIndex >= startingStops.size()){
+            throw new IndexOutOfBoundsException("L'index (=" + startingIndex + ") ne désigne aucun arrêt de départ.");
+        }
+        int stopId = graph.stopId(stop);
+        return stopId != -1 && (word(startingIndex, stopId) & (1L << startingIndex)) != 0;
+    }
+
+    /**
+     * Retourne l'ensemble des arrêts atteignables depuis l'arrêt de départ d'index donné.
+     *
+     * @param startingIndex L'index de l'arrêt de départ dans startingStops().
+     * @throws IndexOutOfBoundsException Si l'index ne désigne aucun arrêt de départ.
+     * @return L'ensemble des arrêts atteignables.
+     */
+    public Set<Stop> reachableStops(int startingIndex){
+        if(startingIndex < 0 || startingIndex >= startingStops.size()){
+            throw new IndexOutOfBoundsException("L'index (=" + startingIndex + ") ne désigne aucun arrêt de départ.");
+        }
+        Set<Stop> stops = new HashSet<Stop>();
+        for(int v = 0; v < graph.stopCount(); ++v){
+            if((word(startingIndex, v) & (1L << startingIndex)) != 0){
+                stops.add(graph.stop(v));
+            }
+        }
+        return stops;
+    }
+
+    /**
+     * Retourne le mot contenant le bit de l'arrêt de départ d'index donné pour l'arrêt d'identifiant donné (le décalage 1L << startingIndex
+     * ne garde que les 6 bits de poids faible de l'index).
+     */
+    private long word(int startingIndex, int stopId){
+        return reachable[(startingIndex / 64) * graph.stopCount() + stopId];
+    }
+}
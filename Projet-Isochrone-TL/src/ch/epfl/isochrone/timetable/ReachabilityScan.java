@@ -0,0 +1,224 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Modélise une recherche d'accessibilité « bit-parallèle »: quels arrêts peut-on atteindre depuis chacun de nombreux arrêts de départ,
+ * en partant à une heure donnée, en une durée maximale donnée (p.ex. pour une matrice d'accessibilité de tout un réseau)?
+ * <br/>
+ * Les arrêts de départ sont traités par groupes de 64: chaque arrêt porte un long dont le bit o indique si le o-ième arrêt de départ du groupe
+ * y est déjà parvenu, si bien qu'un seul parcours des connexions (comme ConnectionScan) répond pour 64 arrêts de départ à la fois,
+ * les opérations sur les heures d'arrivée étant remplacées par des « ou » bit à bit. Les connexions étant parcourues par heure de départ
+ * croissante et un arrêt atteint le restant (on peut y attendre), un seul mot par arrêt suffit: c'est l'ensemble des arrêts de départ
+ * qui l'ont atteint à l'heure courante. Les arrivées futures (connexions et trajets à pied) attendent leur heure dans une file à raison d'un casier
+ * par seconde, et n'apportent à leur arrêt que les bits qu'il n'a pas encore.
+ * <br/>
+ * Comme ConnectionScan, les connexions sont les trajets du graphe (ou de la vue, voir Graph.forServices) et les trajets à pied ceux du graphe.
+ * Les résultats sont ceux de Graph.fastestPaths: un arrêt est atteignable s'il fait partie de l'arbre limité à la même durée maximale.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class ReachabilityScan {
+    // Nombre d'arrêts de départ traités par un même parcours des connexions: un bit par arrêt de départ dans un long
+    private static final int STARTING_STOPS_PER_SCAN = 64;
+
+    private final Graph graph;
+    private final Connections connections;
+    private final Footpaths footpaths;
+
+    /**
+     * Construit la recherche d'accessibilité pour le graphe donné.
+     *
+     * @param graph Le graphe (ou une vue, voir Graph.forServices).
+     */
+    public ReachabilityScan(Graph graph){
+        this.graph = graph;
+        this.connections = new Connections(graph);
+        this.footpaths = new Footpaths(graph);
+    }
+
+    /**
+     * Retourne la matrice d'accessibilité des arrêts de départ donnés: pour chacun d'eux, les arrêts atteignables en partant à l'heure donnée,
+     * au plus tard à cette heure plus la durée maximale. Un parcours des connexions est effectué par groupe de 64 arrêts de départ.
+     *
+     * @param startingStops Les arrêts de départ (un arrêt peut y figurer plusieurs fois).
+     * @param departureTime L'heure de départ.
+     * @param maxDuration La durée maximale des trajets (en secondes), SecondsPastMidnight.INFINITE pour ne pas la limiter.
+     * @throws IllegalArgumentException Si l'un des arrêts de départ ne fait pas partie du graphe, ou si l'heure de départ ou la durée maximale est inférieure à zéro.
+     * @return La matrice d'accessibilité des arrêts de départ.
+     */
+    public ReachabilityMatrix reachability(List<Stop> startingStops, int departureTime, int maxDuration){
+        if(departureTime < 0){
+            throw new IllegalArgumentException("L'heure de départ (=" + departureTime + ") est inférieure à zéro.");
+        }
+        else if(maxDuration < 0){
+            throw new IllegalArgumentException("La durée maximale (=" + maxDuration + ") est inférieure à zéro.");
+        }
+        int[] startingStopIds = new int[startingStops.size()];
+        for(int o = 0; o < startingStopIds.length; ++o){
+            startingStopIds[o] = graph.stopId(startingStops.get(o));
+            if(startingStopIds[o] == -1){
+                throw new IllegalArgumentException("L'arrêt de départ (=" + startingStops.get(o) + ") ne fait pas partie du graphe.");
+            }
+        }
+
+        int numberOfStops = graph.stopCount();
+        int numberOfGroups = (startingStopIds.length + STARTING_STOPS_PER_SCAN - 1) / STARTING_STOPS_PER_SCAN;
+        long[] reachable = new long[numberOfGroups * numberOfStops];
+        Scan scan = new Scan(departureTime, maxDuration);
+        for(int g = 0; g < numberOfGroups; ++g){
+            int first = g * STARTING_STOPS_PER_SCAN;
+            int last = Math.min(first + STARTING_STOPS_PER_SCAN, startingStopIds.length);
+            long[] labels = scan.run(Arrays.copyOfRange(startingStopIds, first, last));
+            System.arraycopy(labels, 0, reachable, g * numberOfStops, numberOfStops);
+        }
+        return new ReachabilityMatrix(graph, startingStops, departureTime, maxDuration, reachable);
+    }
+
+    /**
+     * Modélise un parcours des connexions pour un groupe d'au plus 64 arrêts de départ, à une heure de départ et pour une durée maximale données.
+     * Ses tableaux sont réutilisés d'un groupe à l'autre.
+     */
+    private final class Scan {
+        private final int departureTime;
+        private final int arrivalTimeLimit;
+
+        /* labels[v]: bits des arrêts de départ ayant atteint l'arrêt v à l'heure courante.
+           Arrivées en attente, par casier (une seconde, depuis l'heure de départ): l'arrivée a, à l'arrêt arrivalStops[a] avec les bits arrivalBits[a],
+           est chaînée à la suivante du même casier nextArrivals[a]; firstArrivals[s] est la première du casier s, -1 s'il est vide. */
+        private final long[] labels;
+        private final int[] firstArrivals;
+        private int[] nextArrivals;
+        private int[] arrivalStops;
+        private long[] arrivalBits;
+        private int numberOfArrivals;
+        // Premier casier non encore vidé
+        private int currentSlot;
+
+        Scan(int departureTime, int maxDuration){
+            this.departureTime = departureTime;
+            // Les heures d'arrivée sont inférieures à SecondsPastMidnight.INFINITE: inutile de prévoir des casiers au-delà
+            this.arrivalTimeLimit = (int) Math.min((long) departureTime + maxDuration, SecondsPastMidnight.INFINITE - 1);
+            this.labels = new long[graph.stopCount()];
+            this.firstArrivals = new int[Math.max(0, arrivalTimeLimit - departureTime + 1)];
+            this.nextArrivals = new int[1024];
+            this.arrivalStops = new int[1024];
+            this.arrivalBits = new long[1024];
+        }
+
+        /**
+         * Effectue le parcours des connexions pour les arrêts de départ d'identifiants donnés (au plus 64).
+         *
+         * @return Les bits des arrêts de départ ayant atteint chaque arrêt, par identifiant d'arrêt (tableau réutilisé par le parcours suivant).
+         */
+        long[] run(int[] startingStopIds){
+            Arrays.fill(labels, 0);
+            Arrays.fill(firstArrivals, -1);
+            numberOfArrivals = 0;
+            currentSlot = 0;
+            if(arrivalTimeLimit < departureTime){
+                return labels;
+            }
+            for(int o = 0; o < startingStopIds.length; ++o){
+                schedule(departureTime, startingStopIds[o], 1L << o);
+            }
+
+            /* Comme dans ConnectionScan, une connexion de durée nulle peut apporter des bits à un arrêt à l'heure exacte de départ
+               d'une connexion de même heure déjà parcourue: les connexions de même heure de départ sont alors parcourues à nouveau. */
+            int numberOfConnections = connections.size();
+            int firstConnection = connections.firstDepartingAt(departureTime);
+            boolean rescanGroup = false;
+            for(int c = firstConnection; c < numberOfConnections; ++c){
+                int connectionDepartureTime = connections.departureTime(c);
+                if(connectionDepartureTime > arrivalTimeLimit){
+                    break;
+                }
+                // Les arrivées jusqu'à l'heure de départ de la connexion comprise sont appliquées avant de l'emprunter
+                deliverUntil(connectionDepartureTime);
+
+                long bits = labels[connections.fromStop(c)];
+                int B = connections.toStop(c);
+                long newBits = bits & ~labels[B];
+                int arrivalTime = connections.arrivalTime(c);
+                if(newBits != 0 && arrivalTime <= arrivalTimeLimit){
+                    if(arrivalTime == connectionDepartureTime){
+                        // Le casier de cette heure est déjà vidé: l'arrivée est appliquée tout de suite
+                        rescanGroup |= deliver(arrivalTime, B, newBits);
+                    }
+                    else{
+                        schedule(arrivalTime, B, newBits);
+                    }
+                }
+
+                // Dernière connexion de cette heure de départ: retour à la première si nécessaire
+                if(rescanGroup && (c + 1 == numberOfConnections || connections.departureTime(c + 1) != connectionDepartureTime)){
+                    rescanGroup = false;
+                    while(c >= firstConnection && connections.departureTime(c) == connectionDepartureTime){
+                        --c;
+                    }
+                }
+            }
+            // Les arrivées restantes (dernières connexions, trajets à pied) jusqu'à la limite
+            deliverUntil(arrivalTimeLimit);
+            return labels;
+        }
+
+        /**
+         * Place dans le casier de son heure l'arrivée à l'arrêt donné, à l'heure donnée, des bits donnés.
+         */
+        private void schedule(int time, int stopId, long bits){
+            if(numberOfArrivals == nextArrivals.length){
+                nextArrivals = Arrays.copyOf(nextArrivals, 2 * numberOfArrivals);
+                arrivalStops = Arrays.copyOf(arrivalStops, 2 * numberOfArrivals);
+                arrivalBits = Arrays.copyOf(arrivalBits, 2 * numberOfArrivals);
+            }
+            int slot = time - departureTime;
+            nextArrivals[numberOfArrivals] = firstArrivals[slot];
+            arrivalStops[numberOfArrivals] = stopId;
+            arrivalBits[numberOfArrivals] = bits;
+            firstArrivals[slot] = numberOfArrivals++;
+        }
+
+        /**
+         * Applique les arrivées en attente jusqu'à l'heure donnée comprise, par heure croissante.
+         */
+        private void deliverUntil(int time){
+            for(; currentSlot <= time - departureTime; ++currentSlot){
+                // Un trajet à pied de durée nulle ajoute une arrivée au casier en cours, qui est elle aussi appliquée
+                while(firstArrivals[currentSlot] != -1){
+                    int a = firstArrivals[currentSlot];
+                    firstArrivals[currentSlot] = nextArrivals[a];
+                    deliver(departureTime + currentSlot, arrivalStops[a], arrivalBits[a]);
+                }
+            }
+        }
+
+        /**
+         * Apporte les bits donnés à l'arrêt donné, à l'heure donnée, puis propage à pied ceux qu'il n'avait pas encore
+         * (les autres l'ont été lorsqu'il les a reçus, plus tôt).
+         *
+         * @return Vrai si l'arrêt a reçu de nouveaux bits.
+         */
+        private boolean deliver(int time, int stopId, long bits){
+            long newBits = bits & ~labels[stopId];
+            if(newBits == 0){
+                return false;
+            }
+            labels[stopId] |= newBits;
+            for(int f = footpaths.offset(stopId); f < footpaths.offset(stopId + 1); ++f){
+                int walkArrivalTime = time + footpaths.time(f);
+                if(walkArrivalTime <= arrivalTimeLimit && (newBits & ~labels[footpaths.destination(f)]) != 0){
+                    if(walkArrivalTime < departureTime + currentSlot){
+                        deliver(walkArrivalTime, footpaths.destination(f), newBits);
+                    }
+                    else{
+                        schedule(walkArrivalTime, footpaths.destination(f), newBits);
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ch.epfl.isochrone.timetable;
+
+/**
+ * Enumère les queues de priorité disponibles pour les recherches du graphe (voir RoutingWorkspace). Toutes donnent les mêmes arbres,
+ * seules leurs performances diffèrent: la queue peut donc être choisie à l'exécution.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public enum RoutingQueue {
+    /**
+     * Tas binaire avec diminution de clef (voir IndexedMinHeap): ajout, diminution de clef et retrait en O(log n).
+     */
+    BINARY_HEAP("Tas binaire") {
+        @Override
+        IndexedPriorityQueue newQueue(int capacity){
+            return new IndexedMinHeap(capacity);
+        }
+    },
+
+    /**
+     * Tas « radix » à casiers (voir RadixHeap): ajout, diminution de clef et retrait en temps constant amorti, les clefs des recherches
+     * (heures d'arrivée, opposés des heures de départ à rebours) ne diminuant jamais au cours d'une recherche.
+     */
+    RADIX_HEAP("Tas radix") {
+        @Override
+        IndexedPriorityQueue newQueue(int capacity){
+            return new RadixHeap(capacity);
+        }
+    };
+
+    private final String displayName;
+
+    private RoutingQueue(String displayName){
+        this.displayName = displayName;
+    }
+
+    /**
+     * Retourne une nouvelle queue de priorité vide pouvant contenir les index de l'intervalle [0; capacity[.
+     *
+     * @param capacity Le nombre d'index possibles.
+     * @throws IllegalArgumentException Si la capacité est négative.
+     * @return La nouvelle queue de priorité.
+     */
+    abstract IndexedPriorityQueue newQueue(int capacity);
+
+    @Override
+    public String toString(){
+        return displayName;
+    }
+}
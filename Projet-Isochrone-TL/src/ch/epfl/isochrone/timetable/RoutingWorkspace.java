@@ -0,0 +1,83 @@
+package ch.epfl.isochrone.timetable;
+
+/**
+ * Modélise l'espace de travail d'une recherche des trajets les plus rapides dans un graphe (voir Graph.fastestPaths):
+ * le tas des arrêts à visiter et les prédécesseurs, indexés par identifiant dense d'arrêt, ainsi que les heures d'arrivée et les bornes
+ * des recherches guidées (voir Graph.earliestArrival), dont la clef dans le tas n'est pas l'heure d'arrivée.
+ * Un espace de travail est réutilisé d'une recherche à l'autre sans être réinitialisé (le tas est vidé en temps constant),
+ * si bien qu'une recherche n'alloue plus que l'arbre qu'elle retourne. Le tas peut être un tas binaire ou un tas radix (voir RoutingQueue).
+ * <br/>
+ * Un espace de travail n'est pas fait pour être partagé par plusieurs fils d'exécution: chacun doit disposer du sien.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class RoutingWorkspace {
+    final IndexedPriorityQueue stopsPriorityQueue;
+    final int[] predecessors;
+    final int[] arrivalTimes;
+    final int[] lowerBounds;
+    int settledStops;
+
+    /**
+     * Construit un espace de travail pour les recherches dans le graphe donné, ou dans tout graphe d'au plus autant d'arrêts.
+     *
+     * @param graph Le graphe.
+     */
+    public RoutingWorkspace(Graph graph){
+        this(graph.stopCount());
+    }
+
+    /**
+     * Construit un espace de travail pour les recherches dans le graphe donné, ou dans tout graphe d'au plus autant d'arrêts,
+     * dont les arrêts à visiter sont rangés dans la queue de priorité donnée.
+     *
+     * @param graph Le graphe.
+     * @param queue La queue de priorité.
+     */
+    public RoutingWorkspace(Graph graph, RoutingQueue queue){
+        this(graph.stopCount(), queue);
+    }
+
+    /**
+     * Construit un espace de travail pour les recherches dans un graphe d'au plus le nombre d'arrêts donné.
+     *
+     * @param capacity Le nombre d'arrêts.
+     * @throws IllegalArgumentException Si le nombre d'arrêts est négatif.
+     */
+    RoutingWorkspace(int capacity){
+        this(capacity, RoutingQueue.BINARY_HEAP);
+    }
+
+    /**
+     * Construit un espace de travail pour les recherches dans un graphe d'au plus le nombre d'arrêts donné, avec la queue de priorité donnée.
+     *
+     * @param capacity Le nombre d'arrêts.
+     * @param queue La queue de priorité.
+     * @throws IllegalArgumentException Si le nombre d'arrêts est négatif.
+     */
+    RoutingWorkspace(int capacity, RoutingQueue queue){
+        this.stopsPriorityQueue = queue.newQueue(capacity);
+        this.predecessors = new int[capacity];
+        this.arrivalTimes = new int[capacity];
+        this.lowerBounds = new int[capacity];
+    }
+
+    /**
+     * Retourne le nombre maximum d'arrêts des graphes dans lesquels cet espace de travail permet de rechercher.
+     *
+     * @return Le nombre maximum d'arrêts.
+     */
+    public int capacity(){
+        return predecessors.length;
+    }
+
+    /**
+     * Retourne le nombre d'arrêts visités (retirés du tas) par la dernière recherche effectuée dans cet espace de travail.
+     *
+     * @return Le nombre d'arrêts visités par la dernière recherche.
+     */
+    public int settledStops(){
+        return settledStops;
+    }
+}
@@ -92,6 +92,61 @@ public final class TimeTableReader {
      * @return Le graphe des horaires.
      */
     public Graph readGraphForServices(Set<Stop> stops, Set<Service> services, int walkingTime, double walkingSpeed){        
+        return graphBuilderForServices(stops, services, walkingTime, walkingSpeed).build();
+    }
+    
+    /**
+     * Lit et retourne le graphe des horaires pour les arrêts donnés, en ne considérant que les trajets dont le service fait partie de l'ensemble donné. 
+     * Les trajets à pied entre arrêts distants de moins de la distance donnée (en mètres) y sont enregistrés sous forme de distances: 
+     * le temps de marche est calculé lors de chaque recherche selon ses paramètres de marche (voir WalkingParameters), 
+     * si bien que changer de vitesse ou de temps maximum de marche ne demande pas de relire le graphe.
+     * 
+     * @param stops L'ensemble d'arrêts.
+     * @param services L'ensemble de services.
+     * @param maxWalkingDistance La distance maximale de marche (en mètres).
+     * @throws IllegalArgumentException Si la distance maximale de marche est négative.
+     * @return Le graphe des horaires.
+     */
+    public Graph readGraphForServices(Set<Stop> stops, Set<Service> services, double maxWalkingDistance){
+        return tripsGraphBuilder(stops, services, false).addAllWalkingDistances(maxWalkingDistance).build();
+    }
+    
+    /**
+     * Lit et retourne le graphe des horaires pour les arrêts donnés, contenant les trajets de tous les services, chacun associé à son service. 
+     * Ce graphe inclut également la totalité des trajets à pied entre arrêts qui sont faisables en un temps inférieur ou égal à celui donné (en secondes), à la vitesse de marche donnée (en mètres par seconde).
+     * Les trajets d'une date donnée sont ceux de la vue Graph.forServices(TimeTable.servicesForDate(date)): changer de date ne demande pas de relire le graphe.
+     * 
+     * @param stops L'ensemble d'arrêts.
+     * @param walkingTime Le temps de marche.
+     * @param walkingSpeed La vitesse de marche (mètres par seconde).
+     * @return Le graphe des horaires de tous les services.
+     */
+    public Graph readGraphForAllServices(Set<Stop> stops, int walkingTime, double walkingSpeed){
+        return tripsGraphBuilder(stops, listServices, true).addAllWalkEdges(walkingTime, walkingSpeed).build();
+    }
+    
+    /**
+     * Retourne le bâtisseur du graphe des horaires décrit par readGraphForServices, prêt à être construit. 
+     * 
+     * @param stops L'ensemble d'arrêts.
+     * @param services L'ensemble de services.
+     * @param walkingTime Le temps de marche.
+     * @param walkingSpeed La vitesse de marche (mètres par seconde).
+     * @return Le bâtisseur du graphe des horaires.
+     */
+    Graph.Builder graphBuilderForServices(Set<Stop> stops, Set<Service> services, int walkingTime, double walkingSpeed){
+        return tripsGraphBuilder(stops, services, false).addAllWalkEdges(walkingTime, walkingSpeed);
+    }
+    
+    /**
+     * Retourne un bâtisseur de graphe pour les arrêts donnés contenant les trajets dont le service fait partie de l'ensemble donné, sans trajet à pied.
+     * 
+     * @param stops L'ensemble d'arrêts.
+     * @param services L'ensemble de services.
+     * @param tagServices Vrai si chaque trajet doit être associé à son service (voir Graph.forServices), faux s'il doit être quotidien.
+     * @return Le bâtisseur du graphe des horaires, sans trajet à pied.
+     */
+    private Graph.Builder tripsGraphBuilder(Set<Stop> stops, Set<Service> services, boolean tagServices){
         Graph.Builder graphBuilder = new Graph.Builder(stops);
 
         //Pour chaque service voulu
@@ -114,14 +169,18 @@ public final class TimeTableReader {
                         int departureTime = (int)departureMapArrival.getKey()[1];
                         int arrivalTime   = (int)departureMapArrival.getValue()[1];
 
-                        graphBuilder.addTripEdge(departureStop, arrivalStop, departureTime, arrivalTime);
+                        if(tagServices){
+                            graphBuilder.addTripEdge(departureStop, arrivalStop, departureTime, arrivalTime, service);
+                        }
+                        else{
+                            graphBuilder.addTripEdge(departureStop, arrivalStop, departureTime, arrivalTime);
+                        }
                     }
                 }
             }   
         }
 
-        graphBuilder.addAllWalkEdges(walkingTime, walkingSpeed);  
-        return graphBuilder.build();
+        return graphBuilder;
     }
     
     /**
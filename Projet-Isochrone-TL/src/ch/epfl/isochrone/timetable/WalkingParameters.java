@@ -0,0 +1,76 @@
+package ch.epfl.isochrone.timetable;
+
+/**
+ * Modélise les paramètres de marche d'une recherche: le temps maximum de marche entre deux arrêts et la vitesse de marche.
+ * Le temps de marche entre deux arrêts est déduit, au moment de la recherche, de leur distance enregistrée dans le graphe
+ * (voir Graph.Builder.addAllWalkingDistances), de la même manière que Graph.Builder.addAllWalkEdges le calcule à la construction.
+ * Un même graphe peut ainsi servir des piétons lents ou rapides, voire des cyclistes.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class WalkingParameters {
+    private final int maxWalkingTime;
+    private final double walkingSpeed;
+
+    /**
+     * Construit les paramètres de marche donnés.
+     *
+     * @param maxWalkingTime Le temps maximum de marche (en secondes).
+     * @param walkingSpeed La vitesse de marche (en mètres par seconde).
+     * @throws IllegalArgumentException Si le temps maximum de marche est négatif, ou si la vitesse de marche est négative ou nulle.
+     */
+    public WalkingParameters(int maxWalkingTime, double walkingSpeed){
+        if(maxWalkingTime < 0){
+            throw new IllegalArgumentException("Le temps maximum de marche (=" + maxWalkingTime + ") est négatif.");
+        }
+        else if(!(walkingSpeed > 0)){
+            throw new IllegalArgumentException("La vitesse de marche (=" + walkingSpeed + ") est négative ou nulle.");
+        }
+        this.maxWalkingTime = maxWalkingTime;
+        this.walkingSpeed = walkingSpeed;
+    }
+
+    /**
+     * Retourne le temps maximum de marche (en secondes).
+     *
+     * @return Le temps maximum de marche.
+     */
+    public int maxWalkingTime(){
+        return maxWalkingTime;
+    }
+
+    /**
+     * Retourne la vitesse de marche (en mètres par seconde).
+     *
+     * @return La vitesse de marche.
+     */
+    public double walkingSpeed(){
+        return walkingSpeed;
+    }
+
+    /**
+     * Retourne la distance de marche (en mètres) au-delà de laquelle deux arrêts ne sont pas reliés à pied: seuls le sont
+     * les arrêts dont la distance est strictement inférieure.
+     *
+     * @return La distance maximale de marche.
+     */
+    public double maxWalkingDistance(){
+        return walkingSpeed * maxWalkingTime;
+    }
+
+    /**
+     * Retourne le temps de marche (en secondes, arrondi) nécessaire pour parcourir la distance donnée, supposée inférieure à maxWalkingDistance().
+     *
+     * @param distance La distance (en mètres).
+     * @return Le temps de marche.
+     */
+    public int walkingTime(double distance){
+        return (int) Math.round(distance / walkingSpeed);
+    }
+
+    @Override
+    public String toString(){
+        return maxWalkingTime + " s à " + walkingSpeed + " m/s";
+    }
+}
@@ -0,0 +1,44 @@
+package ch.epfl.isochrone.timetable;
+
+/**
+ * Modélise une recherche des trajets les plus rapides (algorithme de Dijkstra) qui repart de l'arbre de la dernière recherche:
+ * tant que l'arrêt de départ et la durée maximale sont les mêmes, seule l'heure de départ changeant, l'arbre précédent est corrigé
+ * par Graph.shiftDepartureTime au lieu d'être recalculé. Sinon, une nouvelle recherche est effectuée par Graph.fastestPaths.
+ * Adapté au défilement de l'heure de départ dans l'interface graphique; n'est pas fait pour être utilisé par plusieurs fils d'exécution.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class WarmStartFinder implements FastestPathFinder {
+    private final Graph graph;
+    private final RoutingWorkspace workspace;
+    private FastestPathTree lastTree;
+    private int lastMaxDuration;
+
+    /**
+     * Construit une recherche repartant de l'arbre précédent dans le graphe donné.
+     *
+     * @param graph Le graphe (ou une vue, voir Graph.forServices).
+     */
+    public WarmStartFinder(Graph graph){
+        this.graph = graph;
+        this.workspace = new RoutingWorkspace(graph);
+    }
+
+    @Override
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime){
+        return fastestPaths(startingStop, departureTime, SecondsPastMidnight.INFINITE);
+    }
+
+    @Override
+    public FastestPathTree fastestPaths(Stop startingStop, int departureTime, int maxDuration){
+        if(lastTree == null || !lastTree.startingStop().equals(startingStop) || lastMaxDuration != maxDuration){
+            lastTree = graph.fastestPaths(startingStop, departureTime, maxDuration, workspace);
+        }
+        else{
+            lastTree = graph.shiftDepartureTime(lastTree, departureTime, maxDuration, workspace);
+        }
+        lastMaxDuration = maxDuration;
+        return lastTree;
+    }
+}
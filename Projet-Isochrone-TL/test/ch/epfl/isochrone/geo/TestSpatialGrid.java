@@ -0,0 +1,95 @@
+package ch.epfl.isochrone.geo;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test de la classe SpatialGrid: les points trouvés doivent être exactement ceux que donne la comparaison de toutes les paires.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestSpatialGrid {
+
+    @Test (expected = IllegalArgumentException.class) // Si la distance maximale est négative
+    public void testConstructorMaxDistanceNegative(){
+        new SpatialGrid(new ArrayList<PointWGS84>(), -1);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si la distance dépasse la distance maximale de l'index
+    public void testIndicesWithinDistanceTooBig(){
+        List<PointWGS84> points = new ArrayList<PointWGS84>();
+        points.add(new PointWGS84(0, 0));
+
+        new SpatialGrid(points, 100).indicesWithin(new PointWGS84(0, 0), 101);
+    }
+
+    //Teste sur des points aléatoires autour de Lausanne que l'index donne les mêmes voisins que la comparaison de toutes les paires
+    @Test
+    public void testSameAsAllPairs(){
+        Random random = new Random(2013);
+        List<PointWGS84> points = new ArrayList<PointWGS84>();
+        for(int i = 0; i < 2000; ++i){
+            points.add(new PointWGS84(Math.toRadians(6.63 + 0.1 * random.nextDouble()), Math.toRadians(46.52 + 0.07 * random.nextDouble())));
+        }
+        // Quelques points confondus
+        points.add(points.get(0));
+        points.add(points.get(1));
+
+        SpatialGrid grid = new SpatialGrid(points, 375);
+        assertEquals(points.size(), grid.size());
+        for(int i = 0; i < points.size(); i += 7){
+            assertArrayEquals(allPairsIndicesWithin(points, points.get(i), 375), grid.indicesWithin(points.get(i), 375));
+            assertArrayEquals(allPairsIndicesWithin(points, points.get(i), 100), grid.indicesWithin(points.get(i), 100));
+        }
+    }
+
+    //Teste que l'index ne perd aucun voisin près des pôles et de part et d'autre de l'antiméridien
+    @Test
+    public void testPolesAndAntimeridian(){
+        Random random = new Random(2013);
+        List<PointWGS84> points = new ArrayList<PointWGS84>();
+        for(int i = 0; i < 500; ++i){
+            points.add(new PointWGS84(Math.PI - 0.001 * random.nextDouble(), 0.001 * random.nextDouble()));
+            points.add(new PointWGS84(-Math.PI + 0.001 * random.nextDouble(), 0.001 * random.nextDouble()));
+            points.add(new PointWGS84(Math.PI * (2 * random.nextDouble() - 1), Math.PI / 2 - 0.0001 * random.nextDouble()));
+        }
+
+        SpatialGrid grid = new SpatialGrid(points, 2000);
+        for(int i = 0; i < points.size(); i += 5){
+            assertArrayEquals(allPairsIndicesWithin(points, points.get(i), 2000), grid.indicesWithin(points.get(i), 2000));
+        }
+    }
+
+    //Teste qu'une distance maximale plus grande que la moitié de la circonférence terrestre donne tous les points
+    @Test
+    public void testWholeEarth(){
+        Random random = new Random(2013);
+        List<PointWGS84> points = new ArrayList<PointWGS84>();
+        for(int i = 0; i < 100; ++i){
+            points.add(new PointWGS84(Math.PI * (2 * random.nextDouble() - 1), Math.PI / 2 * (2 * random.nextDouble() - 1)));
+        }
+
+        int[] all = allPairsIndicesWithin(points, points.get(0), 3e7);
+        assertEquals(points.size(), all.length);
+        assertArrayEquals(all, new SpatialGrid(points, 3e7).indicesWithin(points.get(0), 3e7));
+    }
+
+    private static int[] allPairsIndicesWithin(List<PointWGS84> points, PointWGS84 point, double distance){
+        int[] indices = new int[points.size()];
+        int numberOfIndices = 0;
+        for(int i = 0; i < points.size(); ++i){
+            if(point.distanceTo(points.get(i)) < distance){
+                indices[numberOfIndices++] = i;
+            }
+        }
+        return Arrays.copyOf(indices, numberOfIndices);
+    }
+}
@@ -0,0 +1,52 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.QUERIES;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.randomStops;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Banc d'essai du calcul par lots: mesure le débit (recherches par seconde) du calcul par FastestPathBatch des arbres de plusieurs arrêts de départ
+ * à plusieurs heures, avec 1, 2, 4, 8 et 16 fils d'exécution. Le gain ne peut dépasser le nombre de processeurs disponibles, indiqué en tête.
+ * Chaque lot dure plusieurs secondes: il est mesuré une fois, après un lot de préchauffage.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en argument facultatif le nombre d'arrêts du réseau synthétique.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkFastestPathBatch {
+    private BenchmarkFastestPathBatch(){}
+
+    public static void main(String[] args){
+        SyntheticNetwork network = Benchmarks.syntheticNetwork(args);
+        Graph graph = network.graphBuilder().build();
+        List<Stop> startingStops = randomStops(network.stops(), 5 * QUERIES);
+        int[] departureTimes = { SecondsPastMidnight.fromHMS(6, 0, 0), SecondsPastMidnight.fromHMS(8, 0, 0), SecondsPastMidnight.fromHMS(12, 0, 0), SecondsPastMidnight.fromHMS(17, 30, 0) };
+        FastestPathBatch batch = new FastestPathBatch(graph, SecondsPastMidnight.INFINITE);
+        final AtomicLong reachedStops = new AtomicLong();
+        FastestPathBatch.Consumer consumer = new FastestPathBatch.Consumer() {
+            @Override
+            public void accept(Stop startingStop, int departureTime, FastestPathTree tree){
+                reachedStops.addAndGet(tree.stops().size());
+            }
+        };
+        int numberOfSearches = startingStops.size() * departureTimes.length;
+        System.out.println("Calcul par lots (" + network.stops().size() + " arrêts, " + numberOfSearches + " recherches, "
+                + Runtime.getRuntime().availableProcessors() + " processeur(s) disponible(s))");
+
+        batch.run(startingStops, departureTimes, 1, consumer);
+        double sequentialRate = 0;
+        for(int numberOfThreads = 1; numberOfThreads <= 16; numberOfThreads *= 2){
+            reachedStops.set(0);
+            long start = System.nanoTime();
+            batch.run(startingStops, departureTimes, numberOfThreads, consumer);
+            double rate = numberOfSearches / ((System.nanoTime() - start) / 1e9);
+            if(numberOfThreads == 1){
+                sequentialRate = rate;
+            }
+            System.out.printf("  %2d fil(s) : %8.1f recherches/s (x%4.2f), %8.0f arrêts atteints par arbre%n",
+                    numberOfThreads, rate, rate / sequentialRate, (double) reachedStops.get() / numberOfSearches);
+        }
+    }
+}
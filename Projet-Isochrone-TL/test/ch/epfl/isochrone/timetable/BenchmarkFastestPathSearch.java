@@ -0,0 +1,132 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.DEPARTURE_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.MAX_DURATION;
+import static ch.epfl.isochrone.timetable.Benchmarks.QUERIES;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_SPEED;
+import static ch.epfl.isochrone.timetable.Benchmarks.millisPerQuery;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.checkSameArrivalTimes;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.randomStops;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Banc d'essai de la recherche incrémentale (FastestPathSearch): mesure le délai avant qu'elle ait visité la première tranche de 5 minutes
+ * d'une carte isochrone, puis toutes les tranches jusqu'à MAX_DURATION et enfin tous les arrêts, comparé à la recherche complète de Graph.fastestPaths;
+ * compare ensuite l'extension d'un arbre de 30 à 60 minutes, en reprenant sa recherche depuis un instantané, à une nouvelle recherche.
+ * Les arbres obtenus doivent donner les mêmes heures d'arrivée que Graph.fastestPaths.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en argument facultatif le nombre d'arrêts du réseau synthétique.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkFastestPathSearch {
+    private static final int BAND = SecondsPastMidnight.fromHMS(0, 5, 0);
+    private static final int HALF_HOUR = SecondsPastMidnight.fromHMS(0, 30, 0);
+    private static final WalkingParameters NO_WALKING = new WalkingParameters(0, WALKING_SPEED);
+
+    private BenchmarkFastestPathSearch(){}
+
+    public static void main(String[] args){
+        SyntheticNetwork network = Benchmarks.syntheticNetwork(args);
+        Graph graph = network.graphBuilder().build();
+        List<Stop> startingStops = randomStops(network.stops(), QUERIES);
+        RoutingWorkspace workspace = new RoutingWorkspace(graph);
+
+        benchmarkIncrementalSearch(graph, network.stops(), startingStops, workspace);
+        benchmarkResume(graph, network.stops(), startingStops, workspace);
+    }
+
+    private static void benchmarkIncrementalSearch(final Graph graph, List<Stop> stops, List<Stop> startingStops, final RoutingWorkspace workspace){
+        System.out.printf("Recherche incrémentale (%d arrêts)%n", stops.size());
+
+        for(Stop stop : startingStops){
+            FastestPathSearch search = graph.search(Collections.singletonMap(stop, DEPARTURE_TIME), DEPARTURE_TIME, NO_WALKING, workspace);
+            search.settleUntil(DEPARTURE_TIME + MAX_DURATION, null);
+            checkSameArrivalTimes(graph.fastestPaths(stop, DEPARTURE_TIME, MAX_DURATION), search.tree(), stops);
+        }
+
+        double fullMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+            @Override
+            public void run(Stop stop){
+                graph.fastestPaths(stop, DEPARTURE_TIME, MAX_DURATION, workspace);
+            }
+        });
+        double firstBandMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+            @Override
+            public void run(Stop stop){
+                graph.search(Collections.singletonMap(stop, DEPARTURE_TIME), DEPARTURE_TIME, NO_WALKING, workspace).settleUntil(DEPARTURE_TIME + BAND, null);
+            }
+        });
+        double boundedMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+            @Override
+            public void run(Stop stop){
+                FastestPathSearch search = graph.search(Collections.singletonMap(stop, DEPARTURE_TIME), DEPARTURE_TIME, NO_WALKING, workspace);
+                for(int end = DEPARTURE_TIME + BAND; end <= DEPARTURE_TIME + MAX_DURATION; end += BAND){
+                    search.settleUntil(end, null);
+                }
+                search.tree();
+            }
+        });
+        double allMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+            @Override
+            public void run(Stop stop){
+                graph.search(Collections.singletonMap(stop, DEPARTURE_TIME), DEPARTURE_TIME, NO_WALKING, workspace).settleUntil(SecondsPastMidnight.INFINITE, null);
+            }
+        });
+
+        System.out.printf("  fastestPaths limitée à %d min             : %8.3f ms/requête%n", MAX_DURATION / 60, fullMillis);
+        System.out.printf("  Incrémentale, première tranche (%d min)    : %8.3f ms/requête%n", BAND / 60, firstBandMillis);
+        System.out.printf("  Incrémentale, tranches jusqu'à %d min     : %8.3f ms/requête%n", MAX_DURATION / 60, boundedMillis);
+        System.out.printf("  Incrémentale, tous les arrêts             : %8.3f ms/requête%n", allMillis);
+    }
+
+    private static void benchmarkResume(final Graph graph, List<Stop> stops, List<Stop> startingStops, final RoutingWorkspace workspace){
+        System.out.printf("Reprise d'une recherche de 30 à 60 min (%d arrêts)%n", stops.size());
+
+        List<FastestPathSearch.Snapshot> snapshots = new ArrayList<FastestPathSearch.Snapshot>();
+        long settledStops = 0, resumedStops = 0;
+        for(Stop stop : startingStops){
+            FastestPathSearch search = graph.search(Collections.singletonMap(stop, DEPARTURE_TIME), DEPARTURE_TIME, NO_WALKING, workspace);
+            search.settleUntil(DEPARTURE_TIME + HALF_HOUR, null);
+            FastestPathSearch.Snapshot snapshot = search.snapshot();
+            snapshots.add(snapshot);
+
+            FastestPathSearch resumed = graph.resume(snapshot, workspace);
+            resumedStops += resumed.settleUntil(DEPARTURE_TIME + 2 * HALF_HOUR, null);
+            settledStops += resumed.settledStops();
+            checkSameArrivalTimes(graph.fastestPaths(stop, DEPARTURE_TIME, 2 * HALF_HOUR), resumed.tree(), stops);
+        }
+
+        double freshMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+            @Override
+            public void run(Stop stop){
+                graph.fastestPaths(stop, DEPARTURE_TIME, 2 * HALF_HOUR, workspace);
+            }
+        });
+        double resumeMillis = millisPerQuery(snapshots, new Benchmarks.Query<FastestPathSearch.Snapshot>() {
+            @Override
+            public void run(FastestPathSearch.Snapshot snapshot){
+                FastestPathSearch resumed = graph.resume(snapshot, workspace);
+                resumed.settleUntil(DEPARTURE_TIME + 2 * HALF_HOUR, null);
+                resumed.tree();
+            }
+        });
+        double snapshotMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+            @Override
+            public void run(Stop stop){
+                FastestPathSearch search = graph.search(Collections.singletonMap(stop, DEPARTURE_TIME), DEPARTURE_TIME, NO_WALKING, workspace);
+                search.settleUntil(DEPARTURE_TIME + HALF_HOUR, null);
+                search.snapshot();
+            }
+        });
+
+        int queries = startingStops.size();
+        System.out.printf("  Nouvelle recherche de 60 min      : %8.3f ms/requête, %6d arrêts visités en moyenne%n", freshMillis, settledStops / queries);
+        System.out.printf("  Reprise depuis l'instantané       : %8.3f ms/requête, %6d arrêts visités en moyenne  (x%.1f)%n",
+                resumeMillis, resumedStops / queries, freshMillis / resumeMillis);
+        System.out.printf("  Recherche de 30 min + instantané  : %8.3f ms/requête%n", snapshotMillis);
+    }
+}
@@ -0,0 +1,265 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.DEPARTURE_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.MAX_DURATION;
+import static ch.epfl.isochrone.timetable.Benchmarks.QUERIES;
+import static ch.epfl.isochrone.timetable.Benchmarks.SYNTHETIC_STOPS;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_SPEED;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.maxDurationName;
+import static ch.epfl.isochrone.timetable.Benchmarks.millisPerQuery;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.checkSameArrivalTimes;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.randomStops;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import ch.epfl.isochrone.timetable.Date.Month;
+
+/**
+ * Banc d'essai des algorithmes de recherche des trajets les plus rapides, sur le réseau des tl (si les données horaires sont disponibles)
+ * et sur un réseau synthétique environ dix fois plus grand. Chaque algorithme est vérifié: il doit donner les mêmes heures d'arrivée que Graph.fastestPaths.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en argument facultatif le nombre d'arrêts du réseau synthétique.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkFastestPaths {
+    private static final Date DATE = new Date(1, Month.OCTOBER, 2013);
+    private static final int LEGACY_QUERIES = 3;
+
+    private BenchmarkFastestPaths(){}
+
+    public static void main(String[] args){
+        int syntheticStops = (args.length > 0) ? Integer.parseInt(args[0]) : SYNTHETIC_STOPS;
+
+        if(BenchmarkFastestPaths.class.getResource("/time-table/stops.csv") != null){
+            TimeTableReader reader = new TimeTableReader("/time-table/");
+            TimeTable timeTable = reader.readTimeTable();
+            Set<Stop> stops = timeTable.stops();
+            Graph.Builder builder = reader.graphBuilderForServices(stops, timeTable.servicesForDate(DATE), WALKING_TIME, WALKING_SPEED);
+            benchmarkQueues("Réseau tl", builder, new ArrayList<Stop>(stops));
+        }
+        else{
+            System.out.println("Données horaires des tl introuvables (/time-table/), réseau tl ignoré.");
+        }
+
+        SyntheticNetwork synthetic = new SyntheticNetwork(syntheticStops, 2013, WALKING_TIME, WALKING_SPEED);
+        int numberOfTrips = synthetic.trips().size();
+        int keptTrips = 0;
+        for(List<GraphEdge> edges : synthetic.graphBuilder().buildOutgoingEdges().values()){
+            for(GraphEdge edge : edges){
+                keptTrips += edge.packedTrips().length;
+            }
+        }
+        // Les express dépassent des omnibus, dont les trajets dépassés sont dominés
+        System.out.printf("Réseau synthétique: %d trajets, dont %d dominés éliminés%n", numberOfTrips, numberOfTrips - keptTrips);
+        benchmarkQueues("Réseau synthétique", synthetic.graphBuilder(), synthetic.stops());
+    }
+
+    /**
+     * Compare la recherche du graphe (tas indexé avec diminution de clef) à l'ancienne recherche basée sur java.util.PriorityQueue.
+     */
+    private static void benchmarkQueues(String networkName, Graph.Builder builder, List<Stop> stops){
+        final Graph graph = builder.build();
+        Map<Stop, List<GraphEdge>> outgoingEdges = builder.buildOutgoingEdges();
+        List<Stop> startingStops = randomStops(stops, QUERIES);
+
+        System.out.println(networkName + " (" + stops.size() + " arrêts)");
+
+        double heapMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+            @Override
+            public void run(Stop stop){
+                graph.fastestPaths(stop, DEPARTURE_TIME);
+            }
+        });
+
+        // L'ancienne recherche, en temps quadratique, n'est mesurée qu'une fois, sur quelques requêtes
+        long start = System.nanoTime();
+        for(int i = 0; i < LEGACY_QUERIES; ++i){
+            FastestPathTree legacy = legacyFastestPaths(stops, outgoingEdges, startingStops.get(i), DEPARTURE_TIME);
+            checkSameArrivalTimes(legacy, graph.fastestPaths(startingStops.get(i), DEPARTURE_TIME), stops);
+        }
+        double legacyMillis = (System.nanoTime() - start) / 1e6 / LEGACY_QUERIES;
+
+        System.out.printf("  PriorityQueue (remove + add) : %10.2f ms/requête%n", legacyMillis);
+        System.out.printf("  IndexedMinHeap (decreaseKey) : %10.2f ms/requête  (x%.1f)%n", heapMillis, legacyMillis / heapMillis);
+
+        benchmarkWorkspace(graph, startingStops, heapMillis);
+
+        benchmarkFinder("RAPTOR", FastestPathAlgorithm.RAPTOR, graph, startingStops, stops, heapMillis);
+        benchmarkFinder("Connection Scan (CSA)", FastestPathAlgorithm.CSA, graph, startingStops, stops, heapMillis);
+
+        System.out.printf("  Durée maximale de %s (carte isochrone) :%n", maxDurationName(MAX_DURATION));
+        double boundedMillis = benchmarkMaxDuration("Dijkstra", FastestPathAlgorithm.DIJKSTRA, graph, startingStops, stops, heapMillis, heapMillis);
+        benchmarkMaxDuration("RAPTOR", FastestPathAlgorithm.RAPTOR, graph, startingStops, stops, heapMillis, boundedMillis);
+        benchmarkMaxDuration("Connection Scan (CSA)", FastestPathAlgorithm.CSA, graph, startingStops, stops, heapMillis, boundedMillis);
+
+        benchmarkProfile("Profil CSA", graph, startingStops, stops, SecondsPastMidnight.INFINITE, heapMillis);
+        benchmarkProfile("Profil CSA limité", graph, startingStops, stops, MAX_DURATION, boundedMillis);
+    }
+
+    /**
+     * Mesure les recherches de Dijkstra (sans limite puis limitées à MAX_DURATION) effectuées dans un même espace de travail réutilisé,
+     * ainsi que la mémoire allouée par requête avec et sans cet espace de travail (si la machine virtuelle permet de la mesurer).
+     */
+    private static void benchmarkWorkspace(final Graph graph, List<Stop> startingStops, double dijkstraMillis){
+        final RoutingWorkspace workspace = new RoutingWorkspace(graph);
+        double millis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+            @Override
+            public void run(Stop stop){
+                graph.fastestPaths(stop, DEPARTURE_TIME, SecondsPastMidnight.INFINITE, workspace);
+            }
+        });
+        System.out.printf("  Espace de travail réutilisé  : %10.2f ms/requête  (x%.1f)%n", millis, dijkstraMillis / millis);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if(threads instanceof com.sun.management.ThreadMXBean){
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            long threadId = Thread.currentThread().getId();
+            for(int maxDuration : new int[] {SecondsPastMidnight.INFINITE, MAX_DURATION}){
+                long before = allocations.getThreadAllocatedBytes(threadId);
+                for(Stop stop : startingStops){
+                    graph.fastestPaths(stop, DEPARTURE_TIME, maxDuration);
+                }
+                long between = allocations.getThreadAllocatedBytes(threadId);
+                for(Stop stop : startingStops){
+                    graph.fastestPaths(stop, DEPARTURE_TIME, maxDuration, workspace);
+                }
+                long after = allocations.getThreadAllocatedBytes(threadId);
+                System.out.printf("  Mémoire allouée %-13s: %10d octets/requête sans espace de travail, %d avec (dont %d pour l'arbre)%n",
+                        "(" + maxDurationName(maxDuration) + ")", (between - before) / startingStops.size(),
+                        (after - between) / startingStops.size(), 2 * 4L * graph.stopCount());
+            }
+        }
+    }
+
+    /**
+     * Mesure l'algorithme donné limité à la durée maximale MAX_DURATION et vérifie qu'il donne les mêmes heures d'arrivée que Graph.fastestPaths
+     * limité à la même durée. Retourne la durée moyenne d'une requête (en millisecondes).
+     */
+    private static double benchmarkMaxDuration(String name, FastestPathAlgorithm algorithm, Graph graph, List<Stop> startingStops, List<Stop> stops,
+            double dijkstraMillis, double boundedDijkstraMillis){
+        final FastestPathFinder finder = algorithm.finderFor(graph);
+
+        for(Stop stop : startingStops){
+            checkSameArrivalTimes(graph.fastestPaths(stop, DEPARTURE_TIME, MAX_DURATION), finder.fastestPaths(stop, DEPARTURE_TIME, MAX_DURATION), stops);
+        }
+
+        double millis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+            @Override
+            public void run(Stop stop){
+                finder.fastestPaths(stop, DEPARTURE_TIME, MAX_DURATION);
+            }
+        });
+
+        if(algorithm == FastestPathAlgorithm.DIJKSTRA){
+            System.out.printf("  %-28s : %10.2f ms/requête  (x%.1f par rapport à Dijkstra sans limite)%n", name, millis, dijkstraMillis / millis);
+        }
+        else{
+            System.out.printf("  %-28s : %10.2f ms/requête  (x%.1f par rapport à Dijkstra sans limite, x%.1f par rapport à Dijkstra limité)%n",
+                    name, millis, dijkstraMillis / millis, boundedDijkstraMillis / millis);
+        }
+        return millis;
+    }
+
+    /**
+     * Mesure le calcul d'un profil CSA sur une fenêtre d'une heure, puis l'obtention à partir de ce profil de l'arbre de chaque minute de la fenêtre,
+     * comparés à une recherche de Dijkstra (de même durée maximale) par minute; les arbres obtenus sont vérifiés.
+     */
+    private static void benchmarkProfile(String name, Graph graph, List<Stop> startingStops, List<Stop> stops, final int maxDuration, double dijkstraMillis){
+        final ConnectionScan connectionScan = new ConnectionScan(graph);
+        final int windowEnd = DEPARTURE_TIME + SecondsPastMidnight.fromHMS(1, 0, 0);
+
+        List<Profile> profiles = new ArrayList<>();
+        for(Stop stop : startingStops){
+            Profile profile = connectionScan.profile(stop, DEPARTURE_TIME, windowEnd, maxDuration);
+            for(int departureTime = DEPARTURE_TIME; departureTime <= windowEnd; departureTime += 13 * 60){
+                checkSameArrivalTimes(graph.fastestPaths(stop, departureTime, maxDuration), profile.fastestPaths(departureTime), stops);
+            }
+            profiles.add(profile);
+        }
+
+        double profileMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+            @Override
+            public void run(Stop stop){
+                connectionScan.profile(stop, DEPARTURE_TIME, windowEnd, maxDuration);
+            }
+        });
+        double treeMillis = millisPerQuery(profiles, new Benchmarks.Query<Profile>() {
+            @Override
+            public void run(Profile profile){
+                for(int departureTime = DEPARTURE_TIME; departureTime <= windowEnd; departureTime += 60){
+                    profile.fastestPaths(departureTime);
+                }
+            }
+        }) / 61;
+
+        System.out.printf("  %-28s : %10.2f ms/profil d'une heure (%.1f recherches de Dijkstra), puis %.2f ms/arbre (x%.1f)%n",
+                name, profileMillis, profileMillis / dijkstraMillis, treeMillis, dijkstraMillis / treeMillis);
+    }
+
+    /**
+     * Mesure l'algorithme donné (préparation puis requêtes) et vérifie qu'il donne les mêmes heures d'arrivée que Graph.fastestPaths.
+     */
+    private static void benchmarkFinder(String name, FastestPathAlgorithm algorithm, Graph graph, List<Stop> startingStops, List<Stop> stops, double dijkstraMillis){
+        long start = System.nanoTime();
+        final FastestPathFinder finder = algorithm.finderFor(graph);
+        double preparationMillis = (System.nanoTime() - start) / 1e6;
+
+        for(Stop stop : startingStops){
+            checkSameArrivalTimes(graph.fastestPaths(stop, DEPARTURE_TIME), finder.fastestPaths(stop, DEPARTURE_TIME), stops);
+        }
+
+        double millis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+            @Override
+            public void run(Stop stop){
+                finder.fastestPaths(stop, DEPARTURE_TIME);
+            }
+        });
+
+        System.out.printf("  %-28s : %10.2f ms/requête  (x%.1f par rapport à Dijkstra, préparation %.0f ms)%n", name, millis, dijkstraMillis / millis, preparationMillis);
+    }
+
+    /**
+     * Ancienne recherche des trajets les plus rapides: tous les arrêts sont placés dans une java.util.PriorityQueue,
+     * et chaque amélioration retire (en temps linéaire) puis réinsère l'arrêt concerné.
+     */
+    private static FastestPathTree legacyFastestPaths(List<Stop> stops, Map<Stop, List<GraphEdge>> outgoingEdges, Stop startingStop, int departureTime){
+        final FastestPathTree.Builder fastestPathTreeBD = new FastestPathTree.Builder(startingStop, departureTime);
+
+        PriorityQueue<Stop> stopsPriorityQueue = new PriorityQueue<>(stops.size(), new Comparator<Stop>() {
+            @Override
+            public int compare(Stop stop1, Stop stop2) {
+                return Integer.compare(fastestPathTreeBD.arrivalTime(stop1), fastestPathTreeBD.arrivalTime(stop2));
+            }
+        });
+        stopsPriorityQueue.addAll(stops);
+
+        while(!stopsPriorityQueue.isEmpty()){
+            Stop A = stopsPriorityQueue.remove();
+            int bestArrivalTimeOfA = fastestPathTreeBD.arrivalTime(A);
+            if(bestArrivalTimeOfA == SecondsPastMidnight.INFINITE){
+                break;
+            }
+            if(outgoingEdges.get(A) == null){
+                continue;
+            }
+            for(GraphEdge neighbor : outgoingEdges.get(A)){
+                Stop neighborStop = neighbor.destination();
+                int H2 = neighbor.earliestArrivalTime(bestArrivalTimeOfA);
+                if(H2 < fastestPathTreeBD.arrivalTime(neighborStop)){
+                    fastestPathTreeBD.setArrivalTime(neighborStop, H2, A);
+                    stopsPriorityQueue.remove(neighborStop);
+                    stopsPriorityQueue.add(neighborStop);
+                }
+            }
+        }
+        return fastestPathTreeBD.build();
+    }}
@@ -0,0 +1,74 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.SYNTHETIC_STOPS;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_SPEED;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_TIME;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ch.epfl.isochrone.timetable.Date.Month;
+
+/**
+ * Banc d'essai de FinderCache: mesure le changement de date (préparation de l'algorithme de recherche CSA pour les services de la date) sans cache,
+ * puis avec FinderCache lors d'une première et d'une seconde visite de chaque jour d'une semaine, et enfin après préparation en arrière-plan.
+ * Chaque changement de date n'a lieu qu'une fois: il est mesuré individuellement.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en argument facultatif le nombre d'arrêts du réseau synthétique.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkFinderCache {
+    private BenchmarkFinderCache(){}
+
+    public static void main(String[] args){
+        Date monday = new Date(30, Month.SEPTEMBER, 2013);
+        List<Service> services = BenchmarkServices.weekServices(monday);
+        SyntheticNetwork network = new SyntheticNetwork((args.length > 0) ? Integer.parseInt(args[0]) : SYNTHETIC_STOPS, 2013, 0, WALKING_SPEED, services);
+        Graph allServicesGraph = network.tripsGraphBuilder(new HashSet<Service>(services), true).addAllWalkEdges(WALKING_TIME, WALKING_SPEED).build();
+        TimeTable timeTable = new TimeTable(network.stopSet(), services);
+        FinderCache cache = new FinderCache(allServicesGraph, 16);
+        double[] uncachedMillis = new double[7];
+        double[] firstMillis = new double[7];
+        double[] secondMillis = new double[7];
+        for(int pass = 0; pass < 2; ++pass){
+            for(int d = 0; d < 7; ++d){
+                Set<Service> activeServices = timeTable.servicesForDate(monday.relative(d));
+                long start = System.nanoTime();
+                if(pass == 0){
+                    FastestPathAlgorithm.CSA.finderFor(allServicesGraph.forServices(activeServices));
+                    uncachedMillis[d] = (System.nanoTime() - start) / 1e6;
+                    start = System.nanoTime();
+                }
+                cache.finderFor(FastestPathAlgorithm.CSA, activeServices);
+                ((pass == 0) ? firstMillis : secondMillis)[d] = (System.nanoTime() - start) / 1e6;
+            }
+        }
+
+        FinderCache prewarmedCache = new FinderCache(allServicesGraph, 16);
+        long start = System.nanoTime();
+        prewarmedCache.prewarm(FastestPathAlgorithm.CSA, timeTable, monday, 7);
+        double prewarmCallMillis = (System.nanoTime() - start) / 1e6;
+        // Simule l'utilisateur qui regarde la carte pendant que le fil d'exécution en arrière-plan prépare les algorithmes
+        try{
+            Thread.sleep(3000);
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        double[] prewarmedMillis = new double[7];
+        for(int d = 0; d < 7; ++d){
+            start = System.nanoTime();
+            prewarmedCache.finderFor(FastestPathAlgorithm.CSA, timeTable.servicesForDate(monday.relative(d)));
+            prewarmedMillis[d] = (System.nanoTime() - start) / 1e6;
+        }
+
+        System.out.println("Changement de date avec FinderCache (CSA, " + cache.size() + " ensembles de services distincts pour 7 jours)");
+        for(int d = 0; d < 7; ++d){
+            System.out.printf("  %-9s : sans cache %8.2f ms, première visite %8.2f ms, seconde visite %6.3f ms, préparé en arrière-plan %6.3f ms%n",
+                    monday.relative(d).dayOfWeek(), uncachedMillis[d], firstMillis[d], secondMillis[d], prewarmedMillis[d]);
+        }
+        System.out.printf("  Appel de prewarm (7 jours)  : %8.3f ms%n", prewarmCallMillis);
+    }
+}
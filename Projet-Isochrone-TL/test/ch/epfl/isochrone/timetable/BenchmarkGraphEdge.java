@@ -0,0 +1,125 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.GraphEdge.packTrip;
+import static ch.epfl.isochrone.timetable.GraphEdge.unpackTripArrivalTime;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import ch.epfl.isochrone.geo.PointWGS84;
+
+/**
+ * Micro-banc d'essai de GraphEdge.earliestArrivalTime sur des arcs réalistes: une course toutes les 5 à 20 minutes de 5h à minuit,
+ * avec des durées de trajet variables et, sur un arc sur quatre, des express qui dépassent les omnibus, interrogés à des heures aléatoires de la journée.
+ * Compare l'ancienne recherche sur un tableau d'Integer, la recherche sur un tableau d'int contenant tous les trajets et celle de GraphEdge,
+ * qui ne conserve que les trajets non dominés.
+ * Ce n'est pas un test JUnit: il se lance comme un programme.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkGraphEdge {
+    private static final int EDGES = 2000;
+    private static final int QUERIES = 2000000;
+    private static final int ROUNDS = 5;
+
+    private BenchmarkGraphEdge(){}
+
+    public static void main(String[] args){
+        Random random = new Random(2013);
+        Stop destination = new Stop("destination", new PointWGS84(0, 0));
+
+        GraphEdge[] edges = new GraphEdge[EDGES];
+        Integer[][] boxedTrips = new Integer[EDGES][];
+        int[][] allTrips = new int[EDGES][];
+        int prunedTrips = 0;
+        int totalTrips = 0;
+        for(int e = 0; e < EDGES; ++e){
+            Set<Integer> trips = new HashSet<Integer>();
+            int headway = 60 * (5 + random.nextInt(16));
+            for(int departure = SecondsPastMidnight.fromHMS(5, 0, 0) + random.nextInt(headway); departure < SecondsPastMidnight.fromHMS(24, 0, 0); departure += headway){
+                int duration = 60 + random.nextInt(120);
+                trips.add(packTrip(departure, departure + duration));
+
+                // Un arc sur quatre est aussi desservi par des express, qui partent un peu plus tard et dépassent l'omnibus
+                if(e % 4 == 0){
+                    trips.add(packTrip(departure + 30, departure + 30 + duration / 3));
+                }
+            }
+            edges[e] = new GraphEdge(destination, (random.nextInt(3) == 0) ? 60 + random.nextInt(240) : -1, trips);
+
+            // Anciennes représentations: tableau trié d'Integer, puis tableau trié d'int contenant tous les trajets
+            boxedTrips[e] = trips.toArray(new Integer[0]);
+            Arrays.sort(boxedTrips[e]);
+            allTrips[e] = new int[boxedTrips[e].length];
+            for(int i = 0; i < allTrips[e].length; ++i){
+                allTrips[e][i] = boxedTrips[e][i];
+            }
+            totalTrips += allTrips[e].length;
+            prunedTrips += allTrips[e].length - edges[e].packedTrips().length;
+        }
+        System.out.printf("%d trajets, dont %d dominés éliminés%n", totalTrips, prunedTrips);
+
+        int[] edgeIndexes = new int[QUERIES];
+        int[] departureTimes = new int[QUERIES];
+        for(int q = 0; q < QUERIES; ++q){
+            edgeIndexes[q] = random.nextInt(EDGES);
+            departureTimes[q] = SecondsPastMidnight.fromHMS(5, 0, 0) + random.nextInt(SecondsPastMidnight.fromHMS(19, 30, 0));
+        }
+
+        for(int round = 0; round < ROUNDS; ++round){
+            long boxedSink = 0;
+            long allTripsSink = 0;
+            long prunedSink = 0;
+            int improved = 0;
+
+            long start = System.nanoTime();
+            for(int q = 0; q < QUERIES; ++q){
+                boxedSink += boxedEarliestArrivalTime(boxedTrips[edgeIndexes[q]], edges[edgeIndexes[q]].walkingTime(), departureTimes[q]);
+            }
+            double boxedNanos = (double) (System.nanoTime() - start) / QUERIES;
+
+            start = System.nanoTime();
+            for(int q = 0; q < QUERIES; ++q){
+                int[] trips = allTrips[edgeIndexes[q]];
+                allTripsSink += GraphEdge.earliestArrivalTime(trips, 0, trips.length, edges[edgeIndexes[q]].walkingTime(), departureTimes[q]);
+            }
+            double allTripsNanos = (double) (System.nanoTime() - start) / QUERIES;
+
+            start = System.nanoTime();
+            for(int q = 0; q < QUERIES; ++q){
+                prunedSink += edges[edgeIndexes[q]].earliestArrivalTime(departureTimes[q]);
+            }
+            double prunedNanos = (double) (System.nanoTime() - start) / QUERIES;
+
+            for(int q = 0; q < QUERIES; q += 100){
+                int[] trips = allTrips[edgeIndexes[q]];
+                if(edges[edgeIndexes[q]].earliestArrivalTime(departureTimes[q]) < GraphEdge.earliestArrivalTime(trips, 0, trips.length, edges[edgeIndexes[q]].walkingTime(), departureTimes[q])){
+                    ++improved;
+                }
+            }
+
+            // Les sommes empêchent la JVM d'éliminer les boucles; la différence mesure le gain total des trajets non dominés (en secondes)
+            System.out.printf("Tour %d : Integer[] %.1f ns/appel, int[] %.1f ns/appel, int[] non dominés %.1f ns/appel [gain %d s, %d%% de réponses améliorées, contrôle %d]%n", 
+                    round + 1, boxedNanos, allTripsNanos, prunedNanos, allTripsSink - prunedSink, improved * 100 / (QUERIES / 100), boxedSink - allTripsSink);
+        }
+    }
+
+    /**
+     * Ancienne recherche sur un tableau trié d'Integer.
+     */
+    private static int boxedEarliestArrivalTime(Integer[] arrayPackedTrips, int walkingTime, int departureTime){
+        int walkEarliestArrivalTime = (walkingTime == -1) ? SecondsPastMidnight.INFINITE : departureTime + walkingTime;
+        int index = Arrays.binarySearch(arrayPackedTrips, packTrip(departureTime, departureTime));
+        if(index < 0){
+            index = -(index) - 1;
+        }
+        if(index == arrayPackedTrips.length){
+            return walkEarliestArrivalTime;
+        }
+        int tripEarliestArrivalTime = unpackTripArrivalTime((int) arrayPackedTrips[index]);
+        return (tripEarliestArrivalTime <= walkEarliestArrivalTime) ? tripEarliestArrivalTime : walkEarliestArrivalTime;
+    }
+}
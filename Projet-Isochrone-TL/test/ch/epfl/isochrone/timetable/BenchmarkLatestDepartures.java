@@ -0,0 +1,77 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.MAX_DURATION;
+import static ch.epfl.isochrone.timetable.Benchmarks.QUERIES;
+import static ch.epfl.isochrone.timetable.Benchmarks.maxDurationName;
+import static ch.epfl.isochrone.timetable.Benchmarks.millisPerQuery;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.randomStops;
+
+import java.util.List;
+
+/**
+ * Banc d'essai de la recherche à rebours: compare, pour des arrêts d'arrivée tirés au hasard, la recherche des dernières heures de départ
+ * de tous les arrêts (Graph.latestDepartures) à ce qu'il faudrait sans elle: une recherche des trajets les plus rapides par arrêt de départ, répétée
+ * en décalant l'heure de départ. Le coût de cette dernière est estimé à partir d'une recherche par arrêt d'un échantillon d'arrêts,
+ * ce qui le sous-estime (il en faudrait plusieurs par arrêt pour trouver la dernière heure de départ). Chaque heure de départ de l'échantillon est vérifiée.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en argument facultatif le nombre d'arrêts du réseau synthétique.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkLatestDepartures {
+    private static final int ARRIVAL_TIME = SecondsPastMidnight.fromHMS(8, 30, 0);
+
+    private BenchmarkLatestDepartures(){}
+
+    public static void main(String[] args){
+        SyntheticNetwork network = Benchmarks.syntheticNetwork(args);
+        final Graph graph = network.graphBuilder().build();
+        List<Stop> stops = network.stops();
+        List<Stop> arrivalStops = randomStops(stops, QUERIES);
+        final List<Stop> sampleStops = randomStops(stops, QUERIES);
+        final RoutingWorkspace workspace = new RoutingWorkspace(graph);
+        System.out.println("Arriver pour 8h30 (" + stops.size() + " arrêts, " + arrivalStops.size() + " arrêts d'arrivée)");
+
+        for(final int maxDuration : new int[] { SecondsPastMidnight.INFINITE, MAX_DURATION }){
+            long settled = 0;
+            for(Stop arrivalStop : arrivalStops){
+                graph.latestDepartures(arrivalStop, ARRIVAL_TIME, maxDuration, workspace);
+                settled += workspace.settledStops();
+            }
+            double millis = millisPerQuery(arrivalStops, new Benchmarks.Query<Stop>() {
+                @Override
+                public void run(Stop arrivalStop){
+                    graph.latestDepartures(arrivalStop, ARRIVAL_TIME, maxDuration, workspace);
+                }
+            });
+            System.out.printf("  Recherche à rebours, %-11s : %8.2f ms/requête, %8.0f arrêts visités%n",
+                    maxDurationName(maxDuration), millis, (double) settled / arrivalStops.size());
+        }
+
+        for(Stop arrivalStop : arrivalStops){
+            LatestDepartureTree tree = graph.latestDepartures(arrivalStop, ARRIVAL_TIME, SecondsPastMidnight.INFINITE, workspace);
+            for(Stop stop : sampleStops){
+                int arrival = graph.fastestPaths(stop, departureTime(tree, stop), SecondsPastMidnight.INFINITE, workspace).arrivalTime(arrivalStop);
+                if(tree.stops().contains(stop) != (arrival <= ARRIVAL_TIME)){
+                    throw new AssertionError("Dernière heure de départ erronée pour " + stop + " -> " + arrivalStop + ": " + tree.departureTime(stop));
+                }
+            }
+        }
+        final LatestDepartureTree tree = graph.latestDepartures(arrivalStops.get(0), ARRIVAL_TIME, SecondsPastMidnight.INFINITE, workspace);
+        double forwardMillis = millisPerQuery(sampleStops, new Benchmarks.Query<Stop>() {
+            @Override
+            public void run(Stop stop){
+                graph.fastestPaths(stop, departureTime(tree, stop), SecondsPastMidnight.INFINITE, workspace);
+            }
+        }) * stops.size();
+        System.out.printf("  Une recherche par arrêt (est.)   : %8.2f ms/requête%n", forwardMillis);
+    }
+
+    /**
+     * Retourne la dernière heure de départ de l'arbre pour l'arrêt donné, ou minuit s'il ne permet pas d'arriver à temps.
+     */
+    private static int departureTime(LatestDepartureTree tree, Stop stop){
+        int departureTime = tree.departureTime(stop);
+        return (departureTime == -SecondsPastMidnight.INFINITE) ? 0 : departureTime;
+    }
+}
@@ -0,0 +1,88 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.DEPARTURE_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.MAX_DURATION;
+import static ch.epfl.isochrone.timetable.Benchmarks.QUERIES;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_SPEED;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.millisPerQuery;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.randomStops;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import ch.epfl.isochrone.geo.PointWGS84;
+
+/**
+ * Banc d'essai du départ d'un lieu quelconque: compare, pour des lieux tirés au hasard, la recherche depuis tous les arrêts à distance de marche
+ * (Graph.startingTimes puis une seule recherche à plusieurs arrêts de départ) à une recherche par arrêt proche suivie de la fusion des arbres,
+ * arrêt par arrêt. Les deux doivent donner les mêmes heures d'arrivée.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en argument facultatif le nombre d'arrêts du réseau synthétique.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkMultiSource {
+    private BenchmarkMultiSource(){}
+
+    public static void main(String[] args){
+        SyntheticNetwork network = Benchmarks.syntheticNetwork(args);
+        final Graph graph = network.graphBuilder().build();
+        final List<Stop> stops = network.stops();
+        final WalkingParameters accessWalking = new WalkingParameters(2 * WALKING_TIME, WALKING_SPEED);
+        final WalkingParameters noWalking = new WalkingParameters(0, WALKING_SPEED);
+        final RoutingWorkspace workspace = new RoutingWorkspace(graph);
+        List<PointWGS84> origins = new ArrayList<PointWGS84>();
+        for(Stop stop : randomStops(stops, QUERIES)){
+            origins.add(new PointWGS84(stop.position().longitude() + 2e-5, stop.position().latitude() - 2e-5));
+        }
+
+        long numberOfStartingStops = 0;
+        for(PointWGS84 origin : origins){
+            Map<Stop, Integer> startingTimes = graph.startingTimes(origin, DEPARTURE_TIME, accessWalking);
+            numberOfStartingStops += startingTimes.size();
+            FastestPathTree tree = graph.fastestPaths(startingTimes, DEPARTURE_TIME, MAX_DURATION, noWalking, workspace);
+            int[] merged = mergedArrivalTimes(graph, stops, origin, accessWalking, workspace);
+            for(int i = 0; i < stops.size(); ++i){
+                if(merged[i] != tree.arrivalTime(stops.get(i))){
+                    throw new AssertionError("Heure d'arrivée différente à " + stops.get(i) + " : " + tree.arrivalTime(stops.get(i)) + " au lieu de " + merged[i]);
+                }
+            }
+        }
+        System.out.println("Départ d'un lieu quelconque (" + stops.size() + " arrêts, " + origins.size() + " lieux, "
+                + numberOfStartingStops / origins.size() + " arrêts à moins de " + (int) accessWalking.maxWalkingDistance() + " m en moyenne, 40 min)");
+
+        double multiSourceMillis = millisPerQuery(origins, new Benchmarks.Query<PointWGS84>() {
+            @Override
+            public void run(PointWGS84 origin){
+                graph.fastestPaths(graph.startingTimes(origin, DEPARTURE_TIME, accessWalking), DEPARTURE_TIME, MAX_DURATION, noWalking, workspace);
+            }
+        });
+        double mergedMillis = millisPerQuery(origins, new Benchmarks.Query<PointWGS84>() {
+            @Override
+            public void run(PointWGS84 origin){
+                mergedArrivalTimes(graph, stops, origin, accessWalking, workspace);
+            }
+        });
+        System.out.printf("  Une recherche, plusieurs départs : %8.2f ms/lieu%n", multiSourceMillis);
+        System.out.printf("  Une recherche par arrêt + fusion : %8.2f ms/lieu%n", mergedMillis);
+    }
+
+    /**
+     * Retourne les heures d'arrivée, dans l'ordre des arrêts donnés, obtenues par une recherche depuis chaque arrêt à distance de marche du lieu donné,
+     * limitée à MAX_DURATION depuis l'heure de départ, puis par la fusion des arbres obtenus.
+     */
+    private static int[] mergedArrivalTimes(Graph graph, List<Stop> stops, PointWGS84 origin, WalkingParameters accessWalking, RoutingWorkspace workspace){
+        int[] merged = new int[stops.size()];
+        Arrays.fill(merged, SecondsPastMidnight.INFINITE);
+        for(Map.Entry<Stop, Integer> startingTime : graph.startingTimes(origin, DEPARTURE_TIME, accessWalking).entrySet()){
+            FastestPathTree tree = graph.fastestPaths(startingTime.getKey(), startingTime.getValue(), MAX_DURATION - (startingTime.getValue() - DEPARTURE_TIME), workspace);
+            for(int i = 0; i < stops.size(); ++i){
+                merged[i] = Math.min(merged[i], tree.arrivalTime(stops.get(i)));
+            }
+        }
+        return merged;
+    }
+}
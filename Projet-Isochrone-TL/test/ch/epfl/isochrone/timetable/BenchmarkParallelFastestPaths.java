@@ -0,0 +1,72 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.DEPARTURE_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.MAX_DURATION;
+import static ch.epfl.isochrone.timetable.Benchmarks.QUERIES;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_SPEED;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.maxDurationName;
+import static ch.epfl.isochrone.timetable.Benchmarks.millisPerQuery;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.checkSameArrivalTimes;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.randomStops;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Banc d'essai de la recherche parallèle « delta-stepping »: mesure la latence d'une requête (sans limite puis limitée à MAX_DURATION)
+ * de ParallelFastestPaths selon le nombre de fils d'exécution et la largeur des casiers, comparée à celle de Graph.fastestPaths.
+ * Le gain ne peut dépasser le nombre de processeurs disponibles, indiqué en tête. Les deux recherches doivent donner les mêmes heures d'arrivée.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en argument facultatif le nombre d'arrêts du réseau synthétique
+ * (par défaut un grand réseau, sur lequel une requête dure assez longtemps pour être partagée).
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkParallelFastestPaths {
+    private static final int STOPS = 100000;
+
+    private BenchmarkParallelFastestPaths(){}
+
+    public static void main(String[] args){
+        SyntheticNetwork network = new SyntheticNetwork((args.length > 0) ? Integer.parseInt(args[0]) : STOPS, 2013, WALKING_TIME, WALKING_SPEED);
+        final Graph graph = network.graphBuilder().build();
+        List<Stop> startingStops = randomStops(network.stops(), QUERIES);
+        final RoutingWorkspace workspace = new RoutingWorkspace(graph);
+        System.out.printf("Recherche parallèle « delta-stepping » (%d arrêts, %d processeur(s) disponible(s))%n",
+                network.stops().size(), Runtime.getRuntime().availableProcessors());
+
+        for(final int maxDuration : new int[] { SecondsPastMidnight.INFINITE, MAX_DURATION }){
+            String name = maxDurationName(maxDuration);
+            double dijkstraMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+                @Override
+                public void run(Stop stop){
+                    graph.fastestPaths(stop, DEPARTURE_TIME, maxDuration, workspace);
+                }
+            });
+            System.out.printf("  %-11s %-23s : %9.2f ms/requête%n", name, "Dijkstra, 1 fil", dijkstraMillis);
+
+            for(int delta : new int[] { 60, 300, 900 }){
+                for(int numberOfThreads = 1; numberOfThreads <= 8; numberOfThreads *= 2){
+                    ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+                    try{
+                        final ParallelFastestPaths finder = new ParallelFastestPaths(graph, pool, delta);
+                        for(Stop stop : startingStops){
+                            checkSameArrivalTimes(graph.fastestPaths(stop, DEPARTURE_TIME, maxDuration, workspace), finder.fastestPaths(stop, DEPARTURE_TIME, maxDuration), network.stops());
+                        }
+                        double millis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+                            @Override
+                            public void run(Stop stop){
+                                finder.fastestPaths(stop, DEPARTURE_TIME, maxDuration);
+                            }
+                        });
+                        System.out.printf("  %-11s %-23s : %9.2f ms/requête  (x%.2f)%n", name, "delta = " + delta + " s, " + numberOfThreads + " fil(s)", millis, dijkstraMillis / millis);
+                    }
+                    finally{
+                        pool.shutdown();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.DEPARTURE_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.QUERIES;
+import static ch.epfl.isochrone.timetable.Benchmarks.millisPerQuery;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.randomStops;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Banc d'essai de la recherche d'un arrêt à un autre: compare, pour des paires d'arrêts tirées au hasard, la recherche de l'heure de première arrivée
+ * (Graph.earliestArrival) à l'arbre complet des trajets les plus rapides, sans guidage (arrêt dès que l'arrêt d'arrivée est visité), puis guidée
+ * par des bornes ALT (LowerBounds) calculées avec différents nombres de points de repère. Le nombre moyen d'arrêts visités est indiqué pour chacune.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en argument facultatif le nombre d'arrêts du réseau synthétique.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkPointToPoint {
+    private BenchmarkPointToPoint(){}
+
+    public static void main(String[] args){
+        SyntheticNetwork network = Benchmarks.syntheticNetwork(args);
+        final Graph graph = network.graphBuilder().build();
+        List<Stop> stops = network.stops();
+        final List<Stop> fromStops = randomStops(stops, 10 * QUERIES);
+        Random random = new Random(2014);
+        final List<Stop> toStops = new ArrayList<Stop>();
+        List<Integer> pairs = new ArrayList<Integer>();
+        for(int i = 0; i < fromStops.size(); ++i){
+            toStops.add(stops.get(random.nextInt(stops.size())));
+            pairs.add(i);
+        }
+        final RoutingWorkspace workspace = new RoutingWorkspace(graph);
+        System.out.println("Recherche d'un arrêt à un autre (" + stops.size() + " arrêts, " + fromStops.size() + " paires)");
+
+        int[] expected = new int[fromStops.size()];
+        long settled = 0;
+        for(int i = 0; i < fromStops.size(); ++i){
+            expected[i] = graph.fastestPaths(fromStops.get(i), DEPARTURE_TIME, SecondsPastMidnight.INFINITE, workspace).arrivalTime(toStops.get(i));
+            settled += workspace.settledStops();
+        }
+        double treeMillis = millisPerQuery(pairs, new Benchmarks.Query<Integer>() {
+            @Override
+            public void run(Integer i){
+                graph.fastestPaths(fromStops.get(i), DEPARTURE_TIME, SecondsPastMidnight.INFINITE, workspace);
+            }
+        });
+        System.out.printf("  Arbre complet (Dijkstra)     : %8.2f ms/requête, %8.0f arrêts visités%n", treeMillis, (double) settled / fromStops.size());
+
+        int[] numbersOfLandmarks = { 0, 4, 8, 16 };
+        for(int numberOfLandmarks : numbersOfLandmarks){
+            long start = System.nanoTime();
+            final LowerBounds lowerBounds = (numberOfLandmarks == 0) ? null : new LowerBounds(graph, numberOfLandmarks);
+            double preprocessingMillis = (System.nanoTime() - start) / 1e6;
+
+            settled = 0;
+            for(int i = 0; i < fromStops.size(); ++i){
+                int arrivalTime = graph.earliestArrival(fromStops.get(i), toStops.get(i), DEPARTURE_TIME, lowerBounds, workspace);
+                settled += workspace.settledStops();
+                if(arrivalTime != expected[i]){
+                    throw new AssertionError("Heure d'arrivée différente pour " + fromStops.get(i) + " -> " + toStops.get(i) + ": " + arrivalTime + " au lieu de " + expected[i]);
+                }
+            }
+            double millis = millisPerQuery(pairs, new Benchmarks.Query<Integer>() {
+                @Override
+                public void run(Integer i){
+                    graph.earliestArrival(fromStops.get(i), toStops.get(i), DEPARTURE_TIME, lowerBounds, workspace);
+                }
+            });
+            System.out.printf("  %-28s : %8.2f ms/requête, %8.0f arrêts visités (préparation %6.1f ms)%n",
+                    (numberOfLandmarks == 0) ? "Dijkstra, arrêt à l'arrivée" : "ALT, " + numberOfLandmarks + " points de repère", millis, (double) settled / fromStops.size(), preprocessingMillis);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.DEPARTURE_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.MAX_DURATION;
+import static ch.epfl.isochrone.timetable.Benchmarks.maxDurationName;
+import static ch.epfl.isochrone.timetable.Benchmarks.millisPerQuery;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.randomStops;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Banc d'essai de la matrice d'accessibilité: compare son calcul (arrêts atteignables en 40 min et sans limite depuis 256 arrêts de départ)
+ * par la recherche bit-parallèle (ReachabilityScan, 64 arrêts de départ par parcours) à une recherche des trajets les plus rapides par arrêt de départ.
+ * Les deux doivent donner les mêmes arrêts.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en argument facultatif le nombre d'arrêts du réseau synthétique.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkReachabilityScan {
+    private static final int STARTING_STOPS = 256;
+
+    private BenchmarkReachabilityScan(){}
+
+    public static void main(String[] args){
+        SyntheticNetwork network = Benchmarks.syntheticNetwork(args);
+        final Graph graph = network.graphBuilder().build();
+        final List<Stop> startingStops = randomStops(network.stops(), STARTING_STOPS);
+        final RoutingWorkspace workspace = new RoutingWorkspace(graph);
+        long start = System.nanoTime();
+        final ReachabilityScan scan = new ReachabilityScan(graph);
+        double preparationMillis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("Matrice d'accessibilité (%d arrêts, %d arrêts de départ, préparation %.1f ms)%n", network.stops().size(), startingStops.size(), preparationMillis);
+
+        for(final int maxDuration : new int[] { MAX_DURATION, SecondsPastMidnight.INFINITE }){
+            ReachabilityMatrix matrix = scan.reachability(startingStops, DEPARTURE_TIME, maxDuration);
+            long reachable = 0;
+            for(int o = 0; o < startingStops.size(); ++o){
+                FastestPathTree tree = graph.fastestPaths(startingStops.get(o), DEPARTURE_TIME, maxDuration, workspace);
+                reachable += tree.stops().size();
+                if(!tree.stops().equals(matrix.reachableStops(o))){
+                    throw new AssertionError("Arrêts atteignables différents depuis " + startingStops.get(o));
+                }
+            }
+
+            // Une requête calcule la matrice complète
+            double scanMillis = millisPerQuery(Collections.singletonList(startingStops), new Benchmarks.Query<List<Stop>>() {
+                @Override
+                public void run(List<Stop> stops){
+                    scan.reachability(stops, DEPARTURE_TIME, maxDuration);
+                }
+            });
+            double dijkstraMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+                @Override
+                public void run(Stop stop){
+                    graph.fastestPaths(stop, DEPARTURE_TIME, maxDuration, workspace);
+                }
+            }) * startingStops.size();
+            System.out.printf("  %-11s : bit-parallèle %8.1f ms, une recherche par arrêt %8.1f ms (x%.1f), %6.0f arrêts atteignables en moyenne%n",
+                    maxDurationName(maxDuration), scanMillis, dijkstraMillis, dijkstraMillis / scanMillis, (double) reachable / startingStops.size());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.DEPARTURE_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.MAX_DURATION;
+import static ch.epfl.isochrone.timetable.Benchmarks.QUERIES;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_SPEED;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.maxDurationName;
+import static ch.epfl.isochrone.timetable.Benchmarks.millisPerQuery;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.checkSameArrivalTimes;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.randomStops;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import ch.epfl.isochrone.timetable.Date.Month;
+
+/**
+ * Banc d'essai des queues de priorité: compare les recherches de Dijkstra (sans limite puis limitées à MAX_DURATION) menées avec le tas binaire
+ * et avec le tas radix (voir RoutingQueue), chacun dans son espace de travail réutilisé, sur le réseau des tl (si les données horaires sont disponibles)
+ * et sur des réseaux synthétiques de tailles croissantes. Les deux doivent donner les mêmes heures d'arrivée.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en arguments facultatifs les nombres d'arrêts des réseaux synthétiques.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkRoutingQueues {
+    private static final Date DATE = new Date(1, Month.OCTOBER, 2013);
+
+    private BenchmarkRoutingQueues(){}
+
+    public static void main(String[] args){
+        if(BenchmarkRoutingQueues.class.getResource("/time-table/stops.csv") != null){
+            TimeTableReader reader = new TimeTableReader("/time-table/");
+            TimeTable timeTable = reader.readTimeTable();
+            Set<Stop> stops = timeTable.stops();
+            Graph graph = reader.graphBuilderForServices(stops, timeTable.servicesForDate(DATE), WALKING_TIME, WALKING_SPEED).build();
+            benchmarkRoutingQueues("Réseau tl", graph, new ArrayList<Stop>(stops));
+        }
+        else{
+            System.out.println("Données horaires des tl introuvables (/time-table/), réseau tl ignoré.");
+        }
+
+        String[] sizes = (args.length > 0) ? args : new String[] {"1300", "100000"};
+        for(String size : sizes){
+            SyntheticNetwork network = new SyntheticNetwork(Integer.parseInt(size), 2013, WALKING_TIME, WALKING_SPEED);
+            benchmarkRoutingQueues("Réseau synthétique", network.graphBuilder().build(), network.stops());
+        }
+    }
+
+    private static void benchmarkRoutingQueues(String networkName, final Graph graph, List<Stop> stops){
+        List<Stop> startingStops = randomStops(stops, QUERIES);
+        System.out.printf("Queues de priorité, %s (%d arrêts)%n", networkName, stops.size());
+
+        RoutingWorkspace binary = new RoutingWorkspace(graph, RoutingQueue.BINARY_HEAP);
+        for(final int maxDuration : new int[] { SecondsPastMidnight.INFINITE, MAX_DURATION }){
+            double binaryMillis = 0;
+            for(RoutingQueue queue : RoutingQueue.values()){
+                final RoutingWorkspace workspace = new RoutingWorkspace(graph, queue);
+                long settledStops = 0;
+                for(Stop stop : startingStops){
+                    FastestPathTree tree = graph.fastestPaths(stop, DEPARTURE_TIME, maxDuration, workspace);
+                    settledStops += workspace.settledStops();
+                    if(queue != RoutingQueue.BINARY_HEAP){
+                        checkSameArrivalTimes(graph.fastestPaths(stop, DEPARTURE_TIME, maxDuration, binary), tree, stops);
+                    }
+                }
+
+                double millis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+                    @Override
+                    public void run(Stop stop){
+                        graph.fastestPaths(stop, DEPARTURE_TIME, maxDuration, workspace);
+                    }
+                });
+                if(queue == RoutingQueue.BINARY_HEAP){
+                    binaryMillis = millis;
+                }
+                System.out.printf("  %-11s %-12s: %10.3f ms/requête  (x%.2f), %8d arrêts visités en moyenne%n",
+                        maxDurationName(maxDuration), queue, millis, binaryMillis / millis, settledStops / startingStops.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.DEPARTURE_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.QUERIES;
+import static ch.epfl.isochrone.timetable.Benchmarks.SYNTHETIC_STOPS;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_SPEED;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.millisPerQuery;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.checkSameArrivalTimes;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.randomStops;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ch.epfl.isochrone.timetable.Date.Month;
+
+/**
+ * Banc d'essai du graphe de tous les services: compare la construction d'un graphe par date (comme le faisait IsochroneTL à chaque changement de date)
+ * à la vue d'un seul graphe contenant les courses de tous les services (Graph.forServices), pour les dates d'une semaine, ainsi que les recherches
+ * dans l'un et l'autre.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en argument facultatif le nombre d'arrêts du réseau synthétique.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkServices {
+    private BenchmarkServices(){}
+
+    public static void main(String[] args){
+        Date monday = new Date(30, Month.SEPTEMBER, 2013);
+        List<Service> services = weekServices(monday);
+        SyntheticNetwork network = new SyntheticNetwork((args.length > 0) ? Integer.parseInt(args[0]) : SYNTHETIC_STOPS, 2013, 0, WALKING_SPEED, services);
+        List<Stop> startingStops = randomStops(network.stops(), QUERIES);
+        System.out.println("Graphe de tous les services (" + network.stops().size() + " arrêts, " + services.size() + " services)");
+
+        long start = System.nanoTime();
+        Graph allServicesGraph = network.tripsGraphBuilder(new HashSet<Service>(services), true).addAllWalkEdges(WALKING_TIME, WALKING_SPEED).build();
+        double allServicesMillis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("  Construction, tous services  : %10.1f ms (une fois pour toutes)%n", allServicesMillis);
+
+        final RoutingWorkspace workspace = new RoutingWorkspace(allServicesGraph);
+        for(int d = 0; d < 7; ++d){
+            Date date = monday.relative(d);
+            Set<Service> activeServices = new HashSet<Service>();
+            for(Service service : services){
+                if(service.isOperatingOn(date)){
+                    activeServices.add(service);
+                }
+            }
+
+            start = System.nanoTime();
+            final Graph dateGraph = network.tripsGraphBuilder(activeServices, false).addAllWalkEdges(WALKING_TIME, WALKING_SPEED).build();
+            double rebuildMillis = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            final Graph view = allServicesGraph.forServices(activeServices);
+            double viewMillis = (System.nanoTime() - start) / 1e6;
+
+            for(Stop stop : startingStops){
+                checkSameArrivalTimes(dateGraph.fastestPaths(stop, DEPARTURE_TIME), view.fastestPaths(stop, DEPARTURE_TIME, SecondsPastMidnight.INFINITE, workspace), network.stops());
+            }
+            double dateMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+                @Override
+                public void run(Stop stop){
+                    dateGraph.fastestPaths(stop, DEPARTURE_TIME, SecondsPastMidnight.INFINITE, workspace);
+                }
+            });
+            double viewQueryMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+                @Override
+                public void run(Stop stop){
+                    view.fastestPaths(stop, DEPARTURE_TIME, SecondsPastMidnight.INFINITE, workspace);
+                }
+            });
+
+            System.out.printf("  %-9s %-10s : graphe de la date %8.1f ms, vue %6.3f ms ; recherche %6.2f / %6.2f ms/requête%n",
+                    date.dayOfWeek(), date, rebuildMillis, viewMillis, dateMillis, viewQueryMillis);
+        }
+
+    }
+
+    /**
+     * Retourne les services du réseau synthétique pour la semaine commençant au lundi donné: semaine, samedi, dimanche, tous les jours
+     * et nuit (vendredi et samedi), si bien que les sept jours n'ont que quatre ensembles de services actifs distincts.
+     *
+     * @param monday Le lundi de la semaine.
+     * @return Les services de la semaine.
+     */
+    static List<Service> weekServices(Date monday){
+        List<Service> services = new ArrayList<Service>();
+        String[] names = { "semaine", "samedi", "dimanche", "tous", "nuit" };
+        Date.DayOfWeek[][] days = {
+                { Date.DayOfWeek.MONDAY, Date.DayOfWeek.TUESDAY, Date.DayOfWeek.WEDNESDAY, Date.DayOfWeek.THURSDAY, Date.DayOfWeek.FRIDAY },
+                { Date.DayOfWeek.SATURDAY }, { Date.DayOfWeek.SUNDAY }, Date.DayOfWeek.values(), { Date.DayOfWeek.FRIDAY, Date.DayOfWeek.SATURDAY } };
+        for(int i = 0; i < names.length; ++i){
+            Service.Builder serviceBD = new Service.Builder(names[i], monday, monday.relative(6));
+            for(Date.DayOfWeek day : days[i]){
+                serviceBD.addOperatingDay(day);
+            }
+            services.add(serviceBD.build());
+        }
+        return services;
+    }
+}
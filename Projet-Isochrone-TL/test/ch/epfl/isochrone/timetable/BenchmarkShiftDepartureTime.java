@@ -0,0 +1,89 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.DEPARTURE_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.MAX_DURATION;
+import static ch.epfl.isochrone.timetable.Benchmarks.QUERIES;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_SPEED;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.maxDurationName;
+import static ch.epfl.isochrone.timetable.Benchmarks.millisPerQuery;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.checkSameArrivalTimes;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.randomStops;
+
+import java.util.List;
+
+/**
+ * Banc d'essai de Graph.shiftDepartureTime: simule le défilement de l'heure de départ dans l'interface graphique, minute par minute,
+ * SHIFT_STEPS fois vers l'avant puis autant vers l'arrière, en corrigeant chaque fois l'arbre précédent, comparé à une nouvelle recherche
+ * par heure de départ. Les deux doivent donner les mêmes heures d'arrivée.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en arguments facultatifs les nombres d'arrêts des réseaux synthétiques.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkShiftDepartureTime {
+    private static final int SHIFT_STEPS = 10;
+
+    private BenchmarkShiftDepartureTime(){}
+
+    public static void main(String[] args){
+        String[] sizes = (args.length > 0) ? args : new String[] {"13000", "100000"};
+        final int[] departureTimes = new int[2 * SHIFT_STEPS + 1];
+        for(int step = 0; step < departureTimes.length; ++step){
+            departureTimes[step] = DEPARTURE_TIME + 60 * ((step <= SHIFT_STEPS) ? step : 2 * SHIFT_STEPS - step);
+        }
+
+        for(String size : sizes){
+            SyntheticNetwork network = new SyntheticNetwork(Integer.parseInt(size), 2013, WALKING_TIME, WALKING_SPEED);
+            final Graph graph = network.graphBuilder().build();
+            List<Stop> startingStops = randomStops(network.stops(), QUERIES);
+            final RoutingWorkspace workspace = new RoutingWorkspace(graph);
+
+            for(final int maxDuration : new int[] { MAX_DURATION, SecondsPastMidnight.INFINITE }){
+                System.out.printf("Défilement de l'heure de départ minute par minute (%d arrêts, %s)%n", network.stops().size(), maxDurationName(maxDuration));
+
+                long freshStops = 0, shiftStops = 0;
+                for(Stop stop : startingStops){
+                    FastestPathTree tree = graph.fastestPaths(stop, departureTimes[0], maxDuration, workspace);
+                    for(int step = 1; step < departureTimes.length; ++step){
+                        FastestPathTree expected = graph.fastestPaths(stop, departureTimes[step], maxDuration, workspace);
+                        freshStops += workspace.settledStops();
+                        tree = graph.shiftDepartureTime(tree, departureTimes[step], maxDuration, workspace);
+                        shiftStops += workspace.settledStops();
+                        checkSameArrivalTimes(expected, tree, network.stops());
+                    }
+                }
+
+                // Une requête fait défiler toutes les heures de départ depuis un arrêt; la recherche de l'arbre initial est ensuite déduite
+                double initialMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+                    @Override
+                    public void run(Stop stop){
+                        graph.fastestPaths(stop, departureTimes[0], maxDuration, workspace);
+                    }
+                });
+                double freshMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+                    @Override
+                    public void run(Stop stop){
+                        for(int step = 1; step < departureTimes.length; ++step){
+                            graph.fastestPaths(stop, departureTimes[step], maxDuration, workspace);
+                        }
+                    }
+                }) / (departureTimes.length - 1);
+                double shiftMillis = (millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+                    @Override
+                    public void run(Stop stop){
+                        FastestPathTree tree = graph.fastestPaths(stop, departureTimes[0], maxDuration, workspace);
+                        for(int step = 1; step < departureTimes.length; ++step){
+                            tree = graph.shiftDepartureTime(tree, departureTimes[step], maxDuration, workspace);
+                        }
+                    }
+                }) - initialMillis) / (departureTimes.length - 1);
+
+                int queries = startingStops.size() * (departureTimes.length - 1);
+                System.out.printf("  Nouvelle recherche                : %8.3f ms/requête, %6d arrêts visités en moyenne%n", freshMillis, freshStops / queries);
+                System.out.printf("  Correction de l'arbre précédent   : %8.3f ms/requête, %6d arrêts visités en moyenne  (x%.1f)%n",
+                        shiftMillis, shiftStops / queries, freshMillis / shiftMillis);
+            }
+        }
+    }
+}
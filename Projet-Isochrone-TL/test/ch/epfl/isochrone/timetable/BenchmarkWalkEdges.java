@@ -0,0 +1,73 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Banc d'essai de Graph.Builder.addAllWalkEdges sur des réseaux synthétiques de tailles croissantes: compare la recherche par index spatial
+ * à l'ancienne comparaison de toutes les paires d'arrêts (mesurée sans l'ajout des arcs, commun aux deux, donc à son avantage),
+ * et vérifie que les trajets à pied trouvés sont les mêmes. Au-delà de ALL_PAIRS_MAX_STOPS arrêts, seule la recherche par index est mesurée.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en arguments facultatifs les nombres d'arrêts des réseaux.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkWalkEdges {
+    private static final int WALKING_TIME = 5 * 60;
+    private static final double WALKING_SPEED = 1.25;
+    private static final int ALL_PAIRS_MAX_STOPS = 20000;
+
+    private BenchmarkWalkEdges(){}
+
+    public static void main(String[] args){
+        String[] sizes = (args.length > 0) ? args : new String[] {"1300", "13000", "100000"};
+
+        for(String size : sizes){
+            List<Stop> stops = new SyntheticNetwork(Integer.parseInt(size), 2013, 0, WALKING_SPEED).stops();
+            System.out.println("Réseau synthétique (" + stops.size() + " arrêts, " + Runtime.getRuntime().availableProcessors() + " processeurs)");
+
+            // Préchauffage de la JVM
+            new Graph.Builder(new HashSet<Stop>(stops)).addAllWalkEdges(WALKING_TIME, WALKING_SPEED);
+
+            long start = System.nanoTime();
+            Map<Stop, List<GraphEdge>> outgoingEdges = new Graph.Builder(new HashSet<Stop>(stops)).addAllWalkEdges(WALKING_TIME, WALKING_SPEED).buildOutgoingEdges();
+            double gridMillis = (System.nanoTime() - start) / 1e6;
+
+            int numberOfEdges = 0;
+            for(List<GraphEdge> edges : outgoingEdges.values()){
+                numberOfEdges += edges.size();
+            }
+
+            if(stops.size() <= ALL_PAIRS_MAX_STOPS){
+                start = System.nanoTime();
+                int allPairsEdges = allPairsWalkEdges(new ArrayList<Stop>(new HashSet<Stop>(stops)), WALKING_TIME * WALKING_SPEED);
+                double allPairsMillis = (System.nanoTime() - start) / 1e6;
+                if(allPairsEdges != numberOfEdges){
+                    throw new AssertionError("Nombres de trajets à pied différents: " + allPairsEdges + " != " + numberOfEdges);
+                }
+                System.out.printf("  Toutes les paires  : %10.1f ms%n", allPairsMillis);
+                System.out.printf("  Index spatial      : %10.1f ms  (x%.1f, %d arcs)%n", gridMillis, allPairsMillis / gridMillis, numberOfEdges);
+            }
+            else{
+                System.out.printf("  Index spatial      : %10.1f ms  (%d arcs)%n", gridMillis, numberOfEdges);
+            }
+        }
+    }
+
+    /**
+     * Compte les arcs à pied de l'ancienne version de addAllWalkEdges, qui calculait la distance de toutes les paires d'arrêts.
+     */
+    private static int allPairsWalkEdges(List<Stop> stops, double maxWalkingDistance){
+        int numberOfEdges = 0;
+        for(int i = 0; i < stops.size(); ++i){
+            for(int j = i + 1; j < stops.size(); ++j){
+                if(stops.get(i).position().distanceTo(stops.get(j).position()) < maxWalkingDistance){
+                    numberOfEdges += 2;
+                }
+            }
+        }
+        return numberOfEdges;
+    }
+}
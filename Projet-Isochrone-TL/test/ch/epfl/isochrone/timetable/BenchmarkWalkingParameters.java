@@ -0,0 +1,64 @@
+package ch.epfl.isochrone.timetable;
+
+import static ch.epfl.isochrone.timetable.Benchmarks.DEPARTURE_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.QUERIES;
+import static ch.epfl.isochrone.timetable.Benchmarks.SYNTHETIC_STOPS;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_SPEED;
+import static ch.epfl.isochrone.timetable.Benchmarks.WALKING_TIME;
+import static ch.epfl.isochrone.timetable.Benchmarks.millisPerQuery;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.checkSameArrivalTimes;
+import static ch.epfl.isochrone.timetable.SearchTestSupport.randomStops;
+
+import java.util.List;
+
+/**
+ * Banc d'essai des paramètres de marche par recherche: compare les temps de marche calculés lors de chaque recherche à partir des distances
+ * enregistrées dans le graphe (WalkingParameters) aux temps de marche fixés à la construction du graphe, ainsi que la construction
+ * d'un graphe par paramètres de marche à celle d'un seul graphe. Les deux doivent donner les mêmes heures d'arrivée.
+ * Ce n'est pas un test JUnit: il se lance comme un programme, avec en argument facultatif le nombre d'arrêts du réseau synthétique.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public final class BenchmarkWalkingParameters {
+    private BenchmarkWalkingParameters(){}
+
+    public static void main(String[] args){
+        SyntheticNetwork network = new SyntheticNetwork((args.length > 0) ? Integer.parseInt(args[0]) : SYNTHETIC_STOPS, 2013, 0, WALKING_SPEED);
+        Graph.Builder builder = network.graphBuilder();
+        List<Stop> startingStops = randomStops(network.stops(), QUERIES);
+        System.out.println("Paramètres de marche par recherche (" + network.stops().size() + " arrêts)");
+
+        long start = System.nanoTime();
+        final Graph graph = builder.addAllWalkingDistances(2 * WALKING_TIME * WALKING_SPEED).build();
+        double distancesMillis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("  Construction avec distances  : %10.1f ms (une fois pour toutes)%n", distancesMillis);
+
+        WalkingParameters[] walkings = { new WalkingParameters(WALKING_TIME, WALKING_SPEED), new WalkingParameters(2 * WALKING_TIME, 0.8) };
+        final RoutingWorkspace workspace = new RoutingWorkspace(graph);
+        for(final WalkingParameters walking : walkings){
+            start = System.nanoTime();
+            final Graph walkEdgesGraph = builder.addAllWalkEdges(walking.maxWalkingTime(), walking.walkingSpeed()).build();
+            double rebuildMillis = (System.nanoTime() - start) / 1e6;
+
+            for(Stop stop : startingStops){
+                checkSameArrivalTimes(walkEdgesGraph.fastestPaths(stop, DEPARTURE_TIME), graph.fastestPaths(stop, DEPARTURE_TIME, SecondsPastMidnight.INFINITE, walking, workspace), network.stops());
+            }
+            double walkEdgesMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+                @Override
+                public void run(Stop stop){
+                    walkEdgesGraph.fastestPaths(stop, DEPARTURE_TIME, SecondsPastMidnight.INFINITE, workspace);
+                }
+            });
+            double walkingMillis = millisPerQuery(startingStops, new Benchmarks.Query<Stop>() {
+                @Override
+                public void run(Stop stop){
+                    graph.fastestPaths(stop, DEPARTURE_TIME, SecondsPastMidnight.INFINITE, walking, workspace);
+                }
+            });
+
+            System.out.printf("  %-28s : reconstruction %8.1f ms, temps fixés %6.2f ms/requête, distances %6.2f ms/requête%n",
+                    walking, rebuildMillis, walkEdgesMillis, walkingMillis);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.List;
+
+/**
+ * Outils communs aux bancs d'essai des recherches (classes Benchmark*): paramètres des requêtes et mesure de la durée d'une requête.
+ * Les bancs d'essai vérifient les arbres obtenus avec SearchTestSupport, comme les tests.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+final class Benchmarks {
+    static final int DEPARTURE_TIME = SecondsPastMidnight.fromHMS(6, 8, 0);
+    static final int WALKING_TIME = 5 * 60;
+    static final double WALKING_SPEED = 1.25;
+    // Durée maximale des recherches limitées, celle d'une carte isochrone
+    static final int MAX_DURATION = SecondsPastMidnight.fromHMS(0, 40, 0);
+    static final int QUERIES = 20;
+    // Taille par défaut du réseau synthétique, environ dix fois celle du réseau des tl
+    static final int SYNTHETIC_STOPS = 13000;
+
+    // Durées minimales du préchauffage de la JVM (jusqu'à ce que la compilation soit achevée) et de la mesure, en nanosecondes
+    private static final long WARM_UP_NANOS = 300000000L;
+    private static final long MEASURE_NANOS = 300000000L;
+
+    private Benchmarks(){}
+
+    /**
+     * Requête mesurée par millisPerQuery.
+     *
+     * @param <T> Le type des données d'une requête (p.ex. son arrêt de départ).
+     */
+    interface Query<T> {
+        /**
+         * Effectue la requête pour la donnée fournie.
+         *
+         * @param input La donnée de la requête.
+         */
+        void run(T input);
+    }
+
+    /**
+     * Mesure la requête donnée: elle est effectuée pour chacune des données, tour après tour, pendant au moins WARM_UP_NANOS pour préchauffer la JVM,
+     * puis pendant au moins MEASURE_NANOS (au moins un tour complet), si bien que les requêtes de moins d'une milliseconde sont assez répétées pour être mesurées.
+     *
+     * @param inputs Les données des requêtes.
+     * @param query La requête.
+     * @return La durée moyenne d'une requête (en millisecondes).
+     */
+    static <T> double millisPerQuery(List<T> inputs, Query<? super T> query){
+        long start = System.nanoTime();
+        do{
+            for(T input : inputs){
+                query.run(input);
+            }
+        } while(System.nanoTime() - start < WARM_UP_NANOS);
+
+        long queries = 0;
+        start = System.nanoTime();
+        do{
+            for(T input : inputs){
+                query.run(input);
+            }
+            queries += inputs.size();
+        } while(System.nanoTime() - start < MEASURE_NANOS);
+        return (System.nanoTime() - start) / 1e6 / queries;
+    }
+
+    /**
+     * Retourne le réseau synthétique du nombre d'arrêts donné en premier argument de la ligne de commande, SYNTHETIC_STOPS par défaut.
+     *
+     * @param args Les arguments de la ligne de commande.
+     * @return Le réseau synthétique.
+     */
+    static SyntheticNetwork syntheticNetwork(String[] args){
+        return new SyntheticNetwork((args.length > 0) ? Integer.parseInt(args[0]) : SYNTHETIC_STOPS, 2013, WALKING_TIME, WALKING_SPEED);
+    }
+
+    /**
+     * Retourne le libellé de la durée maximale donnée, p.ex. « 40 min » ou « sans limite ».
+     *
+     * @param maxDuration La durée maximale (en secondes), SecondsPastMidnight.INFINITE pour aucune.
+     * @return Le libellé de la durée maximale.
+     */
+    static String maxDurationName(int maxDuration){
+        return (maxDuration == SecondsPastMidnight.INFINITE) ? "sans limite" : (maxDuration / 60) + " min";
+    }
+}
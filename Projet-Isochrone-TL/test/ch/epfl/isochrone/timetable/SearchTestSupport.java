@@ -0,0 +1,48 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Outils communs aux tests et aux bancs d'essai des algorithmes de recherche: tirage reproductible des arrêts de départ
+ * et comparaison des heures d'arrivée de deux arbres des trajets les plus rapides.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+final class SearchTestSupport {
+    private SearchTestSupport(){}
+
+    /**
+     * Vérifie que les deux arbres donnent les mêmes heures d'arrivée pour tous les arrêts.
+     *
+     * @param expected L'arbre de référence.
+     * @param actual L'arbre à vérifier.
+     * @param stops Les arrêts dont les heures d'arrivée sont comparées.
+     * @throws IllegalStateException Si une heure d'arrivée diffère.
+     */
+    static void checkSameArrivalTimes(FastestPathTree expected, FastestPathTree actual, List<Stop> stops){
+        for(Stop stop : stops){
+            if(expected.arrivalTime(stop) != actual.arrivalTime(stop)){
+                throw new IllegalStateException("Heure d'arrivée différente à " + stop + " : " + expected.arrivalTime(stop) + " au lieu de " + actual.arrivalTime(stop));
+            }
+        }
+    }
+
+    /**
+     * Tire au hasard (de manière reproductible) le nombre d'arrêts de départ donné.
+     *
+     * @param stops Les arrêts parmi lesquels tirer.
+     * @param count Le nombre d'arrêts à tirer.
+     * @return Les arrêts tirés (avec répétitions possibles).
+     */
+    static List<Stop> randomStops(List<Stop> stops, int count){
+        Random random = new Random(2013);
+        List<Stop> result = new ArrayList<Stop>();
+        for(int i = 0; i < count; ++i){
+            result.add(stops.get(random.nextInt(stops.size())));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,264 @@
+package ch.epfl.isochrone.timetable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import ch.epfl.isochrone.geo.PointWGS84;
+
+/**
+ * Génère un réseau de transports synthétique, utilisé par les bancs d'essai pour mesurer les algorithmes sur des réseaux plus grands que celui des tl.
+ * Les arrêts sont disposés sur une grille (avec un léger bruit) centrée sur Lausanne, et les lignes parcourent la grille de voisin en voisin, dans les deux sens.
+ * Une ligne sur EXPRESS_LINE_RATIO est aussi desservie par des express, plus rapides, qui partent peu après un omnibus sur deux et le dépassent
+ * en cours de route: les trajets de l'omnibus ainsi dépassés sont dominés, et éliminés par GraphEdge.
+ * Si des services sont donnés, chaque course en circule un, tiré au hasard (comme les courses des tl, qui ne circulent pas tous les jours).
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+final class SyntheticNetwork {
+    // Centre de la grille (Lausanne) et espacement entre arrêts voisins, en radians (~ 300 mètres)
+    private static final double CENTER_LONGITUDE = Math.toRadians(6.63);
+    private static final double CENTER_LATITUDE = Math.toRadians(46.52);
+    private static final double SPACING = 300d / 6378137d;
+
+    private static final int FIRST_DEPARTURE = SecondsPastMidnight.fromHMS(5, 0, 0);
+    private static final int LAST_DEPARTURE = SecondsPastMidnight.fromHMS(24, 0, 0);
+    private static final int STOPS_PER_LINE = 20;
+    private static final int EXPRESS_LINE_RATIO = 4;
+
+    private final List<Stop> stops;
+    private final Graph.Builder graphBuilder;
+    private final List<Service> services;
+    // Courses du réseau: ligne, temps de parcours entre arrêts, heure de départ et index du service (-1 si aucun service n'est donné)
+    private final List<List<Stop>> courseLines = new ArrayList<List<Stop>>();
+    private final List<int[]> courseHopTimes = new ArrayList<int[]>();
+    private final List<Integer> courseDepartures = new ArrayList<Integer>();
+    private final List<Integer> courseServices = new ArrayList<Integer>();
+
+    /**
+     * Génère un réseau synthétique d'environ le nombre d'arrêts donné.
+     *
+     * @param numberOfStops Le nombre d'arrêts souhaité (arrondi au carré parfait inférieur).
+     * @param seed La graine du générateur aléatoire, pour obtenir des réseaux reproductibles.
+     * @param walkingTime Le temps maximum de marche (en secondes).
+     * @param walkingSpeed La vitesse de marche (en mètres par seconde).
+     */
+    SyntheticNetwork(int numberOfStops, long seed, int walkingTime, double walkingSpeed){
+        this(numberOfStops, seed, walkingTime, walkingSpeed, Collections.<Service>emptyList());
+    }
+
+    /**
+     * Génère un réseau synthétique d'environ le nombre d'arrêts donné, dont chaque course circule l'un des services donnés, tiré au hasard.
+     * Le graphe du réseau (voir graphBuilder) contient alors les courses de tous les services, chacune associée à son service.
+     * Les arrêts et les courses sont les mêmes que ceux du réseau généré avec la même graine sans service.
+     *
+     * @param numberOfStops Le nombre d'arrêts souhaité (arrondi au carré parfait inférieur).
+     * @param seed La graine du générateur aléatoire, pour obtenir des réseaux reproductibles.
+     * @param walkingTime Le temps maximum de marche (en secondes).
+     * @param walkingSpeed La vitesse de marche (en mètres par seconde).
+     * @param services Les services des courses (aucun pour des courses quotidiennes).
+     */
+    SyntheticNetwork(int numberOfStops, long seed, int walkingTime, double walkingSpeed, List<Service> services){
+        Random random = new Random(seed);
+        // Générateur distinct pour les services, afin que les réseaux générés sans service restent les mêmes
+        Random serviceRandom = new Random(~seed);
+        // Générateur distinct pour les express, afin que les arrêts, les lignes et les omnibus ne dépendent pas de leur tirage
+        Random expressRandom = new Random(seed + 1);
+        this.services = new ArrayList<Service>(services);
+        int side = Math.max(2, (int) Math.sqrt(numberOfStops));
+
+        stops = new ArrayList<Stop>();
+        for(int i = 0; i < side; ++i){
+            for(int j = 0; j < side; ++j){
+                double longitude = CENTER_LONGITUDE + (i - side/2 + 0.3*random.nextGaussian()) * SPACING / Math.cos(CENTER_LATITUDE);
+                double latitude = CENTER_LATITUDE + (j - side/2 + 0.3*random.nextGaussian()) * SPACING;
+                stops.add(new Stop("S" + i + "-" + j, new PointWGS84(longitude, latitude)));
+            }
+        }
+
+
+        // Une ligne pour environ STOPS_PER_LINE/2 arrêts, chaque arrêt est donc desservi par environ deux lignes
+        int numberOfLines = Math.max(1, 2 * stops.size() / STOPS_PER_LINE);
+        for(int l = 0; l < numberOfLines; ++l){
+            List<Stop> line = randomLine(random, side);
+            int headway = 60 * (5 + random.nextInt(16));
+            int[] hopTimes = new int[line.size() - 1];
+            for(int h = 0; h < hopTimes.length; ++h){
+                hopTimes[h] = 60 + random.nextInt(91);
+            }
+
+            // Les express gagnent un tiers du temps de parcours de chaque tronçon, et partent une à trois minutes après l'omnibus
+            int[] expressHopTimes = null;
+            int expressDelay = 0;
+            if(expressRandom.nextInt(EXPRESS_LINE_RATIO) == 0){
+                expressHopTimes = new int[hopTimes.length];
+                for(int h = 0; h < hopTimes.length; ++h){
+                    expressHopTimes[h] = 2 * hopTimes[h] / 3;
+                }
+                expressDelay = 60 * (1 + expressRandom.nextInt(3));
+            }
+
+            boolean express = false;
+            for(int departure = FIRST_DEPARTURE + random.nextInt(headway); departure < LAST_DEPARTURE; departure += headway){
+                int serviceIndex = services.isEmpty() ? -1 : serviceRandom.nextInt(services.size());
+                addCourse(line, hopTimes, departure, serviceIndex);
+                if(expressHopTimes != null && express && departure + expressDelay < LAST_DEPARTURE){
+                    addCourse(line, expressHopTimes, departure + expressDelay, serviceIndex);
+                }
+                express = !express;
+            }
+        }
+
+        graphBuilder = tripsGraphBuilder(new HashSet<Service>(services), !services.isEmpty());
+        graphBuilder.addAllWalkEdges(walkingTime, walkingSpeed);
+    }
+
+    /**
+     * Retourne les arrêts du réseau.
+     *
+     * @return Les arrêts du réseau.
+     */
+    List<Stop> stops(){
+        return stops;
+    }
+
+    /**
+     * Retourne l'ensemble des arrêts du réseau.
+     *
+     * @return L'ensemble des arrêts du réseau.
+     */
+    Set<Stop> stopSet(){
+        return new HashSet<Stop>(stops);
+    }
+
+    /**
+     * Retourne le bâtisseur du graphe du réseau, contenant tous les trajets et les trajets à pied.
+     *
+     * @return Le bâtisseur du graphe du réseau.
+     */
+    Graph.Builder graphBuilder(){
+        return graphBuilder;
+    }
+
+    /**
+     * Retourne un nouveau bâtisseur du graphe du réseau, sans trajet à pied, contenant les courses (dans les deux sens) des services donnés
+     * (et les courses quotidiennes), comme TimeTableReader le fait pour les horaires des tl.
+     *
+     * @param activeServices Les services dont les courses sont ajoutées.
+     * @param tagServices Vrai si chaque trajet doit être associé à son service, faux s'il doit être quotidien.
+     * @return Le bâtisseur du graphe des courses des services donnés.
+     */
+    Graph.Builder tripsGraphBuilder(Set<Service> activeServices, boolean tagServices){
+        Graph.Builder builder = new Graph.Builder(new HashSet<Stop>(stops));
+        for(int c = 0; c < courseLines.size(); ++c){
+            int serviceIndex = courseServices.get(c);
+            Service service = (serviceIndex == -1) ? null : services.get(serviceIndex);
+            if(service != null && !activeServices.contains(service)){
+                continue;
+            }
+            addTrip(builder, courseLines.get(c), courseHopTimes.get(c), courseDepartures.get(c), false, tagServices ? service : null);
+            addTrip(builder, courseLines.get(c), courseHopTimes.get(c), courseDepartures.get(c), true, tagServices ? service : null);
+        }
+        return builder;
+    }
+
+    /**
+     * Retourne les trajets élémentaires des courses du réseau (dans les deux sens, tous services confondus), tels qu'ils sont donnés
+     * au bâtisseur du graphe, donc avant l'élimination des trajets dominés: chacun est un tableau contenant l'index (dans stops()) de son arrêt
+     * de départ, celui de son arrêt d'arrivée, son heure de départ et son heure d'arrivée.
+     *
+     * @return Les trajets élémentaires des courses du réseau.
+     */
+    List<int[]> trips(){
+        Map<Stop, Integer> stopIndexes = new HashMap<Stop, Integer>();
+        for(int i = 0; i < stops.size(); ++i){
+            stopIndexes.put(stops.get(i), i);
+        }
+
+        List<int[]> trips = new ArrayList<int[]>();
+        for(int c = 0; c < courseLines.size(); ++c){
+            List<Stop> line = courseLines.get(c);
+            int[] hopTimes = courseHopTimes.get(c);
+            for(boolean reverse : new boolean[] { false, true }){
+                int time = courseDepartures.get(c);
+                for(int h = 0; h < hopTimes.length; ++h){
+                    int from = reverse ? line.size() - 1 - h : h;
+                    int to = reverse ? from - 1 : from + 1;
+                    int hopTime = hopTimes[reverse ? hopTimes.length - 1 - h : h];
+                    trips.add(new int[] { stopIndexes.get(line.get(from)), stopIndexes.get(line.get(to)), time, time + hopTime });
+                    time += hopTime;
+                }
+            }
+        }
+        return trips;
+    }
+
+    /**
+     * Ajoute une course de la ligne donnée au réseau.
+     */
+    private void addCourse(List<Stop> line, int[] hopTimes, int departure, int serviceIndex){
+        courseLines.add(line);
+        courseHopTimes.add(hopTimes);
+        courseDepartures.add(departure);
+        courseServices.add(serviceIndex);
+    }
+
+    /**
+     * Tire une ligne au hasard: une suite d'arrêts voisins sur la grille, sans répétition.
+     */
+    private List<Stop> randomLine(Random random, int side){
+        List<Stop> line = new ArrayList<Stop>();
+        Set<Integer> visited = new HashSet<Integer>();
+        int i = random.nextInt(side);
+        int j = random.nextInt(side);
+        int[][] moves = { {1, 0}, {-1, 0}, {0, 1}, {0, -1} };
+
+        line.add(stops.get(i*side + j));
+        visited.add(i*side + j);
+
+        for(int k = 1; k < STOPS_PER_LINE; ++k){
+            int[] move = moves[random.nextInt(moves.length)];
+            int ni = i + move[0];
+            int nj = j + move[1];
+            if(ni < 0 || nj < 0 || ni >= side || nj >= side || visited.contains(ni*side + nj)){
+                continue;
+            }
+            i = ni;
+            j = nj;
+            line.add(stops.get(i*side + j));
+            visited.add(i*side + j);
+        }
+
+        // Une ligne doit relier au moins deux arrêts
+        if(line.size() < 2){
+            int other = (line.get(0) == stops.get(0)) ? 1 : 0;
+            line.add(stops.get(other));
+        }
+        return line;
+    }
+
+    /**
+     * Ajoute au bâtisseur donné les trajets élémentaires d'une course de la ligne donnée, associés au service donné (quotidiens s'il est null).
+     */
+    private static void addTrip(Graph.Builder builder, List<Stop> line, int[] hopTimes, int departure, boolean reverse, Service service){
+        int time = departure;
+        for(int h = 0; h < hopTimes.length; ++h){
+            int from = reverse ? line.size() - 1 - h : h;
+            int to = reverse ? from - 1 : from + 1;
+            int hopTime = hopTimes[reverse ? hopTimes.length - 1 - h : h];
+            if(service == null){
+                builder.addTripEdge(line.get(from), line.get(to), time, time + hopTime);
+            }
+            else{
+                builder.addTripEdge(line.get(from), line.get(to), time, time + hopTime, service);
+            }
+            time += hopTime;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package ch.epfl.isochrone.timetable;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ch.epfl.isochrone.geo.PointWGS84;
+
+/**
+ * Test de la classe ConnectionScan: les heures d'arrivée doivent être celles de Graph.fastestPaths (algorithme de Dijkstra).
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestConnectionScan {
+
+    @Test (expected = IllegalArgumentException.class) // Si l'heure de départ est négative
+    public void testFastestPathsDepartureTimeNegative(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(stop1);
+
+        new ConnectionScan(new Graph.Builder(stops).build()).fastestPaths(stop1, -1);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si l'arrêt de départ ne fait pas partie du graphe
+    public void testFastestPathsUnknownStop(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(stop1);
+
+        new ConnectionScan(new Graph.Builder(stops).build()).fastestPaths(new Stop("Misc2", new PointWGS84(0, 0)), 0);
+    }
+
+    // Les connexions partant avant l'heure de départ sont ignorées, les correspondances à l'heure exacte sont possibles
+    @Test
+    public void testFastestPathsConnections(){
+        Stop a = new Stop("a", new PointWGS84(0, 0));
+        Stop b = new Stop("b", new PointWGS84(0, 0.1));
+        Stop c = new Stop("c", new PointWGS84(0, 0.2));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(a);
+        stops.add(b);
+        stops.add(c);
+
+        Graph.Builder graphBD = new Graph.Builder(stops);
+        graphBD.addTripEdge(a, b, 900, 1000);
+        graphBD.addTripEdge(a, b, 1100, 1300);
+        graphBD.addTripEdge(b, c, 1300, 1400);
+        graphBD.addTripEdge(b, c, 1350, 1500);
+
+        ConnectionScan connectionScan = new ConnectionScan(graphBD.build());
+        FastestPathTree tree = connectionScan.fastestPaths(a, 950);
+        assertEquals(1300, tree.arrivalTime(b));
+        assertEquals(1400, tree.arrivalTime(c));
+        assertEquals(3, tree.pathTo(c).size());
+
+        assertEquals(SecondsPastMidnight.INFINITE, connectionScan.fastestPaths(a, 1101).arrivalTime(c));
+    }
+
+    // Des connexions de durée nulle partant à la même heure doivent pouvoir s'enchaîner, quel que soit leur ordre dans le tableau
+    @Test
+    public void testFastestPathsZeroDurationConnections(){
+        Stop a = new Stop("a", new PointWGS84(0, 0));
+        Stop b = new Stop("b", new PointWGS84(0, 0.1));
+        Stop c = new Stop("c", new PointWGS84(0, 0.2));
+        Stop d = new Stop("d", new PointWGS84(0, 0.3));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(a);
+        stops.add(b);
+        stops.add(c);
+        stops.add(d);
+
+        Graph.Builder graphBD = new Graph.Builder(stops);
+        graphBD.addTripEdge(c, d, 1000, 1000);
+        graphBD.addTripEdge(b, c, 1000, 1000);
+        graphBD.addTripEdge(a, b, 1000, 1000);
+
+        Graph graph = graphBD.build();
+        FastestPathTree tree = new ConnectionScan(graph).fastestPaths(a, 1000);
+        assertEquals(1000, tree.arrivalTime(d));
+        assertEquals(4, tree.pathTo(d).size());
+    }
+
+    // Compare ConnectionScan à Graph.fastestPaths sur des trajets élémentaires aléatoires
+    @Test
+    public void testSameArrivalTimesRandomConnections(){
+        Random random = new Random(2013);
+        for(int network = 0; network < 10; ++network){
+            List<Stop> stops = new ArrayList<Stop>();
+            Graph graph = TestRaptor.randomGraph(random, stops);
+            ConnectionScan connectionScan = new ConnectionScan(graph);
+            for(int query = 0; query < 10; ++query){
+                Stop start = stops.get(random.nextInt(stops.size()));
+                int departureTime = 19000 + random.nextInt(20000);
+                TestRaptor.assertSameTrees(graph.fastestPaths(start, departureTime), connectionScan.fastestPaths(start, departureTime), stops);
+            }
+        }
+    }
+
+    // Compare ConnectionScan à Graph.fastestPaths sur un réseau synthétique de lignes
+    @Test
+    public void testSameArrivalTimesSyntheticNetwork(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        ConnectionScan connectionScan = new ConnectionScan(graph);
+
+        for(Stop start : SearchTestSupport.randomStops(network.stops(), 10)){
+            TestRaptor.assertSameTrees(graph.fastestPaths(start, SecondsPastMidnight.fromHMS(6, 8, 0)), connectionScan.fastestPaths(start, SecondsPastMidnight.fromHMS(6, 8, 0)), network.stops());
+        }
+    }
+
+    // Avec une durée maximale, les arbres doivent être ceux de Graph.fastestPaths limité à la même durée
+    @Test
+    public void testSameArrivalTimesMaxDuration(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        ConnectionScan connectionScan = new ConnectionScan(graph);
+        int maxDuration = SecondsPastMidnight.fromHMS(0, 40, 0);
+
+        for(Stop start : SearchTestSupport.randomStops(network.stops(), 10)){
+            TestRaptor.assertSameTrees(graph.fastestPaths(start, SecondsPastMidnight.fromHMS(6, 8, 0), maxDuration), connectionScan.fastestPaths(start, SecondsPastMidnight.fromHMS(6, 8, 0), maxDuration), network.stops());
+        }
+    }
+
+    // Une durée maximale qui dépasse la capacité d'un int une fois ajoutée à l'heure de départ équivaut à l'absence de limite
+    @Test
+    public void testSameArrivalTimesMaxDurationMaxValue(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        ConnectionScan connectionScan = new ConnectionScan(graph);
+
+        for(Stop start : SearchTestSupport.randomStops(network.stops(), 10)){
+            TestRaptor.assertSameTrees(graph.fastestPaths(start, SecondsPastMidnight.fromHMS(6, 8, 0)), connectionScan.fastestPaths(start, SecondsPastMidnight.fromHMS(6, 8, 0), Integer.MAX_VALUE), network.stops());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ch.epfl.isochrone.timetable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Test de la classe FastestPathBatch
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestFastestPathBatch {
+    private static final int MAX_DURATION = SecondsPastMidnight.fromHMS(0, 40, 0);
+    private static final int[] DEPARTURE_TIMES = { SecondsPastMidnight.fromHMS(6, 0, 0), SecondsPastMidnight.fromHMS(8, 0, 0), SecondsPastMidnight.fromHMS(17, 30, 0) };
+
+    private final SyntheticNetwork network = new SyntheticNetwork(300, 2013, 300, 1.25);
+    private final Graph graph = network.graphBuilder().build();
+    private final List<Stop> startingStops = SearchTestSupport.randomStops(network.stops(), 20);
+
+    @Test (expected = IllegalArgumentException.class) // Si la durée maximale est négative
+    public void testConstructorNegativeMaxDuration(){
+        new FastestPathBatch(graph, -1);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si le nombre de fils d'exécution est nul
+    public void testRunZeroThreads(){
+        new FastestPathBatch(graph, MAX_DURATION).run(startingStops, DEPARTURE_TIMES, 0, new Recorder());
+    }
+
+    // Chaque recherche est remise une seule fois au destinataire, et donne l'arbre de Graph.fastestPaths
+    @Test
+    public void testSameTreesAsSequentialSearches(){
+        for(int numberOfThreads = 1; numberOfThreads <= 4; numberOfThreads *= 2){
+            Recorder recorder = new Recorder();
+            new FastestPathBatch(graph, MAX_DURATION).run(startingStops, DEPARTURE_TIMES, numberOfThreads, recorder);
+
+            // Les arrêts de départ tirés au hasard peuvent se répéter: chaque répétition est une recherche à part
+            assertEquals(startingStops.size() * DEPARTURE_TIMES.length, recorder.count.get());
+            for(Stop startingStop : startingStops){
+                for(int departureTime : DEPARTURE_TIMES){
+                    FastestPathTree expected = graph.fastestPaths(startingStop, departureTime, MAX_DURATION);
+                    FastestPathTree actual = recorder.trees.get(startingStop.name() + "@" + departureTime);
+                    assertEquals(departureTime, actual.startingTime());
+                    SearchTestSupport.checkSameArrivalTimes(expected, actual, network.stops());
+                }
+            }
+        }
+    }
+
+    // Avec un exécuteur fourni, il n'est pas arrêté à la fin du lot et peut en servir d'autres
+    @Test
+    public void testRunWithExecutor(){
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try{
+            FastestPathBatch batch = new FastestPathBatch(graph, MAX_DURATION);
+            for(int run = 0; run < 2; ++run){
+                Recorder recorder = new Recorder();
+                batch.run(startingStops, DEPARTURE_TIMES, executor, 2, recorder);
+                assertEquals(startingStops.size() * DEPARTURE_TIMES.length, recorder.count.get());
+            }
+            assertTrue(!executor.isShutdown());
+        }
+        finally{
+            executor.shutdown();
+        }
+    }
+
+    // Une exception du destinataire est relancée par run, et les recherches suivantes ne sont pas effectuées
+    @Test
+    public void testConsumerExceptionStopsBatch(){
+        final AtomicInteger count = new AtomicInteger();
+        try{
+            new FastestPathBatch(graph, MAX_DURATION).run(startingStops, DEPARTURE_TIMES, 2, new FastestPathBatch.Consumer() {
+                @Override
+                public void accept(Stop startingStop, int departureTime, FastestPathTree tree){
+                    if(count.incrementAndGet() == 3){
+                        throw new IllegalStateException("Destinataire en panne");
+                    }
+                }
+            });
+            assertTrue(false);
+        }
+        catch(IllegalStateException e){
+            assertEquals("Destinataire en panne", e.getMessage());
+        }
+        assertTrue(count.get() < startingStops.size() * DEPARTURE_TIMES.length);
+    }
+
+    /**
+     * Destinataire qui conserve les arbres reçus (par nom d'arrêt et heure de départ) et compte les appels.
+     */
+    private static final class Recorder implements FastestPathBatch.Consumer {
+        private final Map<String, FastestPathTree> trees = new ConcurrentHashMap<String, FastestPathTree>();
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public void accept(Stop startingStop, int departureTime, FastestPathTree tree){
+            trees.put(startingStop.name() + "@" + departureTime, tree);
+            count.incrementAndGet();
+        }
+    }
+}
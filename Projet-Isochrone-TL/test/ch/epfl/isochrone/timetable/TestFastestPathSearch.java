@@ -0,0 +1,222 @@
+package ch.epfl.isochrone.timetable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.epfl.isochrone.geo.PointWGS84;
+
+/**
+ * Test de la classe FastestPathSearch
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestFastestPathSearch {
+
+    @Test (expected = IllegalArgumentException.class) // Si l'arrêt de départ ne fait pas partie du graphe
+    public void testUnknownStartingStop(){
+        List<Stop> stops = new ArrayList<Stop>();
+        Graph graph = TestRaptor.randomGraph(new Random(2013), stops);
+        graph.search(new Stop("inconnu", new PointWGS84(0, 0)), 30000);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si l'heure de départ est négative
+    public void testNegativeDepartureTime(){
+        List<Stop> stops = new ArrayList<Stop>();
+        Graph graph = TestRaptor.randomGraph(new Random(2013), stops);
+        graph.search(stops.get(0), -1);
+    }
+
+    /* Les arrêts sont reçus une seule fois chacun, par heure d'arrivée croissante, avec l'heure d'arrivée et le prédécesseur de l'arbre
+       de Graph.fastestPaths, sur des réseaux aléatoires (connexions de durée nulle comprises) */
+    @Test
+    public void testSameAsFastestPaths(){
+        Random random = new Random(2013);
+        for(int network = 0; network < 5; ++network){
+            List<Stop> stops = new ArrayList<Stop>();
+            Graph graph = TestRaptor.randomGraph(random, stops);
+            for(int query = 0; query < 5; ++query){
+                Stop startingStop = stops.get(random.nextInt(stops.size()));
+                int departureTime = 20000 + random.nextInt(20000);
+                final FastestPathTree expected = graph.fastestPaths(startingStop, departureTime);
+                final Map<Stop, Integer> received = new HashMap<Stop, Integer>();
+                final int[] lastArrivalTime = { departureTime };
+
+                FastestPathSearch search = graph.search(startingStop, departureTime);
+                int settled = search.settleUntil(SecondsPastMidnight.INFINITE, new FastestPathSearch.Listener() {
+                    @Override
+                    public boolean settled(Stop stop, int arrivalTime, Stop predecessor){
+                        assertTrue(arrivalTime >= lastArrivalTime[0]);
+                        assertNull(received.put(stop, arrivalTime));
+                        assertEquals(expected.arrivalTime(stop), arrivalTime);
+                        List<Stop> path = expected.pathTo(stop);
+                        assertEquals((path.size() == 1) ? null : path.get(path.size() - 2), predecessor);
+                        lastArrivalTime[0] = arrivalTime;
+                        return true;
+                    }
+                });
+                assertEquals(expected.stops(), received.keySet());
+                assertEquals(expected.stops().size(), settled);
+                assertTrue(search.isFinished());
+                assertEquals(SecondsPastMidnight.INFINITE, search.nextArrivalTime());
+            }
+        }
+    }
+
+    // Menée tranche par tranche, la recherche donne après chaque tranche l'arbre de Graph.fastestPaths limité à la fin de la tranche
+    @Test
+    public void testSettleByBands(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        int departureTime = SecondsPastMidnight.fromHMS(8, 0, 0);
+        int band = SecondsPastMidnight.fromHMS(0, 5, 0);
+
+        for(Stop startingStop : SearchTestSupport.randomStops(network.stops(), 5)){
+            FastestPathSearch search = graph.search(startingStop, departureTime);
+            assertEquals(departureTime, search.nextArrivalTime());
+            for(int end = departureTime + band; end <= departureTime + 8 * band; end += band){
+                search.settleUntil(end, null);
+                assertTrue(search.nextArrivalTime() > end);
+                FastestPathTree expected = graph.fastestPaths(startingStop, departureTime, end - departureTime);
+                SearchTestSupport.checkSameArrivalTimes(expected, search.tree(), network.stops());
+                assertEquals(expected.stops().size(), search.settledStops());
+            }
+        }
+    }
+
+    // Le destinataire peut suspendre la recherche, qui reprend ensuite là où elle s'était arrêtée
+    @Test
+    public void testPauseAndResume(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        Stop startingStop = network.stops().get(0);
+        int departureTime = SecondsPastMidnight.fromHMS(8, 0, 0);
+
+        FastestPathSearch search = graph.search(startingStop, departureTime);
+        FastestPathSearch.Listener oneStop = new FastestPathSearch.Listener() {
+            @Override
+            public boolean settled(Stop stop, int arrivalTime, Stop predecessor){
+                return false;
+            }
+        };
+        assertEquals(1, search.settleUntil(SecondsPastMidnight.INFINITE, oneStop));
+        assertEquals(1, search.settleUntil(SecondsPastMidnight.INFINITE, oneStop));
+        assertEquals(2, search.settledStops());
+        search.settleUntil(SecondsPastMidnight.INFINITE, null);
+        SearchTestSupport.checkSameArrivalTimes(graph.fastestPaths(startingStop, departureTime), search.tree(), network.stops());
+    }
+
+    // Une recherche annulée, même par son destinataire, ne visite plus aucun arrêt
+    @Test
+    public void testCancel(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        final FastestPathSearch search = graph.search(network.stops().get(0), SecondsPastMidnight.fromHMS(8, 0, 0));
+
+        int settled = search.settleUntil(SecondsPastMidnight.INFINITE, new FastestPathSearch.Listener() {
+            private int count = 0;
+
+            @Override
+            public boolean settled(Stop stop, int arrivalTime, Stop predecessor){
+                if(++count == 10){
+                    search.cancel();
+                }
+                return true;
+            }
+        });
+        assertEquals(10, settled);
+        assertTrue(search.isCancelled());
+        assertTrue(search.isFinished());
+        assertEquals(SecondsPastMidnight.INFINITE, search.nextArrivalTime());
+        assertEquals(0, search.settleUntil(SecondsPastMidnight.INFINITE, null));
+        assertEquals(10, search.tree().stops().size());
+    }
+
+    // Depuis plusieurs arrêts de départ, avec la marche, la recherche complète donne l'arbre de Graph.fastestPaths
+    @Test
+    public void testMultiSourceWithWalking(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().addAllWalkingDistances(500).build();
+        WalkingParameters walking = new WalkingParameters(300, 1.25);
+        int departureTime = SecondsPastMidnight.fromHMS(8, 0, 0);
+        Stop origin = network.stops().get(0);
+        PointWGS84 point = new PointWGS84(origin.position().longitude() + 1e-4, origin.position().latitude());
+        Map<Stop, Integer> startingTimes = graph.startingTimes(point, departureTime, walking);
+
+        FastestPathSearch search = graph.search(startingTimes, departureTime, walking, new RoutingWorkspace(graph));
+        assertFalse(search.isFinished());
+        search.settleUntil(SecondsPastMidnight.INFINITE, null);
+        FastestPathTree expected = graph.fastestPaths(startingTimes, departureTime, SecondsPastMidnight.INFINITE, walking, new RoutingWorkspace(graph));
+        SearchTestSupport.checkSameArrivalTimes(expected, search.tree(), network.stops());
+    }
+
+    /* Un arbre limité à 30 minutes, repris depuis son instantané dans un autre espace de travail (avec l'une ou l'autre queue de priorité),
+       est étendu à 60 minutes: c'est l'arbre de Graph.fastestPaths limité à 60 minutes, même si l'espace de travail d'origine a servi entre-temps */
+    @Test
+    public void testResumeFromSnapshot(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        int departureTime = SecondsPastMidnight.fromHMS(8, 0, 0);
+        int halfHour = SecondsPastMidnight.fromHMS(0, 30, 0);
+        RoutingWorkspace workspace = new RoutingWorkspace(graph);
+        WalkingParameters noWalking = new WalkingParameters(0, 1.25);
+
+        for(Stop startingStop : SearchTestSupport.randomStops(network.stops(), 5)){
+            FastestPathSearch search = graph.search(singleStartingStop(startingStop, departureTime), departureTime, noWalking, workspace);
+            search.settleUntil(departureTime + halfHour, null);
+            FastestPathSearch.Snapshot snapshot = search.snapshot();
+            assertEquals(search.settledStops(), snapshot.settledStops());
+            assertEquals(search.nextArrivalTime(), snapshot.nextArrivalTime());
+            assertEquals(departureTime, snapshot.departureTime());
+
+            // L'espace de travail d'origine sert à une autre recherche
+            graph.search(singleStartingStop(network.stops().get(0), departureTime), departureTime, noWalking, workspace).settleUntil(SecondsPastMidnight.INFINITE, null);
+
+            FastestPathTree expected = graph.fastestPaths(startingStop, departureTime, 2 * halfHour);
+            for(RoutingQueue queue : RoutingQueue.values()){
+                FastestPathSearch resumed = graph.resume(snapshot, new RoutingWorkspace(graph, queue));
+                SearchTestSupport.checkSameArrivalTimes(graph.fastestPaths(startingStop, departureTime, halfHour), resumed.tree(), network.stops());
+                resumed.settleUntil(departureTime + 2 * halfHour, null);
+                SearchTestSupport.checkSameArrivalTimes(expected, resumed.tree(), network.stops());
+                assertEquals(expected.stops().size(), resumed.settledStops());
+                assertEquals(startingStop, resumed.tree().startingStop());
+            }
+        }
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si l'instantané provient d'une recherche dans un autre graphe
+    public void testResumeOtherGraph(){
+        SyntheticNetwork network = new SyntheticNetwork(100, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        FastestPathSearch.Snapshot snapshot = graph.search(network.stops().get(0), 30000).snapshot();
+        Graph other = network.graphBuilder().build();
+        other.resume(snapshot, new RoutingWorkspace(other));
+    }
+
+    @Test (expected = IllegalStateException.class) // Si la recherche a été annulée
+    public void testSnapshotCancelled(){
+        SyntheticNetwork network = new SyntheticNetwork(100, 2013, 300, 1.25);
+        FastestPathSearch search = network.graphBuilder().build().search(network.stops().get(0), 30000);
+        search.cancel();
+        search.snapshot();
+    }
+
+    /**
+     * Retourne la table des heures d'arrivée d'un seul arrêt de départ, atteint à l'heure de départ.
+     */
+    private static Map<Stop, Integer> singleStartingStop(Stop stop, int departureTime){
+        Map<Stop, Integer> startingTimes = new HashMap<Stop, Integer>();
+        startingTimes.put(stop, departureTime);
+        return startingTimes;
+    }
+}
@@ -182,4 +182,41 @@ public class TestFastestPathTree {
    }
    
     
+   //teste le chemin et les arrêts d'un arbre construit par le bâtisseur, y compris après une redéfinition
+   @Test
+   public void testBuilderPathToAndStops(){
+       Stop startingStop = new Stop("startingStop", new PointWGS84(0, 0));
+       List<Stop> stops = new ArrayList<Stop>();
+       stops.add(startingStop);
+       
+       FastestPathTree.Builder builder = new Builder(startingStop, 0);
+       for(int i = 1; i < 100; i++){
+           Stop stop = new Stop("stop" + i, new PointWGS84(0, 0));
+           builder.setArrivalTime(stop, i, stops.get(i - 1));
+           stops.add(stop);
+       }
+       // Raccourci: stop99 atteint directement depuis stop1
+       builder.setArrivalTime(stops.get(99), 99, stops.get(1));
+       FastestPathTree tree = builder.build();
+       
+       assertEquals(100, tree.stops().size());
+       assertTrue(tree.stops().containsAll(stops));
+       assertEquals(50, tree.pathTo(stops.get(49)).size());
+       assertEquals(stops.subList(0, 50), tree.pathTo(stops.get(49)));
+       assertEquals(3, tree.pathTo(stops.get(99)).size());
+       
+       // Le bâtisseur reste utilisable sans modifier l'arbre déjà construit
+       builder.setArrivalTime(new Stop("stop100", new PointWGS84(0, 0)), 100, stops.get(99));
+       assertEquals(100, tree.stops().size());
+       assertEquals(101, builder.build().stops().size());
+   }
+   
+   //teste que l'ensemble des arrêts ne peut être modifié
+   @Test(expected = UnsupportedOperationException.class)
+   public void testStopsUnmodifiable(){
+       Stop startingStop = new Stop("startingStop", new PointWGS84(0, 0));
+       FastestPathTree tree = new FastestPathTree.Builder(startingStop, 0).build();
+       
+       tree.stops().remove(startingStop);
+   }
 }
@@ -0,0 +1,137 @@
+package ch.epfl.isochrone.timetable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ch.epfl.isochrone.timetable.Date.DayOfWeek;
+import ch.epfl.isochrone.timetable.Date.Month;
+
+/**
+ * Test de la classe FinderCache
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestFinderCache {
+    private static final Date MONDAY = new Date(30, Month.SEPTEMBER, 2013);
+
+    private final Service weekdays = service("semaine", DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY, DayOfWeek.FRIDAY);
+    private final Service sunday = service("dimanche", DayOfWeek.SUNDAY);
+    private final SyntheticNetwork network = new SyntheticNetwork(100, 2013, 300, 1.25, Arrays.asList(weekdays, sunday));
+    private final Graph graph = network.graphBuilder().build();
+
+    @Test (expected = IllegalArgumentException.class) // Si le nombre maximum d'entrées est nul
+    public void testConstructorMaxSizeZero(){
+        new FinderCache(graph, 0);
+    }
+
+    // Deux ensembles de services donnant la même vue (le service inconnu du graphe est ignoré) partagent la même entrée, pas deux algorithmes différents
+    @Test
+    public void testSameFingerprintSameFinder(){
+        FinderCache cache = new FinderCache(graph, 4);
+        Set<Service> services = new HashSet<Service>(Arrays.asList(weekdays));
+        Set<Service> servicesWithUnknown = new HashSet<Service>(Arrays.asList(weekdays, service("inconnu", DayOfWeek.MONDAY)));
+
+        FastestPathFinder finder = cache.finderFor(FastestPathAlgorithm.CSA, services);
+        assertSame(finder, cache.finderFor(FastestPathAlgorithm.CSA, servicesWithUnknown));
+        assertNotSame(finder, cache.finderFor(FastestPathAlgorithm.RAPTOR, services));
+        assertNotSame(finder, cache.finderFor(FastestPathAlgorithm.CSA, new HashSet<Service>(Arrays.asList(weekdays, sunday))));
+        assertEquals(3, cache.size());
+    }
+
+    // Un sur-ensemble des services courants ne donne pas le même algorithme (ancienne erreur de containsAll dans IsochroneTL)
+    @Test
+    public void testSupersetDifferentFinder(){
+        FinderCache cache = new FinderCache(graph, 4);
+        Set<Service> services = new HashSet<Service>(Arrays.asList(weekdays));
+        Set<Service> superset = new HashSet<Service>(Arrays.asList(weekdays, sunday));
+        FastestPathFinder finder = cache.finderFor(FastestPathAlgorithm.DIJKSTRA, services);
+        FastestPathFinder supersetFinder = cache.finderFor(FastestPathAlgorithm.DIJKSTRA, superset);
+
+        int departureTime = SecondsPastMidnight.fromHMS(6, 8, 0);
+        Stop start = network.stops().get(0);
+        TestRaptor.assertSameTrees(graph.forServices(superset).fastestPaths(start, departureTime), supersetFinder.fastestPaths(start, departureTime), network.stops());
+        TestRaptor.assertSameTrees(graph.forServices(services).fastestPaths(start, departureTime), finder.fastestPaths(start, departureTime), network.stops());
+    }
+
+    // L'entrée la moins récemment utilisée est retirée en premier
+    @Test
+    public void testLeastRecentlyUsedEviction(){
+        FinderCache cache = new FinderCache(graph, 2);
+        Set<Service> servicesA = new HashSet<Service>(Arrays.asList(weekdays));
+        Set<Service> servicesB = new HashSet<Service>(Arrays.asList(sunday));
+        Set<Service> servicesC = new HashSet<Service>(Arrays.asList(weekdays, sunday));
+
+        FastestPathFinder finderA = cache.finderFor(FastestPathAlgorithm.CSA, servicesA);
+        FastestPathFinder finderB = cache.finderFor(FastestPathAlgorithm.CSA, servicesB);
+        assertSame(finderA, cache.finderFor(FastestPathAlgorithm.CSA, servicesA)); // A devient la plus récemment utilisée
+        cache.finderFor(FastestPathAlgorithm.CSA, servicesC);                      // B est retirée
+        assertEquals(2, cache.size());
+        assertSame(finderA, cache.finderFor(FastestPathAlgorithm.CSA, servicesA));
+        assertNotSame(finderB, cache.finderFor(FastestPathAlgorithm.CSA, servicesB));
+    }
+
+    // Les algorithmes préparés en arrière-plan sont ceux que retourne ensuite finderFor: les jours de semaine partagent une entrée
+    @Test
+    public void testPrewarm(){
+        List<Service> services = new ArrayList<Service>(Arrays.asList(weekdays, sunday));
+        TimeTable timeTable = new TimeTable(network.stopSet(), services);
+        FinderCache cache = new FinderCache(graph, 4);
+
+        cache.prewarm(FastestPathAlgorithm.RAPTOR, timeTable, MONDAY, 7);
+        // Lundi-vendredi, samedi (aucun service) et dimanche
+        assertEquals(3, cache.size());
+        FastestPathFinder monday = cache.finderFor(FastestPathAlgorithm.RAPTOR, timeTable.servicesForDate(MONDAY));
+        assertSame(monday, cache.finderFor(FastestPathAlgorithm.RAPTOR, timeTable.servicesForDate(MONDAY.relative(4))));
+        assertEquals(3, cache.size());
+    }
+
+    // Les algorithmes qui conservent un état sont construits à chaque appel sur les données préparées partagées, qui n'occupent qu'une entrée
+    @Test
+    public void testStatefulFinderPerCall(){
+        FinderCache cache = new FinderCache(graph, 4);
+        Set<Service> services = new HashSet<Service>(Arrays.asList(weekdays));
+        int departureTime = SecondsPastMidnight.fromHMS(6, 8, 0);
+        Stop start = network.stops().get(0);
+
+        for(FastestPathAlgorithm algorithm : new FastestPathAlgorithm[] { FastestPathAlgorithm.DIJKSTRA_WARM_START, FastestPathAlgorithm.PROFILE_CSA }){
+            FastestPathFinder finder = cache.finderFor(algorithm, services);
+            FastestPathFinder otherFinder = cache.finderFor(algorithm, services);
+            assertNotSame(finder, otherFinder);
+            TestRaptor.assertSameTrees(graph.forServices(services).fastestPaths(start, departureTime), finder.fastestPaths(start, departureTime), network.stops());
+            TestRaptor.assertSameTrees(graph.forServices(services).fastestPaths(start, departureTime + 600), otherFinder.fastestPaths(start, departureTime + 600), network.stops());
+        }
+        assertEquals(2, cache.size());
+    }
+
+    // Une seconde préparation des mêmes jours ne crée pas de nouvelles entrées
+    @Test
+    public void testPrewarmTwice(){
+        List<Service> services = new ArrayList<Service>(Arrays.asList(weekdays, sunday));
+        TimeTable timeTable = new TimeTable(network.stopSet(), services);
+        FinderCache cache = new FinderCache(graph, 4);
+
+        cache.prewarm(FastestPathAlgorithm.CSA, timeTable, MONDAY, 7);
+        cache.prewarm(FastestPathAlgorithm.CSA, timeTable, MONDAY, 7);
+        assertEquals(3, cache.size());
+        FastestPathFinder sunday = cache.finderFor(FastestPathAlgorithm.CSA, timeTable.servicesForDate(MONDAY.relative(6)));
+        assertSame(sunday, cache.finderFor(FastestPathAlgorithm.CSA, timeTable.servicesForDate(MONDAY.relative(6))));
+    }
+
+    private static Service service(String name, DayOfWeek... days){
+        Service.Builder builder = new Service.Builder(name, MONDAY, MONDAY.relative(6));
+        for(DayOfWeek day : days){
+            builder.addOperatingDay(day);
+        }
+        return builder.build();
+    }
+}
@@ -1,9 +1,15 @@
 package ch.epfl.isochrone.timetable;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import org.junit.Ignore;
@@ -147,6 +153,35 @@ public class TestGraph {
         Graph.Builder graphBD = new Graph.Builder(stopSet);
         graphBD.addAllWalkEdges(100, 0);
     }
+    
+    // Les trajets à pied trouvés grâce à l'index spatial sont exactement ceux que donne la comparaison de toutes les paires d'arrêts
+    @Test
+    public void testAddAllWalkEdgesSameAsAllPairs(){
+        SyntheticNetwork network = new SyntheticNetwork(2500, 2013, 300, 1.25);
+        Map<Stop, List<GraphEdge>> outgoingEdges = new Graph.Builder(new HashSet<Stop>(network.stops())).addAllWalkEdges(300, 1.25).buildOutgoingEdges();
+        
+        int numberOfEdges = 0;
+        for(Stop stop1 : network.stops()){
+            for(Stop stop2 : network.stops()){
+                double distance = stop1.position().distanceTo(stop2.position());
+                if(stop1 != stop2 && distance < 300 * 1.25){
+                    GraphEdge edge = null;
+                    for(GraphEdge candidate : outgoingEdges.get(stop1)){
+                        if(candidate.destination() == stop2){
+                            edge = candidate;
+                        }
+                    }
+                    assertEquals(Math.round(distance / 1.25), edge.walkingTime());
+                    ++numberOfEdges;
+                }
+            }
+        }
+        int actualNumberOfEdges = 0;
+        for(List<GraphEdge> edges : outgoingEdges.values()){
+            actualNumberOfEdges += edges.size();
+        }
+        assertEquals(numberOfEdges, actualNumberOfEdges);
+    }
         
     @Test
     public void testFastestPaths(){
@@ -213,4 +248,587 @@ public class TestGraph {
             assertTrue( ((Stop)arrayResult[i]).name().equals(supposedResult[i]) );
         }
     }
+    
+    // Un arrêt qui ne peut être atteint ne doit pas faire partie de l'arbre
+    @Test
+    public void testFastestPathsUnreachableStop(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Stop stop2 = new Stop("Misc2", new PointWGS84(0, 0));
+        Stop stop3 = new Stop("Misc3", new PointWGS84(0, 0));
+        
+        Set<Stop> stopSet = new HashSet<Stop>();
+        stopSet.add(stop1);
+        stopSet.add(stop2);
+        stopSet.add(stop3);
+        
+        Graph.Builder graphBD = new Graph.Builder(stopSet);
+        graphBD.addTripEdge(stop1, stop2, 100, 200);
+        graphBD.addTripEdge(stop3, stop1, 100, 200);
+        
+        FastestPathTree tree = graphBD.build().fastestPaths(stop1, 50);
+        
+        assertEquals(2, tree.stops().size());
+        assertEquals(200, tree.arrivalTime(stop2));
+        assertEquals(SecondsPastMidnight.INFINITE, tree.arrivalTime(stop3));
+    }
+    
+    // Un express dépassant un omnibus doit aussi être trouvé par la recherche des trajets les plus rapides
+    @Test
+    public void testFastestPathsOvertakingTrip(){
+        Stop a = new Stop("a", new PointWGS84(0, 0));
+        Stop b = new Stop("b", new PointWGS84(0, 0));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(a);
+        stops.add(b);
+        
+        Graph.Builder graphBD = new Graph.Builder(stops);
+        graphBD.addTripEdge(a, b, 1000, 1900);
+        graphBD.addTripEdge(a, b, 1100, 1400);
+        
+        assertEquals(1400, graphBD.build().fastestPaths(a, 1000).arrivalTime(b));
+    }
+
+    // Les express du réseau synthétique dépassent des omnibus: des trajets dominés sont éliminés, sans changer les heures d'arrivée
+    // obtenues en considérant tous les trajets
+    @Test
+    public void testFastestPathsSameAsUnprunedTrips(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 0, 1.25);
+        List<Stop> stops = network.stops();
+        Graph graph = network.graphBuilder().build();
+        List<int[]> trips = network.trips();
+
+        int numberOfTrips = 0;
+        for(List<GraphEdge> edges : network.graphBuilder().buildOutgoingEdges().values()){
+            for(GraphEdge edge : edges){
+                numberOfTrips += edge.packedTrips().length;
+            }
+        }
+        assertTrue(numberOfTrips < trips.size());
+
+        List<List<int[]>> outgoingTrips = new ArrayList<List<int[]>>();
+        for(int i = 0; i < stops.size(); ++i){
+            outgoingTrips.add(new ArrayList<int[]>());
+        }
+        for(int[] trip : trips){
+            outgoingTrips.get(trip[0]).add(trip);
+        }
+
+        Random random = new Random(2013);
+        for(int q = 0; q < 10; ++q){
+            int startingStop = random.nextInt(stops.size());
+            int departureTime = SecondsPastMidnight.fromHMS(6, 0, 0) + random.nextInt(SecondsPastMidnight.fromHMS(12, 0, 0));
+
+            // Algorithme de Dijkstra élémentaire, qui parcourt tous les trajets de chaque arrêt visité
+            int[] arrivalTimes = new int[stops.size()];
+            boolean[] settled = new boolean[stops.size()];
+            Arrays.fill(arrivalTimes, SecondsPastMidnight.INFINITE);
+            arrivalTimes[startingStop] = departureTime;
+            while(true){
+                int stop = -1;
+                for(int i = 0; i < stops.size(); ++i){
+                    if(!settled[i] && arrivalTimes[i] < SecondsPastMidnight.INFINITE && (stop == -1 || arrivalTimes[i] < arrivalTimes[stop])){
+                        stop = i;
+                    }
+                }
+                if(stop == -1){
+                    break;
+                }
+                settled[stop] = true;
+                for(int[] trip : outgoingTrips.get(stop)){
+                    if(trip[2] >= arrivalTimes[stop] && trip[3] < arrivalTimes[trip[1]]){
+                        arrivalTimes[trip[1]] = trip[3];
+                    }
+                }
+            }
+
+            FastestPathTree tree = graph.fastestPaths(stops.get(startingStop), departureTime);
+            for(int i = 0; i < stops.size(); ++i){
+                assertEquals(arrivalTimes[i], tree.arrivalTime(stops.get(i)));
+            }
+        }
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si la durée maximale est négative
+    public void testFastestPathsMaxDurationNegative(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stopSet = new HashSet<Stop>();
+        stopSet.add(stop1);
+        
+        new Graph.Builder(stopSet).build().fastestPaths(stop1, 0, -1);
+    }
+    
+    // Avec une durée maximale, l'arbre ne contient que les arrêts atteints au plus tard à l'heure de départ plus cette durée, aux mêmes heures
+    @Test
+    public void testFastestPathsMaxDuration(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        int departureTime = SecondsPastMidnight.fromHMS(6, 8, 0);
+        int maxDuration = SecondsPastMidnight.fromHMS(0, 40, 0);
+        
+        for(Stop start : SearchTestSupport.randomStops(network.stops(), 10)){
+            FastestPathTree tree = graph.fastestPaths(start, departureTime);
+            FastestPathTree boundedTree = graph.fastestPaths(start, departureTime, maxDuration);
+            
+            assertTrue(boundedTree.stops().size() < tree.stops().size());
+            for(Stop stop : network.stops()){
+                if(tree.arrivalTime(stop) <= departureTime + maxDuration){
+                    assertEquals(tree.arrivalTime(stop), boundedTree.arrivalTime(stop));
+                    assertEquals(tree.pathTo(stop).size(), boundedTree.pathTo(stop).size());
+                }
+                else{
+                    assertEquals(SecondsPastMidnight.INFINITE, boundedTree.arrivalTime(stop));
+                }
+            }
+        }
+    }
+    
+    // Une durée maximale qui dépasse la capacité d'un int une fois ajoutée à l'heure de départ équivaut à l'absence de limite
+    @Test
+    public void testFastestPathsMaxDurationMaxValue(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        RoutingWorkspace workspace = new RoutingWorkspace(graph);
+        int departureTime = SecondsPastMidnight.fromHMS(6, 8, 0);
+        
+        for(Stop start : SearchTestSupport.randomStops(network.stops(), 10)){
+            FastestPathTree tree = graph.fastestPaths(start, departureTime);
+            TestRaptor.assertSameTrees(tree, graph.fastestPaths(start, departureTime, Integer.MAX_VALUE), network.stops());
+            FastestPathTree earlierTree = graph.fastestPaths(start, departureTime - 600, Integer.MAX_VALUE, workspace);
+            TestRaptor.assertSameTrees(tree, graph.shiftDepartureTime(earlierTree, departureTime, Integer.MAX_VALUE, workspace), network.stops());
+        }
+    }
+    
+    @Test (expected = IllegalArgumentException.class) // Si l'espace de travail est trop petit pour le graphe
+    public void testFastestPathsWorkspaceTooSmall(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Stop stop2 = new Stop("Misc2", new PointWGS84(0, 0));
+        Set<Stop> stopSet = new HashSet<Stop>();
+        stopSet.add(stop1);
+        stopSet.add(stop2);
+        
+        new Graph.Builder(stopSet).build().fastestPaths(stop1, 0, SecondsPastMidnight.INFINITE, new RoutingWorkspace(1));
+    }
+    
+    // Un même espace de travail réutilisé pour des recherches successives (limitées ou non) donne les mêmes arbres qu'une recherche sans espace de travail
+    @Test
+    public void testFastestPathsReusedWorkspace(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        RoutingWorkspace workspace = new RoutingWorkspace(graph);
+        int maxDuration = SecondsPastMidnight.fromHMS(0, 40, 0);
+        
+        int departureTime = SecondsPastMidnight.fromHMS(6, 8, 0);
+        for(Stop start : SearchTestSupport.randomStops(network.stops(), 10)){
+            TestRaptor.assertSameTrees(graph.fastestPaths(start, departureTime),
+                    graph.fastestPaths(start, departureTime, SecondsPastMidnight.INFINITE, workspace), network.stops());
+            TestRaptor.assertSameTrees(graph.fastestPaths(start, departureTime, maxDuration),
+                    graph.fastestPaths(start, departureTime, maxDuration, workspace), network.stops());
+            departureTime += 600;
+        }
+    }
+    
+    @Test (expected = IllegalArgumentException.class) // Si la distance maximale de marche est négative
+    public void testAddAllWalkingDistancesNegative(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stopSet = new HashSet<Stop>();
+        stopSet.add(stop1);
+        
+        new Graph.Builder(stopSet).addAllWalkingDistances(-1);
+    }
+    
+    @Test (expected = IllegalArgumentException.class) // Si les paramètres de marche dépassent la distance des trajets à pied enregistrés
+    public void testFastestPathsWalkingDistanceTooLong(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stopSet = new HashSet<Stop>();
+        stopSet.add(stop1);
+        
+        new Graph.Builder(stopSet).addAllWalkingDistances(375).build().fastestPaths(stop1, 0, SecondsPastMidnight.INFINITE, new WalkingParameters(301, 1.25));
+    }
+    
+    // Un graphe dont les trajets à pied sont enregistrés sous forme de distances donne, pour chaque paramètres de marche,
+    // les mêmes heures d'arrivée qu'un graphe dont les temps de marche ont été calculés à la construction avec ces mêmes paramètres
+    @Test
+    public void testFastestPathsWalkingParameters(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 0, 1.25);
+        Graph.Builder builder = network.graphBuilder();
+        Graph graph = builder.addAllWalkingDistances(600).build();
+        assertEquals(600, graph.maxWalkingDistance(), 0);
+        
+        // Les temps de marche de addAllWalkEdges remplacent les précédents: les seconds paramètres couvrent plus de paires que les premiers
+        WalkingParameters[] walkings = { new WalkingParameters(300, 1.25), new WalkingParameters(480, 1.0), new WalkingParameters(120, 5) };
+        int departureTime = SecondsPastMidnight.fromHMS(6, 8, 0);
+        for(WalkingParameters walking : walkings){
+            Graph walkEdgesGraph = builder.addAllWalkEdges(walking.maxWalkingTime(), walking.walkingSpeed()).build();
+            RoutingWorkspace workspace = new RoutingWorkspace(graph);
+            
+            for(Stop start : SearchTestSupport.randomStops(network.stops(), 5)){
+                FastestPathTree expected = walkEdgesGraph.fastestPaths(start, departureTime);
+                FastestPathTree actual = graph.fastestPaths(start, departureTime, SecondsPastMidnight.INFINITE, walking, workspace);
+                for(Stop stop : network.stops()){
+                    assertEquals(expected.arrivalTime(stop), actual.arrivalTime(stop));
+                }
+            }
+        }
+    }
+    
+    // Les vues d'un graphe contenant les trajets de plusieurs services donnent, pour chaque ensemble de services, les mêmes arbres
+    // qu'un graphe ne contenant que les trajets (quotidiens) de ces services, aussi bien avec Graph.fastestPaths qu'avec Raptor et la recherche par connexions
+    @Test
+    public void testForServicesSameTreesAsPerServicesGraph(){
+        Random random = new Random(2013);
+        List<Service> services = new ArrayList<Service>();
+        for(int i = 0; i < 3; ++i){
+            services.add(new Service.Builder("service" + i, new Date(1, 1, 2014), new Date(31, 12, 2014)).build());
+        }
+        
+        List<Stop> stops = new ArrayList<Stop>();
+        for(int i = 0; i < 60; ++i){
+            stops.add(new Stop("S" + i, new PointWGS84(0.1159 + 0.0002*random.nextDouble(), 0.8115 + 0.0002*random.nextDouble())));
+        }
+        
+        // Trajets élémentaires aléatoires, chacun d'un service aléatoire ou quotidien (-1)
+        int[][] trips = new int[600][];
+        for(int i = 0; i < trips.length; ++i){
+            int departureTime = 20000 + random.nextInt(5000);
+            trips[i] = new int[]{ random.nextInt(stops.size()), random.nextInt(stops.size()), departureTime, departureTime + random.nextInt(600), random.nextInt(services.size() + 1) - 1 };
+        }
+        
+        Graph.Builder allServicesBD = new Graph.Builder(new HashSet<Stop>(stops));
+        for(int[] trip : trips){
+            if(trip[4] == -1){
+                allServicesBD.addTripEdge(stops.get(trip[0]), stops.get(trip[1]), trip[2], trip[3]);
+            }
+            else{
+                allServicesBD.addTripEdge(stops.get(trip[0]), stops.get(trip[1]), trip[2], trip[3], services.get(trip[4]));
+            }
+        }
+        Graph allServicesGraph = allServicesBD.addAllWalkEdges(120, 1.25).build();
+        assertEquals(new HashSet<Service>(services), allServicesGraph.services());
+        
+        // Tous les sous-ensembles de services, plus un service inconnu du graphe (ignoré)
+        Service unknownService = new Service.Builder("inconnu", new Date(1, 1, 2014), new Date(31, 12, 2014)).build();
+        for(int subset = 0; subset < (1 << services.size()); ++subset){
+            Set<Service> activeServices = new HashSet<Service>();
+            activeServices.add(unknownService);
+            Graph.Builder expectedBD = new Graph.Builder(new HashSet<Stop>(stops));
+            for(int i = 0; i < services.size(); ++i){
+                if((subset & (1 << i)) != 0){
+                    activeServices.add(services.get(i));
+                }
+            }
+            for(int[] trip : trips){
+                if(trip[4] == -1 || (subset & (1 << trip[4])) != 0){
+                    expectedBD.addTripEdge(stops.get(trip[0]), stops.get(trip[1]), trip[2], trip[3]);
+                }
+            }
+            Graph expectedGraph = expectedBD.addAllWalkEdges(120, 1.25).build();
+            Graph view = allServicesGraph.forServices(activeServices);
+            Raptor raptor = new Raptor(view);
+            ConnectionScan connectionScan = new ConnectionScan(view);
+            
+            for(int query = 0; query < 5; ++query){
+                Stop start = stops.get(random.nextInt(stops.size()));
+                int departureTime = 19000 + random.nextInt(6000);
+                FastestPathTree expected = expectedGraph.fastestPaths(start, departureTime);
+                TestRaptor.assertSameTrees(expected, view.fastestPaths(start, departureTime), stops);
+                TestRaptor.assertSameTrees(expected, raptor.fastestPaths(start, departureTime), stops);
+                TestRaptor.assertSameTrees(expected, connectionScan.fastestPaths(start, departureTime), stops);
+            }
+        }
+    }
+    
+    @Test (expected = IllegalArgumentException.class) // Si le service est null
+    public void testBuilderAddTripEdgeNullService(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stopSet = new HashSet<Stop>();
+        stopSet.add(stop1);
+        
+        new Graph.Builder(stopSet).addTripEdge(stop1, stop1, 0, 1, null);
+    }
+    
+    // La recherche d'un arrêt à un autre, guidée ou non, donne la même heure d'arrivée que l'arbre des trajets les plus rapides, y compris dans une vue
+    @Test
+    public void testEarliestArrivalSameAsFastestPaths(){
+        Random random = new Random(2013);
+        for(int network = 0; network < 5; ++network){
+            List<Stop> stops = new ArrayList<Stop>();
+            Graph graph = TestRaptor.randomGraph(random, stops);
+            LowerBounds lowerBounds = new LowerBounds(graph, 4);
+            RoutingWorkspace workspace = new RoutingWorkspace(graph);
+            for(int query = 0; query < 20; ++query){
+                Stop from = stops.get(random.nextInt(stops.size()));
+                Stop to = stops.get(random.nextInt(stops.size()));
+                int departureTime = 19000 + random.nextInt(20000);
+                int expected = graph.fastestPaths(from, departureTime).arrivalTime(to);
+                assertEquals(expected, graph.earliestArrival(from, to, departureTime));
+                assertEquals(expected, graph.earliestArrival(from, to, departureTime, lowerBounds, workspace));
+            }
+        }
+        
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        Graph view = graph.forServices(new HashSet<Service>());
+        LowerBounds lowerBounds = new LowerBounds(graph, 8);
+        RoutingWorkspace workspace = new RoutingWorkspace(graph);
+        for(int query = 0; query < 20; ++query){
+            Stop from = network.stops().get(random.nextInt(network.stops().size()));
+            Stop to = network.stops().get(random.nextInt(network.stops().size()));
+            int departureTime = SecondsPastMidnight.fromHMS(6, 0, 0) + random.nextInt(36000);
+            assertEquals(graph.fastestPaths(from, departureTime).arrivalTime(to), view.earliestArrival(from, to, departureTime, lowerBounds, workspace));
+            assertTrue(workspace.settledStops() <= network.stops().size());
+        }
+    }
+    
+    @Test (expected = IllegalArgumentException.class) // Si les bornes ont été calculées pour un autre graphe
+    public void testEarliestArrivalOtherGraphLowerBounds(){
+        SyntheticNetwork network = new SyntheticNetwork(100, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        LowerBounds lowerBounds = new LowerBounds(network.graphBuilder().build(), 2);
+        Stop stop = network.stops().get(0);
+        graph.earliestArrival(stop, stop, 0, lowerBounds, new RoutingWorkspace(graph));
+    }
+    
+    /* La recherche à rebours donne, pour chaque arrêt, la dernière heure de départ permettant d'arriver à temps:
+       en partant à cette heure, la recherche des trajets les plus rapides arrive à temps, et en partant une seconde plus tard, elle arrive trop tard */
+    @Test
+    public void testLatestDeparturesSameAsFastestPaths(){
+        Random random = new Random(2013);
+        for(int network = 0; network < 5; ++network){
+            List<Stop> stops = new ArrayList<Stop>();
+            Graph graph = TestRaptor.randomGraph(random, stops);
+            for(int query = 0; query < 5; ++query){
+                Stop arrivalStop = stops.get(random.nextInt(stops.size()));
+                int arrivalTime = 25000 + random.nextInt(20000);
+                LatestDepartureTree tree = graph.latestDepartures(arrivalStop, arrivalTime);
+                assertEquals(arrivalStop, tree.arrivalStop());
+                assertEquals(arrivalTime, tree.arrivalTime());
+                
+                for(Stop stop : stops){
+                    int departureTime = tree.departureTime(stop);
+                    if(tree.stops().contains(stop)){
+                        assertTrue(graph.fastestPaths(stop, departureTime).arrivalTime(arrivalStop) <= arrivalTime);
+                        assertTrue(graph.fastestPaths(stop, departureTime + 1).arrivalTime(arrivalStop) > arrivalTime);
+                        List<Stop> path = tree.pathFrom(stop);
+                        assertEquals(stop, path.get(0));
+                        assertEquals(arrivalStop, path.get(path.size() - 1));
+                    }
+                    else{
+                        assertEquals(-SecondsPastMidnight.INFINITE, departureTime);
+                        assertTrue(graph.fastestPaths(stop, 0).arrivalTime(arrivalStop) > arrivalTime);
+                    }
+                }
+            }
+        }
+    }
+    
+    // La recherche à rebours limitée à une durée maximale, dans une vue, ne garde que les arrêts de l'arbre complet dont le trajet dure au plus cette durée
+    @Test
+    public void testLatestDeparturesMaxDuration(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph view = network.graphBuilder().build().forServices(new HashSet<Service>());
+        RoutingWorkspace workspace = new RoutingWorkspace(view);
+        int arrivalTime = SecondsPastMidnight.fromHMS(8, 30, 0);
+        int maxDuration = SecondsPastMidnight.fromHMS(0, 30, 0);
+        
+        for(Stop arrivalStop : SearchTestSupport.randomStops(network.stops(), 5)){
+            LatestDepartureTree tree = view.latestDepartures(arrivalStop, arrivalTime);
+            LatestDepartureTree bounded = view.latestDepartures(arrivalStop, arrivalTime, maxDuration, workspace);
+            for(Stop stop : network.stops()){
+                int departureTime = tree.departureTime(stop);
+                if(departureTime >= arrivalTime - maxDuration){
+                    assertEquals(departureTime, bounded.departureTime(stop));
+                }
+                else{
+                    assertEquals(-SecondsPastMidnight.INFINITE, bounded.departureTime(stop));
+                }
+            }
+        }
+    }
+    
+    // Les recherches menées avec le tas radix donnent les mêmes heures que celles menées avec le tas binaire, y compris la recherche guidée et à rebours
+    @Test
+    public void testRadixHeapSameAsBinaryHeap(){
+        Random random = new Random(2013);
+        for(int network = 0; network < 5; ++network){
+            List<Stop> stops = new ArrayList<Stop>();
+            Graph graph = TestRaptor.randomGraph(random, stops);
+            LowerBounds lowerBounds = new LowerBounds(graph, 4);
+            RoutingWorkspace binary = new RoutingWorkspace(graph, RoutingQueue.BINARY_HEAP);
+            RoutingWorkspace radix = new RoutingWorkspace(graph, RoutingQueue.RADIX_HEAP);
+            for(int query = 0; query < 10; ++query){
+                Stop from = stops.get(random.nextInt(stops.size()));
+                Stop to = stops.get(random.nextInt(stops.size()));
+                int time = 19000 + random.nextInt(20000);
+                int maxDuration = (query % 2 == 0) ? SecondsPastMidnight.INFINITE : random.nextInt(3000);
+
+                SearchTestSupport.checkSameArrivalTimes(graph.fastestPaths(from, time, maxDuration, binary), graph.fastestPaths(from, time, maxDuration, radix), stops);
+                assertEquals(binary.settledStops(), radix.settledStops());
+                assertEquals(graph.earliestArrival(from, to, time, lowerBounds, binary), graph.earliestArrival(from, to, time, lowerBounds, radix));
+
+                LatestDepartureTree expected = graph.latestDepartures(to, time, maxDuration, binary);
+                LatestDepartureTree actual = graph.latestDepartures(to, time, maxDuration, radix);
+                for(Stop stop : stops){
+                    assertEquals(expected.departureTime(stop), actual.departureTime(stop));
+                }
+            }
+        }
+    }
+    
+    /* La recherche depuis plusieurs arrêts de départ donne, pour chaque arrêt, la meilleure des heures d'arrivée des recherches depuis chacun d'eux,
+       et chaque chemin part de l'un des arrêts de départ */
+    @Test
+    public void testMultiSourceSameAsSingleSources(){
+        Random random = new Random(2013);
+        for(int network = 0; network < 5; ++network){
+            List<Stop> stops = new ArrayList<Stop>();
+            Graph graph = TestRaptor.randomGraph(random, stops);
+            for(int query = 0; query < 5; ++query){
+                int departureTime = 20000 + random.nextInt(20000);
+                Map<Stop, Integer> startingTimes = new HashMap<Stop, Integer>();
+                for(int k = 0; k < 3; ++k){
+                    startingTimes.put(stops.get(random.nextInt(stops.size())), departureTime + random.nextInt(600));
+                }
+                FastestPathTree tree = graph.fastestPaths(startingTimes, departureTime, SecondsPastMidnight.INFINITE);
+                assertEquals(departureTime, tree.startingTime());
+                assertTrue(startingTimes.containsKey(tree.startingStop()));
+                
+                for(Stop stop : stops){
+                    int expected = SecondsPastMidnight.INFINITE;
+                    for(Map.Entry<Stop, Integer> startingTime : startingTimes.entrySet()){
+                        expected = Math.min(expected, graph.fastestPaths(startingTime.getKey(), startingTime.getValue()).arrivalTime(stop));
+                    }
+                    assertEquals(expected, tree.arrivalTime(stop));
+                    if(tree.stops().contains(stop)){
+                        List<Stop> path = tree.pathTo(stop);
+                        assertTrue(startingTimes.containsKey(path.get(0)));
+                        assertEquals(stop, path.get(path.size() - 1));
+                    }
+                }
+            }
+        }
+    }
+    
+    // Les arrêts de départ depuis un lieu quelconque sont exactement ceux situés à distance de marche, atteints à pied
+    @Test
+    public void testStartingTimesFromPoint(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        WalkingParameters walking = new WalkingParameters(600, 1.25);
+        int departureTime = SecondsPastMidnight.fromHMS(8, 0, 0);
+        
+        for(Stop origin : SearchTestSupport.randomStops(network.stops(), 5)){
+            PointWGS84 point = new PointWGS84(origin.position().longitude() + 1e-4, origin.position().latitude());
+            Map<Stop, Integer> startingTimes = graph.startingTimes(point, departureTime, walking);
+            for(Stop stop : network.stops()){
+                double distance = point.distanceTo(stop.position());
+                if(distance < walking.maxWalkingDistance()){
+                    assertEquals(departureTime + walking.walkingTime(distance), (int) startingTimes.get(stop));
+                }
+                else{
+                    assertTrue(!startingTimes.containsKey(stop));
+                }
+            }
+            assertTrue(graph.fastestPaths(startingTimes, departureTime, SecondsPastMidnight.fromHMS(0, 30, 0)).stops().containsAll(startingTimes.keySet()));
+        }
+        
+        // Loin de tout arrêt, aucun arrêt de départ
+        assertTrue(graph.startingTimes(new PointWGS84(0, 0), departureTime, walking).isEmpty());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testMultiSourceNoStartingStop(){
+        List<Stop> stops = new ArrayList<Stop>();
+        Graph graph = TestRaptor.randomGraph(new Random(2013), stops);
+        graph.fastestPaths(new HashMap<Stop, Integer>(), 30000, SecondsPastMidnight.INFINITE);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testMultiSourceStartingTimeBeforeDeparture(){
+        List<Stop> stops = new ArrayList<Stop>();
+        Graph graph = TestRaptor.randomGraph(new Random(2013), stops);
+        Map<Stop, Integer> startingTimes = new HashMap<Stop, Integer>();
+        startingTimes.put(stops.get(0), 29999);
+        graph.fastestPaths(startingTimes, 30000, SecondsPastMidnight.INFINITE);
+    }
+    
+    /* Corriger l'arbre précédent pour une heure de départ avancée ou reculée (de peu ou de beaucoup) donne les heures d'arrivée d'une nouvelle recherche,
+       avec des chemins qui partent de l'arrêt de départ, y compris en enchaînant les corrections, avec le tas radix et par WarmStartFinder */
+    @Test
+    public void testShiftDepartureTimeSameAsFastestPaths(){
+        Random random = new Random(2013);
+        for(int network = 0; network < 5; ++network){
+            List<Stop> stops = new ArrayList<Stop>();
+            Graph graph = TestRaptor.randomGraph(random, stops);
+            for(RoutingQueue queue : RoutingQueue.values()){
+                RoutingWorkspace workspace = new RoutingWorkspace(graph, queue);
+                for(int query = 0; query < 4; ++query){
+                    Stop startingStop = stops.get(random.nextInt(stops.size()));
+                    int maxDuration = (query % 2 == 0) ? SecondsPastMidnight.INFINITE : random.nextInt(3000);
+                    int departureTime = 20000 + random.nextInt(20000);
+                    FastestPathTree tree = graph.fastestPaths(startingStop, departureTime, maxDuration);
+                    WarmStartFinder finder = new WarmStartFinder(graph);
+                    finder.fastestPaths(startingStop, departureTime, maxDuration);
+                    
+                    for(int shift = 0; shift < 8; ++shift){
+                        departureTime = Math.max(0, departureTime + ((shift < 4) ? 60 : 1200) * (random.nextBoolean() ? 1 : -1));
+                        FastestPathTree expected = graph.fastestPaths(startingStop, departureTime, maxDuration);
+                        tree = graph.shiftDepartureTime(tree, departureTime, maxDuration, workspace);
+                        assertEquals(startingStop, tree.startingStop());
+                        assertEquals(departureTime, tree.startingTime());
+                        SearchTestSupport.checkSameArrivalTimes(expected, tree, stops);
+                        SearchTestSupport.checkSameArrivalTimes(expected, finder.fastestPaths(startingStop, departureTime, maxDuration), stops);
+                        for(Stop stop : tree.stops()){
+                            List<Stop> path = tree.pathTo(stop);
+                            assertEquals(startingStop, path.get(0));
+                            for(int k = 1; k < path.size(); ++k){
+                                assertTrue(tree.arrivalTime(path.get(k - 1)) <= tree.arrivalTime(path.get(k)));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        
+        // Dans une vue, seuls les trajets des services actifs sont empruntés
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph view = network.graphBuilder().build().forServices(new HashSet<Service>());
+        RoutingWorkspace workspace = new RoutingWorkspace(view);
+        int maxDuration = SecondsPastMidnight.fromHMS(0, 40, 0);
+        for(Stop startingStop : SearchTestSupport.randomStops(network.stops(), 5)){
+            int departureTime = SecondsPastMidnight.fromHMS(8, 0, 0);
+            FastestPathTree tree = view.fastestPaths(startingStop, departureTime, maxDuration);
+            for(int shift = 0; shift < 5; ++shift){
+                departureTime += random.nextInt(241) - 120;
+                tree = view.shiftDepartureTime(tree, departureTime, maxDuration, workspace);
+                SearchTestSupport.checkSameArrivalTimes(view.fastestPaths(startingStop, departureTime, maxDuration), tree, network.stops());
+            }
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class) // Si l'arbre précédent a été calculé par un autre graphe
+    public void testShiftDepartureTimeOtherGraph(){
+        SyntheticNetwork network = new SyntheticNetwork(100, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        FastestPathTree tree = network.graphBuilder().build().fastestPaths(network.stops().get(0), 30000);
+        graph.shiftDepartureTime(tree, 30060, SecondsPastMidnight.INFINITE, new RoutingWorkspace(graph));
+    }
+    
+    @Test(expected = IllegalArgumentException.class) // Si l'arbre précédent a plusieurs arrêts de départ
+    public void testShiftDepartureTimeMultipleSources(){
+        SyntheticNetwork network = new SyntheticNetwork(100, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        Map<Stop, Integer> startingTimes = new HashMap<Stop, Integer>();
+        startingTimes.put(network.stops().get(0), 30000);
+        startingTimes.put(network.stops().get(1), 30000);
+        FastestPathTree tree = graph.fastestPaths(startingTimes, 30000, SecondsPastMidnight.INFINITE);
+        graph.shiftDepartureTime(tree, 30060, SecondsPastMidnight.INFINITE, new RoutingWorkspace(graph));
+    }
+    
+    @Test(expected = IllegalArgumentException.class) // Si l'arbre précédent a été calculé avec des trajets à pied sous forme de distances
+    public void testShiftDepartureTimeWalkingParameters(){
+        SyntheticNetwork network = new SyntheticNetwork(100, 2013, 0, 1.25);
+        Graph graph = network.graphBuilder().addAllWalkingDistances(600).build();
+        FastestPathTree tree = graph.fastestPaths(network.stops().get(0), 30000, SecondsPastMidnight.INFINITE, new WalkingParameters(300, 1.25));
+        graph.shiftDepartureTime(tree, 30060, SecondsPastMidnight.INFINITE, new RoutingWorkspace(graph));
+    }
 }
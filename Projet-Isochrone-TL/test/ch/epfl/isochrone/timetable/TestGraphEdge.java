@@ -4,6 +4,7 @@ import static ch.epfl.isochrone.timetable.GraphEdge.packTrip;
 import static ch.epfl.isochrone.timetable.GraphEdge.unpackTripArrivalTime;
 import static ch.epfl.isochrone.timetable.GraphEdge.unpackTripDepartureTime;
 import static ch.epfl.isochrone.timetable.GraphEdge.unpackTripDuration;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.util.Collections;
@@ -198,5 +199,156 @@ public class TestGraphEdge {
         gb.setWalkingTime(-2);
         
     }
+    
+    //Teste la recherche sur un intervalle d'un tableau de trajets, telle qu'utilisée par la représentation compacte du graphe
+    @Test
+    public void testStaticEarliestArrivalTimeRange(){
+        
+        // Deux arcs consécutifs dans le même tableau: [0; 2[ et [2; 4[
+        int[] packedTrips = { packTrip(100, 200), packTrip(300, 400), packTrip(100, 150), packTrip(500, 600) };
+        
+        assertEquals(200, GraphEdge.earliestArrivalTime(packedTrips, 0, 2, -1, 50));
+        assertEquals(400, GraphEdge.earliestArrivalTime(packedTrips, 0, 2, -1, 101));
+        assertEquals(SecondsPastMidnight.INFINITE, GraphEdge.earliestArrivalTime(packedTrips, 0, 2, -1, 301));
+        assertEquals(401, GraphEdge.earliestArrivalTime(packedTrips, 0, 2, 100, 301));
+        assertEquals(150, GraphEdge.earliestArrivalTime(packedTrips, 2, 4, -1, 100));
+        assertEquals(160, GraphEdge.earliestArrivalTime(packedTrips, 2, 2, 10, 150));
+    }
+    
+    //Teste que le bâtisseur trie et dédoublonne les trajets ajoutés
+    @Test
+    public void testBuilderSortedDistinctTrips(){
+        
+        Stop s = new Stop("s", new PointWGS84(0, 0));
+        
+        GraphEdge.Builder gb = new GraphEdge.Builder(s);
+        gb.addTrip(300, 400);
+        gb.addTrip(100, 200);
+        gb.addTrip(300, 400);
+        gb.addTrip(200, 250);
+        gb.addTrip(100, 200);
+        gb.addTrip(500, 600);
+        GraphEdge g = gb.build();
+        
+        int[] expected = { packTrip(100, 200), packTrip(200, 250), packTrip(300, 400), packTrip(500, 600) };
+        assertArrayEquals(expected, g.packedTrips());
+        assertEquals(250, g.earliestArrivalTime(150));
+    }
+    
+    /* Trajet possible!
+       Scénario où un express partant plus tard dépasse un omnibus: l'express doit être retourné */
+    @Test
+    public void testEarliestArrivalTimeOvertakingTrip(){
+        
+        Stop s = new Stop("s", new PointWGS84(0, 0));
+        
+        GraphEdge.Builder gb = new GraphEdge.Builder(s);
+        gb.addTrip(1000, 1900); // omnibus
+        gb.addTrip(1100, 1400); // express, dépasse l'omnibus
+        gb.addTrip(1200, 1500);
+        gb.addTrip(1300, 2000); // omnibus dépassé par le trajet suivant
+        gb.addTrip(1350, 1600);
+        GraphEdge g = gb.build();
+        
+        assertEquals(1400, g.earliestArrivalTime(900));
+        assertEquals(1400, g.earliestArrivalTime(1100));
+        assertEquals(1500, g.earliestArrivalTime(1101));
+        assertEquals(1600, g.earliestArrivalTime(1250));
+        assertEquals(SecondsPastMidnight.INFINITE, g.earliestArrivalTime(1351));
+        
+        // Seuls les trajets non dominés sont conservés
+        int[] expected = { packTrip(1100, 1400), packTrip(1200, 1500), packTrip(1350, 1600) };
+        assertArrayEquals(expected, g.packedTrips());
+    }
+    
+    // Deux trajets arrivant au même moment: seul celui qui part le plus tard est utile
+    @Test
+    public void testEarliestArrivalTimeSameArrival(){
+        
+        Stop s = new Stop("s", new PointWGS84(0, 0));
+        
+        GraphEdge.Builder gb = new GraphEdge.Builder(s);
+        gb.addTrip(100, 500);
+        gb.addTrip(200, 500);
+        gb.addTrip(300, 400);
+        GraphEdge g = gb.build();
+        
+        assertEquals(400, g.earliestArrivalTime(0));
+        assertEquals(1, g.packedTrips().length);
+    }
+
+    // Deux trajets du même service partant au même moment: seul celui qui arrive le plus tôt est utile
+    @Test
+    public void testEarliestArrivalTimeSameDeparture(){
+
+        Stop s = new Stop("s", new PointWGS84(0, 0));
+
+        GraphEdge.Builder gb = new GraphEdge.Builder(s);
+        gb.addTrip(100, 500);
+        gb.addTrip(100, 300);
+        gb.addTrip(200, 600, 0);
+        gb.addTrip(200, 400, 0);
+        gb.addTrip(200, 450, 1);
+        GraphEdge g = gb.build();
+
+        int[] expected = { packTrip(100, 300), packTrip(200, 400), packTrip(200, 450) };
+        assertArrayEquals(expected, g.packedTrips());
+        assertArrayEquals(new int[]{ -1, 0, 1 }, g.tripServices());
+        assertEquals(300, g.earliestArrivalTime(0));
+    }
 
+    /* Trajets de services différents: un trajet dominé par celui d'un autre service est conservé, car il sert les dates où l'autre ne circule pas.
+       Seuls les trajets quotidiens (-1) et ceux des services actifs sont empruntés. */
+    @Test
+    public void testEarliestArrivalTimeServices(){
+        
+        Stop s = new Stop("s", new PointWGS84(0, 0));
+        
+        GraphEdge.Builder gb = new GraphEdge.Builder(s);
+        gb.addTrip(100, 500, 0);
+        gb.addTrip(200, 400, 1); // domine le trajet du service 0
+        gb.addTrip(150, 450, 1); // dominé par le trajet précédent, du même service
+        gb.addTrip(600, 700);    // quotidien
+        GraphEdge g = gb.build();
+        
+        int[] expected = { packTrip(100, 500), packTrip(200, 400), packTrip(600, 700) };
+        assertArrayEquals(expected, g.packedTrips());
+        assertArrayEquals(new int[]{ 0, 1, -1 }, g.tripServices());
+        
+        int[] trips = g.packedTrips();
+        int[] services = g.tripServices();
+        long[] onlyService0 = { 1L };
+        long[] onlyService1 = { 2L };
+        long[] noService = { 0L };
+        assertEquals(500, GraphEdge.earliestArrivalTime(trips, services, onlyService0, 0, trips.length, -1, 0));
+        assertEquals(400, GraphEdge.earliestArrivalTime(trips, services, onlyService1, 0, trips.length, -1, 0));
+        assertEquals(700, GraphEdge.earliestArrivalTime(trips, services, noService, 0, trips.length, -1, 0));
+        assertEquals(150, GraphEdge.earliestArrivalTime(trips, services, noService, 0, trips.length, 150, 0));
+    }
+    
+    // Dernière heure de départ pour arriver à temps: le trajet qui part le plus tard parmi ceux qui arrivent à temps, ou la marche
+    @Test
+    public void testLatestDepartureTime(){
+        
+        Stop s = new Stop("s", new PointWGS84(0, 0));
+        
+        GraphEdge.Builder gb = new GraphEdge.Builder(s);
+        gb.addTrip(1000, 1900); // omnibus, dépassé par l'express
+        gb.addTrip(1100, 1400); // express
+        gb.addTrip(1200, 1500);
+        gb.addTrip(1350, 1600);
+        GraphEdge g = gb.build();
+        
+        assertEquals(1350, g.latestDepartureTime(1600));
+        assertEquals(1200, g.latestDepartureTime(1599));
+        assertEquals(1100, g.latestDepartureTime(1400));
+        assertEquals(-SecondsPastMidnight.INFINITE, g.latestDepartureTime(1399));
+        
+        gb.setWalkingTime(300);
+        GraphEdge walkable = gb.build();
+        assertEquals(1099, walkable.latestDepartureTime(1399));
+        assertEquals(1350, walkable.latestDepartureTime(1600));
+        assertEquals(1400, walkable.latestDepartureTime(1700));
+        assertEquals(-SecondsPastMidnight.INFINITE, walkable.latestDepartureTime(299));
+    }
 }
@@ -0,0 +1,125 @@
+package ch.epfl.isochrone.timetable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test de la classe IndexedMinHeap
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestIndexedMinHeap {
+
+    @Test (expected = IllegalArgumentException.class) // Si la capacité est négative
+    public void testConstructorNegativeCapacity(){
+        new IndexedMinHeap(-1);
+    }
+
+    @Test (expected = NoSuchElementException.class) // Si on retire d'un tas vide
+    public void testRemoveMinEmpty(){
+        new IndexedMinHeap(3).removeMin();
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si l'index est ajouté deux fois
+    public void testAddTwice(){
+        IndexedMinHeap heap = new IndexedMinHeap(3);
+        heap.add(1, 10);
+        heap.add(1, 20);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si la nouvelle clef est plus grande que l'actuelle
+    public void testDecreaseKeyIncrease(){
+        IndexedMinHeap heap = new IndexedMinHeap(3);
+        heap.add(1, 10);
+        heap.decreaseKey(1, 11);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si l'index n'est pas dans le tas
+    public void testDecreaseKeyAbsent(){
+        IndexedMinHeap heap = new IndexedMinHeap(3);
+        heap.add(1, 10);
+        heap.removeMin();
+        heap.decreaseKey(1, 5);
+    }
+
+    //Teste que la diminution de clef réordonne bien le tas et que la clef est conservée après le retrait
+    @Test
+    public void testDecreaseKey(){
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        heap.add(0, 40);
+        heap.add(1, 30);
+        heap.add(2, 20);
+        heap.add(3, 10);
+
+        heap.decreaseKey(0, 5);
+        assertEquals(5, heap.minKey());
+        assertEquals(0, heap.removeMin());
+        assertFalse(heap.contains(0));
+        assertTrue(heap.wasRemoved(0));
+        assertFalse(heap.wasRemoved(1));
+        assertEquals(5, heap.key(0));
+
+        assertEquals(3, heap.removeMin());
+        assertEquals(2, heap.removeMin());
+        assertEquals(1, heap.removeMin());
+        assertTrue(heap.isEmpty());
+    }
+
+    //Teste sur des clefs aléatoires que les index sortent bien dans l'ordre croissant des clefs
+    @Test
+    public void testRandomOrder(){
+        Random random = new Random(2013);
+        int n = 500;
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        int[] keys = new int[n];
+
+        for(int i = 0; i < n; ++i){
+            keys[i] = random.nextInt(100000);
+            heap.add(i, keys[i]);
+        }
+        for(int i = 0; i < n; i += 3){
+            keys[i] = keys[i] / 2;
+            heap.decreaseKey(i, keys[i]);
+        }
+
+        int[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+
+        for(int i = 0; i < n; ++i){
+            assertEquals(n - i, heap.size());
+            int index = heap.removeMin();
+            assertEquals(sortedKeys[i], keys[index]);
+        }
+    }
+
+    //Teste que le tas vidé oublie les index ajoutés et retirés auparavant, et qu'il reste utilisable
+    @Test
+    public void testClear(){
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        heap.add(0, 40);
+        heap.add(1, 30);
+        assertEquals(1, heap.removeMin());
+
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(0));
+        assertFalse(heap.wasRemoved(1));
+
+        heap.add(1, 10);
+        heap.add(0, 20);
+        heap.add(2, 5);
+        assertEquals(3, heap.size());
+        assertEquals(2, heap.removeMin());
+        assertEquals(1, heap.removeMin());
+        assertTrue(heap.wasRemoved(1));
+        assertTrue(heap.contains(0));
+    }
+}
@@ -0,0 +1,82 @@
+package ch.epfl.isochrone.timetable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ch.epfl.isochrone.geo.PointWGS84;
+
+/**
+ * Test de la classe LowerBounds
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestLowerBounds {
+
+    @Test (expected = IllegalArgumentException.class) // Si le nombre de points de repère est négatif
+    public void testConstructorNegativeLandmarks(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(stop1);
+        new LowerBounds(new Graph.Builder(stops).build(), -1);
+    }
+
+    // Les bornes ne dépassent jamais la durée réelle des trajets, quelle que soit l'heure de départ
+    @Test
+    public void testLowerBoundsAdmissible(){
+        Random random = new Random(2013);
+        for(int network = 0; network < 5; ++network){
+            List<Stop> stops = new ArrayList<Stop>();
+            Graph graph = TestRaptor.randomGraph(random, stops);
+            LowerBounds lowerBounds = new LowerBounds(graph, 4);
+            assertEquals(4, lowerBounds.numberOfLandmarks());
+
+            for(int query = 0; query < 10; ++query){
+                Stop start = stops.get(random.nextInt(stops.size()));
+                int departureTime = 19000 + random.nextInt(20000);
+                FastestPathTree tree = graph.fastestPaths(start, departureTime);
+                for(Stop stop : tree.stops()){
+                    int bound = lowerBounds.lowerBound(graph.stopId(start), graph.stopId(stop));
+                    assertTrue(bound <= tree.arrivalTime(stop) - departureTime);
+                }
+            }
+        }
+    }
+
+    // Un arrêt d'où l'arrêt d'arrivée ne peut être atteint, quelle que soit l'heure, est reconnu comme tel
+    @Test
+    public void testLowerBoundUnreachable(){
+        Stop a = new Stop("a", new PointWGS84(0, 0));
+        Stop b = new Stop("b", new PointWGS84(0, 0.1));
+        Stop c = new Stop("c", new PointWGS84(0, 0.2));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(a);
+        stops.add(b);
+        stops.add(c);
+
+        Graph.Builder graphBD = new Graph.Builder(stops);
+        graphBD.addTripEdge(a, b, 100, 400);
+        graphBD.addTripEdge(a, b, 1000, 1200);
+        graphBD.addTripEdge(b, c, 2000, 2500);
+        Graph graph = graphBD.build();
+        LowerBounds lowerBounds = new LowerBounds(graph, 3);
+
+        int ia = graph.stopId(a);
+        int ib = graph.stopId(b);
+        int ic = graph.stopId(c);
+        assertEquals(LowerBounds.UNREACHABLE, lowerBounds.lowerBound(ic, ia));
+        assertEquals(LowerBounds.UNREACHABLE, lowerBounds.lowerBound(ib, ia));
+        // Durées minimales: 200 s de a à b, 500 s de b à c
+        assertEquals(700, lowerBounds.lowerBound(ia, ic));
+        assertEquals(200, lowerBounds.lowerBound(ia, ib));
+        assertEquals(0, lowerBounds.lowerBound(ib, ib));
+    }
+}
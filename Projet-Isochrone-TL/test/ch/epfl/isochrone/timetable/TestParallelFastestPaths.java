@@ -0,0 +1,96 @@
+package ch.epfl.isochrone.timetable;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import ch.epfl.isochrone.geo.PointWGS84;
+import ch.epfl.isochrone.timetable.Date.DayOfWeek;
+
+/**
+ * Test de la classe ParallelFastestPaths
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestParallelFastestPaths {
+    private static final int[] DELTAS = { 1, 60, 900, 86400 };
+
+    @Test (expected = IllegalArgumentException.class) // Si la largeur des casiers est nulle
+    public void testConstructorZeroDelta(){
+        List<Stop> stops = new ArrayList<Stop>();
+        new ParallelFastestPaths(TestRaptor.randomGraph(new Random(2013), stops), new ForkJoinPool(2), 0);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si l'arrêt de départ ne fait pas partie du graphe
+    public void testUnknownStartingStop(){
+        List<Stop> stops = new ArrayList<Stop>();
+        Graph graph = TestRaptor.randomGraph(new Random(2013), stops);
+        new ParallelFastestPaths(graph, new ForkJoinPool(2), 60).fastestPaths(new Stop("inconnu", new PointWGS84(0, 0)), 30000);
+    }
+
+    /* Les heures d'arrivée sont celles de Graph.fastestPaths, pour toute largeur de casiers, sur des réseaux aléatoires
+       (connexions de durée nulle comprises), et chaque chemin mène de l'arrêt de départ à son arrêt d'arrivée */
+    @Test
+    public void testSameAsFastestPaths(){
+        Random random = new Random(2013);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try{
+            for(int network = 0; network < 5; ++network){
+                List<Stop> stops = new ArrayList<Stop>();
+                Graph graph = TestRaptor.randomGraph(random, stops);
+                for(int delta : DELTAS){
+                    ParallelFastestPaths finder = new ParallelFastestPaths(graph, pool, delta);
+                    for(int query = 0; query < 5; ++query){
+                        Stop startingStop = stops.get(random.nextInt(stops.size()));
+                        int departureTime = 20000 + random.nextInt(20000);
+                        int maxDuration = (query == 0) ? SecondsPastMidnight.INFINITE : random.nextInt(3000);
+                        FastestPathTree expected = graph.fastestPaths(startingStop, departureTime, maxDuration);
+                        FastestPathTree actual = finder.fastestPaths(startingStop, departureTime, maxDuration);
+                        SearchTestSupport.checkSameArrivalTimes(expected, actual, stops);
+                        for(Stop stop : actual.stops()){
+                            List<Stop> path = actual.pathTo(stop);
+                            assertEquals(startingStop, path.get(0));
+                            assertEquals(stop, path.get(path.size() - 1));
+                        }
+                    }
+                }
+            }
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+
+    // Sur un réseau plus grand, les phases comptent assez d'arrêts pour être réparties entre plusieurs tâches, y compris dans une vue
+    @Test
+    public void testParallelPhasesInView(){
+        Service weekdays = new Service.Builder("semaine", new Date(1, Date.Month.JANUARY, 2013), new Date(31, Date.Month.DECEMBER, 2013))
+                .addOperatingDay(DayOfWeek.MONDAY).build();
+        Service sunday = new Service.Builder("dimanche", new Date(1, Date.Month.JANUARY, 2013), new Date(31, Date.Month.DECEMBER, 2013))
+                .addOperatingDay(DayOfWeek.SUNDAY).build();
+        SyntheticNetwork network = new SyntheticNetwork(3000, 2013, 300, 1.25, Arrays.asList(weekdays, sunday));
+        Graph graph = network.graphBuilder().build();
+        Graph view = graph.forServices(new HashSet<Service>(Arrays.asList(sunday)));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try{
+            for(Graph g : Arrays.asList(graph, view)){
+                ParallelFastestPaths finder = new ParallelFastestPaths(g, pool, 3600);
+                for(Stop startingStop : SearchTestSupport.randomStops(network.stops(), 5)){
+                    int departureTime = SecondsPastMidnight.fromHMS(8, 0, 0);
+                    SearchTestSupport.checkSameArrivalTimes(g.fastestPaths(startingStop, departureTime), finder.fastestPaths(startingStop, departureTime), network.stops());
+                }
+            }
+        }
+        finally{
+            pool.shutdown();
+        }
+    }
+}
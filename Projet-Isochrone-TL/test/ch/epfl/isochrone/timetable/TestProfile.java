@@ -0,0 +1,171 @@
+package ch.epfl.isochrone.timetable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ch.epfl.isochrone.geo.PointWGS84;
+
+/**
+ * Test des classes Profile et ProfileFinder: pour toute heure de départ de la fenêtre, les heures d'arrivée doivent être celles de Graph.fastestPaths.
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestProfile {
+
+    @Test (expected = IllegalArgumentException.class) // Si la fin de la fenêtre est antérieure à son début
+    public void testProfileInvalidWindow(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(stop1);
+
+        new ConnectionScan(new Graph.Builder(stops).build()).profile(stop1, 1000, 999);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si l'arrêt de départ ne fait pas partie du graphe
+    public void testProfileUnknownStop(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(stop1);
+
+        new ConnectionScan(new Graph.Builder(stops).build()).profile(new Stop("Misc2", new PointWGS84(0, 0)), 0, 1000);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si l'heure de départ ne fait pas partie de la fenêtre
+    public void testArrivalTimeOutsideWindow(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(stop1);
+
+        new ConnectionScan(new Graph.Builder(stops).build()).profile(stop1, 0, 1000).arrivalTime(stop1, 1001);
+    }
+
+    // Fonction d'arrivée en escalier sur une ligne a -> b -> c desservie toutes les 1000 secondes, express compris
+    @Test
+    public void testPiecewiseArrivalTimes(){
+        Stop a = new Stop("a", new PointWGS84(0, 0));
+        Stop b = new Stop("b", new PointWGS84(0, 0.1));
+        Stop c = new Stop("c", new PointWGS84(0, 0.2));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(a);
+        stops.add(b);
+        stops.add(c);
+
+        Graph.Builder graphBD = new Graph.Builder(stops);
+        for(int departure = 1000; departure <= 5000; departure += 1000){
+            graphBD.addTripEdge(a, b, departure, departure + 100).addTripEdge(b, c, departure + 100, departure + 200);
+        }
+        // Un express a -> c, parti après l'omnibus de 2000 mais arrivé avant lui
+        graphBD.addTripEdge(a, c, 2050, 2150);
+
+        Profile profile = new ConnectionScan(graphBD.build()).profile(a, 1500, 3500);
+        assertArrayEquals(new int[] {2000, 3000, 3500}, profile.departureTimes(b));
+        assertArrayEquals(new int[] {2100, 3100, 4100}, profile.arrivalTimes(b));
+        assertArrayEquals(new int[] {2050, 3000, 3500}, profile.departureTimes(c));
+        assertArrayEquals(new int[] {2150, 3200, 4200}, profile.arrivalTimes(c));
+        assertEquals(-1, profile.walkingTime(c));
+
+        assertEquals(2150, profile.arrivalTime(c, 1500));
+        assertEquals(2150, profile.arrivalTime(c, 2050));
+        assertEquals(3200, profile.arrivalTime(c, 2051));
+        assertEquals(4200, profile.arrivalTime(c, 3500));
+        assertEquals(3000, profile.arrivalTime(a, 3000));
+        assertEquals(2, profile.fastestPaths(2000).pathTo(c).size());
+    }
+
+    // Compare les profils à Graph.fastestPaths, seconde par seconde, sur des trajets élémentaires aléatoires reliés à pied
+    @Test
+    public void testSameArrivalTimesRandomConnections(){
+        Random random = new Random(2013);
+        for(int network = 0; network < 5; ++network){
+            List<Stop> stops = new ArrayList<Stop>();
+            Graph graph = TestRaptor.randomGraph(random, stops);
+            ConnectionScan connectionScan = new ConnectionScan(graph);
+            for(int query = 0; query < 3; ++query){
+                Stop start = stops.get(random.nextInt(stops.size()));
+                int windowStart = 25000 + random.nextInt(10000);
+                Profile profile = connectionScan.profile(start, windowStart, windowStart + 1200);
+                for(int departureTime = windowStart; departureTime <= windowStart + 1200; departureTime += 1 + random.nextInt(20)){
+                    FastestPathTree expected = graph.fastestPaths(start, departureTime);
+                    TestRaptor.assertSameTrees(expected, profile.fastestPaths(departureTime), stops);
+                    for(Stop stop : stops){
+                        assertEquals(expected.arrivalTime(stop), profile.arrivalTime(stop, departureTime));
+                    }
+                }
+            }
+        }
+    }
+
+    // Compare les profils à Graph.fastestPaths sur un réseau synthétique de lignes, et vérifie que ProfileFinder donne les mêmes arbres
+    @Test
+    public void testSameArrivalTimesSyntheticNetwork(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        ProfileFinder profileFinder = new ProfileFinder(new ConnectionScan(graph), SecondsPastMidnight.fromHMS(0, 30, 0));
+
+        for(Stop start : SearchTestSupport.randomStops(network.stops(), 5)){
+            for(int departureTime = SecondsPastMidnight.fromHMS(7, 0, 0); departureTime < SecondsPastMidnight.fromHMS(8, 0, 0); departureTime += 97){
+                TestRaptor.assertSameTrees(graph.fastestPaths(start, departureTime), profileFinder.fastestPaths(start, departureTime), network.stops());
+            }
+        }
+    }
+
+    // Profils limités à une durée maximale: mêmes arbres que Graph.fastestPaths limité à la même durée, y compris pour une durée plus courte
+    @Test
+    public void testSameArrivalTimesMaxDuration(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        ConnectionScan connectionScan = new ConnectionScan(graph);
+        int windowStart = SecondsPastMidnight.fromHMS(7, 0, 0);
+        int maxDuration = SecondsPastMidnight.fromHMS(0, 40, 0);
+
+        for(Stop start : SearchTestSupport.randomStops(network.stops(), 5)){
+            Profile profile = connectionScan.profile(start, windowStart, windowStart + 1800, maxDuration);
+            for(int departureTime = windowStart; departureTime <= windowStart + 1800; departureTime += 97){
+                FastestPathTree expected = graph.fastestPaths(start, departureTime, maxDuration);
+                TestRaptor.assertSameTrees(expected, profile.fastestPaths(departureTime), network.stops());
+                TestRaptor.assertSameTrees(graph.fastestPaths(start, departureTime, 600), profile.fastestPaths(departureTime, 600), network.stops());
+                for(Stop stop : network.stops()){
+                    assertEquals(expected.arrivalTime(stop), profile.arrivalTime(stop, departureTime));
+                }
+            }
+        }
+    }
+
+    // Un profil de durée maximale Integer.MAX_VALUE (qui dépasse la capacité d'un int une fois ajoutée à l'heure de départ) équivaut à un profil sans limite
+    @Test
+    public void testSameArrivalTimesMaxDurationMaxValue(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        ConnectionScan connectionScan = new ConnectionScan(graph);
+        int windowStart = SecondsPastMidnight.fromHMS(7, 0, 0);
+
+        for(Stop start : SearchTestSupport.randomStops(network.stops(), 5)){
+            Profile profile = connectionScan.profile(start, windowStart, windowStart + 1800, Integer.MAX_VALUE);
+            for(int departureTime = windowStart; departureTime <= windowStart + 1800; departureTime += 97){
+                FastestPathTree expected = graph.fastestPaths(start, departureTime);
+                TestRaptor.assertSameTrees(expected, profile.fastestPaths(departureTime), network.stops());
+                for(Stop stop : network.stops()){
+                    assertEquals(expected.arrivalTime(stop), profile.arrivalTime(stop, departureTime));
+                }
+            }
+        }
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si la durée maximale demandée dépasse celle du profil
+    public void testFastestPathsMaxDurationTooLong(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(stop1);
+
+        new ConnectionScan(new Graph.Builder(stops).build()).profile(stop1, 0, 1000, 600).fastestPaths(0, 601);
+    }
+}
@@ -0,0 +1,152 @@
+package ch.epfl.isochrone.timetable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Test de la classe RadixHeap
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestRadixHeap {
+
+    @Test (expected = IllegalArgumentException.class) // Si la capacité est négative
+    public void testConstructorNegativeCapacity(){
+        new RadixHeap(-1);
+    }
+
+    @Test (expected = NoSuchElementException.class) // Si on retire d'un tas vide
+    public void testRemoveMinEmpty(){
+        new RadixHeap(3).removeMin();
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si l'index est ajouté deux fois
+    public void testAddTwice(){
+        RadixHeap heap = new RadixHeap(3);
+        heap.add(1, 10);
+        heap.add(1, 20);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si la nouvelle clef est plus grande que l'actuelle
+    public void testDecreaseKeyIncrease(){
+        RadixHeap heap = new RadixHeap(3);
+        heap.add(1, 10);
+        heap.decreaseKey(1, 11);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si la clef ajoutée est inférieure à la dernière clef minimum
+    public void testAddBelowLastMinKey(){
+        RadixHeap heap = new RadixHeap(3);
+        heap.add(1, 10);
+        heap.add(2, 20);
+        heap.removeMin();
+        heap.add(0, 9);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si la clef diminuée est inférieure à la dernière clef minimum
+    public void testDecreaseKeyBelowLastMinKey(){
+        RadixHeap heap = new RadixHeap(3);
+        heap.add(1, 10);
+        heap.add(2, 20);
+        heap.removeMin();
+        heap.decreaseKey(2, 5);
+    }
+
+    //Teste que la diminution de clef déplace bien l'index et que la clef est conservée après le retrait
+    @Test
+    public void testDecreaseKey(){
+        RadixHeap heap = new RadixHeap(4);
+        heap.add(0, 40);
+        heap.add(1, 30);
+        heap.add(2, 20);
+        heap.add(3, 10);
+
+        heap.decreaseKey(0, 5);
+        assertEquals(5, heap.minKey());
+        assertEquals(0, heap.removeMin());
+        assertFalse(heap.contains(0));
+        assertTrue(heap.wasRemoved(0));
+        assertFalse(heap.wasRemoved(1));
+        assertEquals(5, heap.key(0));
+
+        heap.decreaseKey(1, 10);
+        assertEquals(10, heap.minKey());
+        assertEquals(10, heap.key(heap.removeMin()));
+        assertEquals(10, heap.key(heap.removeMin()));
+        assertEquals(2, heap.removeMin());
+        assertTrue(heap.isEmpty());
+    }
+
+    /* Teste, sur une suite aléatoire d'opérations monotones (comme celles de l'algorithme de Dijkstra, clefs négatives comprises),
+       que les clefs sortent dans le même ordre que celles du tas binaire */
+    @Test
+    public void testSameOrderAsBinaryHeap(){
+        Random random = new Random(2013);
+        int n = 500;
+        for(int round = 0; round < 20; ++round){
+            RadixHeap radix = new RadixHeap(n);
+            IndexedMinHeap binary = new IndexedMinHeap(n);
+            int lastMinKey = (round % 2 == 0) ? 0 : -200000;
+            radix.add(0, lastMinKey);
+            binary.add(0, lastMinKey);
+
+            while(!binary.isEmpty()){
+                assertEquals(binary.size(), radix.size());
+                assertEquals(binary.minKey(), radix.minKey());
+                lastMinKey = binary.minKey();
+                radix.removeMin();
+                binary.removeMin();
+
+                for(int k = 0; k < 3; ++k){
+                    int index = random.nextInt(n);
+                    int key = lastMinKey + random.nextInt(1 << random.nextInt(18));
+                    if(!binary.contains(index) && !binary.wasRemoved(index)){
+                        radix.add(index, key);
+                        binary.add(index, key);
+                    }
+                    else if(binary.contains(index) && key < binary.key(index)){
+                        radix.decreaseKey(index, key);
+                        binary.decreaseKey(index, key);
+                    }
+                }
+            }
+            assertTrue(radix.isEmpty());
+            for(int i = 0; i < n; ++i){
+                assertEquals(binary.wasRemoved(i), radix.wasRemoved(i));
+                if(binary.wasRemoved(i)){
+                    assertEquals(binary.key(i), radix.key(i));
+                }
+            }
+        }
+    }
+
+    //Teste que le tas vidé oublie les index ajoutés et retirés auparavant ainsi que la dernière clef minimum, et qu'il reste utilisable
+    @Test
+    public void testClear(){
+        RadixHeap heap = new RadixHeap(4);
+        heap.add(0, 40);
+        heap.add(1, 30);
+        assertEquals(1, heap.removeMin());
+
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(0));
+        assertFalse(heap.wasRemoved(1));
+
+        heap.add(1, 10);
+        heap.add(0, 20);
+        heap.add(2, 5);
+        assertEquals(3, heap.size());
+        assertEquals(2, heap.removeMin());
+        assertEquals(1, heap.removeMin());
+        assertTrue(heap.wasRemoved(1));
+        assertTrue(heap.contains(0));
+    }
+}
@@ -0,0 +1,195 @@
+package ch.epfl.isochrone.timetable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import ch.epfl.isochrone.geo.PointWGS84;
+
+/**
+ * Test de la classe Raptor: les heures d'arrivée doivent être celles de Graph.fastestPaths (algorithme de Dijkstra).
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestRaptor {
+
+    @Test (expected = IllegalArgumentException.class) // Si l'heure de départ est négative
+    public void testFastestPathsDepartureTimeNegative(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(stop1);
+
+        new Raptor(new Graph.Builder(stops).build()).fastestPaths(stop1, -1);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si l'arrêt de départ ne fait pas partie du graphe
+    public void testFastestPathsUnknownStop(){
+        Stop stop1 = new Stop("Misc1", new PointWGS84(0, 0));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(stop1);
+
+        new Raptor(new Graph.Builder(stops).build()).fastestPaths(new Stop("Misc2", new PointWGS84(0, 0)), 0);
+    }
+
+    // Les trajets élémentaires d'une même course sont enchaînés en une ligne; un express qui dépasse l'omnibus forme une autre ligne
+    @Test
+    public void testRoutesFromConnections(){
+        Stop a = new Stop("a", new PointWGS84(0, 0));
+        Stop b = new Stop("b", new PointWGS84(0, 0));
+        Stop c = new Stop("c", new PointWGS84(0, 0));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(a);
+        stops.add(b);
+        stops.add(c);
+
+        Graph.Builder graphBD = new Graph.Builder(stops);
+        // Deux omnibus a -> b -> c
+        graphBD.addTripEdge(a, b, 1000, 1100).addTripEdge(b, c, 1100, 1200);
+        graphBD.addTripEdge(a, b, 2000, 2100).addTripEdge(b, c, 2100, 2200);
+        // Un express a -> b -> c, parti après le premier omnibus mais arrivé avant lui à c
+        graphBD.addTripEdge(a, b, 1010, 1050).addTripEdge(b, c, 1050, 1090);
+
+        // Le premier omnibus, dominé par l'express entre a et b, n'est conservé qu'entre b et c: lignes b -> c et a -> b -> c (express, second omnibus)
+        Raptor raptor = new Raptor(graphBD.build());
+        assertEquals(2, raptor.routeCount());
+
+        FastestPathTree tree = raptor.fastestPaths(a, 1000);
+        assertEquals(1050, tree.arrivalTime(b));
+        assertEquals(1090, tree.arrivalTime(c));
+        assertEquals(3, tree.pathTo(c).size());
+
+        assertEquals(1200, raptor.fastestPaths(b, 1060).arrivalTime(c));
+        assertEquals(2200, raptor.fastestPaths(b, 1101).arrivalTime(c));
+    }
+
+    // Correspondance à pied entre deux lignes (arrêts distants d'environ 64 mètres)
+    @Test
+    public void testFastestPathsWalkingTransfer(){
+        Stop a = new Stop("a", new PointWGS84(0, 0));
+        Stop b = new Stop("b", new PointWGS84(0, 0.1));
+        Stop c = new Stop("c", new PointWGS84(0, 0.1 + 1e-5));
+        Stop d = new Stop("d", new PointWGS84(0, 0.2));
+        Set<Stop> stops = new HashSet<Stop>();
+        stops.add(a);
+        stops.add(b);
+        stops.add(c);
+        stops.add(d);
+
+        Graph.Builder graphBD = new Graph.Builder(stops);
+        graphBD.addTripEdge(a, b, 1000, 1500);
+        graphBD.addTripEdge(c, d, 1500, 2000);
+        graphBD.addTripEdge(c, d, 1600, 2100);
+        graphBD.addAllWalkEdges(300, 1.25);
+
+        Graph graph = graphBD.build();
+        FastestPathTree tree = new Raptor(graph).fastestPaths(a, 900);
+
+        assertEquals(graph.fastestPaths(a, 900).arrivalTime(d), tree.arrivalTime(d));
+        assertEquals(2100, tree.arrivalTime(d));
+        assertEquals(4, tree.pathTo(d).size());
+    }
+
+    // Compare Raptor à Graph.fastestPaths sur des trajets élémentaires aléatoires: dépassements, arrêts, trajets de durée nulle, boucles
+    @Test
+    public void testSameArrivalTimesRandomConnections(){
+        Random random = new Random(2013);
+        for(int network = 0; network < 10; ++network){
+            List<Stop> stops = new ArrayList<Stop>();
+            Graph graph = randomGraph(random, stops);
+            Raptor raptor = new Raptor(graph);
+            for(int query = 0; query < 10; ++query){
+                Stop start = stops.get(random.nextInt(stops.size()));
+                int departureTime = 19000 + random.nextInt(20000);
+                assertSameTrees(graph.fastestPaths(start, departureTime), raptor.fastestPaths(start, departureTime), stops);
+            }
+        }
+    }
+
+    // Compare Raptor à Graph.fastestPaths sur un réseau synthétique de lignes
+    @Test
+    public void testSameArrivalTimesSyntheticNetwork(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        Raptor raptor = new Raptor(graph);
+
+        for(Stop start : SearchTestSupport.randomStops(network.stops(), 10)){
+            assertSameTrees(graph.fastestPaths(start, SecondsPastMidnight.fromHMS(6, 8, 0)), raptor.fastestPaths(start, SecondsPastMidnight.fromHMS(6, 8, 0)), network.stops());
+        }
+    }
+
+    /**
+     * Construit un graphe aléatoire de 60 arrêts proches les uns des autres (reliés à pied) et de 200 courses aléatoires de 1 à 6 trajets élémentaires,
+     * avec des arrêts prolongés et des trajets de durée nulle. Les arrêts créés sont ajoutés à la liste donnée.
+     */
+    static Graph randomGraph(Random random, List<Stop> stops){
+        for(int i = 0; i < 60; ++i){
+            stops.add(new Stop("S" + i, new PointWGS84(0.1159 + 0.0002*random.nextDouble(), 0.8115 + 0.0002*random.nextDouble())));
+        }
+
+        Graph.Builder graphBD = new Graph.Builder(new HashSet<Stop>(stops));
+        for(int trip = 0; trip < 200; ++trip){
+            Stop from = stops.get(random.nextInt(stops.size()));
+            int time = 20000 + random.nextInt(20000);
+            for(int hop = random.nextInt(6); hop >= 0; --hop){
+                Stop to = stops.get(random.nextInt(stops.size()));
+                int arrival = time + random.nextInt(300);
+                graphBD.addTripEdge(from, to, time, arrival);
+                from = to;
+                time = arrival + ((random.nextInt(4) == 0) ? random.nextInt(60) : 0);
+            }
+        }
+        graphBD.addAllWalkEdges(120, 1.25);
+        return graphBD.build();
+    }
+
+    /**
+     * Vérifie que les deux arbres ont les mêmes arrêts et heures d'arrivée, et que les chemins du second arrivent bien aux heures annoncées
+     * (l'heure d'arrivée ne décroît pas le long du chemin).
+     */
+    static void assertSameTrees(FastestPathTree expected, FastestPathTree actual, List<Stop> stops){
+        assertEquals(expected.stops(), actual.stops());
+        for(Stop stop : stops){
+            assertEquals(expected.arrivalTime(stop), actual.arrivalTime(stop));
+        }
+        for(Stop stop : actual.stops()){
+            List<Stop> path = actual.pathTo(stop);
+            assertTrue(path.get(0) == actual.startingStop());
+            for(int i = 1; i < path.size(); ++i){
+                assertTrue(actual.arrivalTime(path.get(i - 1)) <= actual.arrivalTime(path.get(i)));
+            }
+        }
+    }
+
+    // Avec une durée maximale, les arbres doivent être ceux de Graph.fastestPaths limité à la même durée
+    @Test
+    public void testSameArrivalTimesMaxDuration(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        Raptor raptor = new Raptor(graph);
+        int maxDuration = SecondsPastMidnight.fromHMS(0, 40, 0);
+
+        for(Stop start : SearchTestSupport.randomStops(network.stops(), 10)){
+            TestRaptor.assertSameTrees(graph.fastestPaths(start, SecondsPastMidnight.fromHMS(6, 8, 0), maxDuration), raptor.fastestPaths(start, SecondsPastMidnight.fromHMS(6, 8, 0), maxDuration), network.stops());
+        }
+    }
+
+    // Une durée maximale qui dépasse la capacité d'un int une fois ajoutée à l'heure de départ équivaut à l'absence de limite
+    @Test
+    public void testSameArrivalTimesMaxDurationMaxValue(){
+        SyntheticNetwork network = new SyntheticNetwork(400, 2013, 300, 1.25);
+        Graph graph = network.graphBuilder().build();
+        Raptor raptor = new Raptor(graph);
+
+        for(Stop start : SearchTestSupport.randomStops(network.stops(), 10)){
+            TestRaptor.assertSameTrees(graph.fastestPaths(start, SecondsPastMidnight.fromHMS(6, 8, 0)), raptor.fastestPaths(start, SecondsPastMidnight.fromHMS(6, 8, 0), Integer.MAX_VALUE), network.stops());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package ch.epfl.isochrone.timetable;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import ch.epfl.isochrone.geo.PointWGS84;
+import ch.epfl.isochrone.timetable.Date.DayOfWeek;
+
+/**
+ * Test de la classe ReachabilityScan
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestReachabilityScan {
+
+    @Test (expected = IllegalArgumentException.class) // Si un arrêt de départ ne fait pas partie du graphe
+    public void testUnknownStartingStop(){
+        List<Stop> stops = new ArrayList<Stop>();
+        Graph graph = TestRaptor.randomGraph(new Random(2013), stops);
+        new ReachabilityScan(graph).reachability(Arrays.asList(new Stop("inconnu", new PointWGS84(0, 0))), 30000, 600);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si la durée maximale est négative
+    public void testNegativeMaxDuration(){
+        List<Stop> stops = new ArrayList<Stop>();
+        Graph graph = TestRaptor.randomGraph(new Random(2013), stops);
+        new ReachabilityScan(graph).reachability(stops, 30000, -1);
+    }
+
+    /* Les arrêts atteignables depuis chaque arrêt de départ sont ceux de l'arbre des trajets les plus rapides limité à la même durée,
+       sur des réseaux aléatoires (connexions de durée nulle et trajets à pied compris), avec plus de 64 arrêts de départ (deux groupes) */
+    @Test
+    public void testSameAsFastestPaths(){
+        Random random = new Random(2013);
+        for(int network = 0; network < 5; ++network){
+            List<Stop> stops = new ArrayList<Stop>();
+            Graph graph = TestRaptor.randomGraph(random, stops);
+            List<Stop> startingStops = new ArrayList<Stop>(stops);
+            startingStops.addAll(stops.subList(0, 10));
+            ReachabilityScan scan = new ReachabilityScan(graph);
+
+            for(int query = 0; query < 4; ++query){
+                int departureTime = 20000 + random.nextInt(20000);
+                int maxDuration = (query == 0) ? SecondsPastMidnight.INFINITE : random.nextInt(3000);
+                ReachabilityMatrix matrix = scan.reachability(startingStops, departureTime, maxDuration);
+                assertEquals(startingStops, matrix.startingStops());
+                for(int o = 0; o < startingStops.size(); ++o){
+                    FastestPathTree tree = graph.fastestPaths(startingStops.get(o), departureTime, maxDuration);
+                    assertEquals(tree.stops(), matrix.reachableStops(o));
+                    for(Stop stop : stops){
+                        assertEquals(tree.stops().contains(stop), matrix.isReachable(o, stop));
+                    }
+                }
+            }
+        }
+    }
+
+    // Dans une vue, seuls les trajets des services actifs sont empruntés
+    @Test
+    public void testServicesView(){
+        Service weekdays = new Service.Builder("semaine", new Date(1, Date.Month.JANUARY, 2013), new Date(31, Date.Month.DECEMBER, 2013))
+                .addOperatingDay(DayOfWeek.MONDAY).build();
+        Service sunday = new Service.Builder("dimanche", new Date(1, Date.Month.JANUARY, 2013), new Date(31, Date.Month.DECEMBER, 2013))
+                .addOperatingDay(DayOfWeek.SUNDAY).build();
+        SyntheticNetwork network = new SyntheticNetwork(300, 2013, 300, 1.25, Arrays.asList(weekdays, sunday));
+        Graph view = network.graphBuilder().build().forServices(new HashSet<Service>(Arrays.asList(sunday)));
+        List<Stop> startingStops = SearchTestSupport.randomStops(network.stops(), 20);
+        int departureTime = SecondsPastMidnight.fromHMS(8, 0, 0);
+        int maxDuration = SecondsPastMidnight.fromHMS(0, 30, 0);
+
+        ReachabilityMatrix matrix = new ReachabilityScan(view).reachability(startingStops, departureTime, maxDuration);
+        for(int o = 0; o < startingStops.size(); ++o){
+            assertEquals(view.fastestPaths(startingStops.get(o), departureTime, maxDuration).stops(), matrix.reachableStops(o));
+        }
+    }
+}
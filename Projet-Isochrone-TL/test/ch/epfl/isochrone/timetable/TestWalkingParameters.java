@@ -0,0 +1,40 @@
+package ch.epfl.isochrone.timetable;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Test de la classe WalkingParameters
+ *
+ * @author Alexandre Simoes Tavares (234563)
+ * @author Lois Talagrand (234231)
+ */
+public class TestWalkingParameters {
+
+    @Test (expected = IllegalArgumentException.class) // Si le temps maximum de marche est négatif
+    public void testConstructorMaxWalkingTimeNegative(){
+        new WalkingParameters(-1, 1.25);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si la vitesse de marche est nulle
+    public void testConstructorWalkingSpeedZero(){
+        new WalkingParameters(300, 0);
+    }
+
+    @Test (expected = IllegalArgumentException.class) // Si la vitesse de marche n'est pas un nombre
+    public void testConstructorWalkingSpeedNaN(){
+        new WalkingParameters(300, Double.NaN);
+    }
+
+    //Teste la distance maximale et l'arrondi du temps de marche, identiques à ceux de Graph.Builder.addAllWalkEdges
+    @Test
+    public void testWalkingTime(){
+        WalkingParameters walking = new WalkingParameters(300, 1.25);
+        assertEquals(375, walking.maxWalkingDistance(), 0);
+        assertEquals(0, walking.walkingTime(0));
+        assertEquals(80, walking.walkingTime(100));
+        assertEquals(81, walking.walkingTime(100.625));
+        assertEquals(300, walking.walkingTime(374.9));
+    }
+}